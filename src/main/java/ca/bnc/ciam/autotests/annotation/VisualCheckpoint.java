@@ -1,5 +1,6 @@
 package ca.bnc.ciam.autotests.annotation;
 
+import ca.bnc.ciam.autotests.visual.model.ComparisonMethod;
 import ca.bnc.ciam.autotests.visual.model.MismatchBehavior;
 import ca.bnc.ciam.autotests.visual.model.ScreenshotType;
 
@@ -10,7 +11,7 @@ import java.lang.annotation.Target;
 
 /**
  * Configures visual checkpoint settings for a test method.
- * Allows customization of screenshot type, element selector, and mismatch behavior.
+ * Allows customization of screenshot type, element selector, comparison method, and mismatch behavior.
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
@@ -46,4 +47,9 @@ public @interface VisualCheckpoint {
      * CSS selectors for regions to ignore during comparison
      */
     String[] ignoreRegions() default {};
+
+    /**
+     * Comparison engine for this checkpoint (SSIM tolerates rendering noise at a higher cost)
+     */
+    ComparisonMethod method() default ComparisonMethod.PIXEL;
 }
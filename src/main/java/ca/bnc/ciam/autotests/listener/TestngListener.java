@@ -8,6 +8,8 @@ import ca.bnc.ciam.autotests.config.ContextConfigLoader;
 import ca.bnc.ciam.autotests.metrics.MetricsCollector;
 import ca.bnc.ciam.autotests.metrics.MetricsReportGenerator;
 import ca.bnc.ciam.autotests.metrics.TestMetrics;
+import ca.bnc.ciam.autotests.utils.VisualCapture;
+import ca.bnc.ciam.autotests.visual.AsyncArtifactWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.testng.IAnnotationTransformer;
 import org.testng.IMethodInstance;
@@ -24,8 +26,10 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -33,6 +37,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * - Lexicographic ordering of test methods (t001, t002, etc.)
  * - Automatic dependency checking via @DependentStep annotation
  * - Visual checkpoint handling
+ * - Background prefetch of the planned classes' visual baselines (bnc.visual.prefetch.enabled)
  * - Test lifecycle logging
  * - Automatic test report generation (HTML, JSON, CSV)
  * - Automatic retry of failed tests (configurable via bnc.test.retry.enabled)
@@ -133,6 +138,13 @@ public class TestngListener implements ITestListener, IMethodInterceptor, IAnnot
                     method.getMethod().getTestClass().getName());
         }
 
+        // Load the planned classes' baselines in the background while the first tests set up
+        Set<String> plannedClasses = new LinkedHashSet<>();
+        for (IMethodInstance method : result) {
+            plannedClasses.add(method.getMethod().getTestClass().getRealClass().getSimpleName());
+        }
+        VisualCapture.prefetchBaselines(plannedClasses);
+
         return result;
     }
 
@@ -200,8 +212,8 @@ public class TestngListener implements ITestListener, IMethodInterceptor, IAnnot
             log.info("Visual check SKIPPED for this test. Reason: {}",
                     skipVisual.reason().isEmpty() ? "Not specified" : skipVisual.reason());
         } else if (visualCheckpoint != null) {
-            log.info("Visual checkpoint configured: type={}, mismatch={}",
-                    visualCheckpoint.type(), visualCheckpoint.onMismatch());
+            log.info("Visual checkpoint configured: type={}, method={}, mismatch={}",
+                    visualCheckpoint.type(), visualCheckpoint.method(), visualCheckpoint.onMismatch());
         }
 
         log.info("=".repeat(80));
@@ -297,6 +309,9 @@ public class TestngListener implements ITestListener, IMethodInterceptor, IAnnot
             MetricsCollector.getInstance().startSuite(context);
             log.info("Metrics collection enabled - reports will be generated at suite completion");
         }
+
+        // Load the visual AI model in the background (opt-in)
+        VisualCapture.warmUpAsync();
     }
 
     /**
@@ -337,6 +352,9 @@ public class TestngListener implements ITestListener, IMethodInterceptor, IAnnot
 
     @Override
     public void onFinish(ITestContext context) {
+        // Soft visual checks not resolved after their test method fail their test now
+        failPendingVisualChecks(context);
+
         int passed = context.getPassedTests().size();
         int failed = context.getFailedTests().size();
         int skipped = context.getSkippedTests().size();
@@ -350,6 +368,11 @@ public class TestngListener implements ITestListener, IMethodInterceptor, IAnnot
                 total > 0 ? String.format("%.1f", (passed * 100.0) / total) : "N/A");
         log.info("#".repeat(80));
 
+        // Finish background artifact writes so report links point at existing files
+        if (!AsyncArtifactWriter.getInstance().flush()) {
+            log.warn("Some visual artifacts were still being written when reports were generated");
+        }
+
         // Generate reports
         if (isMetricsEnabled()) {
             generateReports(context);
@@ -360,11 +383,35 @@ public class TestngListener implements ITestListener, IMethodInterceptor, IAnnot
         classHasFailure.clear();
     }
 
+    /**
+     * Wait for the remaining soft visual checks of this context and move passed tests
+     * with a failed check to the failures.
+     */
+    private void failPendingVisualChecks(ITestContext context) {
+        Map<ITestResult, List<String>> failures = MetricsCollector.getInstance().awaitAllVisualChecks(context);
+        for (Map.Entry<ITestResult, List<String>> entry : failures.entrySet()) {
+            ITestResult result = entry.getKey();
+            String message = "Soft visual check(s) failed:\n  " + String.join("\n  ", entry.getValue());
+            if (result == null) {
+                log.error("{} (outside a test method)", message);
+                continue;
+            }
+            log.error("{}: {}", result.getMethod().getQualifiedName(), message);
+            if (result.isSuccess() && context.getPassedTests().getAllResults().contains(result)) {
+                context.getPassedTests().removeResult(result);
+                result.setStatus(ITestResult.FAILURE);
+                result.setThrowable(new AssertionError(message));
+                context.getFailedTests().addResult(result);
+            }
+        }
+    }
+
     /**
      * Generate test reports in all formats (HTML, JSON, CSV).
      */
     private void generateReports(ITestContext context) {
         try {
+            VisualCapture.publishMetrics();
             TestMetrics metrics = MetricsCollector.getInstance().endSuite(context);
             if (metrics == null) {
                 log.warn("No metrics collected - skipping report generation");
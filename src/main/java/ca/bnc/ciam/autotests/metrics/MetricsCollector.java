@@ -9,9 +9,17 @@ import org.testng.ITestResult;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Collects test execution metrics throughout test runs.
@@ -24,6 +32,12 @@ public class MetricsCollector {
     private TestMetrics currentMetrics;
     private final Map<String, LocalDateTime> testStartTimes = new ConcurrentHashMap<>();
     private final Map<String, TestMetrics.TestResult.TestResultBuilder> testBuilders = new ConcurrentHashMap<>();
+    /** Soft visual checks per test result (null outside TestNG), each a name and its failure message future */
+    private final Map<ITestResult, List<Map.Entry<String, CompletableFuture<String>>>> pendingVisualChecks =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /** Longest wait for the soft visual checks of one test */
+    private static final long VISUAL_CHECK_TIMEOUT_MS = 120_000;
 
     private MetricsCollector() {
     }
@@ -175,6 +189,17 @@ public class MetricsCollector {
     public void recordVisualMetric(String testName, String baselineName, boolean matched,
                                     double diffPercentage, double tolerance, String status,
                                     String diffImagePath, String actualImagePath, long comparisonTimeMs) {
+        recordVisualMetric(testName, baselineName, matched, diffPercentage, tolerance, status,
+                diffImagePath, actualImagePath, comparisonTimeMs, 0);
+    }
+
+    /**
+     * Record visual comparison metric including the page settle time.
+     */
+    public void recordVisualMetric(String testName, String baselineName, boolean matched,
+                                    double diffPercentage, double tolerance, String status,
+                                    String diffImagePath, String actualImagePath, long comparisonTimeMs,
+                                    long settleTimeMs) {
         if (currentMetrics == null) {
             return;
         }
@@ -189,11 +214,89 @@ public class MetricsCollector {
                 .diffImagePath(diffImagePath)
                 .actualImagePath(actualImagePath)
                 .comparisonTimeMs(comparisonTimeMs)
+                .settleTimeMs(settleTimeMs)
                 .build();
 
         currentMetrics.addVisualMetric(metric);
     }
 
+    /**
+     * Register a soft visual check whose verdict is resolved later.
+     *
+     * @param result    the test the check belongs to (null outside a TestNG test)
+     * @param checkName name of the check, used in failure messages
+     * @param failure   completes with the failure message, or null if the check passed
+     */
+    public void addPendingVisualCheck(ITestResult result, String checkName, CompletableFuture<String> failure) {
+        pendingVisualChecks.computeIfAbsent(result, key -> Collections.synchronizedList(new ArrayList<>()))
+                .add(Map.entry(checkName, failure));
+    }
+
+    /**
+     * Wait for the soft visual checks of a test and forget them.
+     *
+     * @param result the test (null for checks made outside a TestNG test)
+     * @return one message per failed check, empty if all passed or there were none
+     */
+    public List<String> awaitVisualChecks(ITestResult result) {
+        List<Map.Entry<String, CompletableFuture<String>>> checks = pendingVisualChecks.remove(result);
+        if (checks == null) {
+            return List.of();
+        }
+
+        long deadline = System.currentTimeMillis() + VISUAL_CHECK_TIMEOUT_MS;
+        List<String> failures = new ArrayList<>();
+        synchronized (checks) {
+            for (Map.Entry<String, CompletableFuture<String>> check : checks) {
+                String failure;
+                try {
+                    failure = check.getValue().get(Math.max(0, deadline - System.currentTimeMillis()),
+                            TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    failure = "no verdict within " + VISUAL_CHECK_TIMEOUT_MS / 1000 + "s";
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failure = "interrupted while waiting for the verdict";
+                } catch (ExecutionException e) {
+                    failure = "check failed: " + e.getCause().getMessage();
+                }
+                if (failure != null) {
+                    failures.add(check.getKey() + ": " + failure);
+                }
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Wait for the remaining soft visual checks of one {@code <test>} (e.g. when it
+     * finishes) and forget them. Checks of other contexts stay pending, so that
+     * contexts finishing in parallel do not take each other's checks. Checks
+     * registered outside a test method (no result) go to the first context that asks.
+     *
+     * @param context the finishing test context
+     * @return failure messages per test result, only for tests with failed checks
+     */
+    public Map<ITestResult, List<String>> awaitAllVisualChecks(ITestContext context) {
+        List<ITestResult> results = new ArrayList<>();
+        synchronized (pendingVisualChecks) {
+            for (ITestResult result : pendingVisualChecks.keySet()) {
+                if (result == null || result.getTestContext() == context) {
+                    results.add(result);
+                }
+            }
+        }
+
+        Map<ITestResult, List<String>> failures = new IdentityHashMap<>();
+        for (ITestResult result : results) {
+            List<String> failed = awaitVisualChecks(result);
+            if (!failed.isEmpty()) {
+                failures.put(result, failed);
+            }
+        }
+        return failures;
+    }
+
     /**
      * Record API call metric.
      */
@@ -271,5 +374,6 @@ public class MetricsCollector {
         currentMetrics = null;
         testStartTimes.clear();
         testBuilders.clear();
+        pendingVisualChecks.clear();
     }
 }
@@ -133,7 +133,7 @@ public class TestMetrics {
     /**
      * Add visual metric.
      */
-    public void addVisualMetric(VisualMetric metric) {
+    public synchronized void addVisualMetric(VisualMetric metric) {
         visualMetrics.add(metric);
     }
 
@@ -208,6 +208,8 @@ public class TestMetrics {
         private String diffImagePath;
         private String actualImagePath;
         private long comparisonTimeMs;
+        /** Time spent waiting for the page to settle (scrolls, resizes) */
+        private long settleTimeMs;
     }
 
     /**
@@ -67,7 +67,7 @@ public class CsvMetricsExporter implements MetricsExporter {
         // Visual metrics section if present
         if (!metrics.getVisualMetrics().isEmpty()) {
             sb.append(NEWLINE).append("# Visual Comparison Results").append(NEWLINE);
-            sb.append("Test,Baseline,Matched,Diff %,Tolerance %,Status,Comparison Time (ms)")
+            sb.append("Test,Baseline,Matched,Diff %,Tolerance %,Status,Comparison Time (ms),Settle Time (ms)")
                     .append(NEWLINE);
 
             for (TestMetrics.VisualMetric vm : metrics.getVisualMetrics()) {
@@ -77,7 +77,8 @@ public class CsvMetricsExporter implements MetricsExporter {
                 sb.append(String.format("%.4f", vm.getDiffPercentage() * 100)).append(DELIMITER);
                 sb.append(String.format("%.4f", vm.getTolerance() * 100)).append(DELIMITER);
                 sb.append(vm.getStatus()).append(DELIMITER);
-                sb.append(vm.getComparisonTimeMs());
+                sb.append(vm.getComparisonTimeMs()).append(DELIMITER);
+                sb.append(vm.getSettleTimeMs());
                 sb.append(NEWLINE);
             }
         }
@@ -146,6 +146,7 @@ public class XmlMetricsExporter implements MetricsExporter {
                     .append(String.format("%.4f", vm.getTolerance() * 100)).append("</tolerance>\n");
             sb.append(INDENT).append(INDENT).append(INDENT).append("<status>").append(escapeXml(vm.getStatus())).append("</status>\n");
             sb.append(INDENT).append(INDENT).append(INDENT).append("<comparisonTimeMs>").append(vm.getComparisonTimeMs()).append("</comparisonTimeMs>\n");
+            sb.append(INDENT).append(INDENT).append(INDENT).append("<settleTimeMs>").append(vm.getSettleTimeMs()).append("</settleTimeMs>\n");
 
             if (vm.getDiffImagePath() != null) {
                 sb.append(INDENT).append(INDENT).append(INDENT).append("<diffImagePath>")
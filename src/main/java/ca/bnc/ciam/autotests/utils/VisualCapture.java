@@ -1,36 +1,65 @@
 package ca.bnc.ciam.autotests.utils;
 
+import ai.djl.util.Pair;
 import ca.bnc.ciam.autotests.metrics.MetricsCollector;
+import ca.bnc.ciam.autotests.visual.AIImageComparator;
+import ca.bnc.ciam.autotests.visual.AsyncArtifactWriter;
+import ca.bnc.ciam.autotests.visual.BaselineManager;
+import ca.bnc.ciam.autotests.visual.BaselinePrefetcher;
+import ca.bnc.ciam.autotests.visual.BaselineStore;
+import ca.bnc.ciam.autotests.visual.ContentAddressedStore;
+import ca.bnc.ciam.autotests.visual.EmbeddingCache;
 import ca.bnc.ciam.autotests.visual.HybridVisualComparator;
+import ca.bnc.ciam.autotests.visual.PngEncoder;
 import ca.bnc.ciam.autotests.visual.ScreenshotManager;
+import ca.bnc.ciam.autotests.visual.model.CaptureMode;
+import ca.bnc.ciam.autotests.visual.model.EncodingProfile;
+import ca.bnc.ciam.autotests.visual.model.PageGeometry;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.Rectangle;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
+import ca.bnc.ciam.autotests.web.WebDriverFactory;
 import ca.bnc.ciam.autotests.web.elements.IElement;
+import ca.bnc.ciam.autotests.web.util.PageSettleDetector;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.ie.InternetExplorerDriver;
 import org.openqa.selenium.safari.SafariDriver;
+import org.testng.Reporter;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Visual capture utility for screenshot recording and comparison.
@@ -49,6 +78,9 @@ import java.util.Map;
  *
  * boolean passed = VisualCapture.captureStep(driver, "LoginTest", "login_page");
  * assertThat(passed).as("Visual check failed").isTrue();
+ *
+ * // Soft check: compared in the background, fails the test after the test method
+ * VisualCapture.captureStepSoft(driver, "LoginTest", "dashboard");
  * </pre>
  *
  * File naming:
@@ -59,12 +91,23 @@ import java.util.Map;
  * - bnc.record.mode: true/false - Enable record mode to create baselines
  * - bnc.baselines.root: path - Override baseline location
  * - bnc.visual.ai.enabled: true/false - Enable/disable AI fallback (default: true)
+ * - bnc.visual.ai.warmup: true/false - Load the AI model in the background at suite start (default: false)
+ * - bnc.visual.baseline.cache.mb: size - Memory for decoded baselines in MB (default: 256)
+ * - bnc.visual.baseline.raster.enabled: true/false - Keep raw-raster copies of baselines for fast cold loads (default: true)
+ * - bnc.visual.baseline.cas.enabled: true/false - Store baselines once per content hash behind baselines/manifest.txt (default: false)
+ * - bnc.visual.prefetch.enabled: true/false - Load planned classes' baselines before their tests run (default: true)
+ * - bnc.visual.prefetch.mb: size - Memory for prefetched baselines in MB (default: 128)
+ * - bnc.visual.artifacts.async: true/false - Write diff and actual images in the background (default: true)
+ * - bnc.visual.soft.async: true/false - Compare soft checks (captureStepSoft) in the background (default: true)
  * - bnc.web.gui.lang: language code for baselines (e.g., "en", "fr")
  * - lang: fallback language property
  *
  * Baseline structure:
  * - baselines/{browser}/{language}/{className}/{stepName}_1.png
  * - Example: baselines/chrome/en/LoginTest/login_page_1.png
+ * - DevTools full-page captures (bnc.visual.capture.mode=cdp): baselines/{browser}-cdp/{language}/...
+ *   Switching a suite to cdp mode therefore needs one record run.
+ * - Content-addressed mode: the same paths are manifest names resolving to baselines/objects/{hh}/{sha256}.png
  */
 @Slf4j
 public final class VisualCapture {
@@ -74,33 +117,192 @@ public final class VisualCapture {
     private static final String RECORD_MODE_PROPERTY = "bnc.record.mode";
     private static final String BASELINES_ROOT_PROPERTY = "bnc.baselines.root";
     private static final String AI_ENABLED_PROPERTY = "bnc.visual.ai.enabled";
+    private static final String AI_WARMUP_PROPERTY = "bnc.visual.ai.warmup";
     private static final String LANGUAGE_PROPERTY = "bnc.web.gui.lang";
     private static final String LANGUAGE_PROPERTY_FALLBACK = "lang";
     private static final String DEFAULT_LANGUAGE = "en";
+    private static final String CDP_BASELINE_SUFFIX = "-cdp";
     private static final double DEFAULT_TOLERANCE = 0.003; // 0.3% - very strict tolerance
 
+    /** System property running soft-check comparisons in the background (default: true) */
+    public static final String SOFT_ASYNC_PROPERTY = "bnc.visual.soft.async";
+
+    /** System property for the number of soft-check comparison threads (default: 2) */
+    public static final String SOFT_THREADS_PROPERTY = "bnc.visual.soft.threads";
+
+    /** System property for the number of soft checks waiting for a thread before callers compare themselves (default: 4) */
+    public static final String SOFT_QUEUE_PROPERTY = "bnc.visual.soft.queue";
+
+    private static final int DEFAULT_SOFT_THREADS = 2;
+    private static final int DEFAULT_SOFT_QUEUE = 4;
+
     private static final Path PROJECT_ROOT = detectProjectRoot();
     private static final ScreenshotManager screenshotManager = new ScreenshotManager();
 
     // Lazy-loaded comparator to avoid class loading issues when visual testing is not used
     private static volatile HybridVisualComparator hybridComparator;
+    private static final Object COMPARATOR_LOCK = new Object();
+
+    // Background AI warm-up, started at most once per JVM
+    private static final AtomicReference<CompletableFuture<Void>> aiWarmUp = new AtomicReference<>();
+
+    // Lazy-created pool finishing soft-check comparisons
+    private static volatile ExecutorService softCheckExecutor;
+    private static final Object SOFT_CHECK_LOCK = new Object();
+
+    /**
+     * Get or create the soft-check pool. The queue is bounded because every waiting
+     * check holds its screenshots; when it is full the calling test thread compares itself.
+     */
+    private static ExecutorService getSoftCheckExecutor() {
+        if (softCheckExecutor == null) {
+            synchronized (SOFT_CHECK_LOCK) {
+                if (softCheckExecutor == null) {
+                    int threads = Math.max(1, Integer.getInteger(SOFT_THREADS_PROPERTY, DEFAULT_SOFT_THREADS));
+                    int queue = Math.max(1, Integer.getInteger(SOFT_QUEUE_PROPERTY, DEFAULT_SOFT_QUEUE));
+                    AtomicInteger threadCount = new AtomicInteger();
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(queue),
+                            task -> {
+                                Thread thread = new Thread(task, "visual-soft-check-" + threadCount.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            },
+                            new ThreadPoolExecutor.CallerRunsPolicy());
+                    executor.allowCoreThreadTimeOut(true);
+                    log.debug("Soft-check pool: threads={}, queue={}", threads, queue);
+                    softCheckExecutor = executor;
+                }
+            }
+        }
+        return softCheckExecutor;
+    }
 
     /**
      * Get or create the hybrid comparator (lazy initialization).
      */
     private static HybridVisualComparator getHybridComparator() {
         if (hybridComparator == null) {
-            synchronized (VisualCapture.class) {
+            synchronized (COMPARATOR_LOCK) {
                 if (hybridComparator == null) {
                     boolean aiEnabled = !"false".equalsIgnoreCase(System.getProperty(AI_ENABLED_PROPERTY));
                     log.info("Creating hybrid visual comparator with AI enabled: {}", aiEnabled);
-                    hybridComparator = new HybridVisualComparator(DEFAULT_TOLERANCE, 0.05, 0.20, 0.92, aiEnabled);
+                    HybridVisualComparator comparator =
+                            new HybridVisualComparator(DEFAULT_TOLERANCE, 0.05, 0.20, 0.92, aiEnabled);
+                    comparator.setEmbeddingCache(getEmbeddingCache());
+                    hybridComparator = comparator;
                 }
             }
         }
         return hybridComparator;
     }
 
+    /**
+     * Start loading the comparator and AI model on a background thread, followed by
+     * a dummy inference. Opt-in via bnc.visual.ai.warmup=true; no-op in record mode,
+     * when AI is disabled, or when a warm-up was already started.
+     *
+     * Comparisons started meanwhile block in {@link #getHybridComparator()} until the
+     * model is loaded, and no longer than that. The model load holds only the
+     * comparator's own lock, so soft-check pool creation does not wait for it.
+     */
+    public static void warmUpAsync() {
+        if (!Boolean.getBoolean(AI_WARMUP_PROPERTY)
+                || "false".equalsIgnoreCase(System.getProperty(AI_ENABLED_PROPERTY))
+                || isRecordMode()) {
+            return;
+        }
+        CompletableFuture<Void> warmUp = new CompletableFuture<>();
+        if (!aiWarmUp.compareAndSet(null, warmUp)) {
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+            long startTime = System.currentTimeMillis();
+            try {
+                getHybridComparator().warmUp();
+                log.info("Visual comparator warm-up finished in {}ms (AI available: {})",
+                        System.currentTimeMillis() - startTime, hybridComparator.isAIAvailable());
+            } catch (Throwable e) {
+                log.warn("Visual comparator warm-up failed: {}", e.getMessage());
+            } finally {
+                warmUp.complete(null);
+            }
+        }, "visual-ai-warmup");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Visual comparator warm-up started in background");
+    }
+
+    /**
+     * Start loading the baselines of planned test classes into memory on a
+     * low-priority background thread (see {@link BaselinePrefetcher}). Called by
+     * {@code TestngListener.intercept} with the classes in execution order. No-op
+     * in record mode, when prefetch is disabled, or for classes without baselines.
+     *
+     * The browser is taken from the "browser" property or BROWSER environment variable,
+     * since no driver exists yet. In content-addressed mode the objects named under
+     * each class's baseline directory are loaded.
+     *
+     * @param classNames class names as passed to {@link #captureStep}, in execution order
+     * @return completes when the baselines have been loaded
+     */
+    public static CompletableFuture<Void> prefetchBaselines(Collection<String> classNames) {
+        if (classNames == null || classNames.isEmpty() || isRecordMode()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String browserName;
+        try {
+            browserName = WebDriverFactory.getBrowserFromEnvironment().getName();
+        } catch (IllegalArgumentException e) {
+            log.debug("Baseline prefetch skipped: {}", e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        // Which mode a page is captured in is only known once it is open: take both directories
+        // in cdp mode, missing ones are skipped
+        List<Path> directories = new ArrayList<>();
+        for (String className : classNames) {
+            if (screenshotManager.getCaptureMode() == CaptureMode.CDP) {
+                directories.add(getBaselineDir(browserName, className, CaptureMode.CDP));
+            }
+            directories.add(getBaselineDir(browserName, className, CaptureMode.SCROLL));
+        }
+        ContentAddressedStore contentStore;
+        try {
+            contentStore = getContentStore();
+        } catch (IOException e) {
+            log.debug("Baseline prefetch skipped: {}", e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        if (contentStore == null) {
+            return BaselinePrefetcher.getInstance().prefetch(directories);
+        }
+        List<String> names = contentStore.names();
+        names.sort(null);
+        Set<Path> objects = new LinkedHashSet<>();
+        for (Path directory : directories) {
+            String prefix = getBaselinesRoot().relativize(directory).toString().replace(File.separatorChar, '/') + "/";
+            for (String name : names) {
+                Path object = name.startsWith(prefix) ? contentStore.resolve(name) : null;
+                if (object != null) {
+                    objects.add(object);
+                }
+            }
+        }
+        return BaselinePrefetcher.getInstance().prefetchFiles(objects);
+    }
+
+    /**
+     * Check whether the background warm-up has finished.
+     *
+     * @return true once the warm-up completed (successfully or not), false if it is
+     *         still running or was never started
+     */
+    public static boolean isWarmUpComplete() {
+        CompletableFuture<Void> warmUp = aiWarmUp.get();
+        return warmUp != null && warmUp.isDone();
+    }
+
     /**
      * Stores the last diff image as Base64 for report embedding.
      */
@@ -186,7 +388,7 @@ public final class VisualCapture {
      */
     public static boolean captureStepIgnoring(WebDriver driver, String className, String stepName,
                                                double tolerance, WebElement... elementsToIgnore) {
-        List<int[]> ignoreRegions = convertElementsToRegions(elementsToIgnore);
+        List<int[]> ignoreRegions = convertElementsToRegions(driver, elementsToIgnore);
         return captureStep(driver, className, stepName, tolerance, ignoreRegions);
     }
 
@@ -224,7 +426,7 @@ public final class VisualCapture {
      */
     public static boolean captureStepIgnoring(WebDriver driver, String className, String stepName,
                                                double tolerance, IElement... elementsToIgnore) {
-        List<int[]> ignoreRegions = convertIElementsToRegions(elementsToIgnore);
+        List<int[]> ignoreRegions = convertIElementsToRegions(driver, elementsToIgnore);
         return captureStep(driver, className, stepName, tolerance, ignoreRegions);
     }
 
@@ -250,11 +452,64 @@ public final class VisualCapture {
      */
     public static boolean captureStep(WebDriver driver, String className, String stepName,
                                        double tolerance, List<int[]> ignoreRegions) {
+        return runStep(driver, className, stepName, tolerance, ignoreRegions, false).join() == null;
+    }
+
+    /**
+     * Capture a soft visual step: the verdict is not needed before the next UI action.
+     * See {@link #captureStepSoft(WebDriver, String, String, double, List)}.
+     *
+     * @param driver    the WebDriver instance
+     * @param className the test class name (used for folder)
+     * @param stepName  the step name (used for file prefix)
+     * @return the verdict (true if passed or recording), completed once the comparison is done
+     */
+    public static CompletableFuture<Boolean> captureStepSoft(WebDriver driver, String className, String stepName) {
+        return captureStepSoft(driver, className, stepName, DEFAULT_TOLERANCE, null);
+    }
+
+    /**
+     * Capture a soft visual step with custom tolerance and ignore regions.
+     *
+     * Resizing, scrolling and screenshots happen on the calling thread, so the page can
+     * be driven again as soon as this returns. Decoding, comparison, artifacts and metrics
+     * run on a bounded worker pool ({@value #SOFT_THREADS_PROPERTY} threads; when
+     * {@value #SOFT_QUEUE_PROPERTY} checks are already waiting, the caller compares itself).
+     *
+     * The verdict is registered with {@link MetricsCollector} for the current test and
+     * turned into a test failure by {@code AbstractSeleniumTest} after the test method,
+     * or by {@code TestngListener} at the end of the suite.
+     *
+     * @param driver        the WebDriver instance
+     * @param className     the test class name (used for folder)
+     * @param stepName      the step name (used for file prefix)
+     * @param tolerance     the comparison tolerance (0.0 to 1.0)
+     * @param ignoreRegions list of regions to ignore, each as [x, y, width, height]
+     * @return the verdict (true if passed or recording), completed once the comparison is done
+     */
+    public static CompletableFuture<Boolean> captureStepSoft(WebDriver driver, String className, String stepName,
+                                                             double tolerance, List<int[]> ignoreRegions) {
+        boolean deferred = !"false".equalsIgnoreCase(System.getProperty(SOFT_ASYNC_PROPERTY));
+        CompletableFuture<String> failure = runStep(driver, className, stepName, tolerance, ignoreRegions, deferred);
+        MetricsCollector.getInstance().addPendingVisualCheck(
+                Reporter.getCurrentTestResult(), className + "/" + stepName, failure);
+        return failure.thenApply(Objects::isNull);
+    }
+
+    /**
+     * Run a visual step.
+     *
+     * @param deferComparison finish the comparison on the soft-check pool instead of the calling thread
+     * @return the failure message, or null if the step passed; already complete unless deferred
+     */
+    private static CompletableFuture<String> runStep(WebDriver driver, String className, String stepName,
+                                                     double tolerance, List<int[]> ignoreRegions,
+                                                     boolean deferComparison) {
         // Validate driver is not null
         if (driver == null) {
             log.error("Cannot capture visual step: WebDriver is null");
             lastErrorMessage.set("WebDriver is null - cannot capture visual step");
-            return false;
+            return CompletableFuture.completedFuture(lastErrorMessage.get());
         }
 
         boolean isRecordMode = isRecordMode();
@@ -263,11 +518,10 @@ public final class VisualCapture {
         // Clear previous state
         lastDiffBase64.remove();
         lastErrorMessage.remove();
+        PageSettleDetector.resetSettleTime();
 
-        // Get browser and language-specific baseline directory
         String browserName = detectBrowserName(driver);
         String language = getLanguage();
-        Path baselineDir = getBaselineDir(browserName, className);
 
         boolean isLocalExecution = isLocalExecution();
 
@@ -276,7 +530,6 @@ public final class VisualCapture {
         log.info("Browser: {}, Language: {}", browserName, language);
         log.info("Mode: {}", isRecordMode ? "RECORD" : "COMPARE");
         log.info("Execution: {}", isLocalExecution ? "LOCAL (laptop/desktop)" : "PIPELINE (SauceLabs)");
-        log.info("Baseline directory: {}", baselineDir);
         if (!isRecordMode && isLocalExecution) {
             log.info("NOTE: Local execution may use scaled comparison if resolution differs from baseline");
         }
@@ -294,11 +547,35 @@ public final class VisualCapture {
             Dimension originalSize = screenshotManager.ensureStandardResolution(driver);
             log.info("Window size set to {}x{}", ScreenshotManager.DEFAULT_WIDTH, ScreenshotManager.DEFAULT_HEIGHT);
 
-            boolean result;
+            // One geometry probe serves the whole checkpoint
+            PageGeometry geometry = screenshotManager.probeGeometry(driver);
+            log.info("Page: {}x{}, viewport: {}x{}, device pixel ratio: {}",
+                    geometry.getScrollWidth(), geometry.getScrollHeight(),
+                    geometry.getViewportWidth(), geometry.getViewportHeight(), geometry.getDevicePixelRatio());
+
+            // Get browser, language and capture mode-specific baseline directory
+            CaptureMode captureMode = screenshotManager.getCaptureMode(driver, geometry);
+            Path baselineDir = getBaselineDir(browserName, className, captureMode);
+            log.info("Capture mode: {}, baseline directory: {}", captureMode, baselineDir);
+
+            CompletableFuture<String> result;
             if (isRecordMode) {
-                result = recordBaselines(driver, baselineDir, className, stepName, startTime);
+                result = CompletableFuture.completedFuture(
+                        recordBaselines(driver, geometry, baselineDir, className, stepName, startTime)
+                                ? null : failureMessage());
+            } else if (deferComparison) {
+                // Only the screenshots are taken here; the rest runs on the soft-check pool
+                List<CompletableFuture<Pair<BufferedImage, HybridVisualComparator.PendingComparison>>> viewports =
+                        captureForComparison(driver, geometry, baselineDir, className, stepName, tolerance,
+                                ignoreRegions, startTime);
+                result = viewports == null
+                        ? CompletableFuture.completedFuture(failureMessage())
+                        : finishComparisonAsync(viewports, className, stepName, tolerance, startTime,
+                                PageSettleDetector.getSettleTime());
             } else {
-                result = compareWithBaselines(driver, baselineDir, className, stepName, tolerance, ignoreRegions, startTime);
+                result = CompletableFuture.completedFuture(
+                        compareWithBaselines(driver, geometry, baselineDir, className, stepName, tolerance,
+                                ignoreRegions, startTime) ? null : failureMessage());
             }
 
             // Restore original window size
@@ -314,39 +591,67 @@ public final class VisualCapture {
             log.error("========================================");
             lastErrorMessage.set(errorMsg);
             recordMetric(className, stepName, false, 0, tolerance, "ERROR: " + e.getMessage(), null, null, startTime);
-            return false;
+            return CompletableFuture.completedFuture(errorMsg);
         }
     }
 
+    /**
+     * Failure message of the step that just failed on this thread.
+     */
+    private static String failureMessage() {
+        String message = lastErrorMessage.get();
+        return message != null ? message : "Visual check failed";
+    }
+
     /**
      * Record baselines for the current page.
      * In record mode, existing baselines are OVERWRITTEN (no comparison is performed).
+     * Cached AI embeddings of replaced or removed baselines are dropped.
      */
-    private static boolean recordBaselines(WebDriver driver, Path baselineDir, String className,
-                                            String stepName, long startTime) throws IOException {
+    private static boolean recordBaselines(WebDriver driver, PageGeometry geometry, Path baselineDir,
+                                            String className, String stepName, long startTime) throws IOException {
+        ContentAddressedStore contentStore = getContentStore();
+
         // Check if baselines already exist
-        int existingCount = countBaselineFiles(baselineDir, stepName);
+        int existingCount = countBaselineFiles(contentStore, baselineDir, stepName);
         if (existingCount > 0) {
             log.info("RECORD MODE: Existing baselines found ({} files) - will be OVERWRITTEN", existingCount);
         }
 
         // Calculate how many screenshots needed
-        int screenshotCount = screenshotManager.calculateScreenshotCount(driver);
+        int screenshotCount = geometry.getScreenshotCount();
         log.info("Page requires {} screenshot(s)", screenshotCount);
 
         // Capture all viewports
-        List<BufferedImage> screenshots = screenshotManager.captureAllViewports(driver);
+        List<BufferedImage> screenshots = screenshotManager.captureAllViewports(driver, geometry);
 
         // Create baseline directory
-        Files.createDirectories(baselineDir);
+        if (contentStore == null) {
+            Files.createDirectories(baselineDir);
+        }
 
         // Save each screenshot (overwrites existing files)
         int newCount = 0;
         int overwrittenCount = 0;
         for (int i = 0; i < screenshots.size(); i++) {
-            Path baselinePath = baselineDir.resolve(stepName + "_" + (i + 1) + ".png");
-            boolean existed = Files.exists(baselinePath);
-            screenshotManager.saveImage(screenshots.get(i), baselinePath);
+            Path previous = resolveBaseline(contentStore, baselineDir, stepName, i + 1);
+            boolean existed = previous != null;
+            BufferedImage previousImage = existed ? readForEmbeddingInvalidation(previous) : null;
+            // Baselines are written synchronously: a failed write must fail the record step
+            Path baselinePath;
+            if (contentStore != null) {
+                baselinePath = contentStore.put(baselineName(baselineDir, stepName, i + 1), screenshots.get(i));
+                // The previous object is only gone (and its embedding stale) if no other name shared it
+                if (existed && !Files.exists(previous)) {
+                    BaselineStore.getInstance().invalidate(previous);
+                    invalidateEmbedding(previousImage);
+                }
+            } else {
+                baselinePath = baselineFile(baselineDir, stepName, i + 1);
+                PngEncoder.write(screenshots.get(i), baselinePath, EncodingProfile.BASELINE);
+                BaselineStore.getInstance().invalidate(baselinePath);
+                invalidateEmbedding(previousImage);
+            }
 
             if (existed) {
                 log.info("OVERWRITTEN baseline {}: {}", i + 1, baselinePath);
@@ -361,9 +666,8 @@ public final class VisualCapture {
         int removedCount = 0;
         if (existingCount > screenshots.size()) {
             for (int i = screenshots.size(); i < existingCount; i++) {
-                Path oldBaseline = baselineDir.resolve(stepName + "_" + (i + 1) + ".png");
-                if (Files.deleteIfExists(oldBaseline)) {
-                    log.info("REMOVED stale baseline: {}", oldBaseline);
+                if (deleteBaseline(contentStore, baselineDir, stepName, i + 1)) {
+                    log.info("REMOVED stale baseline: {}", baselineFile(baselineDir, stepName, i + 1));
                     removedCount++;
                 }
             }
@@ -381,11 +685,31 @@ public final class VisualCapture {
     /**
      * Compare current page with baselines.
      */
-    private static boolean compareWithBaselines(WebDriver driver, Path baselineDir, String className,
-                                                 String stepName, double tolerance, List<int[]> ignoreRegions,
-                                                 long startTime) throws IOException {
+    private static boolean compareWithBaselines(WebDriver driver, PageGeometry geometry, Path baselineDir,
+                                                 String className, String stepName, double tolerance,
+                                                 List<int[]> ignoreRegions, long startTime) throws IOException {
+        List<CompletableFuture<Pair<BufferedImage, HybridVisualComparator.PendingComparison>>> viewports =
+                captureForComparison(driver, geometry, baselineDir, className, stepName, tolerance,
+                        ignoreRegions, startTime);
+        return viewports != null
+                && finishComparison(viewports, className, stepName, tolerance, startTime,
+                        PageSettleDetector.getSettleTime());
+    }
+
+    /**
+     * Check the baselines against the page structure and take the screenshots.
+     * Everything that needs the browser happens here.
+     *
+     * @return one future per viewport (screenshot and pixel pass), or null if the step
+     *         already failed (missing baselines or structure change; the metric is recorded)
+     */
+    private static List<CompletableFuture<Pair<BufferedImage, HybridVisualComparator.PendingComparison>>> captureForComparison(
+            WebDriver driver, PageGeometry geometry, Path baselineDir, String className, String stepName,
+            double tolerance, List<int[]> ignoreRegions, long startTime) throws IOException {
+        ContentAddressedStore contentStore = getContentStore();
+
         // Count existing baseline files
-        int baselineCount = countBaselineFiles(baselineDir, stepName);
+        int baselineCount = countBaselineFiles(contentStore, baselineDir, stepName);
 
         if (baselineCount == 0) {
             String errorMsg = String.format(
@@ -397,11 +721,11 @@ public final class VisualCapture {
             log.error("========================================");
             lastErrorMessage.set(errorMsg);
             recordMetric(className, stepName, false, 0, tolerance, "BASELINE_MISSING", null, null, startTime);
-            return false;
+            return null;
         }
 
         // Calculate how many screenshots current page needs
-        int currentCount = screenshotManager.calculateScreenshotCount(driver);
+        int currentCount = geometry.getScreenshotCount();
 
         log.info("Baseline count: {}, Current page needs: {}", baselineCount, currentCount);
 
@@ -421,25 +745,83 @@ public final class VisualCapture {
             lastErrorMessage.set(errorMsg);
             recordMetric(className, stepName, false, 0, tolerance,
                     "STRUCTURE_CHANGED: expected=" + baselineCount + ", actual=" + currentCount, null, null, startTime);
-            return false;
+            return null;
+        }
+
+        // Capture current screenshots (same count as baselines); each viewport's pixel pass
+        // runs on a worker while the browser scrolls to the next one
+        return screenshotManager.captureViewports(driver, geometry, baselineCount, (index, current) -> {
+            Path baselinePath = resolveBaseline(contentStore, baselineDir, stepName, index + 1);
+            if (baselinePath == null) {
+                throw new IOException("Baseline not found: " + baselineFile(baselineDir, stepName, index + 1));
+            }
+            BufferedImage baseline = BaselineStore.getInstance().load(baselinePath);
+            return new Pair<>(current, preparePixelStage(baseline, current, tolerance, ignoreRegions));
+        });
+    }
+
+    /**
+     * Finish a comparison on the soft-check pool.
+     * Thread-local state of the worker is cleared, so only the returned message carries the outcome.
+     *
+     * @return the failure message, or null if the step passed
+     */
+    private static CompletableFuture<String> finishComparisonAsync(
+            List<CompletableFuture<Pair<BufferedImage, HybridVisualComparator.PendingComparison>>> viewports,
+            String className, String stepName, double tolerance, long startTime, long settleTimeMs) {
+        return CompletableFuture.supplyAsync(() -> {
+            clearState();
+            try {
+                return finishComparison(viewports, className, stepName, tolerance, startTime, settleTimeMs)
+                        ? null : failureMessage();
+            } catch (Exception e) {
+                String errorMsg = "Visual capture failed: " + e.getMessage();
+                log.error("VISUAL CAPTURE ERROR: {}/{}: {}", className, stepName, e.getMessage(), e);
+                recordMetric(className, stepName, false, 0, tolerance, "ERROR: " + e.getMessage(), null, null,
+                        startTime, settleTimeMs);
+                return errorMsg;
+            } finally {
+                clearState();
+            }
+        }, getSoftCheckExecutor());
+    }
+
+    /**
+     * Wait for the viewports of a step, finish their comparisons, save artifacts and record the metric.
+     *
+     * @return true if all viewports match their baselines
+     */
+    private static boolean finishComparison(
+            List<CompletableFuture<Pair<BufferedImage, HybridVisualComparator.PendingComparison>>> viewports,
+            String className, String stepName, double tolerance, long startTime, long settleTimeMs)
+            throws IOException {
+        int baselineCount = viewports.size();
+        List<BufferedImage> currentScreenshots = new ArrayList<>(baselineCount);
+        List<HybridVisualComparator.PendingComparison> pending = new ArrayList<>(baselineCount);
+        for (CompletableFuture<Pair<BufferedImage, HybridVisualComparator.PendingComparison>> viewport : viewports) {
+            Pair<BufferedImage, HybridVisualComparator.PendingComparison> captured;
+            try {
+                captured = viewport.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                throw new RuntimeException("Failed to capture viewport screenshot", e.getCause());
+            }
+            currentScreenshots.add(captured.getKey());
+            pending.add(captured.getValue());
         }
 
-        // Capture current screenshots (same count as baselines)
-        List<BufferedImage> currentScreenshots = screenshotManager.captureViewports(driver, baselineCount);
+        // Finish all pairs together (gray-zone pairs share one AI batch)
+        List<ComparisonResult> results = completeComparisons(pending);
 
-        // Compare each pair
-        List<ComparisonResult> results = new ArrayList<>();
         boolean allPassed = true;
         String firstDiffImagePath = null;
         String firstActualImagePath = null;
 
         for (int i = 0; i < baselineCount; i++) {
-            Path baselinePath = baselineDir.resolve(stepName + "_" + (i + 1) + ".png");
-            BufferedImage baseline = ImageIO.read(baselinePath.toFile());
             BufferedImage current = currentScreenshots.get(i);
-
-            ComparisonResult result = compareSingleScreenshot(baseline, current, tolerance, ignoreRegions, i + 1);
-            results.add(result);
+            ComparisonResult result = results.get(i);
 
             if (!result.passed) {
                 allPassed = false;
@@ -461,34 +843,71 @@ public final class VisualCapture {
         // Record metrics with diff and actual image paths for report
         double maxDiff = results.stream().mapToDouble(r -> r.diffPercentage).max().orElse(0);
         String status = allPassed ? "SUCCESS" : "VISUAL_MISMATCH";
-        recordMetric(className, stepName, allPassed, maxDiff, tolerance, status, firstDiffImagePath, firstActualImagePath, startTime);
+        recordMetric(className, stepName, allPassed, maxDiff, tolerance, status, firstDiffImagePath, firstActualImagePath,
+                startTime, settleTimeMs);
 
         return allPassed;
     }
 
     /**
-     * Compare a single screenshot pair.
+     * Run the pixel pass of one screenshot pair.
+     *
+     * @return the pending comparison, or null if the pixel pass failed
+     */
+    private static HybridVisualComparator.PendingComparison preparePixelStage(BufferedImage baseline,
+                                                                              BufferedImage actual, double tolerance,
+                                                                              List<int[]> ignoreRegions) {
+        try {
+            return getHybridComparator().prepare(baseline, actual, tolerance, ignoreRegions);
+        } catch (Exception e) {
+            log.error("Pixel comparison failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Finish the comparisons of all screenshot pairs of a step.
+     * A pair whose pixel pass failed (null) is reported as an error.
      */
-    private static ComparisonResult compareSingleScreenshot(BufferedImage baseline, BufferedImage current,
-                                                             double tolerance, List<int[]> ignoreRegions, int index) {
+    private static List<ComparisonResult> completeComparisons(List<HybridVisualComparator.PendingComparison> pending) {
+        List<ComparisonResult> results = new ArrayList<>(pending.size());
         try {
-            HybridVisualComparator.HybridComparisonResult result =
-                    getHybridComparator().compare(baseline, current, tolerance, ignoreRegions);
-
-            return new ComparisonResult(
-                    index,
-                    result.isMatch(),
-                    result.getDiffPercentage(),
-                    result.getDiffImage(),
-                    result.getStrategy().toString(),
-                    result.usedAI(),
-                    result.isWasScaled(),
-                    result.getScaleFactor()
-            );
+            List<HybridVisualComparator.PendingComparison> prepared = new ArrayList<>(pending.size());
+            for (HybridVisualComparator.PendingComparison comparison : pending) {
+                if (comparison != null) {
+                    prepared.add(comparison);
+                }
+            }
+            List<HybridVisualComparator.HybridComparisonResult> hybridResults =
+                    getHybridComparator().complete(prepared);
+
+            int next = 0;
+            for (int i = 0; i < pending.size(); i++) {
+                if (pending.get(i) == null) {
+                    results.add(new ComparisonResult(i + 1, false, 1.0, null, "ERROR", false, false, 1.0));
+                    continue;
+                }
+                HybridVisualComparator.HybridComparisonResult result = hybridResults.get(next++);
+                // Keep the (lazily rendered) diff image only for failures; passing results release it
+                results.add(new ComparisonResult(
+                        i + 1,
+                        result.isMatch(),
+                        result.getDiffPercentage(),
+                        result.isMatch() ? null : result::getDiffImage,
+                        result.getStrategy().toString(),
+                        result.usedAI(),
+                        result.isWasScaled(),
+                        result.getScaleFactor()
+                ));
+            }
         } catch (Exception e) {
-            log.error("Comparison failed for screenshot {}: {}", index, e.getMessage());
-            return new ComparisonResult(index, false, 1.0, null, "ERROR", false, false, 1.0);
+            log.error("Comparison failed for {} screenshot(s): {}", pending.size(), e.getMessage());
+            results.clear();
+            for (int i = 0; i < pending.size(); i++) {
+                results.add(new ComparisonResult(i + 1, false, 1.0, null, "ERROR", false, false, 1.0));
+            }
         }
+        return results;
     }
 
     /**
@@ -537,12 +956,15 @@ public final class VisualCapture {
     /**
      * Save diff and actual images for failed comparison.
      * Files include language in filename for multi-language support.
+     * The diff image is rendered here, on first use.
      *
      * @return String array [diffPath, actualPath] with relative paths, or null if saving failed
      */
-    private static String[] saveDiffAndActual(BufferedImage diffImage, BufferedImage actualImage,
+    private static String[] saveDiffAndActual(Supplier<BufferedImage> diffImageSupplier, BufferedImage actualImage,
                                                String className, String stepName, int index) {
         try {
+            BufferedImage diffImage = diffImageSupplier != null ? diffImageSupplier.get() : null;
+
             Path reportDir = getReportVisualDir();
             Files.createDirectories(reportDir);
 
@@ -557,7 +979,7 @@ public final class VisualCapture {
             // Save diff
             if (diffImage != null) {
                 Path diffPath = reportDir.resolve(filePrefix + "_diff.png");
-                ImageIO.write(diffImage, "PNG", diffPath.toFile());
+                AsyncArtifactWriter.getInstance().write(diffImage, diffPath);
                 log.info("Diff image saved: {}", diffPath);
 
                 // Store relative path for report embedding
@@ -571,7 +993,7 @@ public final class VisualCapture {
 
             // Save actual
             Path actualPath = reportDir.resolve(filePrefix + "_actual.png");
-            ImageIO.write(actualImage, "PNG", actualPath.toFile());
+            AsyncArtifactWriter.getInstance().write(actualImage, actualPath);
             log.info("Actual image saved: {}", actualPath);
             actualRelativePath = REPORT_VISUAL_DIR_NAME + "/" + filePrefix + "_actual.png";
 
@@ -587,13 +1009,13 @@ public final class VisualCapture {
      * Count baseline files for a step.
      * Looks for files named: stepName_1.png, stepName_2.png, etc.
      */
-    private static int countBaselineFiles(Path baselineDir, String stepName) {
-        if (!Files.exists(baselineDir)) {
+    private static int countBaselineFiles(ContentAddressedStore contentStore, Path baselineDir, String stepName) {
+        if (contentStore == null && !Files.exists(baselineDir)) {
             return 0;
         }
 
         int count = 0;
-        while (Files.exists(baselineDir.resolve(stepName + "_" + (count + 1) + ".png"))) {
+        while (resolveBaseline(contentStore, baselineDir, stepName, count + 1) != null) {
             count++;
         }
 
@@ -602,13 +1024,122 @@ public final class VisualCapture {
     }
 
     /**
-     * Get baseline directory for browser, language, and class.
-     * Structure: baselines/{browser}/{language}/{className}
+     * Get the content-addressed store over the baselines root, or null when baselines
+     * are plain files (see {@link BaselineManager#CONTENT_ADDRESSED_PROPERTY}).
      */
-    private static Path getBaselineDir(String browserName, String className) {
+    private static ContentAddressedStore getContentStore() throws IOException {
+        if (!Boolean.getBoolean(BaselineManager.CONTENT_ADDRESSED_PROPERTY)) {
+            return null;
+        }
+        return ContentAddressedStore.forDirectory(getBaselinesRoot());
+    }
+
+    /**
+     * Baseline file of a viewport: {baselineDir}/{stepName}_{number}.png.
+     */
+    private static Path baselineFile(Path baselineDir, String stepName, int number) {
+        return baselineDir.resolve(stepName + "_" + number + ".png");
+    }
+
+    /**
+     * Manifest name of a baseline: its path under the baselines root,
+     * e.g. chrome/en/LoginTest/login_page_1.png.
+     */
+    private static String baselineName(Path baselineDir, String stepName, int number) {
+        return getBaselinesRoot().relativize(baselineFile(baselineDir, stepName, number)).toString()
+                .replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Resolve a baseline to its file, or to its object in content-addressed mode.
+     *
+     * @return the image path, or null if the baseline does not exist
+     */
+    private static Path resolveBaseline(ContentAddressedStore contentStore, Path baselineDir,
+                                        String stepName, int number) {
+        if (contentStore != null) {
+            return contentStore.resolve(baselineName(baselineDir, stepName, number));
+        }
+        Path file = baselineFile(baselineDir, stepName, number);
+        return Files.exists(file) ? file : null;
+    }
+
+    /**
+     * Delete a baseline. In content-addressed mode the object is kept while other names share it.
+     *
+     * @return true if the baseline existed
+     */
+    private static boolean deleteBaseline(ContentAddressedStore contentStore, Path baselineDir,
+                                          String stepName, int number) throws IOException {
+        if (contentStore != null) {
+            String name = baselineName(baselineDir, stepName, number);
+            Path object = contentStore.resolve(name);
+            if (object == null) {
+                return false;
+            }
+            BufferedImage image = readForEmbeddingInvalidation(object);
+            Path deletedObject = contentStore.remove(name);
+            if (deletedObject != null) {
+                BaselineStore.getInstance().invalidate(deletedObject);
+                invalidateEmbedding(image);
+            }
+            return true;
+        }
+        Path file = baselineFile(baselineDir, stepName, number);
+        BufferedImage image = Files.exists(file) ? readForEmbeddingInvalidation(file) : null;
+        if (!Files.deleteIfExists(file)) {
+            return false;
+        }
+        BaselineStore.getInstance().invalidate(file);
+        invalidateEmbedding(image);
+        return true;
+    }
+
+    /**
+     * Read a baseline that is about to be replaced or removed, so that its cached AI
+     * embedding can be dropped afterwards.
+     *
+     * @return the image, or null when no embeddings are cached or the file cannot be read
+     */
+    private static BufferedImage readForEmbeddingInvalidation(Path baselinePath) {
+        if (!Files.isDirectory(getEmbeddingCache().getCacheDirectory())) {
+            return null;
+        }
+        try {
+            return ImageIO.read(baselinePath.toFile());
+        } catch (IOException e) {
+            log.debug("Could not read baseline to invalidate its embedding: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Drop the cached AI embedding of a replaced or removed baseline image.
+     */
+    private static void invalidateEmbedding(BufferedImage previousImage) {
+        if (previousImage != null && getEmbeddingCache().invalidate(previousImage)) {
+            log.debug("Embedding cache entry of the previous baseline invalidated");
+        }
+    }
+
+    /**
+     * Get the AI embedding cache kept under the baselines root.
+     */
+    private static EmbeddingCache getEmbeddingCache() {
+        return new EmbeddingCache(getBaselinesRoot());
+    }
+
+    /**
+     * Get baseline directory for browser, language, class and capture mode.
+     * Structure: baselines/{browser}/{language}/{className}, with {browser}-cdp for
+     * DevTools full-page captures (fixed and sticky elements appear once instead of in
+     * every viewport, so they cannot share baselines with scrolling captures).
+     */
+    private static Path getBaselineDir(String browserName, String className, CaptureMode captureMode) {
         Path baselinesRoot = getBaselinesRoot();
         String language = getLanguage();
-        return baselinesRoot.resolve(browserName).resolve(language).resolve(className);
+        String browserDir = captureMode == CaptureMode.CDP ? browserName + CDP_BASELINE_SUFFIX : browserName;
+        return baselinesRoot.resolve(browserDir).resolve(language).resolve(className);
     }
 
     /**
@@ -706,6 +1237,61 @@ public final class VisualCapture {
         return getHybridComparator().isAIAvailable();
     }
 
+    /**
+     * Publish visual comparison metrics (baseline cache hits and evictions, AI predictor
+     * pool wait time and utilization) as custom metrics of the current suite.
+     * Sections with no activity are skipped.
+     */
+    public static void publishMetrics() {
+        MetricsCollector collector = MetricsCollector.getInstance();
+
+        BaselineStore.CacheStats cache = BaselineStore.getInstance().getStats();
+        if (cache.getHits() + cache.getMisses() > 0) {
+            log.info(cache.getSummary());
+            collector.addCustomMetric("visual.baseline.cache.hits", cache.getHits());
+            collector.addCustomMetric("visual.baseline.cache.misses", cache.getMisses());
+            collector.addCustomMetric("visual.baseline.cache.evictions", cache.getEvictions());
+            collector.addCustomMetric("visual.baseline.cache.rasterLoads", cache.getRasterLoads());
+            collector.addCustomMetric("visual.baseline.cache.decodes", cache.getDecodes());
+            collector.addCustomMetric("visual.baseline.cache.hitRate", cache.getHitRate());
+        }
+
+        BaselinePrefetcher.PrefetchStats prefetch = BaselinePrefetcher.getInstance().getStats();
+        if (prefetch.getFiles() + prefetch.getOverBudget() > 0) {
+            log.info(prefetch.getSummary());
+            collector.addCustomMetric("visual.baseline.prefetch.files", prefetch.getFiles());
+            collector.addCustomMetric("visual.baseline.prefetch.overBudget", prefetch.getOverBudget());
+            collector.addCustomMetric("visual.baseline.prefetch.hits", prefetch.getHits());
+            collector.addCustomMetric("visual.baseline.prefetch.evictedUnused", prefetch.getEvictedUnused());
+            collector.addCustomMetric("visual.baseline.prefetch.hitRate", prefetch.getHitRate());
+        }
+
+        AsyncArtifactWriter.WriterStats artifacts = AsyncArtifactWriter.getInstance().getStats();
+        if (artifacts.getWritten() + artifacts.getFailed() > 0) {
+            log.info(artifacts.getSummary());
+            collector.addCustomMetric("visual.artifacts.written", artifacts.getWritten());
+            collector.addCustomMetric("visual.artifacts.failed", artifacts.getFailed());
+            collector.addCustomMetric("visual.artifacts.callerWrites", artifacts.getCallerWrites());
+        }
+
+        HybridVisualComparator comparator = hybridComparator;
+        if (comparator == null) {
+            return;
+        }
+        AIImageComparator.PoolStats stats = comparator.getAIPoolStats();
+        if (stats == null) {
+            return;
+        }
+        log.info(stats.getSummary());
+
+        collector.addCustomMetric("visual.ai.pool.size", stats.getSize());
+        collector.addCustomMetric("visual.ai.pool.peakInUse", stats.getPeakInUse());
+        collector.addCustomMetric("visual.ai.pool.checkouts", stats.getCheckouts());
+        collector.addCustomMetric("visual.ai.pool.avgWaitMs", stats.getAverageWaitMs());
+        collector.addCustomMetric("visual.ai.pool.maxWaitMs", stats.getMaxWaitMs());
+        collector.addCustomMetric("visual.ai.pool.utilization", stats.getUtilization());
+    }
+
     /**
      * Detect the browser name from the WebDriver instance.
      */
@@ -785,13 +1371,11 @@ public final class VisualCapture {
     }
 
     /**
-     * Convert image to Base64 string.
+     * Convert image to a Base64 report thumbnail (the full-size file is linked separately).
      */
     private static String imageToBase64(BufferedImage image) {
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(image, "PNG", baos);
-            return Base64.getEncoder().encodeToString(baos.toByteArray());
+            return Base64.getEncoder().encodeToString(PngEncoder.encode(image, EncodingProfile.THUMBNAIL));
         } catch (IOException e) {
             log.warn("Could not convert image to Base64: {}", e.getMessage());
             return null;
@@ -838,6 +1422,17 @@ public final class VisualCapture {
     private static void recordMetric(String className, String stepName, boolean matched,
                                       double diffPercentage, double tolerance, String status,
                                       String diffImagePath, String actualImagePath, long startTime) {
+        recordMetric(className, stepName, matched, diffPercentage, tolerance, status, diffImagePath,
+                actualImagePath, startTime, PageSettleDetector.getSettleTime());
+    }
+
+    /**
+     * Record visual metric to MetricsCollector, with the settle time measured on the capturing thread.
+     */
+    private static void recordMetric(String className, String stepName, boolean matched,
+                                      double diffPercentage, double tolerance, String status,
+                                      String diffImagePath, String actualImagePath, long startTime,
+                                      long settleTimeMs) {
         try {
             MetricsCollector collector = MetricsCollector.getInstance();
             if (collector != null) {
@@ -852,7 +1447,8 @@ public final class VisualCapture {
                         status,
                         diffImagePath,
                         actualImagePath,
-                        comparisonTime
+                        comparisonTime,
+                        settleTimeMs
                 );
             }
         } catch (Exception e) {
@@ -862,77 +1458,61 @@ public final class VisualCapture {
 
     /**
      * Convert WebElements to ignore regions (bounding boxes).
-     * Each element's location and size are extracted to create a region [x, y, width, height].
+     * The bounds of all elements are read in a single script call, each as a region [x, y, width, height].
      *
+     * @param driver   the WebDriver instance
      * @param elements WebElements to convert (null elements are skipped)
      * @return List of int arrays representing regions, or null if no valid elements
      */
-    private static List<int[]> convertElementsToRegions(WebElement... elements) {
+    private static List<int[]> convertElementsToRegions(WebDriver driver, WebElement... elements) {
         if (elements == null || elements.length == 0) {
             return null;
         }
-
-        List<int[]> regions = new ArrayList<>();
-        for (WebElement element : elements) {
-            if (element == null) {
-                continue;
-            }
-            try {
-                org.openqa.selenium.Point location = element.getLocation();
-                Dimension size = element.getSize();
-
-                int[] region = new int[]{
-                        location.getX(),
-                        location.getY(),
-                        size.getWidth(),
-                        size.getHeight()
-                };
-                regions.add(region);
-                log.debug("Element ignore region: x={}, y={}, w={}, h={}",
-                        region[0], region[1], region[2], region[3]);
-            } catch (Exception e) {
-                log.warn("Could not get bounds for element: {}", e.getMessage());
-            }
-        }
-
-        return regions.isEmpty() ? null : regions;
+        return toRegions(driver, Arrays.asList(elements), "Element");
     }
 
     /**
      * Convert IElement wrappers to ignore regions (bounding boxes).
-     * Extracts the underlying WebElement from each wrapper and gets its bounds.
+     * Extracts the underlying WebElement from each wrapper and reads all bounds in a single script call.
      *
+     * @param driver   the WebDriver instance
      * @param elements IElement wrappers to convert (null elements or null base elements are skipped)
      * @return List of int arrays representing regions, or null if no valid elements
      */
-    private static List<int[]> convertIElementsToRegions(IElement... elements) {
+    private static List<int[]> convertIElementsToRegions(WebDriver driver, IElement... elements) {
         if (elements == null || elements.length == 0) {
             return null;
         }
 
-        List<int[]> regions = new ArrayList<>();
+        List<WebElement> baseElements = new ArrayList<>();
         for (IElement element : elements) {
             if (element == null || element.isNull()) {
                 continue;
             }
             try {
-                WebElement baseElement = element.getBaseElement();
-                org.openqa.selenium.Point location = baseElement.getLocation();
-                Dimension size = baseElement.getSize();
-
-                int[] region = new int[]{
-                        location.getX(),
-                        location.getY(),
-                        size.getWidth(),
-                        size.getHeight()
-                };
-                regions.add(region);
-                log.debug("IElement ignore region: x={}, y={}, w={}, h={}",
-                        region[0], region[1], region[2], region[3]);
+                baseElements.add(element.getBaseElement());
             } catch (Exception e) {
                 log.warn("Could not get bounds for IElement: {}", e.getMessage());
             }
         }
+        return toRegions(driver, baseElements, "IElement");
+    }
+
+    private static List<int[]> toRegions(WebDriver driver, List<WebElement> elements, String kind) {
+        List<int[]> regions = new ArrayList<>();
+        List<WebElement> present = elements.stream().filter(Objects::nonNull).toList();
+        if (present.isEmpty()) {
+            return null;
+        }
+        for (Rectangle rect : screenshotManager.getElementRects(driver, present)) {
+            if (rect == null) {
+                continue;
+            }
+            int[] region = new int[]{rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight()};
+            regions.add(region);
+            log.debug("{} ignore region: x={}, y={}, w={}, h={}",
+                    kind, region[0], region[1], region[2], region[3]);
+        }
 
         return regions.isEmpty() ? null : regions;
     }
@@ -944,19 +1524,20 @@ public final class VisualCapture {
         final int index;
         final boolean passed;
         final double diffPercentage;
-        final BufferedImage diffImage;
+        /** Diff image renderer, only kept for failed comparisons */
+        final Supplier<BufferedImage> diffImage;
         final String strategy;
         final boolean usedAI;
         final boolean wasScaled;
         final double scaleFactor;
 
         ComparisonResult(int index, boolean passed, double diffPercentage,
-                         BufferedImage diffImage, String strategy, boolean usedAI) {
+                         Supplier<BufferedImage> diffImage, String strategy, boolean usedAI) {
             this(index, passed, diffPercentage, diffImage, strategy, usedAI, false, 1.0);
         }
 
         ComparisonResult(int index, boolean passed, double diffPercentage,
-                         BufferedImage diffImage, String strategy, boolean usedAI,
+                         Supplier<BufferedImage> diffImage, String strategy, boolean usedAI,
                          boolean wasScaled, double scaleFactor) {
             this.index = index;
             this.passed = passed;
@@ -2,22 +2,17 @@ package ca.bnc.ciam.autotests.visual;
 
 import ai.djl.Application;
 import ai.djl.MalformedModelException;
-import ai.djl.inference.Predictor;
-import ai.djl.modality.cv.Image;
-import ai.djl.modality.cv.ImageFactory;
-import ai.djl.modality.cv.transform.Normalize;
-import ai.djl.modality.cv.transform.Resize;
-import ai.djl.modality.cv.transform.ToTensor;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.types.Shape;
 import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
 import ai.djl.repository.zoo.ZooModel;
 import ai.djl.translate.Batchifier;
-import ai.djl.translate.Pipeline;
 import ai.djl.translate.TranslateException;
 import ai.djl.translate.Translator;
 import ai.djl.translate.TranslatorContext;
+import ai.djl.util.Pair;
 import lombok.Builder;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -29,16 +24,16 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 
-import javax.imageio.ImageIO;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * AI-based image comparison using DJL (Deep Java Library) and ResNet18.
@@ -49,6 +44,8 @@ import java.security.cert.X509Certificate;
  * font rendering variations, and dynamic content.
  *
  * The model is automatically downloaded on first use (~45MB) and cached locally.
+ * The comparator is thread-safe: concurrent comparisons each check out a predictor
+ * from a bounded pool (see {@link #POOL_SIZE_PROPERTY}) over the single loaded model.
  *
  * Usage:
  * <pre>
@@ -66,11 +63,26 @@ public class AIImageComparator implements AutoCloseable {
     private static final float[] IMAGENET_STD = {0.229f, 0.224f, 0.225f};
     private static final int INPUT_SIZE = 224;
 
+    /**
+     * Default number of pairs per forward pass (16 images). Peak native memory of a
+     * forward pass grows linearly with the batch: the first convolution alone outputs
+     * 64x112x112 floats (~3 MB) per image, so each predictor in the pool needs on the
+     * order of 100 MB at 16 images and twice that at 32.
+     */
+    private static final int DEFAULT_BATCH_PAIRS = 8;
+
+    /** Largest accepted number of pairs per forward pass */
+    private static final int MAX_BATCH_PAIRS = 16;
+
     private final double defaultThreshold;
-    private ZooModel<Image, float[]> model;
-    private Predictor<Image, float[]> predictor;
-    private boolean initialized = false;
+    private volatile int batchPairs = getBatchPairs();
+    private ZooModel<float[], float[]> model;
+    // Read without a lock by comparison threads and cleared by close(): callers
+    // take one local copy and use only that
+    private volatile PredictorPool<float[], float[]> predictorPool;
+    private volatile boolean initialized = false;
     private String initError = null;
+    private volatile EmbeddingCache embeddingCache;
 
     /**
      * Create comparator with default similarity threshold of 0.95 (95%).
@@ -95,6 +107,12 @@ public class AIImageComparator implements AutoCloseable {
     /** System property for specifying model URL (direct download) */
     public static final String MODEL_URL_PROPERTY = "bnc.visual.ai.model.url";
 
+    /** System property for the number of predictors shared by concurrent comparisons */
+    public static final String POOL_SIZE_PROPERTY = "bnc.visual.ai.pool.size";
+
+    /** System property for the number of image pairs per forward pass (default: 8, at most 16) */
+    public static final String BATCH_PAIRS_PROPERTY = "bnc.visual.ai.batch.pairs";
+
     /** Default DJL model download URL */
     private static final String DEFAULT_MODEL_URL =
             "https://djl-ai.s3.amazonaws.com/mlrepo/model/cv/image_classification/ai/djl/pytorch/resnet/0.0.1/traced_resnet18.pt.gz";
@@ -109,6 +127,13 @@ public class AIImageComparator implements AutoCloseable {
     private static final String PYTORCH_VERSION = "2.1.1";
     private static final String DJL_VERSION = "0.27.0";
 
+    /** Input preprocessing revision; bump whenever {@link #toInputTensor} changes the tensor it builds */
+    private static final String PREPROCESSING_VERSION = "pre-boxavg-v1";
+
+    /** Feature extractor version (model and preprocessing), part of every embedding cache key */
+    public static final String MODEL_VERSION = "resnet18-" + INPUT_SIZE + "/pytorch-" + PYTORCH_VERSION + "/djl-" + DJL_VERSION
+            + "/" + PREPROCESSING_VERSION;
+
     /** Static flag to track DJL availability - checked once at class load */
     private static final boolean DJL_AVAILABLE;
     private static final String DJL_UNAVAILABLE_REASON;
@@ -268,7 +293,7 @@ public class AIImageComparator implements AutoCloseable {
             String localModelPath = System.getProperty(MODEL_PATH_PROPERTY);
             String modelUrl = System.getProperty(MODEL_URL_PROPERTY);
 
-            Criteria<Image, float[]> criteria = null;
+            Criteria<float[], float[]> criteria = null;
 
             // 1. Try embedded model from classpath first
             Path embeddedModelPath = extractEmbeddedModel();
@@ -276,7 +301,7 @@ public class AIImageComparator implements AutoCloseable {
                 log.info("Loading AI model from embedded resource");
                 criteria = Criteria.builder()
                         .optApplication(Application.CV.IMAGE_CLASSIFICATION)
-                        .setTypes(Image.class, float[].class)
+                        .setTypes(float[].class, float[].class)
                         .optModelPath(embeddedModelPath)
                         .optTranslator(new FeatureExtractionTranslator())
                         .build();
@@ -288,7 +313,7 @@ public class AIImageComparator implements AutoCloseable {
                     log.info("Loading AI model from local path: {}", localModelPath);
                     criteria = Criteria.builder()
                             .optApplication(Application.CV.IMAGE_CLASSIFICATION)
-                            .setTypes(Image.class, float[].class)
+                            .setTypes(float[].class, float[].class)
                             .optModelPath(modelPath)
                             .optTranslator(new FeatureExtractionTranslator())
                             .build();
@@ -301,7 +326,7 @@ public class AIImageComparator implements AutoCloseable {
                 log.info("Loading AI model from URL: {}", modelUrl);
                 criteria = Criteria.builder()
                         .optApplication(Application.CV.IMAGE_CLASSIFICATION)
-                        .setTypes(Image.class, float[].class)
+                        .setTypes(float[].class, float[].class)
                         .optModelUrls(modelUrl)
                         .optTranslator(new FeatureExtractionTranslator())
                         .build();
@@ -311,7 +336,7 @@ public class AIImageComparator implements AutoCloseable {
                 log.info("Loading AI model from DJL model zoo (requires internet)...");
                 criteria = Criteria.builder()
                         .optApplication(Application.CV.IMAGE_CLASSIFICATION)
-                        .setTypes(Image.class, float[].class)
+                        .setTypes(float[].class, float[].class)
                         .optArtifactId("resnet")
                         .optFilter("layers", "18")
                         .optTranslator(new FeatureExtractionTranslator())
@@ -319,10 +344,11 @@ public class AIImageComparator implements AutoCloseable {
             }
 
             model = criteria.loadModel();
-            predictor = model.newPredictor();
+            predictorPool = new PredictorPool<>(model, getPoolSize());
             initialized = true;
 
-            log.info("AI image comparator initialized successfully");
+            log.info("AI image comparator initialized successfully (predictor pool size: {})",
+                    predictorPool.getSize());
 
         } catch (ModelNotFoundException | MalformedModelException | IOException e) {
             initError = e.getMessage();
@@ -384,22 +410,15 @@ public class AIImageComparator implements AutoCloseable {
 
     /**
      * Custom translator for extracting feature vectors from images.
+     * Input is a normalized CHW tensor built by {@link #toInputTensor(BufferedImage)}.
      */
-    private static class FeatureExtractionTranslator implements Translator<Image, float[]> {
+    private static class FeatureExtractionTranslator implements Translator<float[], float[]> {
 
-        private final Pipeline pipeline;
-
-        public FeatureExtractionTranslator() {
-            this.pipeline = new Pipeline()
-                    .add(new Resize(INPUT_SIZE, INPUT_SIZE))
-                    .add(new ToTensor())
-                    .add(new Normalize(IMAGENET_MEAN, IMAGENET_STD));
-        }
+        private static final Shape INPUT_SHAPE = new Shape(3, INPUT_SIZE, INPUT_SIZE);
 
         @Override
-        public NDList processInput(TranslatorContext ctx, Image input) {
-            NDArray array = input.toNDArray(ctx.getNDManager(), Image.Flag.COLOR);
-            return pipeline.transform(new NDList(array));
+        public NDList processInput(TranslatorContext ctx, float[] input) {
+            return new NDList(ctx.getNDManager().create(input, INPUT_SHAPE));
         }
 
         @Override
@@ -423,7 +442,40 @@ public class AIImageComparator implements AutoCloseable {
      * Check if the AI comparator is available.
      */
     public boolean isAvailable() {
-        return initialized && predictor != null;
+        return initialized && predictorPool != null;
+    }
+
+    /**
+     * Run one dummy inference so the engine and the first predictor are fully
+     * initialized before the first real comparison.
+     *
+     * @return true if the inference succeeded
+     */
+    public boolean warmUp() {
+        PredictorPool<float[], float[]> pool = predictorPool;
+        if (!initialized || pool == null) {
+            return false;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            float[] blank = new float[3 * INPUT_SIZE * INPUT_SIZE];
+            pool.withPredictor(p -> p.predict(blank));
+            log.info("AI model warm-up inference completed in {}ms", System.currentTimeMillis() - startTime);
+            return true;
+        } catch (TranslateException | RuntimeException e) {
+            log.warn("AI model warm-up inference failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Get predictor pool metrics (queue wait time, utilization).
+     *
+     * @return pool stats, or null when the comparator is not available
+     */
+    public PoolStats getPoolStats() {
+        PredictorPool<float[], float[]> pool = predictorPool;
+        return pool != null ? pool.stats() : null;
     }
 
     /**
@@ -433,6 +485,24 @@ public class AIImageComparator implements AutoCloseable {
         return initError;
     }
 
+    /**
+     * Set the cache used to look up baseline feature vectors instead of running the model.
+     *
+     * @param embeddingCache the cache, or null to always run the model
+     */
+    public void setEmbeddingCache(EmbeddingCache embeddingCache) {
+        this.embeddingCache = embeddingCache;
+    }
+
+    /**
+     * Set the number of image pairs run through the model per forward pass.
+     *
+     * @param batchPairs pairs per batch, clamped to 1..16
+     */
+    public void setBatchPairs(int batchPairs) {
+        this.batchPairs = Math.max(1, Math.min(MAX_BATCH_PAIRS, batchPairs));
+    }
+
     /**
      * Compare two images using AI-based feature extraction.
      *
@@ -453,58 +523,152 @@ public class AIImageComparator implements AutoCloseable {
      * @return comparison result
      */
     public AIComparisonResult compare(BufferedImage baseline, BufferedImage actual, double threshold) {
-        if (!isAvailable()) {
+        return compareAll(Collections.singletonList(new Pair<>(baseline, actual)), threshold).get(0);
+    }
+
+    /**
+     * Compare several image pairs, extracting all feature vectors in batched forward passes.
+     *
+     * @param pairs baseline/actual pairs
+     * @return one result per pair, in order
+     */
+    public List<AIComparisonResult> compareAll(List<Pair<BufferedImage, BufferedImage>> pairs) {
+        return compareAll(pairs, defaultThreshold);
+    }
+
+    /**
+     * Compare several image pairs with custom similarity threshold.
+     * Pairs are run through the model {@value #DEFAULT_BATCH_PAIRS} at a time unless
+     * {@link #BATCH_PAIRS_PROPERTY} says otherwise (baseline and actual of a pair
+     * always share a batch). Baseline vectors
+     * found in the embedding cache are not recomputed.
+     *
+     * @param pairs     baseline/actual pairs
+     * @param threshold similarity threshold (0.0 to 1.0)
+     * @return one result per pair, in order
+     */
+    public List<AIComparisonResult> compareAll(List<Pair<BufferedImage, BufferedImage>> pairs, double threshold) {
+        List<AIComparisonResult> results = new ArrayList<>(pairs.size());
+        PredictorPool<float[], float[]> pool = predictorPool;
+        if (!initialized || pool == null) {
             log.warn("AI comparator not available: {}", initError);
-            return AIComparisonResult.builder()
-                    .match(false)
-                    .similarity(0.0)
-                    .threshold(threshold)
-                    .error("AI comparator not initialized: " + initError)
-                    .build();
+            for (int i = 0; i < pairs.size(); i++) {
+                results.add(errorResult(threshold, "AI comparator not initialized: " + initError));
+            }
+            return results;
         }
 
-        try {
-            // Convert BufferedImages to DJL Images
-            Image baselineImg = bufferedImageToDjlImage(baseline);
-            Image actualImg = bufferedImageToDjlImage(actual);
-
-            // Extract feature vectors
-            float[] baselineFeatures = predictor.predict(baselineImg);
-            float[] actualFeatures = predictor.predict(actualImg);
-
-            // Calculate cosine similarity
-            double similarity = cosineSimilarity(baselineFeatures, actualFeatures);
-            boolean match = similarity >= threshold;
-
-            log.info("AI image comparison: similarity={:.4f}, threshold={:.4f}, match={}",
-                    similarity, threshold, match);
-
-            return AIComparisonResult.builder()
-                    .match(match)
-                    .similarity(similarity)
-                    .threshold(threshold)
-                    .baselineFeatureSize(baselineFeatures.length)
-                    .actualFeatureSize(actualFeatures.length)
-                    .build();
-
-        } catch (TranslateException | IOException e) {
-            log.error("AI comparison failed: {}", e.getMessage());
-            return AIComparisonResult.builder()
-                    .match(false)
-                    .similarity(0.0)
-                    .threshold(threshold)
-                    .error(e.getMessage())
-                    .build();
+        int pairsPerBatch = batchPairs;
+        for (int from = 0; from < pairs.size(); from += pairsPerBatch) {
+            List<Pair<BufferedImage, BufferedImage>> batch =
+                    pairs.subList(from, Math.min(pairs.size(), from + pairsPerBatch));
+            try {
+                long startTime = System.currentTimeMillis();
+
+                EmbeddingCache cache = embeddingCache;
+                String[] baselineKeys = new String[batch.size()];
+                float[][] baselineFeatures = new float[batch.size()][];
+                if (cache != null) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        baselineKeys[i] = cache.key(batch.get(i).getKey());
+                        baselineFeatures[i] = cache.get(baselineKeys[i]);
+                    }
+                }
+
+                // Convert BufferedImages to input tensors: [baseline0, actual0, baseline1, actual1, ...],
+                // skipping baselines whose features are already cached
+                List<float[]> inputs = new ArrayList<>(batch.size() * 2);
+                for (int i = 0; i < batch.size(); i++) {
+                    if (baselineFeatures[i] == null) {
+                        inputs.add(toInputTensor(batch.get(i).getKey()));
+                    }
+                    inputs.add(toInputTensor(batch.get(i).getValue()));
+                }
+                long preprocessTime = System.currentTimeMillis() - startTime;
+
+                // Extract feature vectors in one forward pass
+                List<float[]> features = pool.withPredictor(p -> p.batchPredict(inputs));
+
+                int next = 0;
+                int cacheHits = 0;
+                for (int i = 0; i < batch.size(); i++) {
+                    if (baselineFeatures[i] == null) {
+                        baselineFeatures[i] = features.get(next++);
+                        if (cache != null) {
+                            cache.put(baselineKeys[i], baselineFeatures[i]);
+                        }
+                    } else {
+                        cacheHits++;
+                    }
+                    results.add(similarityResult(baselineFeatures[i], features.get(next++), threshold));
+                }
+
+                long duration = System.currentTimeMillis() - startTime;
+                log.debug("AI feature extraction: {} pair(s) in {}ms ({}ms per pair, {} cached baseline(s)); "
+                                + "preprocessing {}ms for {} input tensor(s) of {} KB",
+                        batch.size(), duration, duration / batch.size(), cacheHits,
+                        preprocessTime, inputs.size(), 3 * INPUT_SIZE * INPUT_SIZE * Float.BYTES / 1024);
+
+            } catch (TranslateException | IllegalStateException e) {
+                // IllegalStateException: the pool was closed by a concurrent close()
+                log.error("AI comparison failed: {}", e.getMessage());
+                for (int i = 0; i < batch.size(); i++) {
+                    results.add(errorResult(threshold, e.getMessage()));
+                }
+            }
         }
+        return results;
     }
 
     /**
-     * Convert BufferedImage to DJL Image.
+     * Build the result for one pair of feature vectors.
      */
-    private Image bufferedImageToDjlImage(BufferedImage image) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(image, "png", baos);
-        return ImageFactory.getInstance().fromInputStream(new ByteArrayInputStream(baos.toByteArray()));
+    private AIComparisonResult similarityResult(float[] baselineFeatures, float[] actualFeatures, double threshold) {
+        // Calculate cosine similarity
+        double similarity = cosineSimilarity(baselineFeatures, actualFeatures);
+        boolean match = similarity >= threshold;
+
+        log.info("AI image comparison: similarity={:.4f}, threshold={:.4f}, match={}",
+                similarity, threshold, match);
+
+        return AIComparisonResult.builder()
+                .match(match)
+                .similarity(similarity)
+                .threshold(threshold)
+                .baselineFeatureSize(baselineFeatures.length)
+                .actualFeatureSize(actualFeatures.length)
+                .build();
+    }
+
+    private AIComparisonResult errorResult(double threshold, String error) {
+        return AIComparisonResult.builder()
+                .match(false)
+                .similarity(0.0)
+                .threshold(threshold)
+                .error(error)
+                .build();
+    }
+
+    /**
+     * Convert a BufferedImage to the model input: a {@value #INPUT_SIZE}x{@value #INPUT_SIZE}
+     * CHW float tensor normalized with the ImageNet mean/std.
+     *
+     * Reads the raster directly and box-averages each output pixel over its source
+     * area (see {@link RasterUtils#boxAverageRgb}), so no image codec or intermediate
+     * image is involved.
+     */
+    static float[] toInputTensor(BufferedImage image) {
+        float[] cells = RasterUtils.boxAverageRgb(image, INPUT_SIZE, INPUT_SIZE);
+        int plane = INPUT_SIZE * INPUT_SIZE;
+        float[] tensor = new float[3 * plane];
+        for (int c = 0; c < 3; c++) {
+            float scale = 1f / (255f * IMAGENET_STD[c]);
+            float offset = IMAGENET_MEAN[c] / IMAGENET_STD[c];
+            for (int i = 0; i < plane; i++) {
+                tensor[c * plane + i] = cells[3 * i + c] * scale - offset;
+            }
+        }
+        return tensor;
     }
 
     /**
@@ -537,9 +701,10 @@ public class AIImageComparator implements AutoCloseable {
 
     @Override
     public void close() {
-        if (predictor != null) {
-            predictor.close();
-            predictor = null;
+        PredictorPool<float[], float[]> pool = predictorPool;
+        predictorPool = null;
+        if (pool != null) {
+            pool.close();
         }
         if (model != null) {
             model.close();
@@ -548,6 +713,63 @@ public class AIImageComparator implements AutoCloseable {
         initialized = false;
     }
 
+    /**
+     * Get the predictor pool size from system property.
+     * Defaults to the number of processors, capped at 4 since each inference
+     * already runs multi-threaded inside the engine.
+     */
+    private static int getPoolSize() {
+        int defaultSize = Math.min(4, Runtime.getRuntime().availableProcessors());
+        String value = System.getProperty(POOL_SIZE_PROPERTY);
+        if (value != null && !value.isEmpty()) {
+            try {
+                return Math.max(1, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid {} value '{}', using {}", POOL_SIZE_PROPERTY, value, defaultSize);
+            }
+        }
+        return defaultSize;
+    }
+
+    /**
+     * Get the number of pairs per forward pass from system property.
+     */
+    private static int getBatchPairs() {
+        String value = System.getProperty(BATCH_PAIRS_PROPERTY);
+        if (value != null && !value.isEmpty()) {
+            try {
+                return Math.max(1, Math.min(MAX_BATCH_PAIRS, Integer.parseInt(value.trim())));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid {} value '{}', using {}", BATCH_PAIRS_PROPERTY, value, DEFAULT_BATCH_PAIRS);
+            }
+        }
+        return DEFAULT_BATCH_PAIRS;
+    }
+
+    /**
+     * Predictor pool metrics snapshot.
+     */
+    @Data
+    @Builder
+    public static class PoolStats {
+        private int size;
+        private int created;
+        private int inUse;
+        private int peakInUse;
+        private long checkouts;
+        private long totalWaitMs;
+        private long maxWaitMs;
+        private double averageWaitMs;
+        /** Fraction of pool capacity spent running inference since the pool was created */
+        private double utilization;
+
+        public String getSummary() {
+            return String.format("Predictor pool: size=%d, peak in use=%d, checkouts=%d, "
+                            + "avg wait=%.1fms, max wait=%dms, utilization=%.1f%%",
+                    size, peakInUse, checkouts, averageWaitMs, maxWaitMs, utilization * 100);
+        }
+    }
+
     /**
      * AI comparison result data class.
      */
@@ -0,0 +1,262 @@
+package ca.bnc.ciam.autotests.visual;
+
+import lombok.Builder;
+import lombok.Data;
+import ca.bnc.ciam.autotests.visual.model.EncodingProfile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background PNG writer for actual and diff artifacts.
+ *
+ * {@link #write} returns the target path immediately and encodes on a small
+ * daemon pool, so deflate time is not charged to the test thread. The queue is
+ * bounded: when it is full the calling thread encodes the image itself, which
+ * caps the memory held by pending images. Each file is written to a temporary
+ * name and moved into place, so a target never exists half-written.
+ *
+ * Pending writes are flushed by {@code TestngListener.onFinish} before reports
+ * are generated, and by a shutdown hook as a last resort. Images handed to the
+ * writer must not be modified afterwards.
+ */
+@Slf4j
+public class AsyncArtifactWriter {
+
+    /** System property enabling background writes (default: true; false writes on the calling thread) */
+    public static final String ASYNC_PROPERTY = "bnc.visual.artifacts.async";
+
+    /** System property for the number of writer threads (default: 2) */
+    public static final String THREADS_PROPERTY = "bnc.visual.artifacts.threads";
+
+    /** System property for the number of queued images before callers write themselves (default: 8) */
+    public static final String QUEUE_PROPERTY = "bnc.visual.artifacts.queue";
+
+    private static final int DEFAULT_THREADS = 2;
+    private static final int DEFAULT_QUEUE = 8;
+    private static final long DEFAULT_FLUSH_TIMEOUT_MS = 120_000;
+
+    private static volatile AsyncArtifactWriter instance;
+
+    /** Null when writes are synchronous */
+    private final ThreadPoolExecutor executor;
+    private final Object pendingLock = new Object();
+    private int pending = 0;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong callerWrites = new AtomicLong();
+
+    /**
+     * Create a writer.
+     *
+     * @param threads       writer threads (0 writes synchronously on the calling thread)
+     * @param queueCapacity images that may wait for a writer thread
+     */
+    public AsyncArtifactWriter(int threads, int queueCapacity) {
+        if (threads <= 0) {
+            this.executor = null;
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                task -> {
+                    Thread thread = new Thread(task, "visual-artifact-writer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, pool) -> {
+                    // Back-pressure: the caller encodes the image itself
+                    callerWrites.incrementAndGet();
+                    task.run();
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get the shared writer, configured from system properties on first use.
+     */
+    public static AsyncArtifactWriter getInstance() {
+        AsyncArtifactWriter writer = instance;
+        if (writer == null) {
+            synchronized (AsyncArtifactWriter.class) {
+                writer = instance;
+                if (writer == null) {
+                    writer = fromSystemProperties();
+                    AsyncArtifactWriter shared = writer;
+                    Runtime.getRuntime().addShutdownHook(
+                            new Thread(() -> shared.flush(DEFAULT_FLUSH_TIMEOUT_MS), "visual-artifact-flush"));
+                    instance = writer;
+                }
+            }
+        }
+        return writer;
+    }
+
+    private static AsyncArtifactWriter fromSystemProperties() {
+        if (!Boolean.parseBoolean(System.getProperty(ASYNC_PROPERTY, "true"))) {
+            return new AsyncArtifactWriter(0, 0);
+        }
+        int threads = intProperty(THREADS_PROPERTY, DEFAULT_THREADS);
+        int queue = intProperty(QUEUE_PROPERTY, DEFAULT_QUEUE);
+        log.debug("Artifact writer: threads={}, queue={}", threads, queue);
+        return new AsyncArtifactWriter(threads, queue);
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        String configured = System.getProperty(name);
+        if (configured == null || configured.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(configured.trim()));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid {} '{}', using {}", name, configured, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Write an artifact as PNG with the {@link EncodingProfile#ARTIFACT} profile.
+     */
+    public Path write(BufferedImage image, Path target) throws IOException {
+        return write(image, target, EncodingProfile.ARTIFACT);
+    }
+
+    /**
+     * Write an image as PNG, in the background when enabled.
+     *
+     * @param image   image to write (must not be modified afterwards)
+     * @param target  destination file; parent directories are created
+     * @param profile encoding profile
+     * @return the target path, which exists once the write completes
+     * @throws IOException if the directories cannot be created, or a synchronous write fails
+     */
+    public Path write(BufferedImage image, Path target, EncodingProfile profile) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (executor == null) {
+            encode(image, target, profile);
+            written.incrementAndGet();
+            return target;
+        }
+
+        synchronized (pendingLock) {
+            pending++;
+        }
+        executor.execute(() -> {
+            try {
+                encode(image, target, profile);
+                written.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                failed.incrementAndGet();
+                log.warn("Failed to write artifact {}: {}", target, e.getMessage());
+            } finally {
+                synchronized (pendingLock) {
+                    pending--;
+                    pendingLock.notifyAll();
+                }
+            }
+        });
+        return target;
+    }
+
+    /**
+     * Wait for all pending writes, up to the default timeout.
+     *
+     * @return true if nothing is pending any more
+     */
+    public boolean flush() {
+        return flush(DEFAULT_FLUSH_TIMEOUT_MS);
+    }
+
+    /**
+     * Wait for all pending writes.
+     *
+     * @param timeoutMs maximum time to wait
+     * @return true if nothing is pending any more, false on timeout or interruption
+     */
+    public boolean flush(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (pendingLock) {
+            while (pending > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    log.warn("Timed out flushing artifacts: {} write(s) still pending", pending);
+                    return false;
+                }
+                try {
+                    pendingLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether writes happen in the background.
+     */
+    public boolean isAsync() {
+        return executor != null;
+    }
+
+    /**
+     * Get writer counters.
+     */
+    public WriterStats getStats() {
+        int pendingNow;
+        synchronized (pendingLock) {
+            pendingNow = pending;
+        }
+        return WriterStats.builder()
+                .written(written.get())
+                .failed(failed.get())
+                .callerWrites(callerWrites.get())
+                .pending(pendingNow)
+                .build();
+    }
+
+    private static void encode(BufferedImage image, Path target, EncodingProfile profile) throws IOException {
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            PngEncoder.write(image, temp, profile);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.debug("Artifact written: {}", target);
+    }
+
+    /**
+     * Artifact writer counters.
+     */
+    @Data
+    @Builder
+    public static class WriterStats {
+        private long written;
+        private long failed;
+        /** Writes done by the calling thread because the queue was full */
+        private long callerWrites;
+        private int pending;
+
+        public String getSummary() {
+            return String.format("Artifact writer: written=%d, failed=%d, caller writes=%d, pending=%d",
+                    written, failed, callerWrites, pending);
+        }
+    }
+}
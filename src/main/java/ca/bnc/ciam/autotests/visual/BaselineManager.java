@@ -1,5 +1,6 @@
 package ca.bnc.ciam.autotests.visual;
 
+import ca.bnc.ciam.autotests.visual.model.EncodingProfile;
 import lombok.extern.slf4j.Slf4j;
 import ru.yandex.qatools.ashot.Screenshot;
 
@@ -10,25 +11,43 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Manages baseline images for visual regression testing.
  * Handles storage, retrieval, and updating of baseline screenshots.
+ *
+ * In content-addressed mode (bnc.visual.baseline.cas.enabled=true) identical
+ * images are stored once under their hash and baseline names are resolved
+ * through a manifest; backups become manifest entries under "backup/".
  */
 @Slf4j
 public class BaselineManager {
 
+    /** System property enabling content-addressed baseline storage (default: false) */
+    public static final String CONTENT_ADDRESSED_PROPERTY = "bnc.visual.baseline.cas.enabled";
+
     private static final String DEFAULT_BASELINE_DIR = "src/test/resources/baselines";
     private static final String ACTUAL_DIR_SUFFIX = "actual";
     private static final String DIFF_DIR_SUFFIX = "diff";
-    private static final String IMAGE_FORMAT = "PNG";
     private static final String IMAGE_EXTENSION = ".png";
+    private static final String BACKUP_DIR = "backup";
+    private static final String BACKUP_TIMESTAMP_FORMAT = "yyyyMMdd_HHmmss";
+    private static final Pattern BACKUP_TIMESTAMP = Pattern.compile("_backup_(\\d{8}_\\d{6})");
 
     private final Path baselineDirectory;
     private final Path actualDirectory;
     private final Path diffDirectory;
+    private final EmbeddingCache embeddingCache;
+    private final BaselineStore baselineStore;
+    private final ContentAddressedStore contentStore;
 
     /**
      * Create baseline manager with default directory.
@@ -41,11 +60,30 @@ public class BaselineManager {
      * Create baseline manager with custom directory.
      */
     public BaselineManager(String baselinePath) {
+        this(baselinePath, BaselineStore.getInstance());
+    }
+
+    /**
+     * Create baseline manager with custom directory and baseline store.
+     */
+    public BaselineManager(String baselinePath, BaselineStore baselineStore) {
+        this(baselinePath, baselineStore, Boolean.getBoolean(CONTENT_ADDRESSED_PROPERTY));
+    }
+
+    /**
+     * Create baseline manager with custom directory, baseline store and storage mode.
+     *
+     * @param contentAddressed store images once per content hash behind a name manifest
+     */
+    public BaselineManager(String baselinePath, BaselineStore baselineStore, boolean contentAddressed) {
         this.baselineDirectory = Paths.get(baselinePath);
         this.actualDirectory = baselineDirectory.resolve(ACTUAL_DIR_SUFFIX);
         this.diffDirectory = baselineDirectory.resolve(DIFF_DIR_SUFFIX);
+        this.embeddingCache = new EmbeddingCache(baselineDirectory);
+        this.baselineStore = baselineStore;
 
         initializeDirectories();
+        this.contentStore = contentAddressed ? openContentStore() : null;
     }
 
     /**
@@ -62,6 +100,17 @@ public class BaselineManager {
         }
     }
 
+    /**
+     * Open the content-addressed store under the baseline directory.
+     */
+    private ContentAddressedStore openContentStore() {
+        try {
+            return ContentAddressedStore.forDirectory(baselineDirectory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open content-addressed baseline store", e);
+        }
+    }
+
     /**
      * Generate baseline file name from test identifiers.
      */
@@ -81,9 +130,15 @@ public class BaselineManager {
     }
 
     /**
-     * Get baseline file path.
+     * Get baseline file path (the stored object in content-addressed mode).
      */
     public Path getBaselinePath(String fileName) {
+        if (contentStore != null) {
+            Path object = contentStore.resolve(fileName);
+            if (object != null) {
+                return object;
+            }
+        }
         return baselineDirectory.resolve(fileName);
     }
 
@@ -114,6 +169,9 @@ public class BaselineManager {
      * Check if baseline exists.
      */
     public boolean baselineExists(String fileName) {
+        if (contentStore != null) {
+            return contentStore.hash(fileName) != null;
+        }
         return Files.exists(getBaselinePath(fileName));
     }
 
@@ -126,15 +184,15 @@ public class BaselineManager {
     }
 
     /**
-     * Load baseline image.
+     * Load baseline image (decoded images are shared through the baseline store).
      */
     public BufferedImage loadBaseline(String fileName) throws IOException {
         Path path = getBaselinePath(fileName);
-        if (!Files.exists(path)) {
+        if (!baselineExists(fileName)) {
             throw new IOException("Baseline not found: " + path);
         }
         log.debug("Loading baseline from: {}", path);
-        return ImageIO.read(path.toFile());
+        return baselineStore.load(path);
     }
 
     /**
@@ -149,9 +207,15 @@ public class BaselineManager {
      * Save baseline image.
      */
     public Path saveBaseline(BufferedImage image, String fileName) throws IOException {
+        if (contentStore != null) {
+            Path object = contentStore.put(fileName, image);
+            log.info("Baseline saved: {} -> {}", fileName, object);
+            return object;
+        }
         Path path = getBaselinePath(fileName);
         Files.createDirectories(path.getParent());
-        ImageIO.write(image, IMAGE_FORMAT, path.toFile());
+        PngEncoder.write(image, path, EncodingProfile.BASELINE);
+        baselineStore.invalidate(path);
         log.info("Baseline saved to: {}", path);
         return path;
     }
@@ -172,13 +236,11 @@ public class BaselineManager {
     }
 
     /**
-     * Save actual screenshot.
+     * Save actual screenshot (written in the background, see {@link AsyncArtifactWriter}).
      */
     public Path saveActual(BufferedImage image, String fileName) throws IOException {
-        Path path = getActualPath(fileName);
-        Files.createDirectories(path.getParent());
-        ImageIO.write(image, IMAGE_FORMAT, path.toFile());
-        log.debug("Actual screenshot saved to: {}", path);
+        Path path = AsyncArtifactWriter.getInstance().write(image, getActualPath(fileName));
+        log.debug("Actual screenshot queued for: {}", path);
         return path;
     }
 
@@ -190,12 +252,10 @@ public class BaselineManager {
     }
 
     /**
-     * Save diff image.
+     * Save diff image (written in the background, see {@link AsyncArtifactWriter}).
      */
     public Path saveDiff(BufferedImage image, String fileName) throws IOException {
-        Path path = getDiffPath(fileName);
-        Files.createDirectories(path.getParent());
-        ImageIO.write(image, IMAGE_FORMAT, path.toFile());
+        Path path = AsyncArtifactWriter.getInstance().write(image, getDiffPath(fileName));
         log.info("Diff image saved to: {}", path);
         return path;
     }
@@ -205,15 +265,26 @@ public class BaselineManager {
      */
     public Path updateBaseline(BufferedImage newImage, String fileName) throws IOException {
         Path baselinePath = getBaselinePath(fileName);
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern(BACKUP_TIMESTAMP_FORMAT));
+        String backupName = fileName.replace(IMAGE_EXTENSION, "_backup_" + timestamp + IMAGE_EXTENSION);
+
+        // Content-addressed: the old object is immutable, so the backup is just another name for it
+        if (contentStore != null) {
+            String previousHash = contentStore.hash(fileName);
+            if (previousHash != null) {
+                contentStore.link(BACKUP_DIR + "/" + backupName, previousHash);
+                log.info("Baseline backed up as manifest entry: {}/{}", BACKUP_DIR, backupName);
+            }
+            return saveBaseline(newImage, fileName);
+        }
 
         // Backup existing baseline
         if (Files.exists(baselinePath)) {
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String backupName = fileName.replace(IMAGE_EXTENSION, "_backup_" + timestamp + IMAGE_EXTENSION);
-            Path backupPath = baselineDirectory.resolve("backup").resolve(backupName);
+            Path backupPath = baselineDirectory.resolve(BACKUP_DIR).resolve(backupName);
             Files.createDirectories(backupPath.getParent());
             Files.copy(baselinePath, backupPath);
             log.info("Baseline backed up to: {}", backupPath);
+            invalidateEmbedding(baselinePath);
         }
 
         // Save new baseline
@@ -224,15 +295,43 @@ public class BaselineManager {
      * Delete baseline.
      */
     public boolean deleteBaseline(String fileName) throws IOException {
+        if (contentStore != null) {
+            if (!baselineExists(fileName)) {
+                return false;
+            }
+            // Embeddings are keyed by content, so a deleted object's entry can never be hit again
+            Path deletedObject = contentStore.remove(fileName);
+            if (deletedObject != null) {
+                baselineStore.invalidate(deletedObject);
+            }
+            log.info("Baseline deleted: {}{}", fileName, deletedObject != null ? "" : " (object still shared)");
+            return true;
+        }
         Path path = getBaselinePath(fileName);
         if (Files.exists(path)) {
+            invalidateEmbedding(path);
             Files.delete(path);
+            baselineStore.invalidate(path);
             log.info("Baseline deleted: {}", path);
             return true;
         }
         return false;
     }
 
+    /**
+     * Drop the cached AI embedding of a baseline that is about to change.
+     */
+    private void invalidateEmbedding(Path baselinePath) {
+        try {
+            BufferedImage image = ImageIO.read(baselinePath.toFile());
+            if (image != null && embeddingCache.invalidate(image)) {
+                log.debug("Embedding cache entry invalidated for: {}", baselinePath);
+            }
+        } catch (IOException e) {
+            log.debug("Could not read baseline to invalidate its embedding: {}", e.getMessage());
+        }
+    }
+
     /**
      * Clean up actual and diff images older than specified days.
      */
@@ -242,11 +341,106 @@ public class BaselineManager {
 
         deleted += cleanupDirectory(actualDirectory, cutoffTime);
         deleted += cleanupDirectory(diffDirectory, cutoffTime);
+        if (contentStore != null) {
+            deleted += cleanupContentStore(cutoffTime);
+        }
 
         log.info("Cleaned up {} old images", deleted);
         return deleted;
     }
 
+    /**
+     * Content-addressed cleanup: drop backup entries older than the cutoff, then
+     * delete objects no manifest entry refers to any more.
+     */
+    private int cleanupContentStore(long cutoffTime) throws IOException {
+        LocalDateTime cutoff = LocalDateTime.ofInstant(Instant.ofEpochMilli(cutoffTime), ZoneId.systemDefault());
+        DateTimeFormatter format = DateTimeFormatter.ofPattern(BACKUP_TIMESTAMP_FORMAT);
+        int deleted = 0;
+        for (String name : contentStore.names()) {
+            if (!name.startsWith(BACKUP_DIR + "/")) {
+                continue;
+            }
+            Matcher matcher = BACKUP_TIMESTAMP.matcher(name);
+            if (matcher.find() && LocalDateTime.parse(matcher.group(1), format).isBefore(cutoff)) {
+                Path deletedObject = contentStore.remove(name);
+                if (deletedObject != null) {
+                    baselineStore.invalidate(deletedObject);
+                    deleted++;
+                }
+            }
+        }
+        for (Path orphan : contentStore.deleteUnreferencedObjects()) {
+            baselineStore.invalidate(orphan);
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Move baseline files under the baseline directory, including nested ones such as
+     * {browser}/{language}/{className}/{stepName}_N.png, into the content-addressed store.
+     * Each file is stored under its path relative to the baseline directory ('/'-separated).
+     * The object, actual, diff and hidden directories are skipped.
+     *
+     * @return number of baselines imported
+     */
+    public int importFileBaselines() throws IOException {
+        if (contentStore == null) {
+            throw new IllegalStateException("Content-addressed storage is not enabled");
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(baselineDirectory)) {
+            files = walk.filter(file -> Files.isRegularFile(file)
+                            && file.getFileName().toString().endsWith(IMAGE_EXTENSION)
+                            && !isExcludedFromImport(baselineDirectory.relativize(file)))
+                    .sorted()
+                    .toList();
+        }
+        int imported = 0;
+        for (Path file : files) {
+            BufferedImage image = ImageIO.read(file.toFile());
+            if (image == null) {
+                log.warn("Skipping unreadable baseline: {}", file);
+                continue;
+            }
+            contentStore.put(toBaselineName(baselineDirectory.relativize(file)), image);
+            Files.delete(file);
+            baselineStore.invalidate(file);
+            imported++;
+        }
+        log.info("Imported {} baseline files into content-addressed storage ({} distinct images)",
+                imported, contentStore.objectCount());
+        return imported;
+    }
+
+    /**
+     * Check whether a file, relative to the baseline directory, lies in a directory that holds no baselines.
+     */
+    private static boolean isExcludedFromImport(Path relative) {
+        if (relative.getNameCount() < 2) {
+            return false;
+        }
+        String top = relative.getName(0).toString();
+        if (top.equals(ContentAddressedStore.OBJECTS_DIR_NAME) || top.equals(ACTUAL_DIR_SUFFIX)
+                || top.equals(DIFF_DIR_SUFFIX)) {
+            return true;
+        }
+        for (Path part : relative.getParent()) {
+            if (part.toString().startsWith(".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Manifest name of a file path relative to the baseline directory.
+     */
+    private static String toBaselineName(Path relative) {
+        return relative.toString().replace(File.separatorChar, '/');
+    }
+
     /**
      * Clean up old files in a directory.
      */
@@ -293,4 +487,25 @@ public class BaselineManager {
     public Path getDiffDirectory() {
         return diffDirectory;
     }
+
+    /**
+     * Get the AI embedding cache kept alongside the baselines.
+     */
+    public EmbeddingCache getEmbeddingCache() {
+        return embeddingCache;
+    }
+
+    /**
+     * Check whether baselines are stored content-addressed.
+     */
+    public boolean isContentAddressed() {
+        return contentStore != null;
+    }
+
+    /**
+     * Get the store that caches decoded baselines.
+     */
+    public BaselineStore getBaselineStore() {
+        return baselineStore;
+    }
 }
@@ -0,0 +1,272 @@
+package ca.bnc.ciam.autotests.visual;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads baselines into the {@link BaselineStore} before the checkpoints that use them.
+ *
+ * {@code TestngListener.intercept} knows the planned test classes before anything
+ * runs and hands their baseline directories over in execution order. One daemon
+ * thread at minimum priority decodes the images (or maps their raster sidecars)
+ * into the shared store while the first tests set up their browsers, so that
+ * checkpoints find their baselines in memory.
+ *
+ * Prefetching is bounded by a budget of decoded raster bytes, estimated from the
+ * image headers before decoding. The budget is capped at half the store's memory
+ * budget so that prefetched images do not push out the baselines of running tests.
+ * Images that do not fit are left to be loaded on demand.
+ */
+@Slf4j
+public class BaselinePrefetcher {
+
+    /** System property enabling baseline prefetch (default: true) */
+    public static final String ENABLED_PROPERTY = "bnc.visual.prefetch.enabled";
+
+    /** System property for the prefetch budget in MB of decoded rasters (default: 128) */
+    public static final String BUDGET_PROPERTY = "bnc.visual.prefetch.mb";
+
+    private static final long DEFAULT_BUDGET_MB = 128;
+    private static final String IMAGE_GLOB = "*.png";
+
+    /** Upper bound of decoded bytes per pixel (4-channel images) */
+    private static final int MAX_BYTES_PER_PIXEL = 4;
+
+    private static volatile BaselinePrefetcher instance;
+
+    private final BaselineStore store;
+    private final long budgetBytes;
+    /** Created on the first prefetch */
+    private ExecutorService executor;
+    private final Set<Path> seenDirectories = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicLong directories = new AtomicLong();
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong overBudget = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Create a prefetcher.
+     *
+     * @param store       store to load baselines into
+     * @param budgetBytes decoded raster bytes to prefetch at most (0 disables prefetch);
+     *                    capped at half the store's memory budget
+     */
+    public BaselinePrefetcher(BaselineStore store, long budgetBytes) {
+        this.store = store;
+        this.budgetBytes = Math.max(0, Math.min(budgetBytes, store.getStats().getMaxBytes() / 2));
+    }
+
+    /**
+     * Get the shared prefetcher, configured from system properties on first use.
+     */
+    public static BaselinePrefetcher getInstance() {
+        BaselinePrefetcher prefetcher = instance;
+        if (prefetcher == null) {
+            synchronized (BaselinePrefetcher.class) {
+                prefetcher = instance;
+                if (prefetcher == null) {
+                    prefetcher = fromSystemProperties();
+                    instance = prefetcher;
+                }
+            }
+        }
+        return prefetcher;
+    }
+
+    private static BaselinePrefetcher fromSystemProperties() {
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            return new BaselinePrefetcher(BaselineStore.getInstance(), 0);
+        }
+        long budgetMb = DEFAULT_BUDGET_MB;
+        String configured = System.getProperty(BUDGET_PROPERTY);
+        if (configured != null && !configured.isBlank()) {
+            try {
+                budgetMb = Math.max(0, Long.parseLong(configured.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid {} '{}', using {}", BUDGET_PROPERTY, configured, DEFAULT_BUDGET_MB);
+            }
+        }
+        BaselinePrefetcher prefetcher = new BaselinePrefetcher(BaselineStore.getInstance(), budgetMb * 1024 * 1024);
+        log.debug("Baseline prefetch: budget={}MB", prefetcher.budgetBytes / 1048576);
+        return prefetcher;
+    }
+
+    /**
+     * Load the baselines of some directories in the background, in the given order.
+     * Directories already handed over, and directories that do not exist, are skipped.
+     *
+     * @param baselineDirectories baseline directories, in the order their tests will run
+     * @return completes when the directories have been processed
+     */
+    public CompletableFuture<Void> prefetch(Collection<Path> baselineDirectories) {
+        List<Path> pending = new ArrayList<>();
+        if (budgetBytes > 0) {
+            for (Path directory : baselineDirectories) {
+                Path normalized = directory.toAbsolutePath().normalize();
+                if (Files.isDirectory(normalized) && seenDirectories.add(normalized)) {
+                    pending.add(normalized);
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        log.info("Prefetching baselines of {} class(es) in the background", pending.size());
+        return CompletableFuture.runAsync(() -> pending.forEach(this::prefetchDirectory), executor());
+    }
+
+    /**
+     * Load some baseline images in the background, in the given order. For baselines that
+     * are not kept in per-class directories (content-addressed objects).
+     *
+     * @param images baseline image files, in the order their tests will run
+     * @return completes when the images have been processed
+     */
+    public CompletableFuture<Void> prefetchFiles(Collection<Path> images) {
+        if (budgetBytes <= 0 || images.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<Path> pending = new ArrayList<>(images);
+        log.info("Prefetching {} baseline image(s) in the background", pending.size());
+        return CompletableFuture.runAsync(() -> prefetchImages(pending), executor());
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "visual-baseline-prefetch");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    private void prefetchDirectory(Path directory) {
+        List<Path> images = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, IMAGE_GLOB)) {
+            stream.forEach(images::add);
+        } catch (IOException e) {
+            log.debug("Could not list baselines in {}: {}", directory, e.getMessage());
+            failed.incrementAndGet();
+            return;
+        }
+        images.sort(null);
+        directories.incrementAndGet();
+        prefetchImages(images);
+    }
+
+    private void prefetchImages(List<Path> images) {
+        for (Path image : images) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                long estimate = estimateBytes(image);
+                if (reservedBytes.addAndGet(estimate) > budgetBytes) {
+                    reservedBytes.addAndGet(-estimate);
+                    overBudget.incrementAndGet();
+                    continue;
+                }
+                if (store.prefetch(image)) {
+                    files.incrementAndGet();
+                } else {
+                    reservedBytes.addAndGet(-estimate);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Could not prefetch baseline {}: {}", image, e.getMessage());
+                failed.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Upper bound of an image's decoded size, read from its header only.
+     */
+    private static long estimateBytes(Path image) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(image.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + image);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return (long) reader.getWidth(0) * reader.getHeight(0) * MAX_BYTES_PER_PIXEL;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the prefetch counters, with the store's view of how many prefetched images were used.
+     */
+    public PrefetchStats getStats() {
+        BaselineStore.CacheStats cache = store.getStats();
+        return PrefetchStats.builder()
+                .directories(directories.get())
+                .files(files.get())
+                .reservedBytes(reservedBytes.get())
+                .budgetBytes(budgetBytes)
+                .overBudget(overBudget.get())
+                .failed(failed.get())
+                .hits(cache.getPrefetchHits())
+                .evictedUnused(cache.getPrefetchEvictions())
+                .build();
+    }
+
+    /**
+     * Baseline prefetch counters.
+     */
+    @Data
+    @Builder
+    public static class PrefetchStats {
+        private long directories;
+        /** Images loaded into the store */
+        private long files;
+        /** Estimated decoded bytes of the loaded images */
+        private long reservedBytes;
+        private long budgetBytes;
+        /** Images left to on-demand loading because the budget was spent */
+        private long overBudget;
+        private long failed;
+        /** Prefetched images that a checkpoint then found in memory */
+        private long hits;
+        /** Prefetched images evicted before any checkpoint used them */
+        private long evictedUnused;
+
+        public double getHitRate() {
+            return files > 0 ? (double) hits / files : 0.0;
+        }
+
+        public String getSummary() {
+            return String.format("Baseline prefetch: classes=%d, images=%d (%.1f/%.1f MB), over budget=%d, "
+                            + "failed=%d, used=%d, evicted unused=%d, hit rate=%.1f%%",
+                    directories, files, reservedBytes / 1048576.0, budgetBytes / 1048576.0, overBudget,
+                    failed, hits, evictedUnused, getHitRate() * 100);
+        }
+    }
+}
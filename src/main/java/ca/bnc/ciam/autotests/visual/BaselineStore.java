@@ -0,0 +1,498 @@
+package ca.bnc.ciam.autotests.visual;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decoded baseline images shared across checkpoints.
+ *
+ * Two tiers sit in front of {@code ImageIO.read}:
+ * - memory: decoded images in an LRU bounded by raster bytes, keyed by path and
+ *   validated against the file's size and modification time on every load
+ * - disk: a raw-raster sidecar per baseline, memory-mapped on a cold load so the
+ *   PNG does not have to be inflated again; written after each PNG decode
+ *
+ * Images are kept in the type the PNG decoder produced (sidecars included), so
+ * cached baselines compare exactly like freshly decoded ones. Returned images
+ * are shared and must be treated as read-only.
+ *
+ * Images loaded ahead of use by {@link #prefetch} are counted separately: a
+ * prefetch hit is the first load that finds a prefetched image in memory.
+ */
+@Slf4j
+public class BaselineStore {
+
+    /** System property for the memory cache size in MB (default: 256, 0 disables the memory tier) */
+    public static final String CACHE_SIZE_PROPERTY = "bnc.visual.baseline.cache.mb";
+
+    /** System property enabling the raw-raster sidecars (default: true) */
+    public static final String RASTER_ENABLED_PROPERTY = "bnc.visual.baseline.raster.enabled";
+
+    /** System property for the sidecar directory (default: target/visual-cache/rasters) */
+    public static final String RASTER_DIR_PROPERTY = "bnc.visual.baseline.raster.dir";
+
+    private static final long DEFAULT_CACHE_MB = 256;
+    private static final String DEFAULT_RASTER_DIR = "target/visual-cache/rasters";
+    private static final String RASTER_EXTENSION = ".raw";
+
+    // Sidecar header: magic, version, image type, width, height, source size, source mtime (padded)
+    private static final int RASTER_MAGIC = 0x42524157; // "BRAW"
+    private static final int RASTER_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int WRITE_CHUNK = 1 << 20;
+
+    private static volatile BaselineStore instance;
+
+    private final long maxBytes;
+    private final Path rasterDirectory;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long rasterLoads = 0;
+    private long decodes = 0;
+    private long prefetched = 0;
+    private long prefetchHits = 0;
+    private long prefetchEvictions = 0;
+
+    /**
+     * Create a store.
+     *
+     * @param maxBytes        memory budget for decoded rasters (0 disables the memory tier)
+     * @param rasterDirectory sidecar directory, or null to disable sidecars
+     */
+    public BaselineStore(long maxBytes, Path rasterDirectory) {
+        this.maxBytes = maxBytes;
+        this.rasterDirectory = rasterDirectory;
+    }
+
+    /**
+     * Get the shared store, configured from system properties on first use.
+     */
+    public static BaselineStore getInstance() {
+        BaselineStore store = instance;
+        if (store == null) {
+            synchronized (BaselineStore.class) {
+                store = instance;
+                if (store == null) {
+                    store = fromSystemProperties();
+                    instance = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    private static BaselineStore fromSystemProperties() {
+        long cacheMb = DEFAULT_CACHE_MB;
+        String configured = System.getProperty(CACHE_SIZE_PROPERTY);
+        if (configured != null && !configured.isBlank()) {
+            try {
+                cacheMb = Math.max(0, Long.parseLong(configured.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid {} '{}', using {}", CACHE_SIZE_PROPERTY, configured, DEFAULT_CACHE_MB);
+            }
+        }
+        Path rasterDir = Boolean.parseBoolean(System.getProperty(RASTER_ENABLED_PROPERTY, "true"))
+                ? Paths.get(System.getProperty(RASTER_DIR_PROPERTY, DEFAULT_RASTER_DIR))
+                : null;
+        log.debug("Baseline store: cache={}MB, rasters={}", cacheMb, rasterDir);
+        return new BaselineStore(cacheMb * 1024 * 1024, rasterDir);
+    }
+
+    /**
+     * Load a baseline image: from memory, else from its raster sidecar, else by decoding the PNG.
+     *
+     * @param path baseline PNG
+     * @return the decoded image (shared, read-only)
+     * @throws IOException if the file is missing or cannot be decoded
+     */
+    public BufferedImage load(Path path) throws IOException {
+        Path file = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new IOException("Baseline not found: " + file, e);
+        }
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        String key = file.toString();
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.size == size && entry.modified == modified) {
+                hits++;
+                if (entry.prefetched) {
+                    entry.prefetched = false;
+                    prefetchHits++;
+                }
+                return entry.image;
+            }
+            misses++;
+        }
+
+        BufferedImage image = read(file, size, modified);
+        cache(key, new Entry(image, size, modified, rasterBytes(image), false));
+        return image;
+    }
+
+    /**
+     * Load a baseline into memory ahead of use, without counting a hit or a miss.
+     *
+     * @param path baseline PNG
+     * @return true if the image was loaded and kept, false if it was already in memory
+     *         or does not fit the memory budget
+     * @throws IOException if the file is missing or cannot be decoded
+     */
+    public boolean prefetch(Path path) throws IOException {
+        Path file = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new IOException("Baseline not found: " + file, e);
+        }
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        String key = file.toString();
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.size == size && entry.modified == modified) {
+                return false;
+            }
+        }
+
+        BufferedImage image = read(file, size, modified);
+        if (!cache(key, new Entry(image, size, modified, rasterBytes(image), true))) {
+            return false;
+        }
+        synchronized (entries) {
+            prefetched++;
+        }
+        return true;
+    }
+
+    /**
+     * Read a baseline from its raster sidecar, else by decoding the PNG (writing the sidecar).
+     */
+    private BufferedImage read(Path file, long size, long modified) throws IOException {
+        BufferedImage image = readRaster(file, size, modified);
+        if (image != null) {
+            synchronized (entries) {
+                rasterLoads++;
+            }
+        } else {
+            image = ImageIO.read(file.toFile());
+            if (image == null) {
+                throw new IOException("Unsupported image format: " + file);
+            }
+            synchronized (entries) {
+                decodes++;
+            }
+            writeRaster(file, size, modified, image);
+        }
+        return image;
+    }
+
+    /**
+     * Drop a baseline from memory and delete its sidecar (call before or after changing the file).
+     */
+    public void invalidate(Path path) {
+        Path file = path.toAbsolutePath().normalize();
+        synchronized (entries) {
+            Entry removed = entries.remove(file.toString());
+            if (removed != null) {
+                cachedBytes -= removed.bytes;
+            }
+        }
+        if (rasterDirectory != null) {
+            try {
+                Files.deleteIfExists(rasterPath(file));
+            } catch (IOException e) {
+                log.debug("Could not delete raster sidecar of {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Drop every decoded image from memory (sidecars are kept).
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            cachedBytes = 0;
+        }
+    }
+
+    /**
+     * Snapshot of the cache counters.
+     */
+    public CacheStats getStats() {
+        synchronized (entries) {
+            return CacheStats.builder()
+                    .hits(hits)
+                    .misses(misses)
+                    .evictions(evictions)
+                    .rasterLoads(rasterLoads)
+                    .decodes(decodes)
+                    .prefetched(prefetched)
+                    .prefetchHits(prefetchHits)
+                    .prefetchEvictions(prefetchEvictions)
+                    .entries(entries.size())
+                    .cachedBytes(cachedBytes)
+                    .maxBytes(maxBytes)
+                    .build();
+        }
+    }
+
+    /**
+     * Keep an image in memory, evicting the least recently used ones over budget.
+     *
+     * @return false if the image alone exceeds the budget
+     */
+    private boolean cache(String key, Entry entry) {
+        if (entry.bytes > maxBytes) {
+            return false;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                cachedBytes -= previous.bytes;
+            }
+            cachedBytes += entry.bytes;
+
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (cachedBytes > maxBytes && eldest.hasNext()) {
+                Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                cachedBytes -= evicted.bytes;
+                evictions++;
+                if (evicted.prefetched) {
+                    prefetchEvictions++;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read a sidecar written for this exact file version, or null if there is none.
+     */
+    private BufferedImage readRaster(Path file, long size, long modified) {
+        if (rasterDirectory == null) {
+            return null;
+        }
+        Path raster = rasterPath(file);
+        if (!Files.exists(raster)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(raster, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < HEADER_SIZE || mapped.getInt(0) != RASTER_MAGIC
+                    || mapped.getInt(4) != RASTER_VERSION
+                    || mapped.getLong(20) != size || mapped.getLong(28) != modified) {
+                return null;
+            }
+            int type = mapped.getInt(8);
+            int width = mapped.getInt(12);
+            int height = mapped.getInt(16);
+            BufferedImage image = new BufferedImage(width, height, type);
+            DataBuffer buffer = image.getRaster().getDataBuffer();
+            mapped.position(HEADER_SIZE);
+            if (buffer instanceof DataBufferInt ints) {
+                int[] data = ints.getData();
+                if (mapped.remaining() != data.length * 4L) {
+                    return null;
+                }
+                mapped.asIntBuffer().get(data);
+            } else {
+                byte[] data = ((DataBufferByte) buffer).getData();
+                if (mapped.remaining() != data.length) {
+                    return null;
+                }
+                mapped.get(data);
+            }
+            log.debug("Baseline loaded from raster sidecar: {}", file);
+            return image;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Ignoring unreadable raster sidecar {}: {}", raster, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Write the sidecar of a freshly decoded baseline (best effort: failures only cost the next cold load).
+     */
+    private void writeRaster(Path file, long size, long modified, BufferedImage image) {
+        if (rasterDirectory == null || !hasRawLayout(image)) {
+            return;
+        }
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        Path raster = rasterPath(file);
+        Path temp = null;
+        try {
+            Files.createDirectories(rasterDirectory);
+            temp = Files.createTempFile(rasterDirectory, "raster", ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(RASTER_MAGIC).putInt(RASTER_VERSION).putInt(image.getType())
+                        .putInt(image.getWidth()).putInt(image.getHeight())
+                        .putLong(size).putLong(modified);
+                header.clear();
+                writeFully(channel, header);
+
+                if (buffer instanceof DataBufferInt ints) {
+                    int[] data = ints.getData();
+                    ByteBuffer chunk = ByteBuffer.allocate(WRITE_CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+                    int perChunk = WRITE_CHUNK / 4;
+                    for (int from = 0; from < data.length; from += perChunk) {
+                        int count = Math.min(perChunk, data.length - from);
+                        chunk.clear();
+                        chunk.asIntBuffer().put(data, from, count);
+                        chunk.limit(count * 4);
+                        writeFully(channel, chunk);
+                    }
+                } else {
+                    writeFully(channel, ByteBuffer.wrap(((DataBufferByte) buffer).getData()));
+                }
+            }
+            Files.move(temp, raster, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.debug("Could not write raster sidecar for {}: {}", file, e.getMessage());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Best effort
+                }
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Check whether the image's buffer can be stored and restored as-is.
+     */
+    private static boolean hasRawLayout(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        if (buffer.getNumBanks() != 1) {
+            return false;
+        }
+        int pixelCount = image.getWidth() * image.getHeight();
+        return switch (image.getType()) {
+            case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB ->
+                    ((DataBufferInt) buffer).getData().length == pixelCount;
+            case BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY ->
+                    ((DataBufferByte) buffer).getData().length
+                            == pixelCount * image.getColorModel().getNumComponents();
+            default -> false;
+        };
+    }
+
+    private static long rasterBytes(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    private Path rasterPath(Path file) {
+        byte[] hash = RasterUtils.sha256().digest(file.toString().getBytes(StandardCharsets.UTF_8));
+        return rasterDirectory.resolve(HexFormat.of().formatHex(hash) + RASTER_EXTENSION);
+    }
+
+    /**
+     * Cached image with the file version it was read from.
+     */
+    private static final class Entry {
+        private final BufferedImage image;
+        private final long size;
+        private final long modified;
+        private final long bytes;
+        /** Prefetched and not loaded since; guarded by the entries lock */
+        private boolean prefetched;
+
+        private Entry(BufferedImage image, long size, long modified, long bytes, boolean prefetched) {
+            this.image = image;
+            this.size = size;
+            this.modified = modified;
+            this.bytes = bytes;
+            this.prefetched = prefetched;
+        }
+    }
+
+    /**
+     * Baseline cache counters.
+     */
+    @Data
+    @Builder
+    public static class CacheStats {
+        private long hits;
+        private long misses;
+        private long evictions;
+        /** Misses served from a raster sidecar */
+        private long rasterLoads;
+        /** Misses that had to decode the PNG */
+        private long decodes;
+        /** Images loaded ahead of use by {@link BaselineStore#prefetch} */
+        private long prefetched;
+        /** Prefetched images later found in memory by a load */
+        private long prefetchHits;
+        /** Prefetched images evicted before any load used them */
+        private long prefetchEvictions;
+        private int entries;
+        private long cachedBytes;
+        private long maxBytes;
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total > 0 ? (double) hits / total : 0.0;
+        }
+
+        /**
+         * Share of prefetched images that a load used.
+         */
+        public double getPrefetchHitRate() {
+            return prefetched > 0 ? (double) prefetchHits / prefetched : 0.0;
+        }
+
+        public String getSummary() {
+            return String.format("Baseline cache: hits=%d, misses=%d (raster=%d, decoded=%d), evictions=%d, "
+                            + "entries=%d, size=%.1f/%.1f MB, hit rate=%.1f%%",
+                    hits, misses, rasterLoads, decodes, evictions, entries,
+                    cachedBytes / 1048576.0, maxBytes / 1048576.0, getHitRate() * 100);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package ca.bnc.ciam.autotests.visual;
+
+import ca.bnc.ciam.autotests.visual.model.PageGeometry;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+
+/**
+ * Full-page and clip capture through the DevTools {@code Page.captureScreenshot} command.
+ *
+ * With {@code captureBeyondViewport} Chromium renders the whole document (or just
+ * a clip of it) in one call, without scrolling, so sticky headers appear once
+ * instead of in every viewport. Local ChromeDriver and EdgeDriver sessions expose DevTools directly;
+ * remote Chrome/Edge sessions are augmented once per driver. Other browsers, and
+ * sessions whose DevTools endpoint fails, are reported as unsupported so that the
+ * caller can fall back to scrolling.
+ */
+@Slf4j
+final class CdpScreenshotCapture {
+
+    /**
+     * Tallest capture attempted in one call, in device pixels. Chromium clips
+     * larger surfaces to its maximum texture size.
+     */
+    static final long MAX_CAPTURE_HEIGHT = 16_384;
+
+    private static final String CAPTURE_COMMAND = "Page.captureScreenshot";
+
+    /** DevTools access per driver; empty once a driver is known not to support it */
+    private static final Map<WebDriver, Optional<HasCdp>> sessions =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private CdpScreenshotCapture() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Check if a page can be captured in one DevTools call.
+     */
+    static boolean supports(WebDriver driver, PageGeometry geometry) {
+        if (geometry.getScrollHeight() * geometry.getDevicePixelRatio() > MAX_CAPTURE_HEIGHT) {
+            log.debug("Page too tall for a single DevTools capture ({}px at ratio {})",
+                    geometry.getScrollHeight(), geometry.getDevicePixelRatio());
+            return false;
+        }
+        return isAvailable(driver);
+    }
+
+    /**
+     * Check if DevTools captures can be taken on a driver.
+     */
+    static boolean isAvailable(WebDriver driver) {
+        return devTools(driver).isPresent();
+    }
+
+    /**
+     * Capture the whole page, as wide as the viewport.
+     *
+     * @return PNG bytes, or null if the DevTools call failed (DevTools is then disabled for the driver)
+     */
+    static byte[] captureFullPage(WebDriver driver, PageGeometry geometry) {
+        return captureClip(driver, 0, 0, geometry.getViewportWidth(),
+                Math.max(geometry.getScrollHeight(), geometry.getViewportHeight()));
+    }
+
+    /**
+     * Capture an area of the page, whether or not it is inside the viewport.
+     * Only the area is rendered and transferred.
+     *
+     * @param x      left edge in page CSS pixels
+     * @param y      top edge in page CSS pixels
+     * @param width  width in CSS pixels
+     * @param height height in CSS pixels
+     * @return PNG bytes, or null if the DevTools call failed (DevTools is then disabled for the driver)
+     */
+    static byte[] captureClip(WebDriver driver, long x, long y, long width, long height) {
+        Optional<HasCdp> cdp = devTools(driver);
+        if (cdp.isEmpty()) {
+            return null;
+        }
+        try {
+            Map<String, Object> result = cdp.get().executeCdpCommand(CAPTURE_COMMAND, Map.of(
+                    "format", "png",
+                    "captureBeyondViewport", true,
+                    "fromSurface", true,
+                    "clip", Map.of(
+                            "x", x,
+                            "y", y,
+                            "width", Math.max(1, width),
+                            "height", Math.max(1, height),
+                            "scale", 1)));
+            Object data = result != null ? result.get("data") : null;
+            if (!(data instanceof String encoded)) {
+                throw new IllegalStateException("No image data in " + CAPTURE_COMMAND + " result");
+            }
+            return Base64.getDecoder().decode(encoded);
+        } catch (RuntimeException e) {
+            log.warn("DevTools capture failed, falling back to native screenshots: {}", e.getMessage());
+            sessions.put(driver, Optional.empty());
+            return null;
+        }
+    }
+
+    /**
+     * Cut a full-page capture into viewports at the positions a scrolling capture would
+     * take, with the same count and sizes. The content differs from a scrolling capture
+     * wherever fixed or sticky elements are: they appear only at their place in the page,
+     * not in every viewport, so the two modes need separate baselines.
+     *
+     * @param fullPage the decoded full-page capture
+     * @param geometry geometry the capture was taken with
+     * @param index    zero-based viewport index
+     * @param count    number of viewports
+     * @return a standalone copy of the viewport area
+     */
+    static BufferedImage viewport(BufferedImage fullPage, PageGeometry geometry, int index, int count) {
+        double ratio = geometry.getDevicePixelRatio();
+        int width = fullPage.getWidth();
+        int height = (int) Math.min(Math.round(geometry.getViewportHeight() * ratio), fullPage.getHeight());
+        int top = (int) Math.min(Math.round(geometry.getScrollPosition(index, count) * ratio),
+                fullPage.getHeight() - height);
+
+        int type = fullPage.getType() != BufferedImage.TYPE_CUSTOM ? fullPage.getType() : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage viewport = new BufferedImage(width, Math.max(1, height), type);
+        Graphics2D g = viewport.createGraphics();
+        g.drawImage(fullPage, 0, -top, null);
+        g.dispose();
+        return viewport;
+    }
+
+    static BufferedImage decode(byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        if (image == null) {
+            throw new IOException("DevTools capture could not be decoded");
+        }
+        return image;
+    }
+
+    private static Optional<HasCdp> devTools(WebDriver driver) {
+        if (driver instanceof HasCdp cdp) {
+            return sessions.getOrDefault(driver, Optional.of(cdp));
+        }
+        return sessions.computeIfAbsent(driver, CdpScreenshotCapture::augment);
+    }
+
+    /**
+     * Give a remote Chromium session DevTools access.
+     */
+    private static Optional<HasCdp> augment(WebDriver driver) {
+        if (!(driver instanceof RemoteWebDriver) || !isChromium(driver)) {
+            return Optional.empty();
+        }
+        try {
+            WebDriver augmented = new Augmenter().augment(driver);
+            if (augmented instanceof HasCdp cdp) {
+                log.debug("Remote session augmented with DevTools access");
+                return Optional.of(cdp);
+            }
+        } catch (RuntimeException e) {
+            log.debug("Could not augment remote session with DevTools access: {}", e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isChromium(WebDriver driver) {
+        if (!(driver instanceof HasCapabilities hasCapabilities)) {
+            return false;
+        }
+        Capabilities capabilities = hasCapabilities.getCapabilities();
+        String browserName = capabilities != null ? capabilities.getBrowserName() : null;
+        return browserName != null && (browserName.equalsIgnoreCase("chrome")
+                || browserName.equalsIgnoreCase("MicrosoftEdge") || browserName.equalsIgnoreCase("msedge"));
+    }
+}
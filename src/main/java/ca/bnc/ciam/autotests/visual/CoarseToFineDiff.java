@@ -0,0 +1,261 @@
+package ca.bnc.ciam.autotests.visual;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Coarse-to-fine pixel diff for large, mostly unchanged pages.
+ *
+ * The coarse level is a 1/8-scale change map: one cell per 8x8 block, marked
+ * when any byte of the block differs. It is built straight from the backing
+ * buffers with vectorized row mismatches, so unchanged rows cost one bulk
+ * compare and no per-pixel conversion. Only changed cells are examined at full
+ * resolution with {@link RasterDiff}'s threshold, and region detection only
+ * scans the rows around them. Because a cell is skipped only when its pixels
+ * are byte-identical, counts and regions are exactly those of the full diff.
+ */
+final class CoarseToFineDiff {
+
+    /** Change map cell size in pixels (the coarse level is 1/CELL_SIZE scale) */
+    static final int CELL_SIZE = 8;
+
+    private CoarseToFineDiff() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Diff two images of the same size.
+     *
+     * @param baseline   baseline image
+     * @param actual     actual image (same dimensions)
+     * @param ignore     precomputed ignore spans
+     * @param failPixels diff count above which counting may stop ({@code Integer.MAX_VALUE} for never)
+     * @return diff count, mask and regions (after an early exit: no regions, and the rows left undiffed)
+     */
+    static Result diff(BufferedImage baseline, BufferedImage actual, IgnoreMask ignore, int failPixels) {
+        int width = baseline.getWidth();
+        int height = baseline.getHeight();
+        Pixels[] pixels = Pixels.of(baseline, actual);
+        Pixels base = pixels[0];
+        Pixels act = pixels[1];
+
+        int cellCols = (width + CELL_SIZE - 1) / CELL_SIZE;
+        int cellRows = (height + CELL_SIZE - 1) / CELL_SIZE;
+        boolean[] changed = changeMap(base, act, width, height, cellCols, cellRows);
+
+        byte[] mask = null;
+        int diffPixels = 0;
+        int changedCells = 0;
+        List<int[]> rowRanges = new ArrayList<>();
+        for (int cy = 0; cy < cellRows; cy++) {
+            int cellFrom = cy * cellCols;
+            int cx = 0;
+            boolean rowChanged = false;
+            while (cx < cellCols) {
+                if (!changed[cellFrom + cx]) {
+                    cx++;
+                    continue;
+                }
+                int runEnd = cx;
+                while (runEnd < cellCols && changed[cellFrom + runEnd]) {
+                    runEnd++;
+                }
+                if (mask == null) {
+                    mask = new byte[width * height];
+                }
+                changedCells += runEnd - cx;
+                diffPixels += diffRect(base, act, width, ignore, mask,
+                        cx * CELL_SIZE, Math.min(width, runEnd * CELL_SIZE),
+                        cy * CELL_SIZE, Math.min(height, (cy + 1) * CELL_SIZE));
+                rowChanged = true;
+                cx = runEnd;
+            }
+            if (rowChanged) {
+                addRows(rowRanges, cy * CELL_SIZE, Math.min(height, (cy + 1) * CELL_SIZE));
+            }
+            if (diffPixels > failPixels) {
+                int rowTo = Math.min(height, (cy + 1) * CELL_SIZE);
+                List<int[]> pendingRows = rowTo < height ? List.of(new int[]{rowTo, height}) : List.of();
+                return new Result(diffPixels, mask, null, true, pendingRows, changedCells, cellCols * cellRows);
+            }
+        }
+
+        List<int[]> regions = mask == null
+                ? new ArrayList<>()
+                : DiffRegionFinder.findRegions(mask, width, rowRanges);
+        return new Result(diffPixels, mask, regions, false, List.of(), changedCells, cellCols * cellRows);
+    }
+
+    /**
+     * Build the 1/8-scale change map: a cell is changed if any element of its block differs.
+     */
+    private static boolean[] changeMap(Pixels base, Pixels act, int width, int height, int cellCols, int cellRows) {
+        boolean[] changed = new boolean[cellCols * cellRows];
+        int stride = width * base.elementsPerPixel;
+        int cellStride = CELL_SIZE * base.elementsPerPixel;
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * stride;
+            int cellFrom = (y / CELL_SIZE) * cellCols;
+            int pos = 0;
+            while (pos < stride) {
+                int offset = base.mismatch(act, rowStart + pos, rowStart + stride);
+                if (offset < 0) {
+                    break;
+                }
+                int cx = (pos + offset) / cellStride;
+                changed[cellFrom + cx] = true;
+                pos = (cx + 1) * cellStride;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Full-resolution diff of the rectangle [x0, x1) x [y0, y1), skipping ignored spans.
+     */
+    private static int diffRect(Pixels base, Pixels act, int width, IgnoreMask ignore, byte[] mask,
+                                int x0, int x1, int y0, int y1) {
+        int count = 0;
+        for (int y = y0; y < y1; y++) {
+            int rowOffset = y * width;
+            int[] spans = ignore.spans(y);
+            int x = x0;
+            for (int i = 0; i <= spans.length && x < x1; i += 2) {
+                int segmentEnd = i < spans.length ? Math.min(x1, spans[i]) : x1;
+                for (; x < segmentEnd; x++) {
+                    int b = base.rgb(rowOffset + x);
+                    int a = act.rgb(rowOffset + x);
+                    if (((a ^ b) & 0xFFFFFF) != 0 && RasterDiff.isDifferent(b, a)) {
+                        mask[rowOffset + x] = (byte) 0xFF;
+                        count++;
+                    }
+                }
+                if (i < spans.length) {
+                    x = Math.max(x, spans[i + 1]);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Append a row range, joining it to the previous one when they touch.
+     */
+    private static void addRows(List<int[]> rowRanges, int rowFrom, int rowTo) {
+        if (!rowRanges.isEmpty()) {
+            int[] last = rowRanges.get(rowRanges.size() - 1);
+            if (last[1] == rowFrom) {
+                last[1] = rowTo;
+                return;
+            }
+        }
+        rowRanges.add(new int[]{rowFrom, rowTo});
+    }
+
+    /**
+     * Outcome of a coarse-to-fine diff.
+     */
+    static final class Result {
+        final int diffPixels;
+        /** Diff mask, null when no cell changed */
+        final byte[] mask;
+        /** Diff regions, null after an early exit */
+        final List<int[]> regions;
+        final boolean earlyExit;
+        /** Row ranges [from, to) not diffed because of an early exit */
+        final List<int[]> pendingRows;
+        final int changedCells;
+        final int totalCells;
+
+        private Result(int diffPixels, byte[] mask, List<int[]> regions, boolean earlyExit,
+                       List<int[]> pendingRows, int changedCells, int totalCells) {
+            this.diffPixels = diffPixels;
+            this.mask = mask;
+            this.regions = regions;
+            this.earlyExit = earlyExit;
+            this.pendingRows = pendingRows;
+            this.changedCells = changedCells;
+            this.totalCells = totalCells;
+        }
+    }
+
+    /**
+     * Pixel data of one image in a layout shared with the other image:
+     * the backing buffers when both images have the same directly readable type,
+     * packed RGB ints otherwise.
+     */
+    private static final class Pixels {
+        private final int[] ints;
+        private final byte[] bytes;
+        private final int elementsPerPixel;
+        /** Index of the blue byte within a pixel (byte layouts are B, G, R after any alpha) */
+        private final int blueOffset;
+
+        private Pixels(int[] ints, byte[] bytes, int elementsPerPixel, int blueOffset) {
+            this.ints = ints;
+            this.bytes = bytes;
+            this.elementsPerPixel = elementsPerPixel;
+            this.blueOffset = blueOffset;
+        }
+
+        static Pixels[] of(BufferedImage a, BufferedImage b) {
+            int pixelCount = a.getWidth() * a.getHeight();
+            if (a.getType() == b.getType()) {
+                DataBuffer bufferA = a.getRaster().getDataBuffer();
+                DataBuffer bufferB = b.getRaster().getDataBuffer();
+                switch (a.getType()) {
+                    case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB -> {
+                        int[] dataA = ((DataBufferInt) bufferA).getData();
+                        int[] dataB = ((DataBufferInt) bufferB).getData();
+                        if (dataA.length == pixelCount && dataB.length == pixelCount) {
+                            return new Pixels[]{ofInts(dataA), ofInts(dataB)};
+                        }
+                    }
+                    case BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR -> {
+                        int components = a.getColorModel().getNumComponents();
+                        byte[] dataA = ((DataBufferByte) bufferA).getData();
+                        byte[] dataB = ((DataBufferByte) bufferB).getData();
+                        if (dataA.length == pixelCount * components && dataB.length == pixelCount * components) {
+                            return new Pixels[]{
+                                    new Pixels(null, dataA, components, components - 3),
+                                    new Pixels(null, dataB, components, components - 3)};
+                        }
+                    }
+                    default -> {
+                        // Converted below
+                    }
+                }
+            }
+            return new Pixels[]{ofInts(RasterUtils.toRgbPixels(a)), ofInts(RasterUtils.toRgbPixels(b))};
+        }
+
+        private static Pixels ofInts(int[] rgb) {
+            return new Pixels(rgb, null, 1, 0);
+        }
+
+        /**
+         * Relative index of the first differing element in [from, to), or -1.
+         */
+        int mismatch(Pixels other, int from, int to) {
+            return ints != null
+                    ? Arrays.mismatch(ints, from, to, other.ints, from, to)
+                    : Arrays.mismatch(bytes, from, to, other.bytes, from, to);
+        }
+
+        /**
+         * Packed RGB of a pixel (alpha bits unspecified).
+         */
+        int rgb(int pixel) {
+            if (ints != null) {
+                return ints[pixel];
+            }
+            int i = pixel * elementsPerPixel + blueOffset;
+            return (bytes[i] & 0xff) | (bytes[i + 1] & 0xff) << 8 | (bytes[i + 2] & 0xff) << 16;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package ca.bnc.ciam.autotests.visual;
+
+import ca.bnc.ciam.autotests.visual.model.EncodingProfile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed baseline images with a name manifest.
+ *
+ * Each distinct image is stored once as {@code objects/<hh>/<sha256>.png}, where
+ * the hash covers the size and RGB pixels (so re-encoding the same pixels does
+ * not create a new object). {@code manifest.txt} maps logical baseline names to
+ * hashes, one {@code name=hash} line per baseline, sorted for readable diffs.
+ * The manifest is held in memory for O(1) lookups and rewritten atomically on
+ * every change. Objects are immutable; an object is deleted only once no name
+ * refers to it.
+ *
+ * One instance is shared per directory (see {@link #forDirectory(Path)}), so every
+ * caller in the JVM updates the same manifest and reference counts. Two instances over
+ * one directory would overwrite each other's manifest entries and could delete
+ * objects the other had just linked.
+ */
+@Slf4j
+public final class ContentAddressedStore {
+
+    /** Object directory name under the baseline directory */
+    static final String OBJECTS_DIR_NAME = "objects";
+
+    /** Manifest file name under the baseline directory */
+    static final String MANIFEST_FILE_NAME = "manifest.txt";
+
+    private static final String OBJECT_EXTENSION = ".png";
+
+    /** Open stores by real path of their baseline directory; guarded by itself */
+    private static final Map<Path, ContentAddressedStore> STORES = new HashMap<>();
+
+    private final Path objectsDirectory;
+    private final Path manifestFile;
+    private final Map<String, String> manifest = new ConcurrentHashMap<>();
+    /** Number of manifest names per hash; guarded by this */
+    private final Map<String, Integer> references = new HashMap<>();
+
+    private ContentAddressedStore(Path baselineDirectory) throws IOException {
+        this.objectsDirectory = baselineDirectory.resolve(OBJECTS_DIR_NAME);
+        this.manifestFile = baselineDirectory.resolve(MANIFEST_FILE_NAME);
+        Files.createDirectories(objectsDirectory);
+        readManifest();
+    }
+
+    /**
+     * Get the store of a baseline directory, opening it on first use.
+     *
+     * @param baselineDirectory directory holding the manifest and objects (created if missing)
+     * @return the one store of that directory
+     */
+    public static ContentAddressedStore forDirectory(Path baselineDirectory) throws IOException {
+        Path key = Files.createDirectories(baselineDirectory).toRealPath();
+        synchronized (STORES) {
+            ContentAddressedStore store = STORES.get(key);
+            if (store == null) {
+                store = new ContentAddressedStore(key);
+                STORES.put(key, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Hash of the image stored under a name, or null.
+     */
+    public String hash(String name) {
+        return manifest.get(name);
+    }
+
+    /**
+     * Object file of a name, or null if the name is not in the manifest.
+     */
+    public Path resolve(String name) {
+        String hash = manifest.get(name);
+        return hash != null ? objectPath(hash) : null;
+    }
+
+    /**
+     * Store an image under a name, writing the object only if its content is new.
+     *
+     * @return the object file
+     */
+    public synchronized Path put(String name, BufferedImage image) throws IOException {
+        MessageDigest digest = RasterUtils.sha256();
+        RasterUtils.digestPixels(digest, image);
+        String hash = HexFormat.of().formatHex(digest.digest());
+
+        Path object = objectPath(hash);
+        if (!Files.exists(object)) {
+            Files.createDirectories(object.getParent());
+            Path temp = Files.createTempFile(object.getParent(), hash, ".tmp");
+            try {
+                PngEncoder.write(image, temp, EncodingProfile.BASELINE);
+                Files.move(temp, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            log.debug("Stored baseline object {}", object);
+        } else {
+            log.debug("Baseline {} deduplicated to existing object {}", name, hash);
+        }
+        link(name, hash);
+        return object;
+    }
+
+    /**
+     * Point a name at an existing object. The object the name pointed to before
+     * is deleted if nothing else refers to it.
+     */
+    synchronized void link(String name, String hash) throws IOException {
+        String previous = manifest.put(name, hash);
+        if (hash.equals(previous)) {
+            return;
+        }
+        references.merge(hash, 1, Integer::sum);
+        writeManifest();
+        if (previous != null && release(previous)) {
+            Files.deleteIfExists(objectPath(previous));
+        }
+    }
+
+    /**
+     * Remove a name from the manifest, deleting its object if no other name refers to it.
+     *
+     * @return the deleted object file, or null if the name was unknown or the object is still shared
+     */
+    public synchronized Path remove(String name) throws IOException {
+        String hash = manifest.remove(name);
+        if (hash == null) {
+            return null;
+        }
+        boolean orphaned = release(hash);
+        writeManifest();
+        if (!orphaned) {
+            return null;
+        }
+        Path object = objectPath(hash);
+        Files.deleteIfExists(object);
+        return object;
+    }
+
+    /**
+     * Delete object files that no name refers to (e.g. left by a manual manifest edit).
+     *
+     * @return the deleted object files
+     */
+    synchronized List<Path> deleteUnreferencedObjects() throws IOException {
+        List<Path> deleted = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(objectsDirectory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                if (Files.isRegularFile(file) && fileName.endsWith(OBJECT_EXTENSION)
+                        && !references.containsKey(fileName.substring(0, fileName.length() - OBJECT_EXTENSION.length()))
+                        && Files.deleteIfExists(file)) {
+                    deleted.add(file);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * All names currently in the manifest.
+     */
+    public List<String> names() {
+        return new ArrayList<>(manifest.keySet());
+    }
+
+    /**
+     * Number of distinct objects referenced by the manifest.
+     */
+    synchronized int objectCount() {
+        return references.size();
+    }
+
+    Path objectPath(String hash) {
+        return objectsDirectory.resolve(hash.substring(0, 2)).resolve(hash + OBJECT_EXTENSION);
+    }
+
+    /**
+     * Drop one reference to a hash.
+     *
+     * @return true if it was the last one
+     */
+    private boolean release(String hash) {
+        int remaining = references.merge(hash, -1, Integer::sum);
+        if (remaining <= 0) {
+            references.remove(hash);
+            return true;
+        }
+        return false;
+    }
+
+    private void readManifest() throws IOException {
+        if (!Files.exists(manifestFile)) {
+            return;
+        }
+        for (String line : Files.readAllLines(manifestFile, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            int separator = line.lastIndexOf('=');
+            if (line.isEmpty() || line.startsWith("#") || separator <= 0) {
+                continue;
+            }
+            String hash = line.substring(separator + 1);
+            manifest.put(line.substring(0, separator), hash);
+            references.merge(hash, 1, Integer::sum);
+        }
+        log.info("Baseline manifest loaded: {} names, {} objects", manifest.size(), references.size());
+    }
+
+    private void writeManifest() throws IOException {
+        StringBuilder content = new StringBuilder("# Baseline name=sha256 of pixels (objects/<hh>/<sha256>.png)\n");
+        for (Map.Entry<String, String> entry : new TreeMap<>(manifest).entrySet()) {
+            content.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+        Path temp = Files.createTempFile(manifestFile.getParent(), MANIFEST_FILE_NAME, ".tmp");
+        try {
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            Files.move(temp, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package ca.bnc.ciam.autotests.visual;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Diff region detection on a byte mask (one byte per pixel, non-zero = different).
+ *
+ * Components are labelled in two passes with a union-find: the first pass
+ * scans the mask in raster order and only looks at the already-visited part
+ * of each pixel's neighbourhood, keeping labels for the last few rows only;
+ * the second pass folds the per-label bounding boxes into their roots.
+ * Nearby regions are then merged using a spatial grid instead of comparing
+ * every pair.
+ *
+ * Regions are returned as [minX, minY, maxX, maxY, pixelCount], in the order
+ * of their first pixel in raster order.
+ */
+final class DiffRegionFinder {
+
+    /** Minimum region size to filter out noise (at least 10 pixels) */
+    static final int MIN_REGION_SIZE = 10;
+
+    /** Maximum gap to merge nearby regions (pixels within this distance are considered same region) */
+    static final int MERGE_THRESHOLD = 50;
+
+    /** Allow small gaps in a region: pixels within this Chebyshev distance are connected */
+    static final int CONNECTIVITY_RADIUS = 3;
+
+    private static final int ROW_WINDOW = CONNECTIVITY_RADIUS + 1;
+    private static final int GRID_CELL_SIZE = 128;
+    private static final int INITIAL_LABELS = 64;
+
+    private DiffRegionFinder() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Find diff regions in the whole mask: label components, drop the ones
+     * smaller than {@link #MIN_REGION_SIZE} and merge nearby regions.
+     */
+    static List<int[]> findRegions(byte[] mask, int width, int height) {
+        List<int[]> regions = new ArrayList<>();
+        addLargeEnough(labelBand(mask, width, 0, height).components, regions);
+        return mergeNearbyRegions(regions, MERGE_THRESHOLD);
+    }
+
+    /**
+     * Find diff regions when every set pixel lies within the given row ranges.
+     * Ranges must be sorted and separated by more than {@link #CONNECTIVITY_RADIUS}
+     * rows, so no component spans two of them; the result is the same as
+     * {@link #findRegions(byte[], int, int)} without scanning the rows in between.
+     *
+     * @param rowRanges [rowFrom, rowTo) pairs, top to bottom
+     */
+    static List<int[]> findRegions(byte[] mask, int width, List<int[]> rowRanges) {
+        List<int[]> regions = new ArrayList<>();
+        for (int[] range : rowRanges) {
+            addLargeEnough(labelBand(mask, width, range[0], range[1]).components, regions);
+        }
+        return mergeNearbyRegions(regions, MERGE_THRESHOLD);
+    }
+
+    /**
+     * Label the connected components of a band of rows, without size filtering.
+     *
+     * @param mask    diff mask of the whole image
+     * @param width   image width
+     * @param rowFrom first row (inclusive)
+     * @param rowTo   last row (exclusive)
+     * @return the band's components, in raster order of their first pixel
+     */
+    static Band labelBand(byte[] mask, int width, int rowFrom, int rowTo) {
+        Labels labels = new Labels();
+        // Labels of the current row and the CONNECTIVITY_RADIUS rows above it
+        int[][] window = new int[ROW_WINDOW][width];
+        int edgeRows = Math.min(CONNECTIVITY_RADIUS, rowTo - rowFrom);
+        int[] top = new int[edgeRows * width];
+        int[] bottom = new int[edgeRows * width];
+
+        for (int y = rowFrom; y < rowTo; y++) {
+            int[] row = window[y % ROW_WINDOW];
+            int rowOffset = y * width;
+            int rowsAbove = Math.min(CONNECTIVITY_RADIUS, y - rowFrom);
+
+            for (int x = 0; x < width; x++) {
+                if (mask[rowOffset + x] == 0) {
+                    row[x] = 0;
+                    continue;
+                }
+
+                int label = 0;
+                int left = Math.max(0, x - CONNECTIVITY_RADIUS);
+                int right = Math.min(width - 1, x + CONNECTIVITY_RADIUS);
+
+                // Rows above: the full 7-pixel span
+                for (int dy = rowsAbove; dy >= 1; dy--) {
+                    int[] above = window[(y - dy) % ROW_WINDOW];
+                    for (int nx = left; nx <= right; nx++) {
+                        int neighbour = above[nx];
+                        if (neighbour != 0) {
+                            label = label == 0 ? neighbour : labels.union(label, neighbour);
+                        }
+                    }
+                }
+                // Current row: pixels to the left only
+                for (int nx = left; nx < x; nx++) {
+                    int neighbour = row[nx];
+                    if (neighbour != 0) {
+                        label = label == 0 ? neighbour : labels.union(label, neighbour);
+                    }
+                }
+
+                if (label == 0) {
+                    label = labels.create(x, y);
+                } else {
+                    labels.add(label, x, y);
+                }
+                row[x] = label;
+            }
+
+            if (y - rowFrom < edgeRows) {
+                System.arraycopy(row, 0, top, (y - rowFrom) * width, width);
+            }
+        }
+        for (int i = 0; i < edgeRows; i++) {
+            System.arraycopy(window[(rowTo - edgeRows + i) % ROW_WINDOW], 0, bottom, i * width, width);
+        }
+
+        List<int[]> components = labels.resolve();
+        labels.toComponentNumbers(top);
+        labels.toComponentNumbers(bottom);
+        return new Band(rowFrom, rowTo, width, components, top, bottom);
+    }
+
+    /**
+     * Join the components of adjacent bands that are connected across the
+     * shared boundary, then drop components smaller than {@link #MIN_REGION_SIZE}
+     * and merge nearby regions. Gives the same result as {@link #findRegions}
+     * on the whole mask, provided every band is at least
+     * {@link #CONNECTIVITY_RADIUS} rows high.
+     *
+     * @param bands labelled bands, top to bottom, covering the image
+     */
+    static List<int[]> stitchBands(List<Band> bands) {
+        int total = 0;
+        int[] offsets = new int[bands.size()];
+        for (int i = 0; i < bands.size(); i++) {
+            offsets[i] = total;
+            total += bands.get(i).components.size();
+        }
+
+        // Union-find over all band components; the root is the smallest index,
+        // i.e. the piece whose first pixel comes first in raster order
+        int[] parent = new int[total];
+        for (int i = 0; i < total; i++) {
+            parent[i] = i;
+        }
+        for (int i = 1; i < bands.size(); i++) {
+            Band upper = bands.get(i - 1);
+            Band lower = bands.get(i);
+            int boundary = lower.rowFrom;
+            for (int y = boundary; y < boundary + lower.edgeRows; y++) {
+                for (int x = 0; x < lower.width; x++) {
+                    int component = lower.topComponent(y, x);
+                    if (component == 0) continue;
+                    int left = Math.max(0, x - CONNECTIVITY_RADIUS);
+                    int right = Math.min(lower.width - 1, x + CONNECTIVITY_RADIUS);
+                    for (int ny = Math.max(boundary - upper.edgeRows, y - CONNECTIVITY_RADIUS); ny < boundary; ny++) {
+                        for (int nx = left; nx <= right; nx++) {
+                            int neighbour = upper.bottomComponent(ny, nx);
+                            if (neighbour != 0) {
+                                union(parent, offsets[i - 1] + neighbour - 1, offsets[i] + component - 1);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        int[][] joined = new int[total][];
+        for (int i = 0; i < bands.size(); i++) {
+            List<int[]> components = bands.get(i).components;
+            for (int c = 0; c < components.size(); c++) {
+                int index = offsets[i] + c;
+                int root = find(parent, index);
+                if (root == index) {
+                    joined[index] = components.get(c).clone();
+                } else {
+                    include(joined[root], components.get(c));
+                }
+            }
+        }
+
+        List<int[]> regions = new ArrayList<>();
+        for (int[] region : joined) {
+            if (region != null && region[4] >= MIN_REGION_SIZE) {
+                regions.add(region);
+            }
+        }
+        return mergeNearbyRegions(regions, MERGE_THRESHOLD);
+    }
+
+    /**
+     * Merge regions that are close to each other.
+     *
+     * Starting from each not-yet-merged region in order, absorbs every remaining
+     * region within {@code threshold} of the growing bounding box until none is
+     * left. Candidates come from a grid of cells, so each step only looks at
+     * regions around the current box.
+     */
+    static List<int[]> mergeNearbyRegions(List<int[]> regions, int threshold) {
+        if (regions.size() <= 1) {
+            return regions;
+        }
+
+        RegionGrid grid = new RegionGrid(regions);
+        List<int[]> merged = new ArrayList<>();
+        boolean[] used = new boolean[regions.size()];
+
+        for (int i = 0; i < regions.size(); i++) {
+            if (used[i]) continue;
+
+            int[] current = regions.get(i).clone();
+            used[i] = true;
+
+            boolean foundMerge;
+            do {
+                foundMerge = false;
+                int cellX0 = grid.cellX(current[0] - threshold);
+                int cellY0 = grid.cellY(current[1] - threshold);
+                int cellX1 = grid.cellX(current[2] + threshold);
+                int cellY1 = grid.cellY(current[3] + threshold);
+                for (int cy = cellY0; cy <= cellY1; cy++) {
+                    for (int cx = cellX0; cx <= cellX1; cx++) {
+                        int[] cell = grid.cell(cx, cy);
+                        for (int k = 1; k <= cell[0]; k++) {
+                            int j = cell[k];
+                            if (!used[j] && isNear(current, regions.get(j), threshold)) {
+                                include(current, regions.get(j));
+                                used[j] = true;
+                                foundMerge = true;
+                            }
+                        }
+                    }
+                }
+            } while (foundMerge);
+
+            merged.add(current);
+        }
+
+        return merged;
+    }
+
+    /**
+     * Check if two regions overlap or are within threshold distance.
+     */
+    static boolean isNear(int[] r1, int[] r2, int threshold) {
+        // Expand r1 by threshold and check overlap
+        return !(r2[2] < r1[0] - threshold || r2[0] > r1[2] + threshold
+                || r2[3] < r1[1] - threshold || r2[1] > r1[3] + threshold);
+    }
+
+    /**
+     * Expand a region to include another one.
+     */
+    private static void include(int[] target, int[] other) {
+        target[0] = Math.min(target[0], other[0]);
+        target[1] = Math.min(target[1], other[1]);
+        target[2] = Math.max(target[2], other[2]);
+        target[3] = Math.max(target[3], other[3]);
+        target[4] += other[4];
+    }
+
+    private static int find(int[] parent, int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    private static void addLargeEnough(List<int[]> components, List<int[]> regions) {
+        for (int[] component : components) {
+            if (component[4] >= MIN_REGION_SIZE) {
+                regions.add(component);
+            }
+        }
+    }
+
+    /**
+     * Components of a band of rows, plus the component number (index + 1,
+     * 0 = no diff) of every pixel in the rows along the band's top and bottom
+     * edges, which is what stitching adjacent bands needs.
+     */
+    static final class Band {
+        private final int rowFrom;
+        private final int rowTo;
+        private final int width;
+        private final int edgeRows;
+        private final List<int[]> components;
+        private final int[] top;
+        private final int[] bottom;
+
+        private Band(int rowFrom, int rowTo, int width, List<int[]> components, int[] top, int[] bottom) {
+            this.rowFrom = rowFrom;
+            this.rowTo = rowTo;
+            this.width = width;
+            this.edgeRows = top.length / Math.max(1, width);
+            this.components = components;
+            this.top = top;
+            this.bottom = bottom;
+        }
+
+        private int topComponent(int y, int x) {
+            return top[(y - rowFrom) * width + x];
+        }
+
+        private int bottomComponent(int y, int x) {
+            return bottom[(y - (rowTo - edgeRows)) * width + x];
+        }
+    }
+
+    /**
+     * Provisional labels with union-find parents and per-label bounding boxes.
+     * Labels are created in raster order and a root is always the smallest
+     * label of its set, so roots sort by their first pixel.
+     */
+    private static final class Labels {
+        private int[] parent = new int[INITIAL_LABELS];
+        private int[] bounds = new int[INITIAL_LABELS * 5];
+        private int count;
+
+        int create(int x, int y) {
+            int label = ++count;
+            if (label >= parent.length) {
+                parent = Arrays.copyOf(parent, parent.length * 2);
+                bounds = Arrays.copyOf(bounds, parent.length * 5);
+            }
+            parent[label] = label;
+            int b = label * 5;
+            bounds[b] = x;
+            bounds[b + 1] = y;
+            bounds[b + 2] = x;
+            bounds[b + 3] = y;
+            bounds[b + 4] = 1;
+            return label;
+        }
+
+        void add(int label, int x, int y) {
+            int b = label * 5;
+            if (x < bounds[b]) bounds[b] = x;
+            if (x > bounds[b + 2]) bounds[b + 2] = x;
+            bounds[b + 3] = y;
+            bounds[b + 4]++;
+        }
+
+        int find(int label) {
+            while (parent[label] != label) {
+                parent[label] = parent[parent[label]];
+                label = parent[label];
+            }
+            return label;
+        }
+
+        int union(int a, int b) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) {
+                return rootA;
+            }
+            int root = Math.min(rootA, rootB);
+            parent[Math.max(rootA, rootB)] = root;
+            return root;
+        }
+
+        /**
+         * Fold every label into its root and return the root boxes in label order.
+         */
+        List<int[]> resolve() {
+            for (int label = count; label >= 1; label--) {
+                int root = find(label);
+                if (root != label) {
+                    int r = root * 5;
+                    int b = label * 5;
+                    bounds[r] = Math.min(bounds[r], bounds[b]);
+                    bounds[r + 1] = Math.min(bounds[r + 1], bounds[b + 1]);
+                    bounds[r + 2] = Math.max(bounds[r + 2], bounds[b + 2]);
+                    bounds[r + 3] = Math.max(bounds[r + 3], bounds[b + 3]);
+                    bounds[r + 4] += bounds[b + 4];
+                }
+            }
+
+            List<int[]> components = new ArrayList<>();
+            for (int label = 1; label <= count; label++) {
+                if (parent[label] == label) {
+                    components.add(Arrays.copyOfRange(bounds, label * 5, label * 5 + 5));
+                    // Roots no longer need their own parent slot; reuse it as the component number
+                    parent[label] = -components.size();
+                }
+            }
+            return components;
+        }
+
+        /**
+         * Replace provisional labels by component numbers (only valid after {@link #resolve()}).
+         */
+        void toComponentNumbers(int[] labelsToConvert) {
+            for (int i = 0; i < labelsToConvert.length; i++) {
+                int label = labelsToConvert[i];
+                if (label != 0) {
+                    while (parent[label] > 0) {
+                        label = parent[label];
+                    }
+                    labelsToConvert[i] = -parent[label];
+                }
+            }
+        }
+    }
+
+    /**
+     * Fixed-size grid over the regions' extent; each cell lists the indices
+     * of the regions whose bounding box covers it ([size, index...]).
+     */
+    private static final class RegionGrid {
+        private static final int[] EMPTY_CELL = {0};
+
+        private final int originX;
+        private final int originY;
+        private final int columns;
+        private final int rows;
+        private final int[][] cells;
+
+        RegionGrid(List<int[]> regions) {
+            int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+            for (int[] r : regions) {
+                minX = Math.min(minX, r[0]);
+                minY = Math.min(minY, r[1]);
+                maxX = Math.max(maxX, r[2]);
+                maxY = Math.max(maxY, r[3]);
+            }
+            originX = minX;
+            originY = minY;
+            columns = (maxX - minX) / GRID_CELL_SIZE + 1;
+            rows = (maxY - minY) / GRID_CELL_SIZE + 1;
+            cells = new int[columns * rows][];
+            Arrays.fill(cells, EMPTY_CELL);
+
+            for (int i = 0; i < regions.size(); i++) {
+                int[] r = regions.get(i);
+                for (int cy = cellY(r[1]); cy <= cellY(r[3]); cy++) {
+                    for (int cx = cellX(r[0]); cx <= cellX(r[2]); cx++) {
+                        add(cy * columns + cx, i);
+                    }
+                }
+            }
+        }
+
+        int cellX(int x) {
+            return Math.max(0, Math.min(columns - 1, (x - originX) / GRID_CELL_SIZE));
+        }
+
+        int cellY(int y) {
+            return Math.max(0, Math.min(rows - 1, (y - originY) / GRID_CELL_SIZE));
+        }
+
+        int[] cell(int cx, int cy) {
+            return cells[cy * columns + cx];
+        }
+
+        private void add(int cellIndex, int regionIndex) {
+            int[] cell = cells[cellIndex];
+            if (cell == EMPTY_CELL) {
+                cell = new int[4];
+            } else if (cell[0] + 1 == cell.length) {
+                cell = Arrays.copyOf(cell, cell.length * 2);
+            }
+            cell[++cell[0]] = regionIndex;
+            cells[cellIndex] = cell;
+        }
+    }
+}
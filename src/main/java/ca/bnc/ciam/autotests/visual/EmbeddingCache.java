@@ -0,0 +1,153 @@
+package ca.bnc.ciam.autotests.visual;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of AI feature vectors for baseline images.
+ *
+ * Entries are keyed by the SHA-256 of the image pixels plus the model version,
+ * so a re-recorded baseline or a model upgrade can never hit a stale vector.
+ * Each entry is a raw little-endian float32 file under {@code <baselines>/.embeddings}.
+ */
+@Slf4j
+public class EmbeddingCache {
+
+    /** Cache directory name, created next to the baseline images */
+    public static final String CACHE_DIR_NAME = ".embeddings";
+
+    private static final String ENTRY_EXTENSION = ".f32";
+
+    private final Path cacheDirectory;
+    private final String modelVersion;
+
+    /**
+     * Create a cache for the current AI model under a baseline directory.
+     */
+    public EmbeddingCache(Path baselineDirectory) {
+        this(baselineDirectory, AIImageComparator.MODEL_VERSION);
+    }
+
+    /**
+     * Create a cache for a specific model version under a baseline directory.
+     */
+    public EmbeddingCache(Path baselineDirectory, String modelVersion) {
+        this.cacheDirectory = baselineDirectory.resolve(CACHE_DIR_NAME);
+        this.modelVersion = modelVersion;
+    }
+
+    /**
+     * Compute the cache key of an image: SHA-256 over model version, size and RGB pixels.
+     */
+    public String key(BufferedImage image) {
+        MessageDigest digest = sha256();
+        digest.update(modelVersion.getBytes(StandardCharsets.UTF_8));
+        RasterUtils.digestPixels(digest, image);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Read a cached feature vector.
+     *
+     * @return the vector, or null when not cached or unreadable
+     */
+    public float[] get(String key) {
+        Path entry = entryPath(key);
+        try {
+            byte[] bytes = Files.readAllBytes(entry);
+            if (bytes.length == 0 || bytes.length % Float.BYTES != 0) {
+                log.warn("Discarding corrupt embedding cache entry: {}", entry);
+                Files.deleteIfExists(entry);
+                return null;
+            }
+            float[] features = new float[bytes.length / Float.BYTES];
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(features);
+            return features;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.debug("Could not read embedding cache entry {}: {}", entry, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store a feature vector. Written to a temp file and moved into place so
+     * concurrent readers never see a partial entry. Failures are logged only.
+     */
+    public void put(String key, float[] features) {
+        Path entry = entryPath(key);
+        try {
+            Files.createDirectories(cacheDirectory);
+            ByteBuffer buffer = ByteBuffer.allocate(features.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asFloatBuffer().put(features);
+
+            Path temp = Files.createTempFile(cacheDirectory, key, ".tmp");
+            Files.write(temp, buffer.array());
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.debug("Could not write embedding cache entry {}: {}", entry, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove the cached vector of an image, if any.
+     *
+     * @return true if an entry was removed
+     */
+    public boolean invalidate(BufferedImage image) {
+        try {
+            return Files.deleteIfExists(entryPath(key(image)));
+        } catch (IOException e) {
+            log.debug("Could not invalidate embedding cache entry: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Remove all cached vectors.
+     *
+     * @return number of entries removed
+     */
+    public int clear() throws IOException {
+        if (!Files.exists(cacheDirectory)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Stream<Path> entries = Files.list(cacheDirectory)) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                if (Files.deleteIfExists(entry)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Get the cache directory path.
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    private Path entryPath(String key) {
+        return cacheDirectory.resolve(key + ENTRY_EXTENSION);
+    }
+
+    private static MessageDigest sha256() {
+        return RasterUtils.sha256();
+    }
+}
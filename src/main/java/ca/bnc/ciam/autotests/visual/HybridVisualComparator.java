@@ -1,19 +1,29 @@
 package ca.bnc.ciam.autotests.visual;
 
+import ai.djl.util.Pair;
 import lombok.Builder;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * Hybrid image comparator that combines fast pixel-based comparison with AI fallback.
  *
  * Strategy:
  * 1. First, run fast pixel-based comparison (OpenCV/Java)
- * 2. If result is in the "gray zone" (configurable), use AI for final decision
- * 3. AI uses ResNet18 feature extraction + cosine similarity
+ * 2. If result is in the "gray zone" (configurable), compare perceptual hashes;
+ *    clearly similar or clearly different hashes decide without the model
+ *    (ignore regions are blanked in both images first, as in the pixel pass)
+ * 3. Otherwise use AI for final decision
+ * 4. AI uses ResNet18 feature extraction + cosine similarity
  *
  * Gray Zone (default 80%-95% similarity):
  * - Below 80%: Definitely different, no AI needed
@@ -44,6 +54,16 @@ public class HybridVisualComparator implements AutoCloseable {
     // AI similarity threshold for gray zone decisions
     private static final double DEFAULT_AI_THRESHOLD = 0.92;
 
+    // Perceptual hash tier: decides only when clearly similar or clearly different
+    private static final int HASH_MATCH_DISTANCE = 2;      // max pHash distance (of 64) for a match
+    private static final int HASH_MATCH_GRADIENT = 4;      // max dHash distance (of 64) for a match
+    private static final int HASH_MATCH_COLOR = 8;         // max color grid difference (of 255) for a match
+    private static final int HASH_MISMATCH_DISTANCE = 20;  // min pHash distance for a mismatch
+    private static final int HASH_MISMATCH_COLOR = 64;     // min color grid difference for a mismatch
+
+    /** System property to disable the perceptual hash tier (default: enabled) */
+    public static final String HASH_TIER_PROPERTY = "bnc.visual.hash.enabled";
+
     // Local scaled comparison settings
     private static final double LOCAL_SCALED_TOLERANCE = 0.03;     // 3% tolerance for local scaled comparisons
     private static final double LOCAL_SCALED_GRAY_ZONE_UPPER = 0.25; // Wider gray zone for scaled (25%)
@@ -54,6 +74,10 @@ public class HybridVisualComparator implements AutoCloseable {
     private final double grayZoneUpper;
     private final double aiThreshold;
     private final boolean aiEnabled;
+    private final boolean hashTierEnabled = !"false".equalsIgnoreCase(System.getProperty(HASH_TIER_PROPERTY));
+
+    // Baseline hashes without ignore regions, keyed by image identity so reused baselines are hashed once
+    private final Map<BufferedImage, PerceptualHash> baselineHashes = Collections.synchronizedMap(new WeakHashMap<>());
 
     /**
      * Create hybrid comparator with default settings.
@@ -121,11 +145,39 @@ public class HybridVisualComparator implements AutoCloseable {
         return aiEnabled && aiComparator != null && aiComparator.isAvailable();
     }
 
+    /**
+     * Warm up the AI model with a dummy inference. No-op when AI is not available.
+     */
+    public void warmUp() {
+        if (isAIAvailable()) {
+            aiComparator.warmUp();
+        }
+    }
+
+    /**
+     * Get the AI predictor pool metrics.
+     *
+     * @return pool stats, or null when AI is not available
+     */
+    public AIImageComparator.PoolStats getAIPoolStats() {
+        return aiComparator != null ? aiComparator.getPoolStats() : null;
+    }
+
+    /**
+     * Set the cache used by the AI stage for baseline feature vectors.
+     * No-op when AI is not available.
+     */
+    public void setEmbeddingCache(EmbeddingCache embeddingCache) {
+        if (aiComparator != null) {
+            aiComparator.setEmbeddingCache(embeddingCache);
+        }
+    }
+
     /**
      * Compare two images using hybrid strategy.
      */
     public HybridComparisonResult compare(BufferedImage baseline, BufferedImage actual) {
-        return compare(baseline, actual, pixelComparator.compare(baseline, actual).getTolerance(), null);
+        return compare(baseline, actual, pixelComparator.getDefaultTolerance(), null);
     }
 
     /**
@@ -140,14 +192,87 @@ public class HybridVisualComparator implements AutoCloseable {
      */
     public HybridComparisonResult compare(BufferedImage baseline, BufferedImage actual,
                                            double tolerance, List<int[]> ignoreRegions) {
-        long startTime = System.currentTimeMillis();
+        return compareAll(Collections.singletonList(new Pair<>(baseline, actual)), tolerance, ignoreRegions).get(0);
+    }
 
-        // Step 1: Fast pixel-based comparison
-        ImageComparator.ComparisonResult pixelResult = pixelComparator.compare(baseline, actual, tolerance, ignoreRegions);
-        double diffPercentage = pixelResult.getDiffPercentage();
+    /**
+     * Compare several image pairs (e.g. all viewports of a checkpoint) using hybrid strategy.
+     * The pixel pass runs per pair; all gray-zone pairs then go through the AI model
+     * together, in batched forward passes.
+     *
+     * @param pairs         baseline/actual pairs
+     * @param tolerance     pixel comparison tolerance
+     * @param ignoreRegions regions to ignore in the pixel pass, may be null
+     * @return one result per pair, in order
+     */
+    public List<HybridComparisonResult> compareAll(List<Pair<BufferedImage, BufferedImage>> pairs,
+                                                   double tolerance, List<int[]> ignoreRegions) {
+        // Step 1: Fast pixel-based comparison of every pair
+        List<PendingComparison> pending = new ArrayList<>(pairs.size());
+        for (Pair<BufferedImage, BufferedImage> pair : pairs) {
+            pending.add(prepare(pair.getKey(), pair.getValue(), tolerance, ignoreRegions));
+        }
+        return complete(pending);
+    }
 
-        // Step 2: Check if this is a local scaled comparison
-        boolean isLocalScaled = pixelResult.isWasScaled() && isLocalExecution();
+    /**
+     * Run the pixel pass (and perceptual hashes) of one pair, leaving any AI decision
+     * to {@link #complete}. Lets callers compare viewports as they are captured.
+     */
+    public PendingComparison prepare(BufferedImage baseline, BufferedImage actual,
+                                     double tolerance, List<int[]> ignoreRegions) {
+        return new PendingComparison(baseline, actual, runPixelStage(baseline, actual, tolerance, ignoreRegions));
+    }
+
+    /**
+     * Finish prepared comparisons: all gray-zone pairs go through the AI model together,
+     * in batched forward passes.
+     *
+     * @return one result per prepared comparison, in order
+     */
+    public List<HybridComparisonResult> complete(List<PendingComparison> pending) {
+        List<Pair<BufferedImage, BufferedImage>> grayZonePairs = new ArrayList<>();
+        for (PendingComparison comparison : pending) {
+            if (comparison.stage.strategy == ComparisonStrategy.AI_FALLBACK) {
+                grayZonePairs.add(new Pair<>(comparison.baseline, comparison.actual));
+            }
+        }
+
+        // Step 2: AI decision for the gray zone, one batch for all pairs
+        List<AIImageComparator.AIComparisonResult> aiResults = Collections.emptyList();
+        long aiTimePerPair = 0;
+        if (!grayZonePairs.isEmpty()) {
+            long aiStart = System.currentTimeMillis();
+            aiResults = aiComparator.compareAll(grayZonePairs, aiThreshold);
+            aiTimePerPair = (System.currentTimeMillis() - aiStart) / grayZonePairs.size();
+            if (grayZonePairs.size() > 1) {
+                log.info("AI fallback ran on {} gray zone pairs in one batch ({}ms per pair)",
+                        grayZonePairs.size(), aiTimePerPair);
+            }
+        }
+
+        List<HybridComparisonResult> results = new ArrayList<>(pending.size());
+        int nextAiResult = 0;
+        for (PendingComparison comparison : pending) {
+            if (comparison.stage.strategy == ComparisonStrategy.AI_FALLBACK) {
+                results.add(buildResult(comparison.stage, aiResults.get(nextAiResult++), aiTimePerPair));
+            } else {
+                results.add(buildResult(comparison.stage, null, 0));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Run the pixel comparison of one pair and classify it.
+     */
+    private PixelStage runPixelStage(BufferedImage baseline, BufferedImage actual,
+                                     double tolerance, List<int[]> ignoreRegions) {
+        long startTime = System.currentTimeMillis();
+
+        // Check if this is a local scaled comparison (actual gets scaled when sizes differ)
+        boolean needsScaling = baseline.getWidth() != actual.getWidth() || baseline.getHeight() != actual.getHeight();
+        boolean isLocalScaled = needsScaling && isLocalExecution();
         double effectiveTolerance = tolerance;
         double effectiveGrayZoneUpper = grayZoneUpper;
 
@@ -160,72 +285,168 @@ public class HybridVisualComparator implements AutoCloseable {
             log.info("LOCAL SCALED COMPARISON MODE");
             log.info("Original tolerance: {}%, Effective tolerance: {}%",
                     String.format("%.2f", tolerance * 100), String.format("%.2f", effectiveTolerance * 100));
-            log.info("Scale factor: {:.2f}x", pixelResult.getScaleFactor());
+            log.info("Scale factor: {:.2f}x", (double) baseline.getWidth() / actual.getWidth());
             log.info("Gray zone extended to {}% to account for scaling artifacts", String.format("%.0f", effectiveGrayZoneUpper * 100));
             log.info("========================================");
         }
 
+        // Above the gray zone the verdict is a clear PIXEL_FAIL, so the pixel pass
+        // may stop counting there (never below the tolerance)
+        double failBound = Math.max(effectiveGrayZoneUpper, effectiveTolerance);
+        ImageComparator.ComparisonResult pixelResult =
+                pixelComparator.compare(baseline, actual, tolerance, ignoreRegions, failBound);
+        double diffPercentage = pixelResult.getDiffPercentage();
+
         log.debug("Pixel comparison: diff={}%, tolerance={}% (effective: {}%)",
                 String.format("%.4f", diffPercentage * 100),
                 String.format("%.4f", tolerance * 100),
                 String.format("%.4f", effectiveTolerance * 100));
 
-        // Step 3: Determine if we need AI fallback
+        // Determine if we need AI fallback
         ComparisonStrategy strategy;
-        boolean finalMatch;
-        AIImageComparator.AIComparisonResult aiResult = null;
+        boolean pixelMatch;
+        int[] hashes = null;
 
         if (diffPercentage <= effectiveTolerance) {
             // Clear PASS: below tolerance, no AI needed
             strategy = ComparisonStrategy.PIXEL_PASS;
-            finalMatch = true;
+            pixelMatch = true;
             log.debug("Clear PASS: diff {} <= tolerance {}", diffPercentage, effectiveTolerance);
 
         } else if (diffPercentage > effectiveGrayZoneUpper) {
             // Clear FAIL: above gray zone upper bound, too different for AI to help
             strategy = ComparisonStrategy.PIXEL_FAIL;
-            finalMatch = false;
+            pixelMatch = false;
             log.debug("Clear FAIL: diff {} > gray zone upper {}", diffPercentage, effectiveGrayZoneUpper);
 
         } else if (diffPercentage > grayZoneLower && diffPercentage <= effectiveGrayZoneUpper && isAIAvailable()) {
-            // GRAY ZONE: Use AI to decide (especially important for scaled comparisons)
-            strategy = ComparisonStrategy.AI_FALLBACK;
-            log.info("Gray zone detected (diff={}%){}, using AI fallback",
-                    String.format("%.4f", diffPercentage * 100),
-                    isLocalScaled ? " [scaled comparison - AI prioritized]" : "");
-
-            aiResult = aiComparator.compare(baseline, actual, aiThreshold);
-            finalMatch = aiResult.isMatch();
-
-            if (finalMatch) {
-                log.info("AI says MATCH with similarity {}", String.format("%.4f", aiResult.getSimilarity()));
+            // GRAY ZONE: perceptual hashes first, AI when they are inconclusive
+            hashes = hashTierEnabled ? compareHashes(baseline, actual, ignoreRegions) : null;
+            Boolean hashVerdict = hashes != null ? hashVerdict(hashes) : null;
+            if (hashVerdict != null) {
+                strategy = ComparisonStrategy.HASH_FILTER;
+                pixelMatch = hashVerdict;
+                log.info("Gray zone detected (diff={}%), perceptual hash says {} (pHash={}, dHash={}, color={})",
+                        String.format("%.4f", diffPercentage * 100), pixelMatch ? "MATCH" : "NO MATCH",
+                        hashes[0], hashes[1], hashes[2]);
             } else {
-                log.info("AI says NO MATCH with similarity {}", String.format("%.4f", aiResult.getSimilarity()));
+                strategy = ComparisonStrategy.AI_FALLBACK;
+                pixelMatch = false;
+                log.info("Gray zone detected (diff={}%){}, using AI fallback",
+                        String.format("%.4f", diffPercentage * 100),
+                        isLocalScaled ? " [scaled comparison - AI prioritized]" : "");
             }
 
         } else {
             // Gray zone but AI not available - use pixel result with effective tolerance
             strategy = ComparisonStrategy.PIXEL_ONLY;
-            finalMatch = diffPercentage <= effectiveTolerance;
-            log.debug("Gray zone but AI unavailable, using pixel result with effective tolerance: {}", finalMatch);
+            pixelMatch = diffPercentage <= effectiveTolerance;
+            log.debug("Gray zone but AI unavailable, using pixel result with effective tolerance: {}", pixelMatch);
+        }
+
+        return new PixelStage(pixelResult, strategy, pixelMatch, effectiveTolerance, effectiveGrayZoneUpper,
+                isLocalScaled, hashes, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Compare the perceptual hashes of a pair. Ignore regions are blanked identically
+     * in both images first, so a change there cannot decide the verdict.
+     *
+     * @param ignoreRegions regions in baseline coordinates, may be null
+     * @return {pHash distance, dHash distance, color grid distance}
+     */
+    private int[] compareHashes(BufferedImage baseline, BufferedImage actual, List<int[]> ignoreRegions) {
+        PerceptualHash baselineHash;
+        PerceptualHash actualHash;
+        if (ignoreRegions == null || ignoreRegions.isEmpty()) {
+            baselineHash = baselineHashes.computeIfAbsent(baseline, PerceptualHash::of);
+            actualHash = PerceptualHash.of(actual);
+        } else {
+            baselineHash = PerceptualHash.of(blankRegions(baseline, ignoreRegions, 1.0, 1.0));
+            // A locally scaled actual is compared at the baseline size, where the regions apply
+            actualHash = PerceptualHash.of(blankRegions(actual, ignoreRegions,
+                    (double) actual.getWidth() / baseline.getWidth(),
+                    (double) actual.getHeight() / baseline.getHeight()));
         }
+        return new int[]{
+                baselineHash.pHashDistance(actualHash),
+                baselineHash.dHashDistance(actualHash),
+                baselineHash.colorDistance(actualHash)
+        };
+    }
 
-        long duration = System.currentTimeMillis() - startTime;
+    /**
+     * Copy of an image with the given regions filled black.
+     *
+     * @param scaleX horizontal scale from region to image coordinates
+     * @param scaleY vertical scale from region to image coordinates
+     */
+    private static BufferedImage blankRegions(BufferedImage image, List<int[]> regions, double scaleX, double scaleY) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = copy.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, null);
+            g.setColor(Color.BLACK);
+            for (int[] region : regions) {
+                int x0 = (int) Math.floor(region[0] * scaleX);
+                int y0 = (int) Math.floor(region[1] * scaleY);
+                int x1 = (int) Math.ceil((region[0] + region[2]) * scaleX);
+                int y1 = (int) Math.ceil((region[1] + region[3]) * scaleY);
+                g.fillRect(x0, y0, x1 - x0, y1 - y0);
+            }
+        } finally {
+            g.dispose();
+        }
+        return copy;
+    }
+
+    /**
+     * Decide from hash distances alone.
+     *
+     * @return TRUE/FALSE for a clear match/mismatch, null when the AI has to decide
+     */
+    private static Boolean hashVerdict(int[] hashes) {
+        if (hashes[0] <= HASH_MATCH_DISTANCE && hashes[1] <= HASH_MATCH_GRADIENT && hashes[2] <= HASH_MATCH_COLOR) {
+            return Boolean.TRUE;
+        }
+        if (hashes[0] >= HASH_MISMATCH_DISTANCE || hashes[2] >= HASH_MISMATCH_COLOR) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /**
+     * Combine the pixel stage with the AI decision (if any) into the final result.
+     */
+    private HybridComparisonResult buildResult(PixelStage stage, AIImageComparator.AIComparisonResult aiResult,
+                                               long aiTimeMs) {
+        boolean finalMatch = stage.pixelMatch;
+        if (aiResult != null) {
+            finalMatch = aiResult.isMatch();
+            if (finalMatch) {
+                log.info("AI says MATCH with similarity {}", String.format("%.4f", aiResult.getSimilarity()));
+            } else {
+                log.info("AI says NO MATCH with similarity {}", String.format("%.4f", aiResult.getSimilarity()));
+            }
+        }
 
+        ImageComparator.ComparisonResult pixelResult = stage.pixelResult;
         return HybridComparisonResult.builder()
                 .match(finalMatch)
-                .strategy(strategy)
+                .strategy(stage.strategy)
                 .pixelResult(pixelResult)
                 .aiResult(aiResult)
-                .diffPercentage(diffPercentage)
-                .tolerance(effectiveTolerance)
+                .diffPercentage(pixelResult.getDiffPercentage())
+                .tolerance(stage.effectiveTolerance)
                 .grayZoneLower(grayZoneLower)
-                .grayZoneUpper(effectiveGrayZoneUpper)
+                .grayZoneUpper(stage.effectiveGrayZoneUpper)
                 .aiThreshold(aiThreshold)
-                .comparisonTimeMs(duration)
+                .comparisonTimeMs(stage.pixelTimeMs + aiTimeMs)
                 .wasScaled(pixelResult.isWasScaled())
                 .scaleFactor(pixelResult.getScaleFactor())
-                .isLocalExecution(isLocalScaled)
+                .isLocalExecution(stage.isLocalScaled)
+                .pHashDistance(stage.hashes != null ? stage.hashes[0] : -1)
+                .dHashDistance(stage.hashes != null ? stage.hashes[1] : -1)
                 .build();
     }
 
@@ -262,6 +483,59 @@ public class HybridVisualComparator implements AutoCloseable {
         }
     }
 
+    /**
+     * Outcome of the pixel pass for one pair, before any AI decision.
+     */
+    private static final class PixelStage {
+        private final ImageComparator.ComparisonResult pixelResult;
+        private final ComparisonStrategy strategy;
+        private final boolean pixelMatch;
+        private final double effectiveTolerance;
+        private final double effectiveGrayZoneUpper;
+        private final boolean isLocalScaled;
+        private final int[] hashes;
+        private final long pixelTimeMs;
+
+        private PixelStage(ImageComparator.ComparisonResult pixelResult, ComparisonStrategy strategy,
+                           boolean pixelMatch, double effectiveTolerance, double effectiveGrayZoneUpper,
+                           boolean isLocalScaled, int[] hashes, long pixelTimeMs) {
+            this.pixelResult = pixelResult;
+            this.strategy = strategy;
+            this.pixelMatch = pixelMatch;
+            this.effectiveTolerance = effectiveTolerance;
+            this.effectiveGrayZoneUpper = effectiveGrayZoneUpper;
+            this.isLocalScaled = isLocalScaled;
+            this.hashes = hashes;
+            this.pixelTimeMs = pixelTimeMs;
+        }
+    }
+
+    /**
+     * A pair whose pixel pass is done and whose AI decision (if needed) is still open.
+     */
+    public static final class PendingComparison {
+        private final BufferedImage baseline;
+        private final BufferedImage actual;
+        private final PixelStage stage;
+
+        private PendingComparison(BufferedImage baseline, BufferedImage actual, PixelStage stage) {
+            this.baseline = baseline;
+            this.actual = actual;
+            this.stage = stage;
+        }
+
+        public BufferedImage getActual() {
+            return actual;
+        }
+
+        /**
+         * Check whether the pair is waiting for the AI model.
+         */
+        public boolean needsAI() {
+            return stage.strategy == ComparisonStrategy.AI_FALLBACK;
+        }
+    }
+
     /**
      * Strategy used for final comparison decision.
      */
@@ -270,6 +544,8 @@ public class HybridVisualComparator implements AutoCloseable {
         PIXEL_PASS,
         /** Pixel comparison failed (above gray zone) */
         PIXEL_FAIL,
+        /** Pixel comparison in gray zone, perceptual hashes made final decision */
+        HASH_FILTER,
         /** Pixel comparison in gray zone, AI made final decision */
         AI_FALLBACK,
         /** Pixel comparison only (AI not available) */
@@ -301,6 +577,12 @@ public class HybridVisualComparator implements AutoCloseable {
         /** True if running in local execution mode (not pipeline) */
         @Builder.Default
         private boolean isLocalExecution = false;
+        /** pHash Hamming distance (0-64), -1 if the hash tier did not run */
+        @Builder.Default
+        private int pHashDistance = -1;
+        /** dHash Hamming distance (0-64), -1 if the hash tier did not run */
+        @Builder.Default
+        private int dHashDistance = -1;
 
         /**
          * Check if AI was used for this comparison.
@@ -328,6 +610,10 @@ public class HybridVisualComparator implements AutoCloseable {
                 }
             }
 
+            if (pHashDistance >= 0) {
+                sb.append(String.format(", Hash Distance: p=%d d=%d", pHashDistance, dHashDistance));
+            }
+
             if (usedAI()) {
                 sb.append(String.format(", AI Similarity: %.4f", aiResult.getSimilarity()));
             }
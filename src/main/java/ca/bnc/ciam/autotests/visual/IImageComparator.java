@@ -0,0 +1,27 @@
+package ca.bnc.ciam.autotests.visual;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Interface for baseline-vs-actual image comparison engines.
+ */
+public interface IImageComparator {
+
+    /**
+     * Compare an actual image against its baseline.
+     *
+     * @param baseline      The baseline image
+     * @param actual        The actual image (scaled to the baseline size if needed)
+     * @param tolerance     Maximum fraction of differing pixels for a match
+     * @param ignoreRegions Regions to exclude as [x, y, width, height], or null
+     * @return The comparison result
+     */
+    ImageComparator.ComparisonResult compare(BufferedImage baseline, BufferedImage actual,
+                                             double tolerance, List<int[]> ignoreRegions);
+
+    /**
+     * Get the default tolerance.
+     */
+    double getDefaultTolerance();
+}
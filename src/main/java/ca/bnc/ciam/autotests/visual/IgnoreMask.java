@@ -0,0 +1,114 @@
+package ca.bnc.ciam.autotests.visual;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Ignore regions precomputed as horizontal spans per row.
+ *
+ * Each row maps to a sorted array of non-overlapping [start, end) pairs
+ * (end exclusive). Rows covered by the same set of regions share one span
+ * array, so the structure stays small even for tall stitched pages.
+ * Regions are clipped to the image bounds.
+ */
+final class IgnoreMask {
+
+    private static final int[] NO_SPANS = new int[0];
+
+    private static final IgnoreMask EMPTY = new IgnoreMask(null);
+
+    private final int[][] rowSpans;
+
+    private IgnoreMask(int[][] rowSpans) {
+        this.rowSpans = rowSpans;
+    }
+
+    /**
+     * Build the mask for an image of the given size.
+     *
+     * @param regions ignore regions as [x, y, width, height], may be null
+     * @param width   image width
+     * @param height  image height
+     */
+    static IgnoreMask of(List<int[]> regions, int width, int height) {
+        if (regions == null || regions.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<int[]> clipped = new ArrayList<>();
+        TreeSet<Integer> rowBoundaries = new TreeSet<>();
+        for (int[] region : regions) {
+            int x0 = Math.max(0, region[0]);
+            int y0 = Math.max(0, region[1]);
+            int x1 = Math.min(width, region[0] + region[2]);
+            int y1 = Math.min(height, region[1] + region[3]);
+            if (x0 < x1 && y0 < y1) {
+                clipped.add(new int[]{x0, y0, x1, y1});
+                rowBoundaries.add(y0);
+                rowBoundaries.add(y1);
+            }
+        }
+        if (clipped.isEmpty()) {
+            return EMPTY;
+        }
+
+        int[][] rowSpans = new int[height][];
+        Arrays.fill(rowSpans, NO_SPANS);
+
+        // Between two consecutive boundaries the set of covering regions is constant
+        Integer bandStart = rowBoundaries.first();
+        for (Integer bandEnd : rowBoundaries.tailSet(bandStart, false)) {
+            int[] spans = spansForRow(clipped, bandStart);
+            for (int y = bandStart; y < bandEnd; y++) {
+                rowSpans[y] = spans;
+            }
+            bandStart = bandEnd;
+        }
+
+        return new IgnoreMask(rowSpans);
+    }
+
+    /**
+     * Check whether any pixel is ignored.
+     */
+    boolean isEmpty() {
+        return rowSpans == null;
+    }
+
+    /**
+     * Ignored spans for a row as [start, end) pairs, sorted by start.
+     */
+    int[] spans(int y) {
+        return rowSpans == null ? NO_SPANS : rowSpans[y];
+    }
+
+    /**
+     * Merge the horizontal extents of all regions covering a row.
+     */
+    private static int[] spansForRow(List<int[]> regions, int y) {
+        List<int[]> covering = new ArrayList<>();
+        for (int[] r : regions) {
+            if (y >= r[1] && y < r[3]) {
+                covering.add(new int[]{r[0], r[2]});
+            }
+        }
+        if (covering.isEmpty()) {
+            return NO_SPANS;
+        }
+
+        covering.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] merged = new int[covering.size() * 2];
+        int count = 0;
+        for (int[] span : covering) {
+            if (count > 0 && span[0] <= merged[count - 1]) {
+                merged[count - 1] = Math.max(merged[count - 1], span[1]);
+            } else {
+                merged[count++] = span[0];
+                merged[count++] = span[1];
+            }
+        }
+        return Arrays.copyOf(merged, count);
+    }
+}
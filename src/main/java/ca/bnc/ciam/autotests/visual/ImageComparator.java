@@ -2,34 +2,37 @@ package ca.bnc.ciam.autotests.visual;
 
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.opencv.core.Core;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
-import org.opencv.core.MatOfByte;
 import org.opencv.core.Rect;
 import org.opencv.core.Scalar;
 import org.opencv.core.Size;
-import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 
-import javax.imageio.ImageIO;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Image comparison using OpenCV for visual regression testing.
  * Provides ML-based pixel comparison with configurable tolerance.
  */
 @Slf4j
-public class ImageComparator {
+public class ImageComparator implements IImageComparator {
 
     private static boolean openCvLoaded = false;
 
@@ -43,7 +46,30 @@ public class ImageComparator {
         }
     }
 
+    /** System property enabling tiled (multi-threaded) comparison */
+    public static final String TILED_PROPERTY = "bnc.visual.tiled.enabled";
+
+    /** System property for the tile height in rows (default: 256, minimum: 3) */
+    public static final String TILE_HEIGHT_PROPERTY = "bnc.visual.tile.height";
+
+    /** System property for the tile pool size (default: available processors) */
+    public static final String TILE_PARALLELISM_PROPERTY = "bnc.visual.tile.parallelism";
+
+    /** System property enabling coarse-to-fine comparison (exact; pays off on large, mostly unchanged pages) */
+    public static final String PYRAMID_PROPERTY = "bnc.visual.pyramid.enabled";
+
+    /** Fail bound that disables early exit: every pixel is counted */
+    public static final double NO_FAIL_BOUND = 1.0;
+
+    private static final int DEFAULT_TILE_HEIGHT = 256;
+
+    // Rows diffed between two fail-bound checks in budgeted mode
+    private static final int BUDGET_CHUNK_ROWS = 64;
+
+    private static volatile ForkJoinPool tilePool;
+
     private final double defaultTolerance;
+    private final Engine engine;
 
     /**
      * Create comparator with default tolerance.
@@ -56,7 +82,25 @@ public class ImageComparator {
      * Create comparator with custom tolerance.
      */
     public ImageComparator(double tolerance) {
+        this(tolerance, Engine.AUTO);
+    }
+
+    /**
+     * Create comparator with custom tolerance and pixel engine.
+     *
+     * @param tolerance default tolerance
+     * @param engine    pixel engine to use (OPENCV falls back to JAVA if OpenCV is not loaded)
+     */
+    public ImageComparator(double tolerance, Engine engine) {
         this.defaultTolerance = tolerance;
+        this.engine = engine;
+    }
+
+    /**
+     * Check if the OpenCV native library was loaded.
+     */
+    public static boolean isOpenCvAvailable() {
+        return openCvLoaded;
     }
 
     /**
@@ -76,20 +120,74 @@ public class ImageComparator {
     /**
      * Compare two images with ignore regions.
      */
+    @Override
     public ComparisonResult compare(BufferedImage baseline, BufferedImage actual,
                                      double tolerance, List<int[]> ignoreRegions) {
-        if (openCvLoaded) {
-            return compareWithOpenCV(baseline, actual, tolerance, ignoreRegions);
+        return compare(baseline, actual, tolerance, ignoreRegions, NO_FAIL_BOUND);
+    }
+
+    /**
+     * Compare two images with a fail bound (budgeted mode).
+     *
+     * Counting stops as soon as the number of differing pixels proves the diff
+     * is above {@code failBound}; the result is then flagged {@code earlyExit},
+     * its diff percentage is a lower bound and no diff regions are detected
+     * (the diff image, rendered on demand, still shows every difference).
+     * Byte-identical images are recognised before any pixel work.
+     *
+     * @param failBound diff percentage above which the exact value is not needed
+     *                  ({@link #NO_FAIL_BOUND} to always count every pixel)
+     */
+    public ComparisonResult compare(BufferedImage baseline, BufferedImage actual,
+                                     double tolerance, List<int[]> ignoreRegions, double failBound) {
+        if (RasterUtils.sameRaster(baseline, actual)) {
+            return identicalResult(baseline, actual, tolerance);
+        }
+        if (isPyramidEnabled() && baseline.getWidth() == actual.getWidth()
+                && baseline.getHeight() == actual.getHeight()) {
+            return compareCoarseToFine(baseline, actual, tolerance, ignoreRegions, failBound);
+        }
+        if (openCvLoaded && engine != Engine.JAVA) {
+            return compareWithOpenCV(baseline, actual, tolerance, ignoreRegions, failBound);
         } else {
-            return compareWithJava(baseline, actual, tolerance, ignoreRegions);
+            return compareWithJava(baseline, actual, tolerance, ignoreRegions, failBound);
         }
     }
 
+    /**
+     * Get the default tolerance.
+     */
+    @Override
+    public double getDefaultTolerance() {
+        return defaultTolerance;
+    }
+
+    /**
+     * Result for byte-identical images: a clear pass without running the pixel diff.
+     */
+    private ComparisonResult identicalResult(BufferedImage baseline, BufferedImage actual, double tolerance) {
+        log.info("Image comparison: rasters are identical, match=true");
+        return ComparisonResult.builder()
+                .match(true)
+                .diffPercentage(0.0)
+                .tolerance(tolerance)
+                .diffPixelCount(0)
+                .totalPixelCount(baseline.getWidth() * baseline.getHeight())
+                .diffImageRenderer(() -> createDiffImage(actual, Collections.emptyList()))
+                .diffRegions(Collections.emptyList())
+                .baselineWidth(baseline.getWidth())
+                .baselineHeight(baseline.getHeight())
+                .actualWidth(actual.getWidth())
+                .actualHeight(actual.getHeight())
+                .identical(true)
+                .build();
+    }
+
     /**
      * OpenCV-based comparison.
      */
     private ComparisonResult compareWithOpenCV(BufferedImage baseline, BufferedImage actual,
-                                                double tolerance, List<int[]> ignoreRegions) {
+                                                double tolerance, List<int[]> ignoreRegions, double failBound) {
         try {
             boolean wasScaled = false;
             double scaleFactor = 1.0;
@@ -122,37 +220,28 @@ public class ImageComparator {
                 Mat mask = createIgnoreMask(baselineMat.size(), ignoreRegions);
                 Core.bitwise_and(baselineMat, mask, baselineMat);
                 Core.bitwise_and(actualMat, mask, actualMat);
+                mask.release();
             }
 
-            // Calculate absolute difference
-            Mat diff = new Mat();
-            Core.absdiff(baselineMat, actualMat, diff);
+            int width = baselineMat.cols();
+            int height = baselineMat.rows();
+            byte[] mask = new byte[width * height];
 
-            // Convert to grayscale for analysis
-            Mat grayDiff = new Mat();
-            if (diff.channels() > 1) {
-                Imgproc.cvtColor(diff, grayDiff, Imgproc.COLOR_BGR2GRAY);
-            } else {
-                grayDiff = diff;
-            }
-
-            // Apply threshold to find significant differences
-            // Higher threshold (50) to ignore anti-aliasing and minor rendering differences
-            Mat thresholded = new Mat();
-            Imgproc.threshold(grayDiff, thresholded, 50, 255, Imgproc.THRESH_BINARY);
+            // Diff (absdiff, gray, threshold) band by band into the shared mask
+            BandResult bands = diffInBands(
+                    (rowFrom, rowTo) -> diffBandWithOpenCV(baselineMat, actualMat, mask, rowFrom, rowTo),
+                    mask, width, height, failBound);
+            baselineMat.release();
+            actualMat.release();
 
-            // Count non-zero pixels (differences)
-            int diffPixels = Core.countNonZero(thresholded);
-            int totalPixels = baselineMat.rows() * baselineMat.cols();
+            int diffPixels = bands.diffPixels;
+            int totalPixels = width * height;
             double diffPercentage = (double) diffPixels / totalPixels;
 
             boolean match = diffPercentage <= tolerance;
 
-            // Create diff image highlighting differences
-            BufferedImage diffImage = createDiffImage(baseline, actual, matToBufferedImage(thresholded));
-
-            log.info("Image comparison: diff={}%, tolerance={}%, match={}, scaled={}",
-                    String.format("%.4f", diffPercentage * 100),
+            log.info("Image comparison: diff={}{}%, tolerance={}%, match={}, scaled={}",
+                    bands.earlyExit ? ">" : "", String.format("%.4f", diffPercentage * 100),
                     String.format("%.4f", tolerance * 100),
                     match, wasScaled);
 
@@ -162,7 +251,9 @@ public class ImageComparator {
                     .tolerance(tolerance)
                     .diffPixelCount(diffPixels)
                     .totalPixelCount(totalPixels)
-                    .diffImage(diffImage)
+                    .diffImageRenderer(diffImageRenderer(baseline, actual, ignoreRegions, mask, width, height, bands))
+                    .diffRegions(bands.regions)
+                    .earlyExit(bands.earlyExit)
                     .baselineWidth(baseline.getWidth())
                     .baselineHeight(baseline.getHeight())
                     .actualWidth(originalActualWidth)
@@ -173,7 +264,34 @@ public class ImageComparator {
 
         } catch (Exception e) {
             log.error("OpenCV comparison failed, falling back to Java", e);
-            return compareWithJava(baseline, actual, tolerance, ignoreRegions);
+            return compareWithJava(baseline, actual, tolerance, ignoreRegions, failBound);
+        }
+    }
+
+    /**
+     * Diff a band of rows with OpenCV and copy the thresholded result into the mask.
+     * Higher threshold (50) to ignore anti-aliasing and minor rendering differences.
+     */
+    private int diffBandWithOpenCV(Mat baselineMat, Mat actualMat, byte[] mask, int rowFrom, int rowTo) {
+        Mat diff = new Mat();
+        Mat grayDiff = new Mat();
+        Mat thresholded = new Mat();
+        try {
+            Core.absdiff(baselineMat.rowRange(rowFrom, rowTo), actualMat.rowRange(rowFrom, rowTo), diff);
+            Imgproc.cvtColor(diff, grayDiff, Imgproc.COLOR_BGR2GRAY);
+            Imgproc.threshold(grayDiff, thresholded, RasterDiff.DIFF_THRESHOLD, 255, Imgproc.THRESH_BINARY);
+
+            int diffPixels = Core.countNonZero(thresholded);
+            if (diffPixels > 0) {
+                byte[] band = new byte[(rowTo - rowFrom) * thresholded.cols()];
+                thresholded.get(0, 0, band);
+                System.arraycopy(band, 0, mask, rowFrom * thresholded.cols(), band.length);
+            }
+            return diffPixels;
+        } finally {
+            diff.release();
+            grayDiff.release();
+            thresholded.release();
         }
     }
 
@@ -181,7 +299,7 @@ public class ImageComparator {
      * Java-based comparison (fallback when OpenCV not available).
      */
     private ComparisonResult compareWithJava(BufferedImage baseline, BufferedImage actual,
-                                              double tolerance, List<int[]> ignoreRegions) {
+                                              double tolerance, List<int[]> ignoreRegions, double failBound) {
         boolean wasScaled = false;
         double scaleFactor = 1.0;
         int originalActualWidth = actual.getWidth();
@@ -205,38 +323,25 @@ public class ImageComparator {
 
         int width = baseline.getWidth();
         int height = baseline.getHeight();
-
-        int diffPixels = 0;
         int totalPixels = width * height;
 
-        BufferedImage diffImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g = diffImage.createGraphics();
-        g.drawImage(actual, 0, 0, null);
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                // Check if pixel is in ignore region
-                if (isInIgnoreRegion(x, y, ignoreRegions)) {
-                    continue;
-                }
+        // Pull both rasters once; differing pixels are written into a single-byte mask
+        int[] baselinePixels = RasterUtils.toRgbPixels(baseline);
+        int[] actualPixels = RasterUtils.toRgbPixels(actual);
+        IgnoreMask ignoreMask = IgnoreMask.of(ignoreRegions, width, height);
+        byte[] mask = new byte[totalPixels];
 
-                int baselineRgb = baseline.getRGB(x, y);
-                int actualRgb = actual.getRGB(x, y);
-
-                if (!colorsMatch(baselineRgb, actualRgb)) {
-                    diffPixels++;
-                    diffImage.setRGB(x, y, Color.RED.getRGB());
-                }
-            }
-        }
-
-        g.dispose();
+        BandResult bands = diffInBands(
+                (rowFrom, rowTo) -> RasterDiff.diffRows(baselinePixels, actualPixels, width, ignoreMask,
+                        mask, rowFrom, rowTo),
+                mask, width, height, failBound);
 
+        int diffPixels = bands.diffPixels;
         double diffPercentage = (double) diffPixels / totalPixels;
         boolean match = diffPercentage <= tolerance;
 
-        log.info("Java image comparison: diff={}%, tolerance={}%, match={}, scaled={}",
-                String.format("%.4f", diffPercentage * 100),
+        log.info("Java image comparison: diff={}{}%, tolerance={}%, match={}, scaled={}",
+                bands.earlyExit ? ">" : "", String.format("%.4f", diffPercentage * 100),
                 String.format("%.4f", tolerance * 100),
                 match, wasScaled);
 
@@ -246,7 +351,9 @@ public class ImageComparator {
                 .tolerance(tolerance)
                 .diffPixelCount(diffPixels)
                 .totalPixelCount(totalPixels)
-                .diffImage(diffImage)
+                .diffImageRenderer(diffImageRenderer(baseline, actual, ignoreRegions, mask, width, height, bands))
+                .diffRegions(bands.regions)
+                .earlyExit(bands.earlyExit)
                 .baselineWidth(baseline.getWidth())
                 .baselineHeight(baseline.getHeight())
                 .actualWidth(originalActualWidth)
@@ -257,59 +364,251 @@ public class ImageComparator {
     }
 
     /**
-     * Check if two colors match (with threshold for anti-aliasing).
+     * Coarse-to-fine comparison of same-size images: only blocks that changed on
+     * the 1/8-scale change map are diffed at full resolution. Same pixel threshold,
+     * counts and regions as the full diff.
      */
-    private boolean colorsMatch(int rgb1, int rgb2) {
-        int threshold = 50; // Allow differences for anti-aliasing and sub-pixel rendering
+    private ComparisonResult compareCoarseToFine(BufferedImage baseline, BufferedImage actual,
+                                                 double tolerance, List<int[]> ignoreRegions, double failBound) {
+        int width = baseline.getWidth();
+        int height = baseline.getHeight();
+        int totalPixels = width * height;
+        int failPixels = failBound >= NO_FAIL_BOUND
+                ? Integer.MAX_VALUE
+                : (int) Math.floor(failBound * width * (double) height);
+
+        CoarseToFineDiff.Result diff = CoarseToFineDiff.diff(baseline, actual,
+                IgnoreMask.of(ignoreRegions, width, height), failPixels);
+
+        double diffPercentage = (double) diff.diffPixels / totalPixels;
+        boolean match = diffPercentage <= tolerance;
 
-        int r1 = (rgb1 >> 16) & 0xff;
-        int g1 = (rgb1 >> 8) & 0xff;
-        int b1 = rgb1 & 0xff;
+        log.info("Coarse-to-fine image comparison: diff={}{}%, tolerance={}%, match={}, changed cells={}/{}",
+                diff.earlyExit ? ">" : "", String.format("%.4f", diffPercentage * 100),
+                String.format("%.4f", tolerance * 100), match, diff.changedCells, diff.totalCells);
 
-        int r2 = (rgb2 >> 16) & 0xff;
-        int g2 = (rgb2 >> 8) & 0xff;
-        int b2 = rgb2 & 0xff;
+        Supplier<BufferedImage> renderer = diff.mask == null
+                ? () -> createDiffImage(actual, Collections.emptyList())
+                : diffImageRenderer(baseline, actual, ignoreRegions, diff.mask, width, height,
+                        new BandResult(diff.diffPixels, diff.regions, diff.earlyExit, diff.pendingRows));
 
-        return Math.abs(r1 - r2) <= threshold &&
-                Math.abs(g1 - g2) <= threshold &&
-                Math.abs(b1 - b2) <= threshold;
+        return ComparisonResult.builder()
+                .match(match)
+                .diffPercentage(diffPercentage)
+                .tolerance(tolerance)
+                .diffPixelCount(diff.diffPixels)
+                .totalPixelCount(totalPixels)
+                .diffImageRenderer(renderer)
+                .diffRegions(diff.regions)
+                .earlyExit(diff.earlyExit)
+                .baselineWidth(width)
+                .baselineHeight(height)
+                .actualWidth(actual.getWidth())
+                .actualHeight(actual.getHeight())
+                .build();
     }
 
     /**
-     * Check if a pixel is within any ignore region.
+     * Run the band diff over the whole image and detect diff regions.
+     * In tiled mode the image is split into horizontal bands that are diffed
+     * (and scanned for regions) in parallel; per-band counts are summed and
+     * regions cut by a band boundary are stitched back together.
+     * With a fail bound, work stops once the count exceeds it and no regions are detected;
+     * the rows left undiffed are reported so that the diff image can be completed later.
+     *
+     * @param bandDiff  engine-specific diff writing into {@code mask}
+     * @param mask      shared mask, one byte per pixel
+     * @param width     image width
+     * @param height    image height
+     * @param failBound diff percentage above which counting may stop
      */
-    private boolean isInIgnoreRegion(int x, int y, List<int[]> ignoreRegions) {
-        if (ignoreRegions == null) {
-            return false;
+    private BandResult diffInBands(BandDiff bandDiff, byte[] mask, int width, int height, double failBound) {
+        int failPixels = failBound >= NO_FAIL_BOUND
+                ? Integer.MAX_VALUE
+                : (int) Math.floor(failBound * width * (double) height);
+
+        int tileHeight = getTileHeight();
+        if (isTiledEnabled() && height > tileHeight) {
+            return diffInTiles(bandDiff, mask, width, height, tileHeight, failPixels);
         }
-        for (int[] region : ignoreRegions) {
-            // region format: [x, y, width, height]
-            if (x >= region[0] && x < region[0] + region[2] &&
-                    y >= region[1] && y < region[1] + region[3]) {
-                return true;
+
+        if (failPixels == Integer.MAX_VALUE) {
+            int diffPixels = bandDiff.diff(0, height);
+            return new BandResult(diffPixels, DiffRegionFinder.findRegions(mask, width, height), false);
+        }
+
+        // Budgeted: diff a chunk of rows at a time and stop once the fail bound is exceeded
+        int diffPixels = 0;
+        for (int rowFrom = 0; rowFrom < height; rowFrom += BUDGET_CHUNK_ROWS) {
+            int rowTo = Math.min(height, rowFrom + BUDGET_CHUNK_ROWS);
+            diffPixels += bandDiff.diff(rowFrom, rowTo);
+            if (diffPixels > failPixels) {
+                log.debug("Early exit after {} of {} rows: {} pixels > fail bound {}",
+                        rowTo, height, diffPixels, failPixels);
+                List<int[]> pendingRows = rowTo < height
+                        ? List.of(new int[]{rowTo, height})
+                        : Collections.emptyList();
+                return new BandResult(diffPixels, null, true, pendingRows);
             }
         }
-        return false;
+        return new BandResult(diffPixels, DiffRegionFinder.findRegions(mask, width, height), false);
     }
 
     /**
-     * Convert BufferedImage to OpenCV Mat.
+     * Tiled variant of {@link #diffInBands}: tiles run on the shared pool and
+     * skip their work once the running total exceeds {@code failPixels}.
      */
-    private Mat bufferedImageToMat(BufferedImage image) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(image, "png", baos);
-        byte[] bytes = baos.toByteArray();
-        Mat mat = Imgcodecs.imdecode(new MatOfByte(bytes), Imgcodecs.IMREAD_COLOR);
-        return mat;
+    private BandResult diffInTiles(BandDiff bandDiff, byte[] mask, int width, int height,
+                                   int tileHeight, int failPixels) {
+        int tileCount = (height + tileHeight - 1) / tileHeight;
+        AtomicInteger diffTotal = new AtomicInteger();
+        // Tiles whose rows were diffed; each slot is written by its own tile only
+        boolean[] diffed = new boolean[tileCount];
+        List<Callable<DiffRegionFinder.Band>> tiles = new ArrayList<>(tileCount);
+        for (int i = 0; i < tileCount; i++) {
+            int tile = i;
+            int rowFrom = i * tileHeight;
+            int rowTo = Math.min(height, rowFrom + tileHeight);
+            tiles.add(() -> {
+                if (diffTotal.get() > failPixels) {
+                    return null;
+                }
+                int tileDiff = bandDiff.diff(rowFrom, rowTo);
+                diffed[tile] = true;
+                if (diffTotal.addAndGet(tileDiff) > failPixels) {
+                    return null;
+                }
+                return DiffRegionFinder.labelBand(mask, width, rowFrom, rowTo);
+            });
+        }
+
+        List<DiffRegionFinder.Band> bands = new ArrayList<>(tileCount);
+        try {
+            for (Future<DiffRegionFinder.Band> tile : getTilePool().invokeAll(tiles)) {
+                bands.add(tile.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tiled comparison interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tiled comparison failed", e.getCause());
+        }
+
+        log.debug("Tiled comparison: {} tiles of {} rows", tileCount, tileHeight);
+        int diffPixels = diffTotal.get();
+        if (diffPixels > failPixels) {
+            List<int[]> pendingRows = new ArrayList<>();
+            for (int i = 0; i < tileCount; i++) {
+                if (!diffed[i]) {
+                    pendingRows.add(new int[]{i * tileHeight, Math.min(height, (i + 1) * tileHeight)});
+                }
+            }
+            return new BandResult(diffPixels, null, true, pendingRows);
+        }
+        return new BandResult(diffPixels, DiffRegionFinder.stitchBands(bands), false);
     }
 
     /**
-     * Convert OpenCV Mat to BufferedImage.
+     * Deferred diff image rendering. The renderer keeps only the region list;
+     * after an early exit (no regions yet) it keeps the partial diff mask packed
+     * to one bit per pixel, and when the image is requested it diffs the rows the
+     * early exit skipped before detecting the regions. The image therefore shows
+     * every difference, as if the whole frame had been diffed.
+     *
+     * @param baseline      baseline image
+     * @param actual        actual image, scaled to the baseline size
+     * @param ignoreRegions regions excluded from the diff
      */
-    private BufferedImage matToBufferedImage(Mat mat) throws IOException {
-        MatOfByte mob = new MatOfByte();
-        Imgcodecs.imencode(".png", mat, mob);
-        return ImageIO.read(new ByteArrayInputStream(mob.toArray()));
+    private Supplier<BufferedImage> diffImageRenderer(BufferedImage baseline, BufferedImage actual,
+                                                      List<int[]> ignoreRegions, byte[] mask,
+                                                      int width, int height, BandResult bands) {
+        if (bands.regions != null) {
+            List<int[]> regions = bands.regions;
+            return () -> createDiffImage(actual, regions);
+        }
+        long[] packedMask = RasterUtils.packMask(mask);
+        List<int[]> pendingRows = bands.pendingRows;
+        return () -> {
+            byte[] fullMask = RasterUtils.unpackMask(packedMask, width * height);
+            if (!pendingRows.isEmpty()) {
+                // Same threshold as both engines (RasterDiff mirrors the OpenCV pipeline)
+                int[] baselinePixels = RasterUtils.toRgbPixels(baseline);
+                int[] actualPixels = RasterUtils.toRgbPixels(actual);
+                IgnoreMask ignoreMask = IgnoreMask.of(ignoreRegions, width, height);
+                for (int[] rows : pendingRows) {
+                    RasterDiff.diffRows(baselinePixels, actualPixels, width, ignoreMask, fullMask, rows[0], rows[1]);
+                }
+            }
+            return createDiffImage(actual, DiffRegionFinder.findRegions(fullMask, width, height));
+        };
+    }
+
+    /**
+     * Check if coarse-to-fine comparison is enabled via system property.
+     */
+    private static boolean isPyramidEnabled() {
+        return Boolean.parseBoolean(System.getProperty(PYRAMID_PROPERTY, "false"));
+    }
+
+    /**
+     * Check if tiled comparison is enabled via system property.
+     */
+    private static boolean isTiledEnabled() {
+        return Boolean.parseBoolean(System.getProperty(TILED_PROPERTY, "false"));
+    }
+
+    /**
+     * Get the configured tile height, falling back to the default on invalid values.
+     */
+    private static int getTileHeight() {
+        String value = System.getProperty(TILE_HEIGHT_PROPERTY);
+        if (value != null) {
+            try {
+                int tileHeight = Integer.parseInt(value.trim());
+                if (tileHeight >= DiffRegionFinder.CONNECTIVITY_RADIUS) {
+                    return tileHeight;
+                }
+            } catch (NumberFormatException e) {
+                // Fall through to default
+            }
+            log.warn("Invalid {}: {}, using {}", TILE_HEIGHT_PROPERTY, value, DEFAULT_TILE_HEIGHT);
+        }
+        return DEFAULT_TILE_HEIGHT;
+    }
+
+    /**
+     * Get the shared tile pool, created on first use.
+     * Parallelism defaults to the number of available processors.
+     */
+    private static ForkJoinPool getTilePool() {
+        if (tilePool == null) {
+            synchronized (ImageComparator.class) {
+                if (tilePool == null) {
+                    int parallelism = Runtime.getRuntime().availableProcessors();
+                    String value = System.getProperty(TILE_PARALLELISM_PROPERTY);
+                    if (value != null) {
+                        try {
+                            parallelism = Math.max(1, Integer.parseInt(value.trim()));
+                        } catch (NumberFormatException e) {
+                            log.warn("Invalid {}: {}, using {}", TILE_PARALLELISM_PROPERTY, value, parallelism);
+                        }
+                    }
+                    log.info("Tiled comparison pool created with parallelism {}", parallelism);
+                    tilePool = new ForkJoinPool(parallelism);
+                }
+            }
+        }
+        return tilePool;
+    }
+
+    /**
+     * Convert BufferedImage to OpenCV Mat.
+     * Copies the raster straight into a CV_8UC3 Mat (BGR) without encoding.
+     */
+    private Mat bufferedImageToMat(BufferedImage image) {
+        Mat mat = new Mat(image.getHeight(), image.getWidth(), CvType.CV_8UC3);
+        mat.put(0, 0, RasterUtils.toBgrBytes(image));
+        return mat;
     }
 
     /**
@@ -332,9 +631,9 @@ public class ImageComparator {
      * Create diff image with prominent visual highlighting.
      * Detects separate diff regions and draws a circle around each one.
      */
-    private BufferedImage createDiffImage(BufferedImage baseline, BufferedImage actual, BufferedImage mask) {
-        int width = baseline.getWidth();
-        int height = baseline.getHeight();
+    static BufferedImage createDiffImage(BufferedImage actual, List<int[]> diffRegions) {
+        int width = actual.getWidth();
+        int height = actual.getHeight();
 
         BufferedImage diffImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
         Graphics2D g = diffImage.createGraphics();
@@ -346,9 +645,6 @@ public class ImageComparator {
         g.setRenderingHint(java.awt.RenderingHints.KEY_ANTIALIASING,
                            java.awt.RenderingHints.VALUE_ANTIALIAS_ON);
 
-        // Find separate diff regions using connected component labeling
-        List<int[]> diffRegions = findDiffRegions(mask, width, height);
-
         if (!diffRegions.isEmpty()) {
             g.setColor(new Color(255, 0, 0));
             g.setStroke(new java.awt.BasicStroke(4.0f));
@@ -413,152 +709,6 @@ public class ImageComparator {
         return diffImage;
     }
 
-    /**
-     * Find separate diff regions using flood-fill connected component detection.
-     * Returns list of bounding boxes: [minX, minY, maxX, maxY, pixelCount]
-     */
-    private List<int[]> findDiffRegions(BufferedImage mask, int width, int height) {
-        List<int[]> regions = new ArrayList<>();
-        boolean[][] visited = new boolean[height][width];
-
-        // Minimum region size to filter out noise (at least 10 pixels)
-        int minRegionSize = 10;
-        // Maximum gap to merge nearby regions (pixels within this distance are considered same region)
-        int mergeThreshold = 50;
-
-        for (int y = 0; y < Math.min(height, mask.getHeight()); y++) {
-            for (int x = 0; x < Math.min(width, mask.getWidth()); x++) {
-                if (!visited[y][x]) {
-                    int maskPixel = mask.getRGB(x, y) & 0xff;
-                    if (maskPixel > 0) {
-                        // Found a diff pixel, flood fill to find the region
-                        int[] bounds = floodFillRegion(mask, visited, x, y, width, height);
-                        if (bounds[4] >= minRegionSize) {
-                            regions.add(bounds);
-                        }
-                    }
-                }
-            }
-        }
-
-        // Merge nearby regions (regions that are close together)
-        regions = mergeNearbyRegions(regions, mergeThreshold);
-
-        return regions;
-    }
-
-    /**
-     * Flood fill to find connected diff region.
-     * Returns [minX, minY, maxX, maxY, pixelCount]
-     */
-    private int[] floodFillRegion(BufferedImage mask, boolean[][] visited, int startX, int startY, int width, int height) {
-        int minX = startX, minY = startY, maxX = startX, maxY = startY;
-        int pixelCount = 0;
-
-        // Use iterative approach with stack to avoid stack overflow
-        java.util.Deque<int[]> stack = new java.util.ArrayDeque<>();
-        stack.push(new int[]{startX, startY});
-
-        // Allow small gaps in the region (connectivity threshold)
-        int connectivityRadius = 3;
-
-        while (!stack.isEmpty()) {
-            int[] pos = stack.pop();
-            int x = pos[0];
-            int y = pos[1];
-
-            if (x < 0 || x >= Math.min(width, mask.getWidth()) ||
-                y < 0 || y >= Math.min(height, mask.getHeight())) {
-                continue;
-            }
-            if (visited[y][x]) {
-                continue;
-            }
-
-            int maskPixel = mask.getRGB(x, y) & 0xff;
-            if (maskPixel == 0) {
-                continue;
-            }
-
-            visited[y][x] = true;
-            pixelCount++;
-
-            if (x < minX) minX = x;
-            if (y < minY) minY = y;
-            if (x > maxX) maxX = x;
-            if (y > maxY) maxY = y;
-
-            // Check 8-connected neighbors (and slightly beyond for small gaps)
-            for (int dy = -connectivityRadius; dy <= connectivityRadius; dy++) {
-                for (int dx = -connectivityRadius; dx <= connectivityRadius; dx++) {
-                    if (dx != 0 || dy != 0) {
-                        stack.push(new int[]{x + dx, y + dy});
-                    }
-                }
-            }
-        }
-
-        return new int[]{minX, minY, maxX, maxY, pixelCount};
-    }
-
-    /**
-     * Merge regions that are close to each other.
-     */
-    private List<int[]> mergeNearbyRegions(List<int[]> regions, int threshold) {
-        if (regions.size() <= 1) {
-            return regions;
-        }
-
-        List<int[]> merged = new ArrayList<>();
-        boolean[] used = new boolean[regions.size()];
-
-        for (int i = 0; i < regions.size(); i++) {
-            if (used[i]) continue;
-
-            int[] current = regions.get(i).clone();
-            used[i] = true;
-
-            // Check if any other region should be merged
-            boolean foundMerge;
-            do {
-                foundMerge = false;
-                for (int j = 0; j < regions.size(); j++) {
-                    if (used[j]) continue;
-
-                    int[] other = regions.get(j);
-                    if (regionsOverlapOrNear(current, other, threshold)) {
-                        // Merge: expand current to include other
-                        current[0] = Math.min(current[0], other[0]);
-                        current[1] = Math.min(current[1], other[1]);
-                        current[2] = Math.max(current[2], other[2]);
-                        current[3] = Math.max(current[3], other[3]);
-                        current[4] += other[4];
-                        used[j] = true;
-                        foundMerge = true;
-                    }
-                }
-            } while (foundMerge);
-
-            merged.add(current);
-        }
-
-        return merged;
-    }
-
-    /**
-     * Check if two regions overlap or are within threshold distance.
-     */
-    private boolean regionsOverlapOrNear(int[] r1, int[] r2, int threshold) {
-        // Expand r1 by threshold and check overlap
-        int r1minX = r1[0] - threshold;
-        int r1minY = r1[1] - threshold;
-        int r1maxX = r1[2] + threshold;
-        int r1maxY = r1[3] + threshold;
-
-        // Check if r2 overlaps with expanded r1
-        return !(r2[2] < r1minX || r2[0] > r1maxX || r2[3] < r1minY || r2[1] > r1maxY);
-    }
-
     /**
      * Parse ignore regions from string format "x,y,w,h;x,y,w,h".
      */
@@ -613,6 +763,51 @@ public class ImageComparator {
         return scaled;
     }
 
+    /**
+     * Engine-specific diff of a band of rows into the shared mask.
+     */
+    @FunctionalInterface
+    private interface BandDiff {
+        /**
+         * @return number of differing pixels in rows [rowFrom, rowTo)
+         */
+        int diff(int rowFrom, int rowTo);
+    }
+
+    /**
+     * Diff count and regions of a band (or of the whole image).
+     */
+    private static final class BandResult {
+        private final int diffPixels;
+        private final List<int[]> regions;
+        private final boolean earlyExit;
+        /** Row ranges [from, to) not diffed because of an early exit */
+        private final List<int[]> pendingRows;
+
+        private BandResult(int diffPixels, List<int[]> regions, boolean earlyExit) {
+            this(diffPixels, regions, earlyExit, Collections.emptyList());
+        }
+
+        private BandResult(int diffPixels, List<int[]> regions, boolean earlyExit, List<int[]> pendingRows) {
+            this.diffPixels = diffPixels;
+            this.regions = regions;
+            this.earlyExit = earlyExit;
+            this.pendingRows = pendingRows;
+        }
+    }
+
+    /**
+     * Pixel comparison engine.
+     */
+    public enum Engine {
+        /** OpenCV when the native library is loaded, Java otherwise */
+        AUTO,
+        /** OpenCV (falls back to Java if the native library is not loaded) */
+        OPENCV,
+        /** Pure-Java raster comparison */
+        JAVA
+    }
+
     /**
      * Comparison result data class.
      */
@@ -624,7 +819,18 @@ public class ImageComparator {
         private double tolerance;
         private int diffPixelCount;
         private int totalPixelCount;
+        /**
+         * Annotated diff image, rendered on first access. After an early exit the rows
+         * left undiffed are diffed first, so it is the same image a full count renders.
+         */
+        @ToString.Exclude
+        @EqualsAndHashCode.Exclude
         private BufferedImage diffImage;
+        @ToString.Exclude
+        @EqualsAndHashCode.Exclude
+        private Supplier<BufferedImage> diffImageRenderer;
+        /** Detected diff regions as [minX, minY, maxX, maxY, pixelCount]; null after an early exit */
+        private List<int[]> diffRegions;
         private int baselineWidth;
         private int baselineHeight;
         private int actualWidth;
@@ -635,11 +841,33 @@ public class ImageComparator {
         /** Scale factor applied (1.0 = no scaling, >1.0 = upscaled, <1.0 = downscaled) */
         @Builder.Default
         private double scaleFactor = 1.0;
+        /** True if the rasters were byte-identical and no pixel diff was run */
+        @Builder.Default
+        private boolean identical = false;
+        /** True if counting stopped at the fail bound; diff percentage and pixel count are lower bounds */
+        @Builder.Default
+        private boolean earlyExit = false;
+        /** Mean SSIM over compared pixels (SSIM engine only, -1 = not computed) */
+        @Builder.Default
+        private double meanSsim = -1;
+
+        /**
+         * Get the diff image, rendering it on first call.
+         */
+        public synchronized BufferedImage getDiffImage() {
+            if (diffImage == null && diffImageRenderer != null) {
+                diffImage = diffImageRenderer.get();
+                diffImageRenderer = null;
+            }
+            return diffImage;
+        }
 
         public String getSummary() {
             String scalingInfo = wasScaled ? String.format(", Scaled: %.2fx", scaleFactor) : "";
-            return String.format("Match: %s, Diff: %.4f%%, Pixels: %d/%d, Tolerance: %.4f%%%s",
-                    match, diffPercentage * 100, diffPixelCount, totalPixelCount, tolerance * 100, scalingInfo);
+            String ssimInfo = meanSsim >= 0 ? String.format(", SSIM: %.4f", meanSsim) : "";
+            return String.format("Match: %s, Diff: %s%.4f%%, Pixels: %d/%d, Tolerance: %.4f%%%s%s",
+                    match, earlyExit ? ">" : "", diffPercentage * 100, diffPixelCount, totalPixelCount,
+                    tolerance * 100, scalingInfo, ssimInfo);
         }
     }
 }
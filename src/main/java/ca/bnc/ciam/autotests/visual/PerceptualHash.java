@@ -0,0 +1,161 @@
+package ca.bnc.ciam.autotests.visual;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Perceptual hashes of an image, used as a cheap similarity tier before AI comparison.
+ *
+ * Holds three signatures computed from downscaled copies of the image:
+ * - dHash: 64 bits of horizontal luminance gradients on a 9x8 grid
+ * - pHash: 64 bits of the low-frequency DCT coefficients of a 32x32 grayscale copy
+ * - color grid: 8x8 average RGB, since both hashes are blind to hue changes
+ *
+ * Instances are immutable and can be cached per baseline image.
+ */
+public final class PerceptualHash {
+
+    private static final int DHASH_WIDTH = 9;
+    private static final int DHASH_HEIGHT = 8;
+    private static final int PHASH_SIZE = 32;
+    private static final int PHASH_LOW = 8;
+    private static final int COLOR_GRID = 8;
+
+    /** DCT-II basis for the low frequencies: COS[u][x] = cos((2x + 1) * u * PI / 2N) */
+    private static final double[][] COS = new double[PHASH_LOW][PHASH_SIZE];
+
+    static {
+        for (int u = 0; u < PHASH_LOW; u++) {
+            for (int x = 0; x < PHASH_SIZE; x++) {
+                COS[u][x] = Math.cos((2 * x + 1) * u * Math.PI / (2 * PHASH_SIZE));
+            }
+        }
+    }
+
+    private final long dHash;
+    private final long pHash;
+    private final byte[] colorGrid;
+
+    private PerceptualHash(long dHash, long pHash, byte[] colorGrid) {
+        this.dHash = dHash;
+        this.pHash = pHash;
+        this.colorGrid = colorGrid;
+    }
+
+    /**
+     * Compute the hashes of an image.
+     */
+    public static PerceptualHash of(BufferedImage image) {
+        float[] small = RasterUtils.boxAverageRgb(image, DHASH_WIDTH, DHASH_HEIGHT);
+        float[] large = RasterUtils.boxAverageRgb(image, PHASH_SIZE, PHASH_SIZE);
+        return new PerceptualHash(dHash(small), pHash(large), colorGrid(large));
+    }
+
+    /**
+     * Hamming distance between the dHashes (0-64).
+     */
+    public int dHashDistance(PerceptualHash other) {
+        return Long.bitCount(dHash ^ other.dHash);
+    }
+
+    /**
+     * Hamming distance between the pHashes (0-64).
+     */
+    public int pHashDistance(PerceptualHash other) {
+        return Long.bitCount(pHash ^ other.pHash);
+    }
+
+    /**
+     * Largest difference of any channel of any color grid cell (0-255).
+     */
+    public int colorDistance(PerceptualHash other) {
+        int max = 0;
+        for (int i = 0; i < colorGrid.length; i++) {
+            max = Math.max(max, Math.abs((colorGrid[i] & 0xFF) - (other.colorGrid[i] & 0xFF)));
+        }
+        return max;
+    }
+
+    public long getDHash() {
+        return dHash;
+    }
+
+    public long getPHash() {
+        return pHash;
+    }
+
+    private static long dHash(float[] rgb) {
+        long hash = 0;
+        int bit = 0;
+        for (int y = 0; y < DHASH_HEIGHT; y++) {
+            for (int x = 0; x < DHASH_WIDTH - 1; x++) {
+                int i = y * DHASH_WIDTH + x;
+                if (luma(rgb, i) > luma(rgb, i + 1)) {
+                    hash |= 1L << bit;
+                }
+                bit++;
+            }
+        }
+        return hash;
+    }
+
+    private static long pHash(float[] rgb) {
+        // Separable DCT, low frequencies only: rows first, then columns
+        double[][] rows = new double[PHASH_SIZE][PHASH_LOW];
+        for (int y = 0; y < PHASH_SIZE; y++) {
+            for (int u = 0; u < PHASH_LOW; u++) {
+                double sum = 0;
+                for (int x = 0; x < PHASH_SIZE; x++) {
+                    sum += luma(rgb, y * PHASH_SIZE + x) * COS[u][x];
+                }
+                rows[y][u] = sum;
+            }
+        }
+        double[] coefficients = new double[PHASH_LOW * PHASH_LOW];
+        for (int v = 0; v < PHASH_LOW; v++) {
+            for (int u = 0; u < PHASH_LOW; u++) {
+                double sum = 0;
+                for (int y = 0; y < PHASH_SIZE; y++) {
+                    sum += rows[y][u] * COS[v][y];
+                }
+                coefficients[v * PHASH_LOW + u] = sum;
+            }
+        }
+
+        // Threshold against the median of the AC coefficients (DC excluded)
+        double[] ac = Arrays.copyOfRange(coefficients, 1, coefficients.length);
+        Arrays.sort(ac);
+        double median = ac[ac.length / 2];
+
+        long hash = 0;
+        for (int i = 0; i < coefficients.length; i++) {
+            if (coefficients[i] > median) {
+                hash |= 1L << i;
+            }
+        }
+        return hash;
+    }
+
+    private static byte[] colorGrid(float[] rgb) {
+        int block = PHASH_SIZE / COLOR_GRID;
+        byte[] grid = new byte[3 * COLOR_GRID * COLOR_GRID];
+        for (int gy = 0; gy < COLOR_GRID; gy++) {
+            for (int gx = 0; gx < COLOR_GRID; gx++) {
+                for (int c = 0; c < 3; c++) {
+                    float sum = 0;
+                    for (int y = gy * block; y < (gy + 1) * block; y++) {
+                        for (int x = gx * block; x < (gx + 1) * block; x++) {
+                            sum += rgb[3 * (y * PHASH_SIZE + x) + c];
+                        }
+                    }
+                    grid[3 * (gy * COLOR_GRID + gx) + c] = (byte) Math.round(sum / (block * block));
+                }
+            }
+        }
+        return grid;
+    }
+
+    private static float luma(float[] rgb, int cell) {
+        return 0.299f * rgb[3 * cell] + 0.587f * rgb[3 * cell + 1] + 0.114f * rgb[3 * cell + 2];
+    }
+}
@@ -0,0 +1,156 @@
+package ca.bnc.ciam.autotests.visual;
+
+import ai.djl.inference.Predictor;
+import ai.djl.repository.zoo.ZooModel;
+import ca.bnc.ciam.autotests.visual.AIImageComparator.PoolStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of predictors over one loaded model.
+ *
+ * DJL predictors are not thread-safe, so each inference checks one out for its
+ * exclusive use and returns it afterwards. Predictors are created on demand up
+ * to the pool size; further callers wait for a predictor to be returned.
+ * Wait time and busy time are tracked for {@link PoolStats}.
+ */
+@Slf4j
+final class PredictorPool<I, O> implements AutoCloseable {
+
+    private final ZooModel<I, O> model;
+    private final int size;
+    private final BlockingQueue<Predictor<I, O>> idle;
+    private final List<Predictor<I, O>> all = new ArrayList<>();
+    private final long createdAt = System.nanoTime();
+
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+    private final AtomicLong checkouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private volatile boolean closed = false;
+
+    PredictorPool(ZooModel<I, O> model, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1: " + size);
+        }
+        this.model = model;
+        this.size = size;
+        this.idle = new LinkedBlockingQueue<>(size);
+    }
+
+    /**
+     * Run an action with a predictor checked out for the calling thread only.
+     * Blocks while all predictors are in use.
+     */
+    <R, E extends Exception> R withPredictor(PredictorAction<I, O, R, E> action) throws E {
+        long waitStart = System.nanoTime();
+        Predictor<I, O> predictor = checkout();
+        long checkedOutAt = System.nanoTime();
+        recordWait(checkedOutAt - waitStart);
+
+        int current = inUse.incrementAndGet();
+        peakInUse.accumulateAndGet(current, Math::max);
+        try {
+            return action.apply(predictor);
+        } finally {
+            inUse.decrementAndGet();
+            busyNanos.addAndGet(System.nanoTime() - checkedOutAt);
+            release(predictor);
+        }
+    }
+
+    private Predictor<I, O> checkout() {
+        if (closed) {
+            throw new IllegalStateException("Predictor pool is closed");
+        }
+        Predictor<I, O> predictor = idle.poll();
+        if (predictor != null) {
+            return predictor;
+        }
+        synchronized (all) {
+            if (all.size() < size) {
+                predictor = model.newPredictor();
+                all.add(predictor);
+                log.debug("Created predictor {}/{}", all.size(), size);
+                return predictor;
+            }
+        }
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a predictor", e);
+        }
+    }
+
+    private void release(Predictor<I, O> predictor) {
+        synchronized (all) {
+            if (!closed) {
+                idle.offer(predictor);
+                return;
+            }
+        }
+        predictor.close();
+    }
+
+    private void recordWait(long waitNanos) {
+        checkouts.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Snapshot of the pool counters.
+     */
+    PoolStats stats() {
+        long count = checkouts.get();
+        long elapsed = Math.max(1, System.nanoTime() - createdAt);
+        int created;
+        synchronized (all) {
+            created = all.size();
+        }
+        return PoolStats.builder()
+                .size(size)
+                .created(created)
+                .inUse(inUse.get())
+                .peakInUse(peakInUse.get())
+                .checkouts(count)
+                .totalWaitMs(totalWaitNanos.get() / 1_000_000)
+                .maxWaitMs(maxWaitNanos.get() / 1_000_000)
+                .averageWaitMs(count > 0 ? totalWaitNanos.get() / 1e6 / count : 0.0)
+                .utilization((double) busyNanos.get() / ((double) elapsed * size))
+                .build();
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        synchronized (all) {
+            closed = true;
+            // Predictors still checked out are closed on release
+            Predictor<I, O> predictor;
+            while ((predictor = idle.poll()) != null) {
+                predictor.close();
+            }
+        }
+    }
+
+    /**
+     * Work done with an exclusively held predictor.
+     */
+    @FunctionalInterface
+    interface PredictorAction<I, O, R, E extends Exception> {
+        R apply(Predictor<I, O> predictor) throws E;
+    }
+}
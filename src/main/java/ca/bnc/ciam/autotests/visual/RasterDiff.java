@@ -0,0 +1,83 @@
+package ca.bnc.ciam.autotests.visual;
+
+/**
+ * Pure-Java pixel difference kernel used when OpenCV is not available.
+ *
+ * Works on packed RGB int arrays and mirrors the OpenCV pipeline exactly:
+ * per-channel absolute difference, BGR-to-gray conversion with OpenCV's
+ * fixed-point weights, then a binary threshold. Differing pixels are written
+ * as 255 into a caller-supplied mask array; nothing is allocated per pixel.
+ */
+final class RasterDiff {
+
+    /** Gray-level threshold above which a pixel counts as different (same as the OpenCV path) */
+    static final int DIFF_THRESHOLD = 50;
+
+    // OpenCV cvtColor(BGR2GRAY) fixed-point coefficients (14-bit)
+    private static final int R2Y = 4899;
+    private static final int G2Y = 9617;
+    private static final int B2Y = 1868;
+    private static final int GRAY_SHIFT = 14;
+    private static final int GRAY_ROUND = 1 << (GRAY_SHIFT - 1);
+
+    private RasterDiff() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Diff a range of rows.
+     *
+     * @param baseline baseline RGB pixels
+     * @param actual   actual RGB pixels (same dimensions)
+     * @param width    image width
+     * @param ignore   precomputed ignore spans
+     * @param mask     destination mask, one byte per pixel; only differing pixels are written
+     * @param rowFrom  first row (inclusive)
+     * @param rowTo    last row (exclusive)
+     * @return number of differing pixels in the range
+     */
+    static int diffRows(int[] baseline, int[] actual, int width, IgnoreMask ignore,
+                        byte[] mask, int rowFrom, int rowTo) {
+        int count = 0;
+        for (int y = rowFrom; y < rowTo; y++) {
+            int rowOffset = y * width;
+            int[] spans = ignore.spans(y);
+            int x = 0;
+            for (int i = 0; i <= spans.length; i += 2) {
+                int segmentEnd = i < spans.length ? spans[i] : width;
+                count += diffSegment(baseline, actual, mask, rowOffset + x, rowOffset + segmentEnd);
+                if (i < spans.length) {
+                    x = spans[i + 1];
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Diff a contiguous run of pixels [from, to).
+     */
+    private static int diffSegment(int[] baseline, int[] actual, byte[] mask, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int b = baseline[i];
+            int a = actual[i];
+            if (((a ^ b) & 0xFFFFFF) != 0 && isDifferent(b, a)) {
+                mask[i] = (byte) 0xFF;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Check whether two RGB pixels differ by more than the gray-level threshold.
+     */
+    static boolean isDifferent(int rgb1, int rgb2) {
+        int dr = Math.abs(((rgb1 >> 16) & 0xff) - ((rgb2 >> 16) & 0xff));
+        int dg = Math.abs(((rgb1 >> 8) & 0xff) - ((rgb2 >> 8) & 0xff));
+        int db = Math.abs((rgb1 & 0xff) - (rgb2 & 0xff));
+        int gray = (db * B2Y + dg * G2Y + dr * R2Y + GRAY_ROUND) >> GRAY_SHIFT;
+        return gray > DIFF_THRESHOLD;
+    }
+}
@@ -0,0 +1,311 @@
+package ca.bnc.ciam.autotests.visual;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Direct access to the pixel data backing a BufferedImage.
+ *
+ * Reads the DataBufferInt/DataBufferByte arrays of the common screenshot
+ * image types without going through an image codec. Arrays returned from
+ * the backing buffer are shared with the image and must be treated as read-only.
+ */
+final class RasterUtils {
+
+    private static final int HASH_CHUNK_PIXELS = 16 * 1024;
+
+    private RasterUtils() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Get the image pixels as packed BGR bytes (3 bytes per pixel, row-major),
+     * the layout expected by an OpenCV CV_8UC3 Mat.
+     * Alpha is dropped, matching Imgcodecs.IMREAD_COLOR.
+     *
+     * @param image the source image
+     * @return BGR bytes; the image's own buffer when it is already TYPE_3BYTE_BGR
+     */
+    static byte[] toBgrBytes(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int pixelCount = width * height;
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+
+        switch (image.getType()) {
+            case BufferedImage.TYPE_3BYTE_BGR -> {
+                byte[] data = ((DataBufferByte) buffer).getData();
+                if (data.length == pixelCount * 3) {
+                    return data;
+                }
+            }
+            case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB -> {
+                int[] data = ((DataBufferInt) buffer).getData();
+                if (data.length == pixelCount) {
+                    return packBgr(data);
+                }
+            }
+            case BufferedImage.TYPE_4BYTE_ABGR -> {
+                byte[] data = ((DataBufferByte) buffer).getData();
+                if (data.length == pixelCount * 4) {
+                    byte[] bgr = new byte[pixelCount * 3];
+                    for (int i = 0, j = 0; j < bgr.length; i += 4, j += 3) {
+                        bgr[j] = data[i + 1];
+                        bgr[j + 1] = data[i + 2];
+                        bgr[j + 2] = data[i + 3];
+                    }
+                    return bgr;
+                }
+            }
+            case BufferedImage.TYPE_BYTE_GRAY -> {
+                byte[] data = ((DataBufferByte) buffer).getData();
+                if (data.length == pixelCount) {
+                    byte[] bgr = new byte[pixelCount * 3];
+                    for (int i = 0, j = 0; i < pixelCount; i++, j += 3) {
+                        bgr[j] = data[i];
+                        bgr[j + 1] = data[i];
+                        bgr[j + 2] = data[i];
+                    }
+                    return bgr;
+                }
+            }
+            default -> {
+                // Handled by the generic path below
+            }
+        }
+
+        // Sub-images and uncommon layouts: one bulk read through the color model
+        return packBgr(image.getRGB(0, 0, width, height, null, 0, width));
+    }
+
+    /**
+     * Get the image pixels as packed RGB ints (row-major). Only the low 24 bits
+     * are meaningful; callers must ignore the alpha byte.
+     *
+     * @param image the source image
+     * @return RGB ints; the image's own buffer when it is TYPE_INT_RGB or TYPE_INT_ARGB
+     */
+    static int[] toRgbPixels(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int pixelCount = width * height;
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB -> {
+                int[] data = ((DataBufferInt) buffer).getData();
+                if (data.length == pixelCount) {
+                    return data;
+                }
+            }
+            case BufferedImage.TYPE_3BYTE_BGR -> {
+                byte[] data = ((DataBufferByte) buffer).getData();
+                if (data.length == pixelCount * 3) {
+                    int[] rgb = new int[pixelCount];
+                    for (int i = 0, j = 0; i < pixelCount; i++, j += 3) {
+                        rgb[i] = (data[j] & 0xff) | (data[j + 1] & 0xff) << 8 | (data[j + 2] & 0xff) << 16;
+                    }
+                    return rgb;
+                }
+            }
+            case BufferedImage.TYPE_BYTE_GRAY -> {
+                byte[] data = ((DataBufferByte) buffer).getData();
+                if (data.length == pixelCount) {
+                    int[] rgb = new int[pixelCount];
+                    for (int i = 0; i < pixelCount; i++) {
+                        int v = data[i] & 0xff;
+                        rgb[i] = v | v << 8 | v << 16;
+                    }
+                    return rgb;
+                }
+            }
+            default -> {
+                // Handled by the generic path below
+            }
+        }
+
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Check whether two images have byte-identical rasters.
+     * Only compares the backing arrays directly (one vectorized pass, no per-pixel
+     * conversion) when both images share a common type and own their whole buffer;
+     * returns false otherwise, which callers treat as "unknown".
+     */
+    static boolean sameRaster(BufferedImage a, BufferedImage b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight() || a.getType() != b.getType()) {
+            return false;
+        }
+
+        int pixelCount = a.getWidth() * a.getHeight();
+        DataBuffer bufferA = a.getRaster().getDataBuffer();
+        DataBuffer bufferB = b.getRaster().getDataBuffer();
+
+        switch (a.getType()) {
+            case BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB -> {
+                int[] dataA = ((DataBufferInt) bufferA).getData();
+                int[] dataB = ((DataBufferInt) bufferB).getData();
+                return dataA.length == pixelCount && dataB.length == pixelCount && Arrays.equals(dataA, dataB);
+            }
+            case BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY -> {
+                int expected = pixelCount * a.getColorModel().getNumComponents();
+                byte[] dataA = ((DataBufferByte) bufferA).getData();
+                byte[] dataB = ((DataBufferByte) bufferB).getData();
+                return dataA.length == expected && dataB.length == expected && Arrays.equals(dataA, dataB);
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Feed an image's size and RGB pixels (alpha ignored) into a digest, so images
+     * with the same pixels hash the same regardless of their type or encoding.
+     */
+    static void digestPixels(MessageDigest digest, BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = toRgbPixels(image);
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_CHUNK_PIXELS * 4);
+        buffer.putInt(width).putInt(height);
+
+        int pixelCount = width * height;
+        for (int i = 0; i < pixelCount; i++) {
+            if (!buffer.hasRemaining()) {
+                digest.update(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+            buffer.putInt(pixels[i] & 0xFFFFFF);
+        }
+        digest.update(buffer.array(), 0, buffer.position());
+    }
+
+    /**
+     * Get a SHA-256 digest.
+     */
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Get the backing byte array of a TYPE_BYTE_GRAY or TYPE_3BYTE_BGR image.
+     */
+    static byte[] byteData(BufferedImage image) {
+        return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Pack a byte mask (non-zero = set) into one bit per pixel.
+     */
+    static long[] packMask(byte[] mask) {
+        long[] bits = new long[(mask.length + 63) >>> 6];
+        for (int i = 0; i < mask.length; i++) {
+            if (mask[i] != 0) {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Expand a packed mask back to one byte per pixel (0 or 255).
+     */
+    static byte[] unpackMask(long[] bits, int length) {
+        byte[] mask = new byte[length];
+        for (int word = 0; word < bits.length; word++) {
+            long value = bits[word];
+            while (value != 0) {
+                int i = (word << 6) + Long.numberOfTrailingZeros(value);
+                mask[i] = (byte) 0xFF;
+                value &= value - 1;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Downsample an image to {@code width}x{@code height} cells by box-averaging
+     * each cell over its source area (nearest source pixel when upscaling).
+     *
+     * @return interleaved R, G, B averages in 0..255, row-major
+     */
+    static float[] boxAverageRgb(BufferedImage image, int width, int height) {
+        int sourceWidth = image.getWidth();
+        int[] pixels = toRgbPixels(image);
+        int[] colBounds = boxBounds(sourceWidth, width);
+        int[] rowBounds = boxBounds(image.getHeight(), height);
+
+        float[] cells = new float[3 * width * height];
+        for (int cy = 0; cy < height; cy++) {
+            int yFrom = rowBounds[2 * cy];
+            int yTo = rowBounds[2 * cy + 1];
+            for (int cx = 0; cx < width; cx++) {
+                int xFrom = colBounds[2 * cx];
+                int xTo = colBounds[2 * cx + 1];
+                long r = 0;
+                long g = 0;
+                long b = 0;
+                for (int y = yFrom; y < yTo; y++) {
+                    int row = y * sourceWidth;
+                    for (int x = xFrom; x < xTo; x++) {
+                        int rgb = pixels[row + x];
+                        r += (rgb >> 16) & 0xFF;
+                        g += (rgb >> 8) & 0xFF;
+                        b += rgb & 0xFF;
+                    }
+                }
+                float count = (float) (yTo - yFrom) * (xTo - xFrom);
+                int i = 3 * (cy * width + cx);
+                cells[i] = r / count;
+                cells[i + 1] = g / count;
+                cells[i + 2] = b / count;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Source ranges [from, to) of each output cell when mapping {@code source}
+     * pixels onto {@code target} cells, packed as {from0, to0, from1, to1, ...}.
+     * Every range holds at least one pixel.
+     */
+    private static int[] boxBounds(int source, int target) {
+        int[] bounds = new int[2 * target];
+        for (int i = 0; i < target; i++) {
+            int from = (int) ((long) i * source / target);
+            int to = (int) ((long) (i + 1) * source / target);
+            bounds[2 * i] = Math.min(from, source - 1);
+            bounds[2 * i + 1] = Math.max(to, bounds[2 * i] + 1);
+        }
+        return bounds;
+    }
+
+    /**
+     * Pack (A)RGB ints into BGR bytes.
+     */
+    private static byte[] packBgr(int[] argb) {
+        byte[] bgr = new byte[argb.length * 3];
+        for (int i = 0, j = 0; i < argb.length; i++, j += 3) {
+            int rgb = argb[i];
+            bgr[j] = (byte) rgb;
+            bgr[j + 1] = (byte) (rgb >> 8);
+            bgr[j + 2] = (byte) (rgb >> 16);
+        }
+        return bgr;
+    }
+}
@@ -1,11 +1,16 @@
 package ca.bnc.ciam.autotests.visual;
 
+import ca.bnc.ciam.autotests.visual.model.CaptureMode;
+import ca.bnc.ciam.autotests.visual.model.EncodingProfile;
+import ca.bnc.ciam.autotests.visual.model.PageGeometry;
 import ca.bnc.ciam.autotests.visual.model.ScreenshotType;
+import ca.bnc.ciam.autotests.web.util.PageSettleDetector;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Rectangle;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
@@ -23,15 +28,23 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages screenshot capture using native Selenium.
- * Works across ALL browsers without CDP/DevTools dependency.
+ * Works across ALL browsers; DevTools is only used when explicitly enabled.
  *
  * Features:
  * - Fixed resolution: 1920x1080 for consistency
  * - Dynamic scrolling: captures multiple screenshots if page needs scroll
  * - Native Selenium: works on Chrome, Firefox, Edge, Safari, IE
+ * - Optional DevTools capture ({@value #CAPTURE_MODE_PROPERTY}=cdp): Chrome and Edge
+ *   grab the full page in one call, cut into the same viewports as scrolling
  *
  * Usage:
  * <pre>
@@ -49,7 +62,49 @@ public class ScreenshotManager {
 
     public static final int DEFAULT_WIDTH = 1920;
     public static final int DEFAULT_HEIGHT = 1080;
+
+    /** System property selecting the {@link CaptureMode} (default: scroll) */
+    public static final String CAPTURE_MODE_PROPERTY = "bnc.visual.capture.mode";
+
     private static final int SCROLL_WAIT_MS = 200;
+    private static final int RESIZE_WAIT_MS = 100;
+
+    /** Page bounding rects ([x, y, width, height], null for non-elements) of all arguments, in one round trip */
+    public static final String ELEMENT_RECTS_SCRIPT = """
+            return Array.prototype.map.call(arguments, function (element) {
+              if (!element || !element.getBoundingClientRect) { return null; }
+              var r = element.getBoundingClientRect();
+              return [Math.round(r.left + window.scrollX), Math.round(r.top + window.scrollY),
+                      Math.round(r.width), Math.round(r.height)];
+            });
+            """;
+
+    /** Everything {@link PageGeometry} holds, in one round trip */
+    public static final String GEOMETRY_SCRIPT = """
+            var root = document.documentElement, body = document.body || root;
+            return {
+              scrollWidth: Math.max(body.scrollWidth, root.scrollWidth),
+              scrollHeight: Math.max(body.scrollHeight, root.scrollHeight),
+              viewportWidth: window.innerWidth, viewportHeight: window.innerHeight,
+              outerWidth: window.outerWidth, outerHeight: window.outerHeight,
+              screenWidth: screen.availWidth, screenHeight: screen.availHeight,
+              devicePixelRatio: window.devicePixelRatio || 1,
+              scrollX: window.scrollX, scrollY: window.scrollY
+            };
+            """;
+
+    // Decodes (and processes) viewports while the browser scrolls; shared by all drivers
+    private static final ExecutorService VIEWPORT_WORKERS = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable task) {
+                    Thread thread = new Thread(task, "visual-viewport-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
 
     private final AShot elementAshot;
 
@@ -100,12 +155,8 @@ public class ScreenshotManager {
                 // First, try to restore window from maximized state
                 // This prevents "failed to change window state to 'normal'" error
                 try {
-                    // Use JavaScript to check if window appears maximized
-                    JavascriptExecutor js = (JavascriptExecutor) driver;
-                    Boolean isMaximized = (Boolean) js.executeScript(
-                        "return window.outerWidth >= screen.availWidth && window.outerHeight >= screen.availHeight;");
-
-                    if (Boolean.TRUE.equals(isMaximized)) {
+                    // Use the page geometry to check if window appears maximized
+                    if (probeGeometry(driver).isMaximized()) {
                         log.debug("Window appears maximized, restoring to normal state first");
                         // Set a smaller size first to force window out of maximized state
                         driver.manage().window().setSize(new Dimension(DEFAULT_WIDTH - 1, DEFAULT_HEIGHT - 1));
@@ -133,11 +184,7 @@ public class ScreenshotManager {
             }
 
             // Wait for resize to take effect
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+            PageSettleDetector.awaitSettled(driver, RESIZE_WAIT_MS);
         }
 
         return originalSize;
@@ -153,6 +200,25 @@ public class ScreenshotManager {
         driver.manage().window().setSize(size);
     }
 
+    /**
+     * Take a snapshot of the page and window geometry in a single script call.
+     * Callers that need several dimensions should probe once and pass the snapshot
+     * on, since every script call is a round trip to the (possibly remote) browser.
+     *
+     * @param driver the WebDriver instance
+     * @return the current geometry
+     */
+    public PageGeometry probeGeometry(WebDriver driver) {
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        PageGeometry geometry = PageGeometry.fromScriptResult(js.executeScript(GEOMETRY_SCRIPT));
+        log.debug("Page geometry: scroll={}x{}, viewport={}x{}, window={}x{}, dpr={}, scrollPosition=({}, {})",
+                geometry.getScrollWidth(), geometry.getScrollHeight(),
+                geometry.getViewportWidth(), geometry.getViewportHeight(),
+                geometry.getOuterWidth(), geometry.getOuterHeight(),
+                geometry.getDevicePixelRatio(), geometry.getScrollX(), geometry.getScrollY());
+        return geometry;
+    }
+
     /**
      * Calculate how many viewport screenshots are needed to capture the full page.
      *
@@ -160,24 +226,19 @@ public class ScreenshotManager {
      * @return number of screenshots needed (minimum 1)
      */
     public int calculateScreenshotCount(WebDriver driver) {
-        JavascriptExecutor js = (JavascriptExecutor) driver;
-
-        // Get page and viewport dimensions
-        long scrollHeight = ((Number) js.executeScript(
-                "return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight);")).longValue();
-        long viewportHeight = ((Number) js.executeScript("return window.innerHeight;")).longValue();
+        PageGeometry geometry = probeGeometry(driver);
 
-        if (viewportHeight <= 0) {
-            log.warn("Invalid viewport height: {}, defaulting to 1 screenshot", viewportHeight);
+        if (geometry.getViewportHeight() <= 0) {
+            log.warn("Invalid viewport height: {}, defaulting to 1 screenshot", geometry.getViewportHeight());
             return 1;
         }
 
-        int count = (int) Math.ceil((double) scrollHeight / viewportHeight);
+        int count = geometry.getScreenshotCount();
 
         log.debug("Page scrollHeight={}, viewportHeight={}, screenshots needed={}",
-                scrollHeight, viewportHeight, count);
+                geometry.getScrollHeight(), geometry.getViewportHeight(), count);
 
-        return Math.max(1, count);
+        return count;
     }
 
     /**
@@ -187,15 +248,11 @@ public class ScreenshotManager {
      * @return true if page has scroll, false otherwise
      */
     public boolean hasVerticalScroll(WebDriver driver) {
-        JavascriptExecutor js = (JavascriptExecutor) driver;
-
-        long scrollHeight = ((Number) js.executeScript(
-                "return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight);")).longValue();
-        long viewportHeight = ((Number) js.executeScript("return window.innerHeight;")).longValue();
+        PageGeometry geometry = probeGeometry(driver);
 
-        boolean hasScroll = scrollHeight > viewportHeight;
+        boolean hasScroll = geometry.hasVerticalScroll();
         log.debug("Has vertical scroll: {} (scrollHeight={}, viewportHeight={})",
-                hasScroll, scrollHeight, viewportHeight);
+                hasScroll, geometry.getScrollHeight(), geometry.getViewportHeight());
 
         return hasScroll;
     }
@@ -208,49 +265,23 @@ public class ScreenshotManager {
      * @return list of screenshots (1 or more)
      */
     public List<BufferedImage> captureAllViewports(WebDriver driver) {
-        List<BufferedImage> screenshots = new ArrayList<>();
-        JavascriptExecutor js = (JavascriptExecutor) driver;
-
-        // Get dimensions
-        long scrollHeight = ((Number) js.executeScript(
-                "return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight);")).longValue();
-        long viewportHeight = ((Number) js.executeScript("return window.innerHeight;")).longValue();
+        return captureAllViewports(driver, probeGeometry(driver));
+    }
 
-        int count = calculateScreenshotCount(driver);
+    /**
+     * Capture all viewports needed to cover the full page, using an existing geometry snapshot.
+     *
+     * @param driver   the WebDriver instance
+     * @param geometry geometry probed since the page last changed
+     * @return list of screenshots (1 or more)
+     */
+    public List<BufferedImage> captureAllViewports(WebDriver driver, PageGeometry geometry) {
+        int count = geometry.getScreenshotCount();
 
         log.info("Capturing {} viewport(s) - page height: {}, viewport height: {}",
-                count, scrollHeight, viewportHeight);
-
-        // Scroll to top first
-        js.executeScript("window.scrollTo(0, 0);");
-        waitForScroll();
-
-        for (int i = 0; i < count; i++) {
-            // Calculate scroll position
-            long scrollPosition = i * viewportHeight;
-
-            // For the last screenshot, scroll to show the bottom of the page
-            if (i == count - 1 && count > 1) {
-                scrollPosition = scrollHeight - viewportHeight;
-                if (scrollPosition < 0) scrollPosition = 0;
-            }
-
-            // Scroll to position
-            js.executeScript("window.scrollTo(0, " + scrollPosition + ");");
-            waitForScroll();
-
-            // Take screenshot
-            BufferedImage screenshot = captureViewport(driver);
-            screenshots.add(screenshot);
-
-            log.debug("Captured viewport {} at scroll position {} ({}x{})",
-                    i + 1, scrollPosition, screenshot.getWidth(), screenshot.getHeight());
-        }
-
-        // Scroll back to top
-        js.executeScript("window.scrollTo(0, 0);");
+                count, geometry.getScrollHeight(), geometry.getViewportHeight());
 
-        return screenshots;
+        return joinViewports(captureViewports(driver, geometry, count, (index, image) -> image));
     }
 
     /**
@@ -262,48 +293,193 @@ public class ScreenshotManager {
      * @return list of screenshots
      */
     public List<BufferedImage> captureViewports(WebDriver driver, int count) {
-        List<BufferedImage> screenshots = new ArrayList<>();
-        JavascriptExecutor js = (JavascriptExecutor) driver;
+        return joinViewports(captureViewports(driver, count, (index, image) -> image));
+    }
 
-        // Get dimensions
-        long scrollHeight = ((Number) js.executeScript(
-                "return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight);")).longValue();
-        long viewportHeight = ((Number) js.executeScript("return window.innerHeight;")).longValue();
+    /**
+     * Capture exactly N viewports, pipelined (see
+     * {@link #captureViewports(WebDriver, PageGeometry, int, ViewportProcessor)}).
+     *
+     * @param driver    the WebDriver instance
+     * @param count     number of screenshots to take
+     * @param processor work to run on each decoded viewport, off the calling thread
+     * @return one future per viewport, in order; all screenshots are taken when this returns
+     */
+    public <T> List<CompletableFuture<T>> captureViewports(WebDriver driver, int count,
+                                                           ViewportProcessor<T> processor) {
+        return captureViewports(driver, probeGeometry(driver), count, processor);
+    }
 
+    /**
+     * Capture exactly N viewports, pipelined: the screenshot bytes of each viewport
+     * are decoded and handed to the processor on a worker thread while the browser
+     * scrolls to the next position, so processing viewport N (e.g. comparing it with
+     * its baseline) overlaps capturing viewport N+1.
+     *
+     * @param driver    the WebDriver instance
+     * @param geometry  geometry probed since the page last changed
+     * @param count     number of screenshots to take
+     * @param processor work to run on each decoded viewport, off the calling thread
+     * @return one future per viewport, in order; all screenshots are taken when this returns
+     */
+    public <T> List<CompletableFuture<T>> captureViewports(WebDriver driver, PageGeometry geometry, int count,
+                                                           ViewportProcessor<T> processor) {
         log.info("Capturing {} viewport(s) as requested - page height: {}, viewport height: {}",
-                count, scrollHeight, viewportHeight);
+                count, geometry.getScrollHeight(), geometry.getViewportHeight());
 
-        // Scroll to top first
-        js.executeScript("window.scrollTo(0, 0);");
-        waitForScroll();
+        byte[] fullPage = captureFullPageBytes(driver, geometry);
+        if (fullPage != null) {
+            return splitViewports(fullPage, geometry, count, processor);
+        }
+
+        List<CompletableFuture<T>> viewports = new ArrayList<>(count);
+        JavascriptExecutor js = (JavascriptExecutor) driver;
+        TakesScreenshot ts = (TakesScreenshot) driver;
 
         for (int i = 0; i < count; i++) {
-            // Calculate scroll position
-            long scrollPosition = i * viewportHeight;
+            // The last screenshot is aligned with the bottom of the page
+            long scrollPosition = geometry.getScrollPosition(i, count);
 
-            // For the last screenshot, scroll to show the bottom
-            if (i == count - 1 && count > 1) {
-                scrollPosition = Math.max(0, scrollHeight - viewportHeight);
+            // Scroll to position (the first one is skipped if the page is already at the top)
+            if (i > 0 || !geometry.isAtOrigin()) {
+                js.executeScript("window.scrollTo(0, " + scrollPosition + ");");
             }
+            waitForScroll(driver);
 
-            // Scroll to position
-            js.executeScript("window.scrollTo(0, " + scrollPosition + ");");
-            waitForScroll();
+            // Take screenshot; decode and process it while the browser moves on
+            byte[] screenshotBytes = ts.getScreenshotAs(OutputType.BYTES);
+            int index = i;
+            long position = scrollPosition;
+            viewports.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    BufferedImage image = decode(screenshotBytes);
+                    log.debug("Captured viewport {} at scroll position {} ({}x{})",
+                            index + 1, position, image.getWidth(), image.getHeight());
+                    return processor.process(index, image);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, VIEWPORT_WORKERS));
+        }
 
-            // Take screenshot
-            BufferedImage screenshot = captureViewport(driver);
-            screenshots.add(screenshot);
+        // Scroll back to top
+        if (count > 1 || !geometry.isAtOrigin()) {
+            js.executeScript("window.scrollTo(0, 0);");
+        }
+
+        return viewports;
+    }
+
+    /**
+     * Cut a DevTools full-page capture into viewports on the worker pool: the capture
+     * is decoded once, then each viewport is copied out and processed.
+     */
+    private <T> List<CompletableFuture<T>> splitViewports(byte[] fullPage, PageGeometry geometry, int count,
+                                                          ViewportProcessor<T> processor) {
+        CompletableFuture<BufferedImage> decoded = CompletableFuture.supplyAsync(() -> {
+            try {
+                return CdpScreenshotCapture.decode(fullPage);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, VIEWPORT_WORKERS);
 
-            log.debug("Captured viewport {} at scroll position {} ({}x{})",
-                    i + 1, scrollPosition, screenshot.getWidth(), screenshot.getHeight());
+        List<CompletableFuture<T>> viewports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            viewports.add(decoded.thenApplyAsync(page -> {
+                try {
+                    BufferedImage image = CdpScreenshotCapture.viewport(page, geometry, index, count);
+                    log.debug("Cut viewport {} from full-page capture ({}x{})",
+                            index + 1, image.getWidth(), image.getHeight());
+                    return processor.process(index, image);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, VIEWPORT_WORKERS));
         }
+        return viewports;
+    }
 
-        // Scroll back to top
-        js.executeScript("window.scrollTo(0, 0);");
+    /**
+     * Take a DevTools full-page capture when the capture mode asks for it and the driver supports it.
+     *
+     * @return PNG bytes, or null to capture by scrolling
+     */
+    private byte[] captureFullPageBytes(WebDriver driver, PageGeometry geometry) {
+        if (getCaptureMode(driver, geometry) != CaptureMode.CDP) {
+            return null;
+        }
+        return CdpScreenshotCapture.captureFullPage(driver, geometry);
+    }
+
+    /**
+     * Get the capture mode a page will be captured with: {@link CaptureMode#CDP} only when
+     * configured and the driver can capture the whole page in one DevTools call.
+     *
+     * The modes do not produce the same viewports: a fixed or sticky header appears in
+     * every scrolled viewport but only once in a full-page cut, so baselines must be
+     * kept per mode.
+     */
+    public CaptureMode getCaptureMode(WebDriver driver, PageGeometry geometry) {
+        return getCaptureMode() == CaptureMode.CDP && CdpScreenshotCapture.supports(driver, geometry)
+                ? CaptureMode.CDP : CaptureMode.SCROLL;
+    }
 
+    /**
+     * Get the configured capture mode.
+     */
+    public CaptureMode getCaptureMode() {
+        String configured = System.getProperty(CAPTURE_MODE_PROPERTY);
+        if (configured == null || configured.isBlank()) {
+            return CaptureMode.SCROLL;
+        }
+        try {
+            return CaptureMode.valueOf(configured.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid {} '{}', using {}", CAPTURE_MODE_PROPERTY, configured, CaptureMode.SCROLL);
+            return CaptureMode.SCROLL;
+        }
+    }
+
+    /**
+     * Wait for all viewports of a pipelined capture.
+     */
+    private static List<BufferedImage> joinViewports(List<CompletableFuture<BufferedImage>> viewports) {
+        List<BufferedImage> screenshots = new ArrayList<>(viewports.size());
+        try {
+            for (CompletableFuture<BufferedImage> viewport : viewports) {
+                screenshots.add(viewport.join());
+            }
+        } catch (CompletionException e) {
+            throw new RuntimeException("Failed to capture viewport screenshot", e.getCause());
+        }
         return screenshots;
     }
 
+    private static BufferedImage decode(byte[] screenshotBytes) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(screenshotBytes));
+        if (image == null) {
+            throw new IOException("Screenshot bytes could not be decoded");
+        }
+        return image;
+    }
+
+    /**
+     * Work run on each captured viewport in a pipelined capture.
+     */
+    @FunctionalInterface
+    public interface ViewportProcessor<T> {
+
+        /**
+         * Process one decoded viewport.
+         *
+         * @param index    zero-based viewport index
+         * @param viewport the decoded screenshot
+         */
+        T process(int index, BufferedImage viewport) throws Exception;
+    }
+
     /**
      * Capture single viewport using native Selenium screenshot.
      * This captures exactly what is visible in the browser window.
@@ -337,25 +513,138 @@ public class ScreenshotManager {
 
     /**
      * Take full page screenshot.
-     * For single-viewport pages, returns viewport screenshot.
+     * In {@link CaptureMode#CDP} mode on Chrome and Edge, captures the whole page in one call.
+     * Otherwise, for single-viewport pages, returns viewport screenshot.
      * For scrollable pages, captures first viewport only (use captureAllViewports for all).
      */
     public Screenshot takeFullPageScreenshot(WebDriver driver) {
+        if (getCaptureMode() == CaptureMode.CDP) {
+            byte[] fullPage = captureFullPageBytes(driver, probeGeometry(driver));
+            if (fullPage != null) {
+                try {
+                    log.debug("Taking full page screenshot (DevTools)");
+                    return new Screenshot(CdpScreenshotCapture.decode(fullPage));
+                } catch (IOException e) {
+                    log.warn("Could not decode DevTools capture, falling back: {}", e.getMessage());
+                }
+            }
+        }
+
         log.debug("Taking full page screenshot (first viewport)");
 
         JavascriptExecutor js = (JavascriptExecutor) driver;
         js.executeScript("window.scrollTo(0, 0);");
-        waitForScroll();
+        waitForScroll(driver);
 
         return takeViewportScreenshot(driver);
     }
 
     /**
      * Take element screenshot.
+     * Captures only the element's clip natively (see {@link #captureElements}); AShot,
+     * which captures the viewport and crops it, is the fallback for drivers without
+     * element screenshots.
      */
     public Screenshot takeElementScreenshot(WebDriver driver, WebElement element) {
         log.debug("Taking element screenshot");
-        return elementAshot.takeScreenshot(driver, element);
+        try {
+            return new Screenshot(captureElement(driver, element));
+        } catch (RuntimeException e) {
+            log.debug("Native element screenshot unavailable, cropping the viewport: {}", e.getMessage());
+            return elementAshot.takeScreenshot(driver, element);
+        }
+    }
+
+    /**
+     * Capture only the area of an element.
+     *
+     * @param driver  the WebDriver instance
+     * @param element the element to capture
+     * @return the element image
+     */
+    public BufferedImage captureElement(WebDriver driver, WebElement element) {
+        return captureElements(driver, List.of(element)).get(0);
+    }
+
+    /**
+     * Capture only the areas of some elements, without transferring full frames.
+     * In {@link CaptureMode#CDP} mode on Chrome and Edge, the element rects are read
+     * in one script call and each clip is rendered by DevTools; otherwise each element
+     * is captured with a native WebElement screenshot.
+     *
+     * @param driver   the WebDriver instance
+     * @param elements the elements to capture
+     * @return one image per element, in order
+     * @throws RuntimeException if an element cannot be captured
+     */
+    public List<BufferedImage> captureElements(WebDriver driver, List<WebElement> elements) {
+        List<Rectangle> rects = getCaptureMode() == CaptureMode.CDP && CdpScreenshotCapture.isAvailable(driver)
+                ? getElementRects(driver, elements) : null;
+
+        List<BufferedImage> images = new ArrayList<>(elements.size());
+        try {
+            for (int i = 0; i < elements.size(); i++) {
+                Rectangle rect = rects != null ? rects.get(i) : null;
+                byte[] clip = rect != null
+                        ? CdpScreenshotCapture.captureClip(driver, rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight())
+                        : null;
+                if (clip == null) {
+                    clip = elements.get(i).getScreenshotAs(OutputType.BYTES);
+                }
+                BufferedImage image = decode(clip);
+                log.debug("Captured element {} ({}x{})", i + 1, image.getWidth(), image.getHeight());
+                images.add(image);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to capture element screenshot", e);
+        }
+        return images;
+    }
+
+    /**
+     * Get the page bounding rects of some elements in a single script call.
+     * Falls back to one {@code getRect} call per element when scripts cannot run.
+     *
+     * @param driver   the WebDriver instance
+     * @param elements the elements (null entries are allowed)
+     * @return one rect per element, in order; null for null elements or elements whose rect is unavailable
+     */
+    public List<Rectangle> getElementRects(WebDriver driver, List<WebElement> elements) {
+        List<Rectangle> rects = new ArrayList<>(elements.size());
+        if (driver instanceof JavascriptExecutor js) {
+            try {
+                if (js.executeScript(ELEMENT_RECTS_SCRIPT, elements.toArray()) instanceof List<?> values
+                        && values.size() == elements.size()) {
+                    for (Object value : values) {
+                        rects.add(toRectangle(value));
+                    }
+                    return rects;
+                }
+            } catch (RuntimeException e) {
+                log.debug("Could not read element rects in one call: {}", e.getMessage());
+            }
+        }
+
+        for (WebElement element : elements) {
+            try {
+                rects.add(element != null ? element.getRect() : null);
+            } catch (RuntimeException e) {
+                log.warn("Could not get bounds for element: {}", e.getMessage());
+                rects.add(null);
+            }
+        }
+        return rects;
+    }
+
+    private static Rectangle toRectangle(Object value) {
+        if (!(value instanceof List<?> bounds) || bounds.size() != 4) {
+            return null;
+        }
+        int[] r = new int[4];
+        for (int i = 0; i < 4; i++) {
+            r[i] = bounds.get(i) instanceof Number number ? (int) Math.round(number.doubleValue()) : 0;
+        }
+        return new Rectangle(r[0], r[1], r[3], r[2]);
     }
 
     /**
@@ -367,14 +656,10 @@ public class ScreenshotManager {
     }
 
     /**
-     * Wait for scroll animation to complete.
+     * Wait for scroll animation to complete (adaptive, at most SCROLL_WAIT_MS).
      */
-    private void waitForScroll() {
-        try {
-            Thread.sleep(SCROLL_WAIT_MS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+    private void waitForScroll(WebDriver driver) {
+        PageSettleDetector.awaitSettled(driver, SCROLL_WAIT_MS);
     }
 
     /**
@@ -407,6 +692,14 @@ public class ScreenshotManager {
         return file;
     }
 
+    /**
+     * Save BufferedImage to file in the background (see {@link AsyncArtifactWriter}).
+     * The file exists once pending artifacts are flushed.
+     */
+    public Path saveImageAsync(BufferedImage image, Path filePath, EncodingProfile profile) throws IOException {
+        return AsyncArtifactWriter.getInstance().write(image, filePath, profile);
+    }
+
     /**
      * Convert screenshot to byte array.
      */
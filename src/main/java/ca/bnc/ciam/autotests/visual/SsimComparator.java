@@ -0,0 +1,149 @@
+package ca.bnc.ciam.autotests.visual;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Structural similarity (SSIM) comparison for visual regression testing.
+ *
+ * Compares local luminance, contrast and structure over a 7x7 window around
+ * each pixel instead of raw color values, so anti-aliasing and sub-pixel
+ * rendering noise do not count as differences while moved or changed content
+ * does. A pixel is counted as different when its SSIM falls below the SSIM
+ * threshold; the match decision then uses the same tolerance semantics as
+ * {@link ImageComparator}. Runs in linear time, but costs more than the
+ * pixel diff, so it is selected per checkpoint.
+ */
+@Slf4j
+public class SsimComparator implements IImageComparator {
+
+    /** Default SSIM below which a pixel counts as different */
+    public static final double DEFAULT_SSIM_THRESHOLD = 0.75;
+
+    private final double defaultTolerance;
+    private final double ssimThreshold;
+
+    /**
+     * Create comparator with default tolerance.
+     */
+    public SsimComparator() {
+        this(0.003);
+    }
+
+    /**
+     * Create comparator with custom tolerance.
+     */
+    public SsimComparator(double tolerance) {
+        this(tolerance, DEFAULT_SSIM_THRESHOLD);
+    }
+
+    /**
+     * Create comparator with custom tolerance and SSIM threshold.
+     *
+     * @param tolerance     default tolerance
+     * @param ssimThreshold SSIM below which a pixel counts as different (0.0 - 1.0)
+     */
+    public SsimComparator(double tolerance, double ssimThreshold) {
+        this.defaultTolerance = tolerance;
+        this.ssimThreshold = ssimThreshold;
+    }
+
+    /**
+     * Compare two images and return comparison result.
+     */
+    public ImageComparator.ComparisonResult compare(BufferedImage baseline, BufferedImage actual) {
+        return compare(baseline, actual, defaultTolerance, null);
+    }
+
+    /**
+     * Compare two images with ignore regions.
+     */
+    @Override
+    public ImageComparator.ComparisonResult compare(BufferedImage baseline, BufferedImage actual,
+                                                    double tolerance, List<int[]> ignoreRegions) {
+        int width = baseline.getWidth();
+        int height = baseline.getHeight();
+        int totalPixels = width * height;
+
+        if (RasterUtils.sameRaster(baseline, actual)) {
+            log.info("SSIM comparison: rasters are identical, match=true");
+            return ImageComparator.ComparisonResult.builder()
+                    .match(true)
+                    .diffPercentage(0.0)
+                    .tolerance(tolerance)
+                    .diffPixelCount(0)
+                    .totalPixelCount(totalPixels)
+                    .diffImageRenderer(() -> ImageComparator.createDiffImage(actual, Collections.emptyList()))
+                    .diffRegions(Collections.emptyList())
+                    .baselineWidth(width)
+                    .baselineHeight(height)
+                    .actualWidth(actual.getWidth())
+                    .actualHeight(actual.getHeight())
+                    .identical(true)
+                    .meanSsim(1.0)
+                    .build();
+        }
+
+        boolean wasScaled = false;
+        double scaleFactor = 1.0;
+        int originalActualWidth = actual.getWidth();
+        int originalActualHeight = actual.getHeight();
+        BufferedImage compared = actual;
+        if (width != actual.getWidth() || height != actual.getHeight()) {
+            wasScaled = true;
+            scaleFactor = (double) width / actual.getWidth();
+            log.warn("SSIM comparison: resolution mismatch, baseline {}x{}, actual {}x{} - scaling actual",
+                    width, height, actual.getWidth(), actual.getHeight());
+            compared = ImageComparator.scaleImageHighQuality(actual, width, height);
+        }
+
+        byte[] mask = new byte[totalPixels];
+        SsimKernel.Result ssim = SsimKernel.compute(
+                RasterUtils.toRgbPixels(baseline), RasterUtils.toRgbPixels(compared), width, height,
+                IgnoreMask.of(ignoreRegions, width, height), ssimThreshold, mask);
+
+        double diffPercentage = (double) ssim.diffPixels / totalPixels;
+        boolean match = diffPercentage <= tolerance;
+        List<int[]> regions = DiffRegionFinder.findRegions(mask, width, height);
+
+        log.info("SSIM comparison: diff={}%, meanSsim={}, threshold={}, tolerance={}%, match={}, scaled={}",
+                String.format("%.4f", diffPercentage * 100), String.format("%.4f", ssim.meanSsim),
+                ssimThreshold, String.format("%.4f", tolerance * 100), match, wasScaled);
+
+        BufferedImage diffBase = compared;
+        return ImageComparator.ComparisonResult.builder()
+                .match(match)
+                .diffPercentage(diffPercentage)
+                .tolerance(tolerance)
+                .diffPixelCount(ssim.diffPixels)
+                .totalPixelCount(totalPixels)
+                .diffImageRenderer(() -> ImageComparator.createDiffImage(diffBase, regions))
+                .diffRegions(regions)
+                .baselineWidth(width)
+                .baselineHeight(height)
+                .actualWidth(originalActualWidth)
+                .actualHeight(originalActualHeight)
+                .wasScaled(wasScaled)
+                .scaleFactor(scaleFactor)
+                .meanSsim(ssim.meanSsim)
+                .build();
+    }
+
+    /**
+     * Get the default tolerance.
+     */
+    @Override
+    public double getDefaultTolerance() {
+        return defaultTolerance;
+    }
+
+    /**
+     * Get the SSIM threshold.
+     */
+    public double getSsimThreshold() {
+        return ssimThreshold;
+    }
+}
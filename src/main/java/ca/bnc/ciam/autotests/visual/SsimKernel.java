@@ -0,0 +1,189 @@
+package ca.bnc.ciam.autotests.visual;
+
+/**
+ * Windowed SSIM (structural similarity) map on the luminance of two images.
+ *
+ * Window statistics (sums of x, y, x², y², xy over a square window around each
+ * pixel) come from a running summed-area table: per-column sums over the rows of
+ * the current window are updated incrementally as the window moves down, and a
+ * prefix sum across those columns gives any window sum in O(1). The whole map is
+ * computed in linear time with O(width) extra memory. Windows are clipped at the
+ * image border. Pixels whose SSIM falls below the threshold are written as 255
+ * into a caller-supplied mask.
+ */
+final class SsimKernel {
+
+    /** Window radius: statistics are taken over (2r+1)x(2r+1) pixels */
+    static final int WINDOW_RADIUS = 3;
+
+    // Stabilizing constants for 8-bit dynamic range: (0.01 * 255)^2 and (0.03 * 255)^2
+    private static final double C1 = 6.5025;
+    private static final double C2 = 58.5225;
+
+    // BT.601 luma, 14-bit fixed point (same weights as the pixel diff)
+    private static final int R2Y = 4899;
+    private static final int G2Y = 9617;
+    private static final int B2Y = 1868;
+    private static final int GRAY_SHIFT = 14;
+    private static final int GRAY_ROUND = 1 << (GRAY_SHIFT - 1);
+
+    private SsimKernel() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Compute the SSIM map and mark dissimilar pixels.
+     * Ignored pixels are blanked in both images (as in the pixel diff) and not counted.
+     *
+     * @param baseline  baseline RGB pixels
+     * @param actual    actual RGB pixels (same dimensions)
+     * @param width     image width
+     * @param height    image height
+     * @param ignore    precomputed ignore spans
+     * @param threshold SSIM below which a pixel counts as different
+     * @param mask      destination mask, one byte per pixel; only differing pixels are written
+     * @return count of differing pixels and mean SSIM over compared pixels
+     */
+    static Result compute(int[] baseline, int[] actual, int width, int height, IgnoreMask ignore,
+                          double threshold, byte[] mask) {
+        int[] colX = new int[width];
+        int[] colY = new int[width];
+        int[] colXX = new int[width];
+        int[] colYY = new int[width];
+        int[] colXY = new int[width];
+        long[] sumX = new long[width + 1];
+        long[] sumY = new long[width + 1];
+        long[] sumXX = new long[width + 1];
+        long[] sumYY = new long[width + 1];
+        long[] sumXY = new long[width + 1];
+        int[] lumaX = new int[width];
+        int[] lumaY = new int[width];
+
+        // Prime the window with rows [0, r)
+        for (int y = 0; y < Math.min(WINDOW_RADIUS, height); y++) {
+            accumulateRow(baseline, actual, width, y, ignore, lumaX, lumaY, colX, colY, colXX, colYY, colXY, 1);
+        }
+
+        int diffPixels = 0;
+        double ssimSum = 0;
+        for (int y = 0; y < height; y++) {
+            int enter = y + WINDOW_RADIUS;
+            int leave = y - WINDOW_RADIUS - 1;
+            if (enter < height) {
+                accumulateRow(baseline, actual, width, enter, ignore, lumaX, lumaY,
+                        colX, colY, colXX, colYY, colXY, 1);
+            }
+            if (leave >= 0) {
+                accumulateRow(baseline, actual, width, leave, ignore, lumaX, lumaY,
+                        colX, colY, colXX, colYY, colXY, -1);
+            }
+            int windowRows = Math.min(height - 1, enter) - Math.max(0, y - WINDOW_RADIUS) + 1;
+
+            for (int x = 0; x < width; x++) {
+                sumX[x + 1] = sumX[x] + colX[x];
+                sumY[x + 1] = sumY[x] + colY[x];
+                sumXX[x + 1] = sumXX[x] + colXX[x];
+                sumYY[x + 1] = sumYY[x] + colYY[x];
+                sumXY[x + 1] = sumXY[x] + colXY[x];
+            }
+
+            int rowOffset = y * width;
+            int[] spans = ignore.spans(y);
+            int x = 0;
+            for (int i = 0; i <= spans.length; i += 2) {
+                int segmentEnd = i < spans.length ? spans[i] : width;
+                for (; x < segmentEnd; x++) {
+                    int x0 = Math.max(0, x - WINDOW_RADIUS);
+                    int x1 = Math.min(width, x + WINDOW_RADIUS + 1);
+                    long sx = sumX[x1] - sumX[x0];
+                    long sy = sumY[x1] - sumY[x0];
+                    long sxx = sumXX[x1] - sumXX[x0];
+                    long syy = sumYY[x1] - sumYY[x0];
+                    long sxy = sumXY[x1] - sumXY[x0];
+                    if (sx == sy && sxx == syy && sxx == sxy) {
+                        // Equal window statistics: SSIM is exactly 1 (always the case for unchanged content)
+                        ssimSum += 1.0;
+                        continue;
+                    }
+                    double inverseN = 1.0 / ((x1 - x0) * windowRows);
+                    double muX = sx * inverseN;
+                    double muY = sy * inverseN;
+                    double varX = sxx * inverseN - muX * muX;
+                    double varY = syy * inverseN - muY * muY;
+                    double cov = sxy * inverseN - muX * muY;
+                    double ssim = ((2 * muX * muY + C1) * (2 * cov + C2))
+                            / ((muX * muX + muY * muY + C1) * (varX + varY + C2));
+                    ssimSum += ssim;
+                    if (ssim < threshold) {
+                        mask[rowOffset + x] = (byte) 0xFF;
+                        diffPixels++;
+                    }
+                }
+                if (i < spans.length) {
+                    x = spans[i + 1];
+                }
+            }
+        }
+
+        long compared = (long) width * height - ignoredPixels(ignore, height);
+        return new Result(diffPixels, compared > 0 ? ssimSum / compared : 1.0);
+    }
+
+    /**
+     * Add (sign = 1) or remove (sign = -1) one row's luminance statistics from the column sums.
+     */
+    private static void accumulateRow(int[] baseline, int[] actual, int width, int y, IgnoreMask ignore,
+                                      int[] lumaX, int[] lumaY, int[] colX, int[] colY,
+                                      int[] colXX, int[] colYY, int[] colXY, int sign) {
+        int rowOffset = y * width;
+        for (int x = 0; x < width; x++) {
+            lumaX[x] = luma(baseline[rowOffset + x]);
+            lumaY[x] = luma(actual[rowOffset + x]);
+        }
+        int[] spans = ignore.spans(y);
+        for (int i = 0; i < spans.length; i += 2) {
+            for (int x = spans[i]; x < spans[i + 1]; x++) {
+                lumaX[x] = 0;
+                lumaY[x] = 0;
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            int lx = lumaX[x];
+            int ly = lumaY[x];
+            colX[x] += sign * lx;
+            colY[x] += sign * ly;
+            colXX[x] += sign * lx * lx;
+            colYY[x] += sign * ly * ly;
+            colXY[x] += sign * lx * ly;
+        }
+    }
+
+    private static long ignoredPixels(IgnoreMask ignore, int height) {
+        long ignored = 0;
+        for (int y = 0; y < height; y++) {
+            int[] spans = ignore.spans(y);
+            for (int i = 0; i < spans.length; i += 2) {
+                ignored += spans[i + 1] - spans[i];
+            }
+        }
+        return ignored;
+    }
+
+    private static int luma(int rgb) {
+        return (((rgb >> 16) & 0xff) * R2Y + ((rgb >> 8) & 0xff) * G2Y + (rgb & 0xff) * B2Y + GRAY_ROUND)
+                >> GRAY_SHIFT;
+    }
+
+    /**
+     * Differing pixel count and mean SSIM of one comparison.
+     */
+    static final class Result {
+        final int diffPixels;
+        final double meanSsim;
+
+        private Result(int diffPixels, double meanSsim) {
+            this.diffPixels = diffPixels;
+            this.meanSsim = meanSsim;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ca.bnc.ciam.autotests.visual;
 import ca.bnc.ciam.autotests.annotation.SkipVisualCheck;
 import ca.bnc.ciam.autotests.annotation.VisualCheckpoint;
 import ca.bnc.ciam.autotests.exception.VisualMismatchException;
+import ca.bnc.ciam.autotests.visual.model.ComparisonMethod;
 import ca.bnc.ciam.autotests.visual.model.MismatchBehavior;
 import ca.bnc.ciam.autotests.visual.model.ScreenshotType;
 import lombok.Builder;
@@ -30,6 +31,7 @@ public class VisualValidator {
     private final ScreenshotManager screenshotManager;
     private final BaselineManager baselineManager;
     private final ImageComparator imageComparator;
+    private final SsimComparator ssimComparator;
     private final VisualConfig config;
 
     /**
@@ -47,6 +49,7 @@ public class VisualValidator {
         this.screenshotManager = new ScreenshotManager();
         this.baselineManager = new BaselineManager(config.getBaselinePath());
         this.imageComparator = new ImageComparator(config.getDefaultTolerance());
+        this.ssimComparator = new SsimComparator(config.getDefaultTolerance());
     }
 
     /**
@@ -59,6 +62,7 @@ public class VisualValidator {
         this.screenshotManager = screenshotManager;
         this.baselineManager = baselineManager;
         this.imageComparator = imageComparator;
+        this.ssimComparator = new SsimComparator(config.getDefaultTolerance());
         this.config = config;
     }
 
@@ -81,6 +85,7 @@ public class VisualValidator {
         ScreenshotType type = checkpoint != null ? checkpoint.type() : config.getDefaultScreenshotType();
         double tolerance = checkpoint != null ? checkpoint.tolerance() : config.getDefaultTolerance();
         MismatchBehavior behavior = checkpoint != null ? checkpoint.onMismatch() : config.getDefaultMismatchBehavior();
+        ComparisonMethod method = checkpoint != null ? checkpoint.method() : ComparisonMethod.PIXEL;
         String suffix = checkpoint != null ? checkpoint.name() : null;
         String[] ignoreRegionsArray = checkpoint != null ? checkpoint.ignoreRegions() : new String[0];
 
@@ -99,7 +104,7 @@ public class VisualValidator {
         // Generate baseline name
         String baselineName = baselineManager.generateBaselineName(testClassName, testMethod.getName(), suffix);
 
-        return validateAgainstBaseline(screenshot, baselineName, tolerance, behavior, ignoreRegions);
+        return validateAgainstBaseline(screenshot, baselineName, tolerance, behavior, ignoreRegions, method);
     }
 
     /**
@@ -113,11 +118,21 @@ public class VisualValidator {
     }
 
     /**
-     * Validate screenshot against baseline.
+     * Validate screenshot against baseline using the pixel comparison.
      */
     public VisualValidationResult validateAgainstBaseline(Screenshot screenshot, String baselineName,
                                                            double tolerance, MismatchBehavior behavior,
                                                            List<int[]> ignoreRegions) {
+        return validateAgainstBaseline(screenshot, baselineName, tolerance, behavior, ignoreRegions,
+                ComparisonMethod.PIXEL);
+    }
+
+    /**
+     * Validate screenshot against baseline with the given comparison method.
+     */
+    public VisualValidationResult validateAgainstBaseline(Screenshot screenshot, String baselineName,
+                                                           double tolerance, MismatchBehavior behavior,
+                                                           List<int[]> ignoreRegions, ComparisonMethod method) {
         try {
             BufferedImage actualImage = screenshot.getImage();
 
@@ -141,7 +156,8 @@ public class VisualValidator {
             BufferedImage baselineImage = baselineManager.loadBaseline(baselineName);
 
             // Compare images
-            ImageComparator.ComparisonResult comparison = imageComparator.compare(
+            IImageComparator comparator = method == ComparisonMethod.SSIM ? ssimComparator : imageComparator;
+            ImageComparator.ComparisonResult comparison = comparator.compare(
                     baselineImage, actualImage, tolerance, ignoreRegions);
 
             if (comparison.isMatch()) {
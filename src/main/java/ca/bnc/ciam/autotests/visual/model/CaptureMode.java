@@ -0,0 +1,19 @@
+package ca.bnc.ciam.autotests.visual.model;
+
+/**
+ * Defines how pages taller than the viewport are captured.
+ */
+public enum CaptureMode {
+
+    /**
+     * Scroll through the page taking one native screenshot per viewport (all browsers)
+     */
+    SCROLL,
+
+    /**
+     * Capture the whole page in one DevTools call and cut it into viewports (Chrome and Edge;
+     * other browsers fall back to SCROLL). Fixed and sticky elements appear once instead of
+     * in every viewport, so these captures have their own baselines.
+     */
+    CDP
+}
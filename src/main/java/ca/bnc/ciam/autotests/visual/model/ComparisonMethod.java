@@ -0,0 +1,17 @@
+package ca.bnc.ciam.autotests.visual.model;
+
+/**
+ * Defines the engine used to compare a screenshot with its baseline.
+ */
+public enum ComparisonMethod {
+
+    /**
+     * Per-pixel color difference (fast, strict on anti-aliasing and rendering noise)
+     */
+    PIXEL,
+
+    /**
+     * Windowed structural similarity on luminance (slower, tolerant to rendering noise)
+     */
+    SSIM
+}
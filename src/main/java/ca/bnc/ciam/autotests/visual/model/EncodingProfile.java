@@ -0,0 +1,44 @@
+package ca.bnc.ciam.autotests.visual.model;
+
+/**
+ * Defines how an image is PNG-encoded, depending on what the file is for.
+ */
+public enum EncodingProfile {
+
+    /**
+     * Baselines: full resolution, maximum deflate (slow, smallest files; written rarely, kept in the repository)
+     */
+    BASELINE(9, 0),
+
+    /**
+     * Actual and diff artifacts: full resolution, fastest deflate (written on every failure, kept per run)
+     */
+    ARTIFACT(1, 0),
+
+    /**
+     * Report previews: downscaled to 480 pixels wide, fastest deflate
+     */
+    THUMBNAIL(1, 480);
+
+    private final int deflateLevel;
+    private final int maxWidth;
+
+    EncodingProfile(int deflateLevel, int maxWidth) {
+        this.deflateLevel = deflateLevel;
+        this.maxWidth = maxWidth;
+    }
+
+    /**
+     * Deflate level, from 0 (stored) to 9 (smallest).
+     */
+    public int getDeflateLevel() {
+        return deflateLevel;
+    }
+
+    /**
+     * Maximum width in pixels, 0 for full resolution.
+     */
+    public int getMaxWidth() {
+        return maxWidth;
+    }
+}
@@ -0,0 +1,110 @@
+package ca.bnc.ciam.autotests.visual.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Snapshot of the page and window dimensions, taken in one script call.
+ *
+ * All sizes are CSS pixels; screenshots are {@link #getDevicePixelRatio()} times larger.
+ * A snapshot is only valid until the page is scrolled, resized or its content changes.
+ */
+@Data
+@Builder
+public class PageGeometry {
+
+    /** Full document width */
+    private long scrollWidth;
+    /** Full document height */
+    private long scrollHeight;
+    /** Visible area width (window.innerWidth) */
+    private long viewportWidth;
+    /** Visible area height (window.innerHeight) */
+    private long viewportHeight;
+    /** Browser window width (window.outerWidth) */
+    private long outerWidth;
+    /** Browser window height (window.outerHeight) */
+    private long outerHeight;
+    /** Screen width available to windows */
+    private long screenWidth;
+    /** Screen height available to windows */
+    private long screenHeight;
+    private double devicePixelRatio;
+    private long scrollX;
+    private long scrollY;
+
+    /**
+     * Build a snapshot from the object returned by the geometry script.
+     *
+     * @throws IllegalStateException if the script did not return an object
+     */
+    public static PageGeometry fromScriptResult(Object result) {
+        if (!(result instanceof Map<?, ?> values)) {
+            throw new IllegalStateException("Page geometry script returned " + result);
+        }
+        return PageGeometry.builder()
+                .scrollWidth(longValue(values, "scrollWidth"))
+                .scrollHeight(longValue(values, "scrollHeight"))
+                .viewportWidth(longValue(values, "viewportWidth"))
+                .viewportHeight(longValue(values, "viewportHeight"))
+                .outerWidth(longValue(values, "outerWidth"))
+                .outerHeight(longValue(values, "outerHeight"))
+                .screenWidth(longValue(values, "screenWidth"))
+                .screenHeight(longValue(values, "screenHeight"))
+                .devicePixelRatio(values.get("devicePixelRatio") instanceof Number ratio && ratio.doubleValue() > 0
+                        ? ratio.doubleValue() : 1.0)
+                .scrollX(longValue(values, "scrollX"))
+                .scrollY(longValue(values, "scrollY"))
+                .build();
+    }
+
+    /**
+     * Number of viewport screenshots needed to cover the page (minimum 1).
+     */
+    public int getScreenshotCount() {
+        if (viewportHeight <= 0) {
+            return 1;
+        }
+        return Math.max(1, (int) Math.ceil((double) scrollHeight / viewportHeight));
+    }
+
+    /**
+     * Vertical scroll position of a viewport; the last one is aligned with the bottom of the page.
+     *
+     * @param index zero-based viewport index
+     * @param count number of viewports being captured
+     */
+    public long getScrollPosition(int index, int count) {
+        if (index == count - 1 && count > 1) {
+            return Math.max(0, scrollHeight - viewportHeight);
+        }
+        return index * viewportHeight;
+    }
+
+    /**
+     * Check if the page is taller than the viewport.
+     */
+    public boolean hasVerticalScroll() {
+        return scrollHeight > viewportHeight;
+    }
+
+    /**
+     * Check if the page is scrolled to its top-left corner.
+     */
+    public boolean isAtOrigin() {
+        return scrollX == 0 && scrollY == 0;
+    }
+
+    /**
+     * Check if the window fills the available screen (i.e. appears maximized).
+     */
+    public boolean isMaximized() {
+        return screenWidth > 0 && outerWidth >= screenWidth && outerHeight >= screenHeight;
+    }
+
+    private static long longValue(Map<?, ?> values, String key) {
+        return values.get(key) instanceof Number number ? Math.round(number.doubleValue()) : 0;
+    }
+}
@@ -2,6 +2,7 @@ package ca.bnc.ciam.autotests.web;
 
 import ca.bnc.ciam.autotests.base.AbstractDataDrivenTest;
 import ca.bnc.ciam.autotests.data.TestData;
+import ca.bnc.ciam.autotests.metrics.MetricsCollector;
 import ca.bnc.ciam.autotests.web.config.BrowserType;
 import ca.bnc.ciam.autotests.web.config.ExecutionMode;
 import ca.bnc.ciam.autotests.web.config.WebConfig;
@@ -340,6 +341,17 @@ public abstract class AbstractSeleniumTest extends AbstractDataDrivenTest {
     public void handleTestResult(ITestResult result) {
         String testName = result.getMethod().getMethodName();
 
+        // Soft visual checks of this test fail it now that their verdicts are in
+        List<String> visualFailures = MetricsCollector.getInstance().awaitVisualChecks(result);
+        if (!visualFailures.isEmpty()) {
+            log.error("Soft visual check(s) failed in {}: {}", testName, visualFailures);
+            if (result.isSuccess()) {
+                result.setStatus(ITestResult.FAILURE);
+                result.setThrowable(new AssertionError(
+                        "Soft visual check(s) failed:\n  " + String.join("\n  ", visualFailures)));
+            }
+        }
+
         if (result.isSuccess()) {
             log.info("Test method {} PASSED", testName);
         } else {
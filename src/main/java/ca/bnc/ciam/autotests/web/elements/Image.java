@@ -1,5 +1,6 @@
 package ca.bnc.ciam.autotests.web.elements;
 
+import ca.bnc.ciam.autotests.web.util.PageSettleDetector;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
@@ -230,6 +231,16 @@ public class Image extends Element {
             log.warn("Cannot wait - element is null");
             return this;
         }
+        // Wait for the load/error event when the driver supports it
+        Boolean loaded = PageSettleDetector.awaitImageLoaded(driver, baseElement, timeoutSeconds * 1000);
+        if (loaded != null) {
+            if (loaded) {
+                log.debug("Image loaded");
+            } else {
+                log.warn("Image not loaded after {} seconds", timeoutSeconds);
+            }
+            return this;
+        }
         long endTime = System.currentTimeMillis() + (timeoutSeconds * 1000);
         while (System.currentTimeMillis() < endTime) {
             if (isLoaded()) {
@@ -0,0 +1,189 @@
+package ca.bnc.ciam.autotests.web.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.Map;
+
+/**
+ * Waits for the page to settle instead of sleeping a fixed time.
+ *
+ * One asynchronous script call watches animation frames and returns once the
+ * scroll position, the viewport size and the pending image loads in the viewport
+ * have been stable for {@value #QUIET_FRAMES} consecutive frames, and web fonts
+ * are loaded. The former fixed sleep is the upper bound, and is also what
+ * happens when the driver cannot run asynchronous scripts.
+ *
+ * Settle time is accumulated per thread so that callers can report it per
+ * checkpoint (see {@link #resetSettleTime()}).
+ */
+@Slf4j
+public final class PageSettleDetector {
+
+    /** System property enabling adaptive settling (default: true; false restores the fixed sleeps) */
+    public static final String ADAPTIVE_PROPERTY = "bnc.web.settle.adaptive";
+
+    /** Consecutive unchanged animation frames that count as settled */
+    static final int QUIET_FRAMES = 2;
+
+    /** Longest single wait for an image, kept below usual driver script timeouts */
+    private static final long IMAGE_WAIT_CHUNK_MS = 5_000;
+
+    private static final String SETTLE_SCRIPT = """
+            var maxMs = arguments[0], quietFrames = arguments[1], done = arguments[arguments.length - 1];
+            var start = performance.now(), finished = false, stable = 0, last = null;
+            function finish(settled) {
+              if (!finished) { finished = true; done({settled: settled, ms: Math.round(performance.now() - start)}); }
+            }
+            function pendingImages() {
+              var count = 0, images = document.images;
+              for (var i = 0; i < images.length; i++) {
+                if (!images[i].complete) {
+                  var r = images[i].getBoundingClientRect();
+                  if (r.bottom > 0 && r.top < window.innerHeight && r.width > 0) { count++; }
+                }
+              }
+              return count;
+            }
+            function frame() {
+              if (finished) { return; }
+              var fontsReady = !document.fonts || document.fonts.status === 'loaded';
+              var pending = pendingImages();
+              var state = [window.scrollX, window.scrollY, window.innerWidth, window.innerHeight, pending].join();
+              stable = (state === last && pending === 0 && fontsReady) ? stable + 1 : 0;
+              last = state;
+              if (stable >= quietFrames) { finish(true); return; }
+              if (performance.now() - start >= maxMs) { finish(false); return; }
+              requestAnimationFrame(frame);
+            }
+            setTimeout(function () { finish(false); }, maxMs);
+            requestAnimationFrame(frame);
+            """;
+
+    /** Pause between image checks when the script returns before the image loaded */
+    private static final long IMAGE_POLL_MS = 100;
+
+    // Resolves 'loaded' as soon as the image has pixels, 'pending' at the timeout. A complete
+    // image without pixels (no src yet, lazy-load placeholder, failed load) keeps being
+    // watched, since a src assigned later fires a new load event.
+    private static final String IMAGE_SCRIPT = """
+            var image = arguments[0], maxMs = arguments[1], done = arguments[arguments.length - 1];
+            function loaded() { return image.complete && image.naturalWidth > 0 && image.naturalHeight > 0; }
+            if (loaded()) { done('loaded'); return; }
+            var finished = false, timer, poll;
+            function finish(state) {
+              if (finished) { return; }
+              finished = true; clearTimeout(timer); clearInterval(poll);
+              image.removeEventListener('load', check);
+              done(state);
+            }
+            function check() { if (loaded()) { finish('loaded'); } }
+            timer = setTimeout(function () { finish('pending'); }, maxMs);
+            poll = setInterval(check, 100);
+            image.addEventListener('load', check);
+            """;
+
+    private static final ThreadLocal<long[]> settleTime = ThreadLocal.withInitial(() -> new long[1]);
+
+    private PageSettleDetector() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Wait until the page is settled (see class comment), at most {@code maxWaitMs}.
+     *
+     * @param driver    the WebDriver instance
+     * @param maxWaitMs upper bound, the fixed sleep this wait replaces
+     * @return milliseconds waited
+     */
+    public static long awaitSettled(WebDriver driver, long maxWaitMs) {
+        long start = System.currentTimeMillis();
+        if (isAdaptive() && driver instanceof JavascriptExecutor js) {
+            try {
+                Object result = js.executeAsyncScript(SETTLE_SCRIPT, maxWaitMs, QUIET_FRAMES);
+                if (result instanceof Map<?, ?> outcome && Boolean.FALSE.equals(outcome.get("settled"))) {
+                    log.debug("Page not settled after {}ms", maxWaitMs);
+                }
+                return record(System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.debug("Adaptive settle unavailable, sleeping {}ms: {}", maxWaitMs, e.getMessage());
+            }
+        }
+        sleepQuietly(maxWaitMs - (System.currentTimeMillis() - start));
+        return record(System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Wait for an image to finish loading, returning as soon as it has pixels.
+     * An image without pixels (no src yet, lazy-load placeholder, failed load) is
+     * waited for until the timeout, like the polling this replaces.
+     *
+     * @param driver    the WebDriver instance
+     * @param image     the img element
+     * @param timeoutMs maximum time to wait
+     * @return true if loaded, false if not loaded at the timeout,
+     *         null if the driver cannot wait for the load event
+     */
+    public static Boolean awaitImageLoaded(WebDriver driver, WebElement image, long timeoutMs) {
+        if (!isAdaptive() || !(driver instanceof JavascriptExecutor js)) {
+            return null;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        try {
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                Object state = js.executeAsyncScript(IMAGE_SCRIPT, image,
+                        Math.max(0, Math.min(remaining, IMAGE_WAIT_CHUNK_MS)));
+                if ("loaded".equals(state)) {
+                    return true;
+                }
+                if (System.currentTimeMillis() >= deadline || Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                if (!"pending".equals(state)) {
+                    // Answered without waiting (e.g. a script that reports failed loads): poll
+                    sleepQuietly(Math.min(IMAGE_POLL_MS, deadline - System.currentTimeMillis()));
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Could not wait for image load event: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reset the calling thread's accumulated settle time (e.g. at the start of a checkpoint).
+     */
+    public static void resetSettleTime() {
+        settleTime.get()[0] = 0;
+    }
+
+    /**
+     * Settle time accumulated by the calling thread since the last reset.
+     */
+    public static long getSettleTime() {
+        return settleTime.get()[0];
+    }
+
+    private static boolean isAdaptive() {
+        return !"false".equalsIgnoreCase(System.getProperty(ADAPTIVE_PROPERTY));
+    }
+
+    private static long record(long elapsedMs) {
+        settleTime.get()[0] += elapsedMs;
+        return elapsedMs;
+    }
+
+    private static void sleepQuietly(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,11 +1,22 @@
 package ca.bnc.ciam.autotests.unit.utils;
 
+import ca.bnc.ciam.autotests.metrics.MetricsCollector;
 import ca.bnc.ciam.autotests.utils.VisualCapture;
+import org.testng.ITestContext;
+import org.testng.ITestResult;
+import org.testng.Reporter;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for VisualCapture utility class.
@@ -130,6 +141,32 @@ public class VisualCaptureTest {
         assertThat(VisualCapture.getLastErrorMessage()).isNull();
     }
 
+    // ===========================================
+    // AI Warm-up Tests
+    // ===========================================
+
+    @Test
+    public void testWarmUpAsync_WhenNotEnabled_DoesNotStart() {
+        System.clearProperty("bnc.visual.ai.warmup");
+
+        VisualCapture.warmUpAsync();
+
+        assertThat(VisualCapture.isWarmUpComplete()).isFalse();
+    }
+
+    @Test
+    public void testWarmUpAsync_InRecordMode_DoesNotStart() {
+        System.setProperty("bnc.visual.ai.warmup", "true");
+        System.setProperty("bnc.record.mode", "true");
+        try {
+            VisualCapture.warmUpAsync();
+
+            assertThat(VisualCapture.isWarmUpComplete()).isFalse();
+        } finally {
+            System.clearProperty("bnc.visual.ai.warmup");
+        }
+    }
+
     // ===========================================
     // CaptureStep without WebDriver Tests
     // ===========================================
@@ -261,6 +298,57 @@ public class VisualCaptureTest {
         assertThat(result).isFalse();
     }
 
+    // ===========================================
+    // Soft Check Tests
+    // ===========================================
+
+    @Test
+    public void testCaptureStepSoft_WithNullDriver_RegistersFailureForCurrentTest() throws Exception {
+        System.setProperty("bnc.record.mode", "false");
+
+        CompletableFuture<Boolean> verdict = VisualCapture.captureStepSoft(null, "TestClass", "softStep");
+
+        assertThat(verdict.get(10, TimeUnit.SECONDS)).isFalse();
+        List<String> failures = MetricsCollector.getInstance().awaitVisualChecks(Reporter.getCurrentTestResult());
+        assertThat(failures).hasSize(1);
+        assertThat(failures.get(0)).contains("TestClass/softStep").contains("WebDriver is null");
+    }
+
+    @Test
+    public void testAwaitVisualChecks_ResolvesOnlyOnce() {
+        System.setProperty("bnc.record.mode", "false");
+        VisualCapture.captureStepSoft(null, "TestClass", "softStep");
+
+        assertThat(MetricsCollector.getInstance().awaitVisualChecks(Reporter.getCurrentTestResult())).hasSize(1);
+        assertThat(MetricsCollector.getInstance().awaitVisualChecks(Reporter.getCurrentTestResult())).isEmpty();
+    }
+
+    @Test
+    public void testAwaitVisualChecks_PassedCheckIsNotAFailure() {
+        MetricsCollector.getInstance().addPendingVisualCheck(
+                Reporter.getCurrentTestResult(), "TestClass/passed", CompletableFuture.completedFuture(null));
+
+        assertThat(MetricsCollector.getInstance().awaitVisualChecks(Reporter.getCurrentTestResult())).isEmpty();
+    }
+
+    @Test
+    public void testAwaitAllVisualChecks_LeavesOtherContextsPending() {
+        ITestContext finishing = mock(ITestContext.class);
+        ITestContext running = mock(ITestContext.class);
+        ITestResult finishingResult = mock(ITestResult.class);
+        ITestResult runningResult = mock(ITestResult.class);
+        when(finishingResult.getTestContext()).thenReturn(finishing);
+        when(runningResult.getTestContext()).thenReturn(running);
+        MetricsCollector collector = MetricsCollector.getInstance();
+        collector.addPendingVisualCheck(finishingResult, "A/step", CompletableFuture.completedFuture("mismatch A"));
+        collector.addPendingVisualCheck(runningResult, "B/step", CompletableFuture.completedFuture("mismatch B"));
+
+        Map<ITestResult, List<String>> failures = collector.awaitAllVisualChecks(finishing);
+
+        assertThat(failures).containsOnlyKeys(finishingResult);
+        assertThat(collector.awaitVisualChecks(runningResult)).containsExactly("B/step: mismatch B");
+    }
+
     // ===========================================
     // CaptureStep with Ignore Regions (coordinates) Tests
     // ===========================================
@@ -1,15 +1,25 @@
 package ca.bnc.ciam.autotests.unit.visual;
 
+import ai.djl.util.Pair;
 import ca.bnc.ciam.autotests.visual.AIImageComparator;
 import ca.bnc.ciam.autotests.visual.AIImageComparator.AIComparisonResult;
+import lombok.extern.slf4j.Slf4j;
+import org.testng.SkipException;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 /**
  * Unit tests for AIImageComparator.
@@ -18,9 +28,13 @@ import static org.assertj.core.api.Assertions.assertThat;
  * The model is embedded in the library JAR and loaded automatically.
  * If DJL/PyTorch is not available, tests will gracefully skip AI-specific assertions.
  */
+@Slf4j
 @Test(groups = "unit")
 public class AIImageComparatorTest {
 
+    /** System property enabling the benchmark methods (default: false) */
+    private static final String BENCHMARK_PROPERTY = "bnc.visual.benchmark";
+
     private AIImageComparator comparator;
     private String originalModelPath;
     private String originalModelUrl;
@@ -227,6 +241,151 @@ public class AIImageComparatorTest {
         }
     }
 
+    @Test
+    public void testCompare_ScreenshotSizedImageAgainstDifferentTypeCopy_HighSimilarity() {
+        BufferedImage baseline = createTestImage(1920, 1080, Color.WHITE);
+        Graphics2D g = baseline.createGraphics();
+        g.setColor(Color.BLUE);
+        g.fillRect(200, 100, 800, 300);
+        g.dispose();
+        BufferedImage actual = new BufferedImage(1920, 1080, BufferedImage.TYPE_3BYTE_BGR);
+        actual.getGraphics().drawImage(baseline, 0, 0, null);
+
+        AIComparisonResult result = comparator.compare(baseline, actual);
+
+        if (comparator.isAvailable()) {
+            assertThat(result.hasError()).isFalse();
+            assertThat(result.getSimilarity()).isGreaterThanOrEqualTo(0.99);
+        } else {
+            assertThat(result.hasError()).isTrue();
+        }
+    }
+
+    @Test
+    public void testCompareAll_SameResultsAsPairwiseCompare() {
+        Color[] colors = {Color.WHITE, Color.BLUE, Color.RED, Color.GREEN, Color.YELLOW};
+        List<Pair<BufferedImage, BufferedImage>> pairs = new ArrayList<>();
+        // More pairs than fit in one batch
+        for (int i = 0; i < 10; i++) {
+            pairs.add(new Pair<>(createTestImage(224, 224, colors[i % colors.length]),
+                    createTestImage(224, 224, colors[(i + 1) % colors.length])));
+        }
+
+        List<AIComparisonResult> results = comparator.compareAll(pairs);
+
+        assertThat(results).hasSize(pairs.size());
+        if (comparator.isAvailable()) {
+            for (int i = 0; i < pairs.size(); i++) {
+                AIComparisonResult single = comparator.compare(pairs.get(i).getKey(), pairs.get(i).getValue());
+                assertThat(results.get(i).hasError()).isFalse();
+                assertThat(results.get(i).getSimilarity()).isCloseTo(single.getSimilarity(), within(1e-4));
+            }
+        } else {
+            assertThat(results).allMatch(AIComparisonResult::hasError);
+        }
+    }
+
+    @Test
+    public void testCompare_ConcurrentCallers_SameResultAndPoolStats() throws Exception {
+        BufferedImage blueImage = createTestImage(224, 224, Color.BLUE);
+        BufferedImage redImage = createTestImage(224, 224, Color.RED);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<AIComparisonResult>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> comparator.compare(blueImage, redImage)));
+            }
+            List<AIComparisonResult> results = new ArrayList<>();
+            for (Future<AIComparisonResult> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+
+            if (comparator.isAvailable()) {
+                double expected = results.get(0).getSimilarity();
+                assertThat(results).allSatisfy(r ->
+                        assertThat(r.getSimilarity()).isCloseTo(expected, within(1e-5)));
+
+                AIImageComparator.PoolStats stats = comparator.getPoolStats();
+                assertThat(stats.getCheckouts()).isGreaterThanOrEqualTo(threads);
+                assertThat(stats.getPeakInUse()).isBetween(1, stats.getSize());
+                assertThat(stats.getInUse()).isZero();
+                assertThat(stats.getUtilization()).isBetween(0.0, 1.0);
+            } else {
+                assertThat(results).allMatch(AIComparisonResult::hasError);
+                assertThat(comparator.getPoolStats()).isNull();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPoolSizeProperty_ConstantDefined() {
+        assertThat(AIImageComparator.POOL_SIZE_PROPERTY).isEqualTo("bnc.visual.ai.pool.size");
+    }
+
+    @Test
+    public void testCompareAll_SixteenPairBatch_SameResultsAsDefault() {
+        List<Pair<BufferedImage, BufferedImage>> pairs = createPairs(16);
+
+        try (AIImageComparator wideComparator = new AIImageComparator(0.90)) {
+            wideComparator.setBatchPairs(16);
+            List<AIComparisonResult> wide = wideComparator.compareAll(pairs);
+            List<AIComparisonResult> narrow = comparator.compareAll(pairs);
+
+            assertThat(wide).hasSize(pairs.size());
+            if (wideComparator.isAvailable()) {
+                for (int i = 0; i < pairs.size(); i++) {
+                    assertThat(wide.get(i).hasError()).isFalse();
+                    assertThat(wide.get(i).getSimilarity()).isCloseTo(narrow.get(i).getSimilarity(), within(1e-4));
+                }
+            } else {
+                assertThat(wide).allMatch(AIComparisonResult::hasError);
+            }
+        }
+    }
+
+    /**
+     * Per-pair cost of compareAll at 1, 4 and 16 pairs per batch.
+     * Opt-in with -Dbnc.visual.benchmark=true; needs the model.
+     */
+    @Test(groups = "benchmark")
+    public void benchmarkCompareAll_PerPairCostByBatchSize() {
+        if (!Boolean.getBoolean(BENCHMARK_PROPERTY)) {
+            throw new SkipException("Benchmark disabled - run with -D" + BENCHMARK_PROPERTY + "=true");
+        }
+        if (!comparator.isAvailable()) {
+            throw new SkipException("AI comparator not available: " + comparator.getInitError());
+        }
+        int rounds = 3;
+        List<Pair<BufferedImage, BufferedImage>> pairs = createPairs(16);
+        try (AIImageComparator benchComparator = new AIImageComparator(0.90)) {
+            benchComparator.warmUp();
+            for (int batchPairs : new int[]{1, 4, 16}) {
+                benchComparator.setBatchPairs(batchPairs);
+                benchComparator.compareAll(pairs);
+                long startTime = System.nanoTime();
+                for (int round = 0; round < rounds; round++) {
+                    assertThat(benchComparator.compareAll(pairs)).noneMatch(AIComparisonResult::hasError);
+                }
+                double perPairMs = (System.nanoTime() - startTime) / 1e6 / (rounds * pairs.size());
+                log.info("AI compareAll: {} pair(s) per batch -> {} ms per pair",
+                        batchPairs, String.format("%.1f", perPairMs));
+            }
+        }
+    }
+
+    @Test
+    public void testBatchPairsProperty_ConstantDefined() {
+        assertThat(AIImageComparator.BATCH_PAIRS_PROPERTY).isEqualTo("bnc.visual.ai.batch.pairs");
+    }
+
+    @Test
+    public void testCompareAll_EmptyList_ReturnsEmpty() {
+        assertThat(comparator.compareAll(new ArrayList<>())).isEmpty();
+    }
+
     // ===========================================
     // System Property Tests
     // ===========================================
@@ -278,6 +437,16 @@ public class AIImageComparatorTest {
     // Helper Methods
     // ===========================================
 
+    private List<Pair<BufferedImage, BufferedImage>> createPairs(int count) {
+        Color[] colors = {Color.WHITE, Color.BLUE, Color.RED, Color.GREEN, Color.YELLOW};
+        List<Pair<BufferedImage, BufferedImage>> pairs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            pairs.add(new Pair<>(createTestImage(224, 224, colors[i % colors.length]),
+                    createTestImage(224, 224, colors[(i + 1) % colors.length])));
+        }
+        return pairs;
+    }
+
     private BufferedImage createTestImage(int width, int height, Color color) {
         BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
         Graphics2D g = image.createGraphics();
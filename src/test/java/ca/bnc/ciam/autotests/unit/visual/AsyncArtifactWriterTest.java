@@ -0,0 +1,107 @@
+package ca.bnc.ciam.autotests.unit.visual;
+
+import ca.bnc.ciam.autotests.visual.AsyncArtifactWriter;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for AsyncArtifactWriter.
+ */
+@Test(groups = "unit")
+public class AsyncArtifactWriterTest {
+
+    private Path tempDir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("artifact-writer-test");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        if (Files.exists(tempDir)) {
+            Files.walk(tempDir)
+                    .sorted(Comparator.reverseOrder())
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            // Ignore
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void testWrite_Flush_AllFilesWritten() throws IOException {
+        AsyncArtifactWriter writer = new AsyncArtifactWriter(1, 1);
+
+        for (int i = 0; i < 6; i++) {
+            Path target = tempDir.resolve("nested").resolve("image_" + i + ".png");
+            assertThat(writer.write(createTestImage(300, 200, new Color(i * 40, 0, 0)), target)).isEqualTo(target);
+        }
+
+        assertThat(writer.isAsync()).isTrue();
+        assertThat(writer.flush(10_000)).isTrue();
+        for (int i = 0; i < 6; i++) {
+            BufferedImage image = ImageIO.read(tempDir.resolve("nested").resolve("image_" + i + ".png").toFile());
+            assertThat(image.getRGB(10, 10)).isEqualTo(new Color(i * 40, 0, 0).getRGB());
+        }
+        AsyncArtifactWriter.WriterStats stats = writer.getStats();
+        assertThat(stats.getWritten()).isEqualTo(6);
+        assertThat(stats.getFailed()).isZero();
+        assertThat(stats.getPending()).isZero();
+    }
+
+    @Test
+    public void testWrite_Flush_LeavesNoTemporaryFiles() throws IOException {
+        AsyncArtifactWriter writer = new AsyncArtifactWriter(2, 4);
+        Path target = tempDir.resolve("page_diff.png");
+
+        writer.write(createTestImage(100, 100, Color.RED), target);
+        writer.write(createTestImage(100, 100, Color.BLUE), target);
+        writer.flush(10_000);
+
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    public void testWrite_Synchronous_FileExistsOnReturn() throws IOException {
+        AsyncArtifactWriter writer = new AsyncArtifactWriter(0, 0);
+        Path target = tempDir.resolve("actual.png");
+
+        writer.write(createTestImage(50, 50, Color.GREEN), target);
+
+        assertThat(writer.isAsync()).isFalse();
+        assertThat(target).exists();
+        assertThat(writer.getStats().getWritten()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFlush_NothingPending_ReturnsImmediately() {
+        assertThat(new AsyncArtifactWriter(1, 1).flush(0)).isTrue();
+    }
+
+    private BufferedImage createTestImage(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+}
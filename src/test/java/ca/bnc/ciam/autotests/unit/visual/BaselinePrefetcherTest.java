@@ -0,0 +1,144 @@
+package ca.bnc.ciam.autotests.unit.visual;
+
+import ca.bnc.ciam.autotests.visual.BaselinePrefetcher;
+import ca.bnc.ciam.autotests.visual.BaselineStore;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for BaselinePrefetcher.
+ */
+@Test(groups = "unit")
+public class BaselinePrefetcherTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private Path tempDir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("baseline-prefetch-test");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        if (Files.exists(tempDir)) {
+            Files.walk(tempDir)
+                    .sorted(Comparator.reverseOrder())
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            // Ignore
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void testPrefetch_LoadsClassBaselines_AndCountsHits() throws Exception {
+        Path first = writePng("LoginTest", "login_page_1.png", 200, 100);
+        writePng("LoginTest", "login_page_2.png", 200, 100);
+        BaselineStore store = new BaselineStore(64 * MB, null);
+        BaselinePrefetcher prefetcher = new BaselinePrefetcher(store, 16 * MB);
+
+        prefetcher.prefetch(List.of(tempDir.resolve("LoginTest"))).get(10, TimeUnit.SECONDS);
+        store.load(first);
+
+        BaselinePrefetcher.PrefetchStats stats = prefetcher.getStats();
+        assertThat(stats.getDirectories()).isEqualTo(1);
+        assertThat(stats.getFiles()).isEqualTo(2);
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+        assertThat(store.getStats().getMisses()).isZero();
+        assertThat(stats.getSummary()).contains("hit rate=50.0%");
+    }
+
+    @Test
+    public void testPrefetch_StopsAtBudget() throws Exception {
+        // Estimated at 4 bytes per pixel: each image is ~0.76 MB, the budget holds one
+        writePng("LoginTest", "a_1.png", 500, 400);
+        writePng("LoginTest", "b_1.png", 500, 400);
+        BaselineStore store = new BaselineStore(64 * MB, null);
+        BaselinePrefetcher prefetcher = new BaselinePrefetcher(store, MB);
+
+        prefetcher.prefetch(List.of(tempDir.resolve("LoginTest"))).get(10, TimeUnit.SECONDS);
+
+        BaselinePrefetcher.PrefetchStats stats = prefetcher.getStats();
+        assertThat(stats.getFiles()).isEqualTo(1);
+        assertThat(stats.getOverBudget()).isEqualTo(1);
+        assertThat(stats.getReservedBytes()).isLessThanOrEqualTo(stats.getBudgetBytes());
+    }
+
+    @Test
+    public void testPrefetch_BudgetCappedAtHalfTheStore() {
+        BaselinePrefetcher prefetcher = new BaselinePrefetcher(new BaselineStore(10 * MB, null), 64 * MB);
+
+        assertThat(prefetcher.getStats().getBudgetBytes()).isEqualTo(5 * MB);
+    }
+
+    @Test
+    public void testPrefetch_SkipsMissingAndRepeatedDirectories() throws Exception {
+        writePng("LoginTest", "login_page_1.png", 100, 100);
+        BaselineStore store = new BaselineStore(64 * MB, null);
+        BaselinePrefetcher prefetcher = new BaselinePrefetcher(store, 16 * MB);
+
+        prefetcher.prefetch(List.of(tempDir.resolve("LoginTest"), tempDir.resolve("MissingTest")))
+                .get(10, TimeUnit.SECONDS);
+
+        assertThat(prefetcher.prefetch(List.of(tempDir.resolve("LoginTest")))).isDone();
+        assertThat(prefetcher.getStats().getDirectories()).isEqualTo(1);
+        assertThat(prefetcher.getStats().getFiles()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPrefetchFiles_LoadsGivenImages() throws Exception {
+        Path first = writePng("objects", "aa.png", 100, 100);
+        writePng("objects", "bb.png", 100, 100);
+        BaselineStore store = new BaselineStore(64 * MB, null);
+        BaselinePrefetcher prefetcher = new BaselinePrefetcher(store, 16 * MB);
+
+        prefetcher.prefetchFiles(List.of(first)).get(10, TimeUnit.SECONDS);
+        store.load(first);
+
+        assertThat(prefetcher.getStats().getFiles()).isEqualTo(1);
+        assertThat(prefetcher.getStats().getHits()).isEqualTo(1);
+        assertThat(store.getStats().getMisses()).isZero();
+    }
+
+    @Test
+    public void testPrefetch_ZeroBudget_DoesNothing() throws IOException {
+        writePng("LoginTest", "login_page_1.png", 50, 50);
+        BaselineStore store = new BaselineStore(64 * MB, null);
+        BaselinePrefetcher prefetcher = new BaselinePrefetcher(store, 0);
+
+        assertThat(prefetcher.prefetch(List.of(tempDir.resolve("LoginTest")))).isDone();
+        assertThat(prefetcher.getStats().getFiles()).isZero();
+        assertThat(store.getStats().getEntries()).isZero();
+    }
+
+    private Path writePng(String className, String name, int width, int height) throws IOException {
+        Path directory = Files.createDirectories(tempDir.resolve(className));
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.BLUE);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        Path path = directory.resolve(name);
+        ImageIO.write(image, "PNG", path.toFile());
+        return path;
+    }
+}
@@ -0,0 +1,210 @@
+package ca.bnc.ciam.autotests.unit.visual;
+
+import ca.bnc.ciam.autotests.visual.BaselineManager;
+import ca.bnc.ciam.autotests.visual.BaselineStore;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for BaselineStore and its use through BaselineManager.
+ */
+@Test(groups = "unit")
+public class BaselineStoreTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private Path tempDir;
+    private Path rasterDir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("baseline-store-test");
+        rasterDir = tempDir.resolve("rasters");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        if (Files.exists(tempDir)) {
+            Files.walk(tempDir)
+                    .sorted(Comparator.reverseOrder())
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            // Ignore
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void testLoad_SecondLoad_IsCacheHit() throws IOException {
+        Path png = writePng("page.png", createTestImage(200, 100, Color.BLUE));
+        BaselineStore store = new BaselineStore(64 * MB, null);
+
+        BufferedImage first = store.load(png);
+        BufferedImage second = store.load(png);
+
+        assertThat(second).isSameAs(first);
+        BaselineStore.CacheStats stats = store.getStats();
+        assertThat(stats.getHits()).isEqualTo(1);
+        assertThat(stats.getMisses()).isEqualTo(1);
+        assertThat(stats.getDecodes()).isEqualTo(1);
+        assertThat(stats.getEntries()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLoad_FileChanged_ReloadsNewContent() throws IOException {
+        Path png = writePng("page.png", createTestImage(200, 100, Color.BLUE));
+        BaselineStore store = new BaselineStore(64 * MB, null);
+        store.load(png);
+
+        writePng("page.png", createTestImage(50, 40, Color.RED));
+        Files.setLastModifiedTime(png, FileTime.fromMillis(Files.getLastModifiedTime(png).toMillis() + 2000));
+
+        BufferedImage reloaded = store.load(png);
+        assertThat(reloaded.getWidth()).isEqualTo(50);
+        assertThat(store.getStats().getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    public void testLoad_ColdStoreWithSidecar_SkipsDecodeAndKeepsPixelsAndType() throws IOException {
+        BufferedImage source = createTestImage(300, 200, Color.GREEN);
+        source.setRGB(7, 9, Color.MAGENTA.getRGB());
+        Path png = writePng("page.png", source);
+        BufferedImage decoded = ImageIO.read(png.toFile());
+
+        new BaselineStore(64 * MB, rasterDir).load(png);
+        BaselineStore cold = new BaselineStore(64 * MB, rasterDir);
+        BufferedImage fromRaster = cold.load(png);
+
+        assertThat(cold.getStats().getRasterLoads()).isEqualTo(1);
+        assertThat(cold.getStats().getDecodes()).isZero();
+        assertThat(fromRaster.getType()).isEqualTo(decoded.getType());
+        for (int y = 0; y < decoded.getHeight(); y += 13) {
+            for (int x = 0; x < decoded.getWidth(); x += 7) {
+                assertThat(fromRaster.getRGB(x, y)).isEqualTo(decoded.getRGB(x, y));
+            }
+        }
+        assertThat(fromRaster.getRGB(7, 9)).isEqualTo(Color.MAGENTA.getRGB());
+    }
+
+    @Test
+    public void testLoad_StaleSidecar_IsIgnored() throws IOException {
+        Path png = writePng("page.png", createTestImage(100, 100, Color.BLUE));
+        new BaselineStore(64 * MB, rasterDir).load(png);
+
+        writePng("page.png", createTestImage(100, 100, Color.RED));
+        Files.setLastModifiedTime(png, FileTime.fromMillis(Files.getLastModifiedTime(png).toMillis() + 2000));
+        BaselineStore cold = new BaselineStore(64 * MB, rasterDir);
+
+        assertThat(cold.load(png).getRGB(50, 50)).isEqualTo(Color.RED.getRGB());
+        assertThat(cold.getStats().getDecodes()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLoad_OverBudget_EvictsLeastRecentlyUsed() throws IOException {
+        // 3 bytes per pixel once decoded: each image is ~0.6 MB, the budget holds two
+        Path a = writePng("a.png", createTestImage(500, 400, Color.RED));
+        Path b = writePng("b.png", createTestImage(500, 400, Color.GREEN));
+        Path c = writePng("c.png", createTestImage(500, 400, Color.BLUE));
+        BaselineStore store = new BaselineStore((long) (1.3 * MB), null);
+
+        store.load(a);
+        store.load(b);
+        store.load(a);
+        store.load(c);
+
+        BaselineStore.CacheStats stats = store.getStats();
+        assertThat(stats.getEvictions()).isEqualTo(1);
+        assertThat(stats.getEntries()).isEqualTo(2);
+        assertThat(stats.getCachedBytes()).isLessThanOrEqualTo(stats.getMaxBytes());
+
+        store.load(a);
+        assertThat(store.getStats().getHits()).isEqualTo(2);
+    }
+
+    @Test
+    public void testLoad_MissingFile_Throws() {
+        BaselineStore store = new BaselineStore(64 * MB, null);
+
+        assertThatThrownBy(() -> store.load(tempDir.resolve("missing.png")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Baseline not found");
+    }
+
+    @Test
+    public void testPrefetch_ThenLoad_CountsPrefetchHitOnce() throws IOException {
+        Path png = writePng("page.png", createTestImage(200, 100, Color.BLUE));
+        BaselineStore store = new BaselineStore(64 * MB, null);
+
+        assertThat(store.prefetch(png)).isTrue();
+        assertThat(store.prefetch(png)).isFalse();
+        store.load(png);
+        store.load(png);
+
+        BaselineStore.CacheStats stats = store.getStats();
+        assertThat(stats.getPrefetched()).isEqualTo(1);
+        assertThat(stats.getPrefetchHits()).isEqualTo(1);
+        assertThat(stats.getPrefetchHitRate()).isEqualTo(1.0);
+        assertThat(stats.getHits()).isEqualTo(2);
+        assertThat(stats.getMisses()).isZero();
+    }
+
+    @Test
+    public void testPrefetch_EvictedBeforeUse_IsCountedUnused() throws IOException {
+        Path a = writePng("a.png", createTestImage(500, 400, Color.RED));
+        Path b = writePng("b.png", createTestImage(500, 400, Color.GREEN));
+        BaselineStore store = new BaselineStore((long) (0.7 * MB), null);
+
+        store.prefetch(a);
+        store.load(b);
+
+        BaselineStore.CacheStats stats = store.getStats();
+        assertThat(stats.getPrefetchEvictions()).isEqualTo(1);
+        assertThat(stats.getPrefetchHits()).isZero();
+    }
+
+    @Test
+    public void testBaselineManager_SaveBaseline_InvalidatesCachedImage() throws IOException {
+        BaselineStore store = new BaselineStore(64 * MB, rasterDir);
+        BaselineManager manager = new BaselineManager(tempDir.toString(), store);
+        manager.saveBaseline(createTestImage(40, 40, Color.WHITE), "page.png");
+        BufferedImage before = manager.loadBaseline("page.png");
+
+        manager.updateBaseline(createTestImage(40, 40, Color.BLACK), "page.png");
+        BufferedImage after = manager.loadBaseline("page.png");
+
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.getRGB(20, 20)).isEqualTo(Color.BLACK.getRGB());
+        assertThat(manager.getBaselineStore()).isSameAs(store);
+    }
+
+    private Path writePng(String name, BufferedImage image) throws IOException {
+        Path path = tempDir.resolve(name);
+        ImageIO.write(image, "PNG", path.toFile());
+        return path;
+    }
+
+    private BufferedImage createTestImage(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+}
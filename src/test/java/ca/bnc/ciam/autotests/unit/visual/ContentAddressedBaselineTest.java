@@ -0,0 +1,185 @@
+package ca.bnc.ciam.autotests.unit.visual;
+
+import ca.bnc.ciam.autotests.visual.BaselineManager;
+import ca.bnc.ciam.autotests.visual.BaselineStore;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the content-addressed storage mode of BaselineManager.
+ */
+@Test(groups = "unit")
+public class ContentAddressedBaselineTest {
+
+    private Path tempDir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("cas-baseline-test");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        if (Files.exists(tempDir)) {
+            Files.walk(tempDir)
+                    .sorted(Comparator.reverseOrder())
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            // Ignore
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void testSaveBaseline_IdenticalImages_ShareOneObject() throws IOException {
+        BaselineManager manager = createManager();
+
+        Path first = manager.saveBaseline(createTestImage(60, 40, Color.BLUE), "chrome_login.png");
+        Path second = manager.saveBaseline(createTestImage(60, 40, Color.BLUE), "firefox_login.png");
+
+        assertThat(manager.isContentAddressed()).isTrue();
+        assertThat(second).isEqualTo(first);
+        assertThat(objectFiles()).hasSize(1);
+        assertThat(manager.getBaselinePath("firefox_login.png")).isEqualTo(first);
+    }
+
+    @Test
+    public void testManifest_PersistsAcrossManagers() throws IOException {
+        createManager().saveBaseline(createTestImage(60, 40, Color.GREEN), "page.png");
+
+        BaselineManager reopened = createManager();
+
+        assertThat(reopened.baselineExists("page.png")).isTrue();
+        assertThat(reopened.baselineExists("other.png")).isFalse();
+        assertThat(reopened.loadBaseline("page.png").getRGB(10, 10)).isEqualTo(Color.GREEN.getRGB());
+    }
+
+    @Test
+    public void testUpdateBaseline_KeepsBackupEntry() throws IOException {
+        BaselineManager manager = createManager();
+        manager.saveBaseline(createTestImage(60, 40, Color.WHITE), "page.png");
+
+        manager.updateBaseline(createTestImage(60, 40, Color.BLACK), "page.png");
+
+        assertThat(manager.loadBaseline("page.png").getRGB(10, 10)).isEqualTo(Color.BLACK.getRGB());
+        List<String> manifest = Files.readAllLines(tempDir.resolve("manifest.txt"));
+        String backupName = manifest.stream()
+                .filter(line -> line.startsWith("backup/page_backup_"))
+                .map(line -> line.substring(0, line.lastIndexOf('=')))
+                .findFirst()
+                .orElseThrow();
+        assertThat(manager.loadBaseline(backupName).getRGB(10, 10)).isEqualTo(Color.WHITE.getRGB());
+        assertThat(objectFiles()).hasSize(2);
+    }
+
+    @Test
+    public void testDeleteBaseline_KeepsObjectWhileShared() throws IOException {
+        BaselineManager manager = createManager();
+        manager.saveBaseline(createTestImage(60, 40, Color.RED), "a.png");
+        manager.saveBaseline(createTestImage(60, 40, Color.RED), "b.png");
+
+        assertThat(manager.deleteBaseline("a.png")).isTrue();
+        assertThat(objectFiles()).hasSize(1);
+        assertThat(manager.loadBaseline("b.png").getRGB(0, 0)).isEqualTo(Color.RED.getRGB());
+
+        assertThat(manager.deleteBaseline("b.png")).isTrue();
+        assertThat(objectFiles()).isEmpty();
+        assertThat(manager.deleteBaseline("b.png")).isFalse();
+        assertThatThrownBy(() -> manager.loadBaseline("b.png"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Baseline not found");
+    }
+
+    @Test
+    public void testCleanupOldImages_PrunesExpiredBackups() throws IOException {
+        BaselineManager manager = createManager();
+        manager.saveBaseline(createTestImage(60, 40, Color.WHITE), "page.png");
+        manager.updateBaseline(createTestImage(60, 40, Color.BLACK), "page.png");
+
+        int deleted = manager.cleanupOldImages(0);
+
+        assertThat(deleted).isEqualTo(1);
+        assertThat(objectFiles()).hasSize(1);
+        assertThat(Files.readString(tempDir.resolve("manifest.txt"))).doesNotContain("backup/");
+        assertThat(manager.loadBaseline("page.png").getRGB(10, 10)).isEqualTo(Color.BLACK.getRGB());
+    }
+
+    @Test
+    public void testImportFileBaselines_MovesLooseFilesIntoStore() throws IOException {
+        ImageIO.write(createTestImage(30, 30, Color.ORANGE), "PNG", tempDir.resolve("one.png").toFile());
+        ImageIO.write(createTestImage(30, 30, Color.ORANGE), "PNG", tempDir.resolve("two.png").toFile());
+        BaselineManager manager = createManager();
+
+        assertThat(manager.importFileBaselines()).isEqualTo(2);
+        assertThat(tempDir.resolve("one.png")).doesNotExist();
+        assertThat(objectFiles()).hasSize(1);
+        assertThat(manager.loadBaseline("two.png").getRGB(5, 5)).isEqualTo(Color.ORANGE.getRGB());
+    }
+
+    @Test
+    public void testImportFileBaselines_NestedTree_UsesRelativePaths() throws IOException {
+        Path classDir = Files.createDirectories(tempDir.resolve("chrome").resolve("en").resolve("LoginTest"));
+        ImageIO.write(createTestImage(30, 30, Color.CYAN), "PNG", classDir.resolve("login_page_1.png").toFile());
+        ImageIO.write(createTestImage(30, 30, Color.PINK), "PNG", classDir.resolve("login_page_2.png").toFile());
+        BaselineManager manager = createManager();
+        ImageIO.write(createTestImage(30, 30, Color.GRAY), "PNG",
+                manager.getActualDirectory().resolve("ignored.png").toFile());
+
+        assertThat(manager.importFileBaselines()).isEqualTo(2);
+        assertThat(manager.getActualDirectory().resolve("ignored.png")).exists();
+        assertThat(classDir.resolve("login_page_1.png")).doesNotExist();
+        assertThat(manager.baselineExists("chrome/en/LoginTest/login_page_1.png")).isTrue();
+        assertThat(manager.loadBaseline("chrome/en/LoginTest/login_page_2.png").getRGB(5, 5))
+                .isEqualTo(Color.PINK.getRGB());
+    }
+
+    @Test
+    public void testManagersOnSameDirectory_ShareManifestAndKeepEachOthersObjects() throws IOException {
+        BaselineManager first = createManager();
+        BaselineManager second = createManager();
+
+        first.saveBaseline(createTestImage(60, 40, Color.WHITE), "a.png");
+        second.saveBaseline(createTestImage(60, 40, Color.BLACK), "b.png");
+        first.cleanupOldImages(0);
+
+        assertThat(Files.readString(tempDir.resolve("manifest.txt"))).contains("a.png=", "b.png=");
+        assertThat(objectFiles()).hasSize(2);
+        assertThat(first.loadBaseline("b.png").getRGB(10, 10)).isEqualTo(Color.BLACK.getRGB());
+    }
+
+    private BaselineManager createManager() {
+        return new BaselineManager(tempDir.toString(), new BaselineStore(16 * 1024 * 1024, null), true);
+    }
+
+    private List<Path> objectFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(tempDir.resolve("objects"))) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private BufferedImage createTestImage(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+}
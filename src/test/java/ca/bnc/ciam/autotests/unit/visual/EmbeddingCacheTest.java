@@ -0,0 +1,158 @@
+package ca.bnc.ciam.autotests.unit.visual;
+
+import ca.bnc.ciam.autotests.visual.AIImageComparator;
+import ca.bnc.ciam.autotests.visual.BaselineManager;
+import ca.bnc.ciam.autotests.visual.EmbeddingCache;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for EmbeddingCache and its invalidation through BaselineManager.
+ */
+@Test(groups = "unit")
+public class EmbeddingCacheTest {
+
+    private Path tempDir;
+    private EmbeddingCache cache;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("embedding-cache-test");
+        cache = new EmbeddingCache(tempDir);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        if (Files.exists(tempDir)) {
+            Files.walk(tempDir)
+                    .sorted(Comparator.reverseOrder())
+                    .forEach(path -> {
+                        try {
+                            Files.deleteIfExists(path);
+                        } catch (IOException e) {
+                            // Ignore
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void testPutThenGet_RoundTripsVector() {
+        float[] features = {0.5f, -1.25f, 3.0e-7f, Float.MAX_VALUE};
+        String key = cache.key(createTestImage(50, 50, Color.WHITE));
+
+        cache.put(key, features);
+
+        assertThat(cache.get(key)).containsExactly(features);
+        assertThat(cache.getCacheDirectory()).isEqualTo(tempDir.resolve(EmbeddingCache.CACHE_DIR_NAME));
+    }
+
+    @Test
+    public void testGet_UnknownKey_ReturnsNull() {
+        assertThat(cache.get(cache.key(createTestImage(50, 50, Color.WHITE)))).isNull();
+    }
+
+    @Test
+    public void testGet_CorruptEntry_ReturnsNull() throws IOException {
+        String key = cache.key(createTestImage(50, 50, Color.WHITE));
+        cache.put(key, new float[]{1.0f, 2.0f});
+        try (var entries = Files.list(cache.getCacheDirectory())) {
+            Files.write(entries.findFirst().orElseThrow(), new byte[]{1, 2, 3});
+        }
+
+        assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    public void testKey_SamePixelsDifferentImageType_SameKey() {
+        BufferedImage rgb = createTestImage(40, 30, Color.BLUE);
+        BufferedImage bgr = new BufferedImage(40, 30, BufferedImage.TYPE_3BYTE_BGR);
+        bgr.getGraphics().drawImage(rgb, 0, 0, null);
+
+        assertThat(cache.key(bgr)).isEqualTo(cache.key(rgb));
+    }
+
+    @Test
+    public void testKey_DifferentPixels_DifferentKey() {
+        BufferedImage image = createTestImage(40, 30, Color.BLUE);
+        BufferedImage changed = createTestImage(40, 30, Color.BLUE);
+        changed.setRGB(39, 29, Color.RED.getRGB());
+
+        assertThat(cache.key(changed)).isNotEqualTo(cache.key(image));
+    }
+
+    @Test
+    public void testKey_DifferentModelVersion_DifferentKey() {
+        BufferedImage image = createTestImage(40, 30, Color.BLUE);
+        EmbeddingCache otherModel = new EmbeddingCache(tempDir, "other-model");
+
+        assertThat(otherModel.key(image)).isNotEqualTo(cache.key(image));
+    }
+
+    @Test
+    public void testKey_EntriesFromBeforeBoxAveragePreprocessing_Miss() {
+        BufferedImage image = createTestImage(40, 30, Color.BLUE);
+        String previousVersion = AIImageComparator.MODEL_VERSION.substring(
+                0, AIImageComparator.MODEL_VERSION.lastIndexOf('/'));
+        EmbeddingCache beforeBoxAverage = new EmbeddingCache(tempDir, previousVersion);
+
+        assertThat(AIImageComparator.MODEL_VERSION).endsWith("/pre-boxavg-v1");
+        assertThat(beforeBoxAverage.key(image)).isNotEqualTo(cache.key(image));
+    }
+
+    @Test
+    public void testClear_RemovesAllEntries() throws IOException {
+        cache.put(cache.key(createTestImage(10, 10, Color.WHITE)), new float[]{1.0f});
+        cache.put(cache.key(createTestImage(10, 10, Color.BLACK)), new float[]{2.0f});
+
+        assertThat(cache.clear()).isEqualTo(2);
+        assertThat(cache.get(cache.key(createTestImage(10, 10, Color.WHITE)))).isNull();
+    }
+
+    @Test
+    public void testBaselineManager_UpdateBaseline_InvalidatesOldEmbedding() throws IOException {
+        BaselineManager manager = new BaselineManager(tempDir.toString());
+        BufferedImage oldImage = createTestImage(20, 20, Color.WHITE);
+        manager.saveBaseline(oldImage, "page.png");
+        EmbeddingCache managerCache = manager.getEmbeddingCache();
+        String oldKey = managerCache.key(oldImage);
+        managerCache.put(oldKey, new float[]{1.0f});
+
+        manager.updateBaseline(createTestImage(20, 20, Color.BLACK), "page.png");
+
+        assertThat(managerCache.get(oldKey)).isNull();
+    }
+
+    @Test
+    public void testBaselineManager_DeleteBaseline_InvalidatesEmbedding() throws IOException {
+        BaselineManager manager = new BaselineManager(tempDir.toString());
+        BufferedImage image = createTestImage(20, 20, Color.WHITE);
+        manager.saveBaseline(image, "page.png");
+        EmbeddingCache managerCache = manager.getEmbeddingCache();
+        String key = managerCache.key(image);
+        managerCache.put(key, new float[]{1.0f});
+
+        assertThat(manager.deleteBaseline("page.png")).isTrue();
+
+        assertThat(managerCache.get(key)).isNull();
+    }
+
+    private BufferedImage createTestImage(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+}
@@ -1,5 +1,6 @@
 package ca.bnc.ciam.autotests.unit.visual;
 
+import ai.djl.util.Pair;
 import ca.bnc.ciam.autotests.visual.HybridVisualComparator;
 import ca.bnc.ciam.autotests.visual.HybridVisualComparator.ComparisonStrategy;
 import ca.bnc.ciam.autotests.visual.HybridVisualComparator.HybridComparisonResult;
@@ -9,6 +10,8 @@ import org.testng.annotations.Test;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -164,12 +167,77 @@ public class HybridVisualComparatorTest {
         BufferedImage baseline = createTestImage(100, 100, Color.WHITE);
         BufferedImage actual = createImageWithDiff(baseline, 0.10);
 
+        // Hash tier off so the AI makes the gray zone decision
+        System.setProperty(HybridVisualComparator.HASH_TIER_PROPERTY, "false");
+        try (HybridVisualComparator comparator = new HybridVisualComparator(0.01, 0.05, 0.20, 0.92, true)) {
+            HybridComparisonResult result = comparator.compare(baseline, actual, 0.01);
+
+            // With AI available and in gray zone, should use AI_FALLBACK
+            assertThat(result.getStrategy()).isEqualTo(ComparisonStrategy.AI_FALLBACK);
+            assertThat(result.usedAI()).isTrue();
+            assertThat(result.getAiResult()).isNotNull();
+        } finally {
+            System.clearProperty(HybridVisualComparator.HASH_TIER_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testCompare_InGrayZone_WithAI_ClearHashMismatchSkipsAI() {
+        if (!comparatorWithAI.isAIAvailable()) {
+            // Hash tier only runs ahead of the AI
+            return;
+        }
+
+        // ~10% of the page turned black: in the pixel gray zone, but an obvious color change
+        BufferedImage baseline = createTestImage(100, 100, Color.WHITE);
+        BufferedImage actual = createImageWithDiff(baseline, 0.10);
+
         HybridComparisonResult result = comparatorWithAI.compare(baseline, actual, 0.01);
 
-        // With AI available and in gray zone, should use AI_FALLBACK
-        assertThat(result.getStrategy()).isEqualTo(ComparisonStrategy.AI_FALLBACK);
-        assertThat(result.usedAI()).isTrue();
-        assertThat(result.getAiResult()).isNotNull();
+        assertThat(result.getStrategy()).isEqualTo(ComparisonStrategy.HASH_FILTER);
+        assertThat(result.isMatch()).isFalse();
+        assertThat(result.usedAI()).isFalse();
+        assertThat(result.getPHashDistance()).isGreaterThanOrEqualTo(0);
+        assertThat(result.getSummary()).contains("Hash Distance:");
+    }
+
+    @Test
+    public void testCompare_InGrayZone_WithAI_ChangeInIgnoredRegionDoesNotFailHashTier() {
+        if (!comparatorWithAI.isAIAvailable()) {
+            // Hash tier only runs ahead of the AI
+            return;
+        }
+
+        // Bottom half ignored and turned black; light gray dots in the top half keep the pixel diff in the gray zone
+        BufferedImage baseline = createTestImage(200, 200, Color.WHITE);
+        BufferedImage actual = createTestImage(200, 200, Color.WHITE);
+        Graphics2D g = actual.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 100, 200, 100);
+        g.dispose();
+        for (int y = 0; y < 100; y++) {
+            for (int x = 0; x < 200; x++) {
+                if ((x + y) % 6 == 0) {
+                    actual.setRGB(x, y, new Color(180, 180, 180).getRGB());
+                }
+            }
+        }
+        List<int[]> ignoreRegions = List.<int[]>of(new int[]{0, 100, 200, 100});
+
+        HybridComparisonResult result = comparatorWithAI.compare(baseline, actual, 0.01, ignoreRegions);
+
+        assertThat(result.getPHashDistance()).isGreaterThanOrEqualTo(0);
+        assertThat(result.getStrategy() == ComparisonStrategy.HASH_FILTER && !result.isMatch()).isFalse();
+    }
+
+    @Test
+    public void testCompare_ClearPass_HashTierNotRun() {
+        BufferedImage image = createTestImage(100, 100, Color.WHITE);
+
+        HybridComparisonResult result = comparatorWithAI.compare(image, image, 0.01);
+
+        assertThat(result.getPHashDistance()).isEqualTo(-1);
+        assertThat(result.getDHashDistance()).isEqualTo(-1);
     }
 
     // ===========================================
@@ -227,6 +295,7 @@ public class HybridVisualComparatorTest {
     public void testComparisonStrategy_AllValuesExist() {
         assertThat(ComparisonStrategy.PIXEL_PASS).isNotNull();
         assertThat(ComparisonStrategy.PIXEL_FAIL).isNotNull();
+        assertThat(ComparisonStrategy.HASH_FILTER).isNotNull();
         assertThat(ComparisonStrategy.AI_FALLBACK).isNotNull();
         assertThat(ComparisonStrategy.PIXEL_ONLY).isNotNull();
     }
@@ -310,6 +379,70 @@ public class HybridVisualComparatorTest {
         assertThat(result.getScaleFactor()).isEqualTo(1.0);
     }
 
+    // ===========================================
+    // Budgeted Pixel Pass Tests
+    // ===========================================
+
+    @Test
+    public void testCompare_IdenticalCopy_PixelPassWithoutDiff() {
+        BufferedImage baseline = createTestImage(100, 100, Color.ORANGE);
+        BufferedImage actual = createImageWithDiff(baseline, 0.0);
+
+        HybridComparisonResult result = comparatorWithoutAI.compare(baseline, actual, 0.01);
+
+        assertThat(result.getStrategy()).isEqualTo(ComparisonStrategy.PIXEL_PASS);
+        assertThat(result.getPixelResult().isIdentical()).isTrue();
+    }
+
+    @Test
+    public void testCompare_ClearFail_StopsCountingAboveGrayZone() {
+        BufferedImage black = createTestImage(100, 400, Color.BLACK);
+        BufferedImage white = createTestImage(100, 400, Color.WHITE);
+
+        HybridComparisonResult result = comparatorWithoutAI.compare(black, white, 0.01);
+
+        assertThat(result.getStrategy()).isEqualTo(ComparisonStrategy.PIXEL_FAIL);
+        assertThat(result.getPixelResult().isEarlyExit()).isTrue();
+        assertThat(result.getDiffPercentage()).isGreaterThan(0.20);
+        assertThat(result.getDiffImage()).isNotNull();
+    }
+
+    @Test
+    public void testCompareAll_OneResultPerPairInOrder() {
+        BufferedImage white = createTestImage(100, 100, Color.WHITE);
+        BufferedImage black = createTestImage(100, 100, Color.BLACK);
+        List<Pair<BufferedImage, BufferedImage>> pairs = Arrays.asList(
+                new Pair<>(white, white),
+                new Pair<>(white, black),
+                new Pair<>(black, black));
+
+        List<HybridComparisonResult> results = comparatorWithoutAI.compareAll(pairs, 0.01, null);
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).getStrategy()).isEqualTo(ComparisonStrategy.PIXEL_PASS);
+        assertThat(results.get(1).getStrategy()).isEqualTo(ComparisonStrategy.PIXEL_FAIL);
+        assertThat(results.get(1).isMatch()).isFalse();
+        assertThat(results.get(2).getStrategy()).isEqualTo(ComparisonStrategy.PIXEL_PASS);
+    }
+
+    @Test
+    public void testCompareAll_GrayZonePairs_SameVerdictAsSingleCompare() {
+        BufferedImage baseline = createTestImage(100, 100, Color.WHITE);
+        BufferedImage actual = createImageWithDiff(baseline, 0.10);
+        List<Pair<BufferedImage, BufferedImage>> pairs = Arrays.asList(
+                new Pair<>(baseline, actual),
+                new Pair<>(baseline, baseline),
+                new Pair<>(baseline, actual));
+
+        List<HybridComparisonResult> results = comparatorWithAI.compareAll(pairs, 0.01, null);
+        HybridComparisonResult single = comparatorWithAI.compare(baseline, actual, 0.01);
+
+        assertThat(results.get(0).getStrategy()).isEqualTo(single.getStrategy());
+        assertThat(results.get(0).isMatch()).isEqualTo(single.isMatch());
+        assertThat(results.get(2).isMatch()).isEqualTo(single.isMatch());
+        assertThat(results.get(1).isMatch()).isTrue();
+    }
+
     // ===========================================
     // Close Tests
     // ===========================================
@@ -1,23 +1,39 @@
 package ca.bnc.ciam.autotests.unit.visual;
 
 import ca.bnc.ciam.autotests.visual.ImageComparator;
+import lombok.extern.slf4j.Slf4j;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.testng.SkipException;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import javax.imageio.ImageIO;
 import java.awt.Color;
+import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
  * Unit tests for ImageComparator.
  */
+@Slf4j
 @Test(groups = "unit")
 public class ImageComparatorTest {
 
+    /** System property enabling the benchmark methods (default: false) */
+    private static final String BENCHMARK_PROPERTY = "bnc.visual.benchmark";
+
     private ImageComparator comparator;
 
     @BeforeMethod
@@ -312,6 +328,656 @@ public class ImageComparatorTest {
         assertThat(result.getDiffImage().getHeight()).isEqualTo(200);
     }
 
+    @Test
+    public void testDifferentRasterTypes_SamePixels_ShouldMatch() {
+        BufferedImage baseline = createSplitImage(120, 80, Color.ORANGE, Color.DARK_GRAY);
+
+        int[] imageTypes = {
+                BufferedImage.TYPE_INT_ARGB,
+                BufferedImage.TYPE_3BYTE_BGR,
+                BufferedImage.TYPE_4BYTE_ABGR
+        };
+        for (int imageType : imageTypes) {
+            BufferedImage actual = new BufferedImage(120, 80, imageType);
+            Graphics2D g = actual.createGraphics();
+            g.drawImage(baseline, 0, 0, null);
+            g.dispose();
+
+            ImageComparator.ComparisonResult result = comparator.compare(baseline, actual);
+
+            assertThat(result.isMatch()).as("image type %d", imageType).isTrue();
+            assertThat(result.getDiffPixelCount()).as("image type %d", imageType).isZero();
+        }
+    }
+
+    @Test
+    public void testSubImage_ComparedAgainstCopy_ShouldMatch() {
+        BufferedImage source = createSplitImage(200, 100, Color.RED, Color.BLUE);
+        BufferedImage subImage = source.getSubimage(50, 0, 100, 100);
+
+        BufferedImage copy = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = copy.createGraphics();
+        g.drawImage(subImage, 0, 0, null);
+        g.dispose();
+
+        ImageComparator.ComparisonResult result = comparator.compare(copy, subImage);
+
+        assertThat(result.isMatch()).isTrue();
+        assertThat(result.getDiffPixelCount()).isZero();
+    }
+
+    // ===========================================
+    // Java Engine Tests (OpenCV fallback path)
+    // ===========================================
+
+    @Test
+    public void testJavaEngine_ParityWithOpenCv_RandomNoise() {
+        skipIfOpenCvUnavailable();
+        BufferedImage baseline = createNoiseImage(320, 240, 42);
+        BufferedImage actual = perturb(baseline, 7);
+
+        ImageComparator.ComparisonResult openCv =
+                new ImageComparator(0.01, ImageComparator.Engine.OPENCV).compare(baseline, actual);
+        ImageComparator.ComparisonResult java =
+                new ImageComparator(0.01, ImageComparator.Engine.JAVA).compare(baseline, actual);
+
+        assertThat(java.getDiffPixelCount()).isPositive();
+        assertThat(java.getDiffPixelCount()).isEqualTo(openCv.getDiffPixelCount());
+        assertThat(java.getDiffPercentage()).isEqualTo(openCv.getDiffPercentage());
+        assertThat(java.isMatch()).isEqualTo(openCv.isMatch());
+    }
+
+    @Test
+    public void testJavaEngine_ParityWithOpenCv_IgnoreRegions() {
+        skipIfOpenCvUnavailable();
+        BufferedImage baseline = createNoiseImage(320, 240, 3);
+        BufferedImage actual = perturb(baseline, 11);
+        List<int[]> ignoreRegions = Arrays.asList(
+                new int[]{10, 10, 100, 50},
+                new int[]{60, 40, 120, 80},   // overlaps the first region
+                new int[]{250, 0, 70, 240}
+        );
+
+        ImageComparator.ComparisonResult openCv = new ImageComparator(0.01, ImageComparator.Engine.OPENCV)
+                .compare(baseline, actual, 0.01, ignoreRegions);
+        ImageComparator.ComparisonResult java = new ImageComparator(0.01, ImageComparator.Engine.JAVA)
+                .compare(baseline, actual, 0.01, ignoreRegions);
+
+        assertThat(java.getDiffPixelCount()).isEqualTo(openCv.getDiffPixelCount());
+    }
+
+    @Test
+    public void testJavaEngine_IgnoreRegionBeyondBounds_IsClipped() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage image1 = createSolidImage(100, 100, Color.WHITE);
+        BufferedImage image2 = createSolidImage(100, 100, Color.WHITE);
+        for (int x = 80; x < 100; x++) {
+            for (int y = 0; y < 100; y++) {
+                image2.setRGB(x, y, Color.BLACK.getRGB());
+            }
+        }
+
+        List<int[]> ignoreRegions = Arrays.asList(new int[]{80, -10, 50, 200});
+        ImageComparator.ComparisonResult result = java.compare(image1, image2, 0.0, ignoreRegions);
+
+        assertThat(result.isMatch()).isTrue();
+        assertThat(result.getDiffPixelCount()).isZero();
+    }
+
+    @Test
+    public void testJavaEngine_CountsEveryDifferentPixel() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage image1 = createSolidImage(100, 100, Color.WHITE);
+        BufferedImage image2 = createSolidImage(100, 100, Color.WHITE);
+        for (int x = 10; x < 30; x++) {
+            for (int y = 10; y < 20; y++) {
+                image2.setRGB(x, y, Color.BLUE.getRGB());
+            }
+        }
+
+        ImageComparator.ComparisonResult result = java.compare(image1, image2);
+
+        assertThat(result.getDiffPixelCount()).isEqualTo(200);
+        assertThat(result.getDiffImage()).isNotNull();
+    }
+
+    // ===========================================
+    // Budgeted Comparison Tests
+    // ===========================================
+
+    @Test
+    public void testBudgeted_IdenticalCopy_SkipsPixelDiff() {
+        BufferedImage image1 = createNoiseImage(120, 80, 23);
+        BufferedImage image2 = new BufferedImage(120, 80, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image2.createGraphics();
+        g.drawImage(image1, 0, 0, null);
+        g.dispose();
+
+        ImageComparator.ComparisonResult result = comparator.compare(image1, image2, 0.0, null, 0.2);
+
+        assertThat(result.isIdentical()).isTrue();
+        assertThat(result.isMatch()).isTrue();
+        assertThat(result.getDiffPixelCount()).isZero();
+        assertThat(result.getDiffImage()).isNotNull();
+    }
+
+    @Test
+    public void testBudgeted_AboveFailBound_ExitsEarly() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage black = createSolidImage(100, 400, Color.BLACK);
+        BufferedImage white = createSolidImage(100, 400, Color.WHITE);
+
+        ImageComparator.ComparisonResult result = java.compare(black, white, 0.01, null, 0.2);
+
+        assertThat(result.isEarlyExit()).isTrue();
+        assertThat(result.isMatch()).isFalse();
+        assertThat(result.getDiffPercentage()).isGreaterThan(0.2).isLessThan(1.0);
+        assertThat(result.getDiffRegions()).isNull();
+        assertThat(result.getSummary()).contains("Diff: >");
+        assertThat(result.getDiffImage()).isNotNull();
+    }
+
+    @Test
+    public void testBudgeted_AboveFailBound_DiffImageMarksRowsAfterExit() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage baseline = createSolidImage(100, 400, Color.WHITE);
+        BufferedImage actual = createTopAndBottomChange(100, 400);
+
+        ImageComparator.ComparisonResult result = java.compare(baseline, actual, 0.01, null, 0.2);
+
+        assertThat(result.isEarlyExit()).isTrue();
+        assertEarlyExitDiffImageIsComplete(result, java.compare(baseline, actual, 0.01, null));
+    }
+
+    @Test
+    public void testBudgeted_BelowFailBound_CountsExactly() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage image1 = createSolidImage(100, 400, Color.WHITE);
+        BufferedImage image2 = createSolidImage(100, 400, Color.WHITE);
+        fillRect(image2, 0, 300, 100, 50, Color.BLACK);
+
+        ImageComparator.ComparisonResult result = java.compare(image1, image2, 0.01, null, 0.2);
+
+        assertThat(result.isEarlyExit()).isFalse();
+        assertThat(result.getDiffPixelCount()).isEqualTo(5000);
+        assertThat(result.getDiffRegions()).hasSize(1);
+    }
+
+    @Test
+    public void testBudgeted_Tiled_AboveFailBound_ExitsEarly() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage black = createSolidImage(100, 400, Color.BLACK);
+        BufferedImage white = createSolidImage(100, 400, Color.WHITE);
+
+        System.setProperty(ImageComparator.TILED_PROPERTY, "true");
+        System.setProperty(ImageComparator.TILE_HEIGHT_PROPERTY, "32");
+        try {
+            ImageComparator.ComparisonResult result = java.compare(black, white, 0.01, null, 0.2);
+
+            assertThat(result.isEarlyExit()).isTrue();
+            assertThat(result.getDiffPercentage()).isGreaterThan(0.2);
+
+            BufferedImage baseline = createSolidImage(100, 400, Color.WHITE);
+            BufferedImage actual = createTopAndBottomChange(100, 400);
+            ImageComparator.ComparisonResult budgeted = java.compare(baseline, actual, 0.01, null, 0.2);
+            assertThat(budgeted.isEarlyExit()).isTrue();
+            assertEarlyExitDiffImageIsComplete(budgeted, java.compare(baseline, actual, 0.01, null));
+        } finally {
+            System.clearProperty(ImageComparator.TILED_PROPERTY);
+            System.clearProperty(ImageComparator.TILE_HEIGHT_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testDiffImage_RenderedOnDemandAndCached() {
+        BufferedImage image1 = createSolidImage(100, 100, Color.WHITE);
+        BufferedImage image2 = createSolidImage(100, 100, Color.WHITE);
+        fillRect(image2, 10, 10, 20, 20, Color.RED);
+
+        ImageComparator.ComparisonResult result = comparator.compare(image1, image2);
+
+        assertThat(result.getDiffImageRenderer()).isNotNull();
+        BufferedImage diffImage = result.getDiffImage();
+        assertThat(diffImage.getWidth()).isEqualTo(100);
+        assertThat(diffImage.getHeight()).isEqualTo(100);
+        assertThat(result.getDiffImageRenderer()).isNull();
+        assertThat(result.getDiffImage()).isSameAs(diffImage);
+    }
+
+    @Test
+    public void testDiffImage_EarlyExitWithIgnoreRegion_MatchesEagerRender() {
+        assertEarlyExitRenderIsFaithful(new ImageComparator(0.01, ImageComparator.Engine.JAVA));
+    }
+
+    @Test
+    public void testDiffImage_EarlyExitWithIgnoreRegion_OpenCv_MatchesEagerRender() {
+        skipIfOpenCvUnavailable();
+        assertEarlyExitRenderIsFaithful(new ImageComparator(0.01, ImageComparator.Engine.OPENCV));
+    }
+
+    /**
+     * Early exit with an ignored change below the exit point: the lazily completed
+     * diff image must skip the ignored change and equal the eagerly counted render.
+     */
+    private void assertEarlyExitRenderIsFaithful(ImageComparator engine) {
+        BufferedImage baseline = createSolidImage(100, 400, Color.WHITE);
+        BufferedImage actual = createTopAndBottomChange(100, 400);
+        fillRect(actual, 10, 330, 10, 10, Color.BLACK);
+        List<int[]> ignoreRegions = List.of(new int[]{5, 325, 20, 20});
+
+        ImageComparator.ComparisonResult result = engine.compare(baseline, actual, 0.01, ignoreRegions, 0.2);
+
+        assertThat(result.isEarlyExit()).isTrue();
+        assertEarlyExitDiffImageIsComplete(result, engine.compare(baseline, actual, 0.01, ignoreRegions));
+    }
+
+    // ===========================================
+    // Diff Region Tests
+    // ===========================================
+
+    @Test
+    public void testRegions_NoiseSpeck_IsNotReported() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage image1 = createSolidImage(100, 100, Color.WHITE);
+        BufferedImage image2 = createSolidImage(100, 100, Color.WHITE);
+        fillRect(image2, 40, 40, 3, 3, Color.BLACK);
+
+        ImageComparator.ComparisonResult result = java.compare(image1, image2);
+
+        assertThat(result.getDiffPixelCount()).isEqualTo(9);
+        assertThat(result.getDiffRegions()).isEmpty();
+    }
+
+    @Test
+    public void testRegions_GapWithinConnectivityRadius_JoinsPieces() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage image1 = createSolidImage(100, 100, Color.WHITE);
+        BufferedImage image2 = createSolidImage(100, 100, Color.WHITE);
+        // Two 5-pixel lines, too small on their own, 3 pixels apart
+        fillRect(image2, 20, 50, 5, 1, Color.BLACK);
+        fillRect(image2, 27, 50, 5, 1, Color.BLACK);
+
+        ImageComparator.ComparisonResult result = java.compare(image1, image2);
+
+        assertThat(result.getDiffRegions()).hasSize(1);
+        assertThat(result.getDiffRegions().get(0)).containsExactly(20, 50, 31, 50, 10);
+    }
+
+    @Test
+    public void testRegions_GapBeyondConnectivityRadius_KeepsPiecesApart() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage image1 = createSolidImage(100, 100, Color.WHITE);
+        BufferedImage image2 = createSolidImage(100, 100, Color.WHITE);
+        fillRect(image2, 20, 50, 5, 1, Color.BLACK);
+        fillRect(image2, 28, 50, 5, 1, Color.BLACK);
+
+        ImageComparator.ComparisonResult result = java.compare(image1, image2);
+
+        assertThat(result.getDiffPixelCount()).isEqualTo(10);
+        assertThat(result.getDiffRegions()).isEmpty();
+    }
+
+    @Test
+    public void testRegions_NearbyRegions_AreMerged() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage image1 = createSolidImage(300, 300, Color.WHITE);
+        BufferedImage image2 = createSolidImage(300, 300, Color.WHITE);
+        fillRect(image2, 10, 10, 10, 10, Color.BLACK);
+        fillRect(image2, 50, 10, 10, 10, Color.BLACK);   // within merge distance of the first
+        fillRect(image2, 250, 250, 10, 10, Color.BLACK); // far away
+
+        ImageComparator.ComparisonResult result = java.compare(image1, image2);
+
+        assertThat(result.getDiffRegions()).hasSize(2);
+        assertThat(result.getDiffRegions().get(0)).containsExactly(10, 10, 59, 19, 200);
+        assertThat(result.getDiffRegions().get(1)).containsExactly(250, 250, 259, 259, 100);
+    }
+
+    @Test
+    public void testRegions_FullWidthBanner_IsSingleRegion() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage image1 = createSolidImage(800, 1200, Color.WHITE);
+        BufferedImage image2 = createSolidImage(800, 1200, Color.WHITE);
+        fillRect(image2, 0, 100, 800, 400, Color.BLACK);
+
+        ImageComparator.ComparisonResult result = java.compare(image1, image2);
+
+        assertThat(result.getDiffRegions()).hasSize(1);
+        assertThat(result.getDiffRegions().get(0)).containsExactly(0, 100, 799, 499, 320000);
+    }
+
+    // ===========================================
+    // Tiled Comparison Tests
+    // ===========================================
+
+    @Test
+    public void testTiled_SameCountAsSingleThreaded_RandomNoise() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage baseline = createNoiseImage(200, 300, 5);
+        BufferedImage actual = perturb(baseline, 13);
+
+        ImageComparator.ComparisonResult single = java.compare(baseline, actual);
+        ImageComparator.ComparisonResult tiled = compareTiled(java, baseline, actual, 32);
+
+        assertThat(tiled.getDiffPixelCount()).isPositive();
+        assertThat(tiled.getDiffPixelCount()).isEqualTo(single.getDiffPixelCount());
+        assertThat(tiled.getDiffPercentage()).isEqualTo(single.getDiffPercentage());
+        assertThat(tiled.isMatch()).isEqualTo(single.isMatch());
+    }
+
+    @Test
+    public void testTiled_RegionAcrossTileBoundary_IsReportedOnce() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage image1 = createSolidImage(200, 200, Color.WHITE);
+        BufferedImage image2 = createSolidImage(200, 200, Color.WHITE);
+        Graphics2D g = image2.createGraphics();
+        g.setColor(Color.BLUE);
+        g.fillRect(50, 28, 20, 9);    // straddles the boundary at row 32
+        g.fillRect(150, 150, 10, 10); // far away from the first block
+        g.dispose();
+
+        ImageComparator.ComparisonResult single = java.compare(image1, image2);
+        ImageComparator.ComparisonResult tiled = compareTiled(java, image1, image2, 32);
+
+        assertThat(tiled.getDiffPixelCount()).isEqualTo(280);
+        assertThat(tiled.getDiffRegions()).hasSize(2);
+        assertThat(tiled.getDiffRegions().get(0)).containsExactly(50, 28, 69, 36, 180);
+        assertThat(tiled.getDiffRegions()).usingElementComparator(Arrays::compare)
+                .containsExactlyElementsOf(single.getDiffRegions());
+    }
+
+    @Test
+    public void testTiled_OpenCvEngine_SameCountAsSingleThreaded() {
+        skipIfOpenCvUnavailable();
+        ImageComparator openCv = new ImageComparator(0.01, ImageComparator.Engine.OPENCV);
+        BufferedImage baseline = createNoiseImage(200, 300, 17);
+        BufferedImage actual = perturb(baseline, 19);
+
+        ImageComparator.ComparisonResult single = openCv.compare(baseline, actual);
+        ImageComparator.ComparisonResult tiled = compareTiled(openCv, baseline, actual, 50);
+
+        assertThat(tiled.getDiffPixelCount()).isEqualTo(single.getDiffPixelCount());
+    }
+
+    // ===========================================
+    // Coarse-to-Fine Comparison Tests
+    // ===========================================
+
+    @Test
+    public void testCoarseToFine_SameCountAndRegionsAsFullDiff() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage image1 = createSolidImage(400, 1000, Color.WHITE);
+        BufferedImage image2 = createSolidImage(400, 1000, Color.WHITE);
+        fillRect(image2, 50, 28, 20, 9, Color.BLUE);
+        fillRect(image2, 301, 603, 13, 70, Color.BLACK);
+        image2.setRGB(399, 999, Color.RED.getRGB()); // isolated pixel in the last cell
+
+        ImageComparator.ComparisonResult full = java.compare(image1, image2);
+        ImageComparator.ComparisonResult coarse = compareCoarseToFine(java, image1, image2, null);
+
+        assertThat(coarse.getDiffPixelCount()).isEqualTo(full.getDiffPixelCount());
+        assertThat(coarse.getDiffPercentage()).isEqualTo(full.getDiffPercentage());
+        assertThat(coarse.getDiffRegions()).usingElementComparator(Arrays::compare)
+                .containsExactlyElementsOf(full.getDiffRegions());
+    }
+
+    @Test
+    public void testCoarseToFine_MixedImageTypes_SameCountAsFullDiff() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage baseline = createNoiseImage(203, 157, 23);
+        BufferedImage actual = new BufferedImage(203, 157, BufferedImage.TYPE_3BYTE_BGR);
+        actual.getGraphics().drawImage(baseline, 0, 0, null);
+        fillRect(actual, 60, 40, 30, 30, Color.GREEN);
+
+        ImageComparator.ComparisonResult full = java.compare(baseline, actual);
+        ImageComparator.ComparisonResult coarse = compareCoarseToFine(java, baseline, actual, null);
+
+        assertThat(coarse.getDiffPixelCount()).isPositive();
+        assertThat(coarse.getDiffPixelCount()).isEqualTo(full.getDiffPixelCount());
+    }
+
+    @Test
+    public void testCoarseToFine_IgnoreRegions_SameCountAsFullDiff() {
+        ImageComparator java = new ImageComparator(0.01, ImageComparator.Engine.JAVA);
+        BufferedImage image1 = createSolidImage(300, 300, Color.WHITE);
+        BufferedImage image2 = createSolidImage(300, 300, Color.WHITE);
+        fillRect(image2, 10, 10, 100, 100, Color.BLACK);
+        List<int[]> ignoreRegions = Arrays.asList(new int[]{0, 0, 53, 300}, new int[]{70, 45, 11, 5});
+
+        ImageComparator.ComparisonResult full = java.compare(image1, image2, 0.01, ignoreRegions);
+        ImageComparator.ComparisonResult coarse = compareCoarseToFine(java, image1, image2, ignoreRegions);
+
+        assertThat(coarse.getDiffPixelCount()).isEqualTo(full.getDiffPixelCount());
+        assertThat(coarse.getDiffPixelCount()).isEqualTo(57 * 100 - 11 * 5);
+    }
+
+    @Test
+    public void testCoarseToFine_SamePixelsDifferentType_MatchesWithoutDiff() {
+        BufferedImage baseline = createSolidImage(100, 100, Color.WHITE);
+        BufferedImage actual = new BufferedImage(100, 100, BufferedImage.TYPE_3BYTE_BGR);
+        actual.getGraphics().drawImage(baseline, 0, 0, null);
+
+        ImageComparator.ComparisonResult result = compareCoarseToFine(comparator, baseline, actual, null);
+
+        assertThat(result.isMatch()).isTrue();
+        assertThat(result.getDiffPixelCount()).isZero();
+        assertThat(result.getDiffRegions()).isEmpty();
+        assertThat(result.getDiffImage()).isNotNull();
+    }
+
+    @Test
+    public void testCoarseToFine_FailBound_EarlyExit() {
+        BufferedImage black = createSolidImage(100, 400, Color.BLACK);
+        BufferedImage white = createSolidImage(100, 400, Color.WHITE);
+
+        System.setProperty(ImageComparator.PYRAMID_PROPERTY, "true");
+        try {
+            ImageComparator.ComparisonResult result = comparator.compare(black, white, 0.01, null, 0.2);
+
+            assertThat(result.isEarlyExit()).isTrue();
+            assertThat(result.getDiffPercentage()).isGreaterThan(0.2);
+            assertThat(result.getDiffImage()).isNotNull();
+
+            BufferedImage baseline = createSolidImage(100, 400, Color.WHITE);
+            BufferedImage actual = createTopAndBottomChange(100, 400);
+            ImageComparator.ComparisonResult budgeted = comparator.compare(baseline, actual, 0.01, null, 0.2);
+            assertThat(budgeted.isEarlyExit()).isTrue();
+            assertEarlyExitDiffImageIsComplete(budgeted, comparator.compare(baseline, actual, 0.01, null));
+        } finally {
+            System.clearProperty(ImageComparator.PYRAMID_PROPERTY);
+        }
+    }
+
+    private ImageComparator.ComparisonResult compareCoarseToFine(ImageComparator comparator, BufferedImage baseline,
+                                                                 BufferedImage actual, List<int[]> ignoreRegions) {
+        System.setProperty(ImageComparator.PYRAMID_PROPERTY, "true");
+        try {
+            return comparator.compare(baseline, actual, comparator.getDefaultTolerance(), ignoreRegions);
+        } finally {
+            System.clearProperty(ImageComparator.PYRAMID_PROPERTY);
+        }
+    }
+
+    private ImageComparator.ComparisonResult compareTiled(ImageComparator comparator, BufferedImage baseline,
+                                                          BufferedImage actual, int tileHeight) {
+        System.setProperty(ImageComparator.TILED_PROPERTY, "true");
+        System.setProperty(ImageComparator.TILE_HEIGHT_PROPERTY, String.valueOf(tileHeight));
+        try {
+            return comparator.compare(baseline, actual);
+        } finally {
+            System.clearProperty(ImageComparator.TILED_PROPERTY);
+            System.clearProperty(ImageComparator.TILE_HEIGHT_PROPERTY);
+        }
+    }
+
+    /**
+     * White image with its top half black (well above a 0.2 fail bound) and a
+     * small black block near the bottom, below where budgeted diffing stops.
+     */
+    private BufferedImage createTopAndBottomChange(int width, int height) {
+        BufferedImage image = createSolidImage(width, height, Color.WHITE);
+        fillRect(image, 0, 0, width, height / 2, Color.BLACK);
+        fillRect(image, 40, height - 30, 20, 20, Color.BLACK);
+        return image;
+    }
+
+    /**
+     * Check that an early-exit diff image circles the bottom block and equals the fully counted one.
+     */
+    private void assertEarlyExitDiffImageIsComplete(ImageComparator.ComparisonResult earlyExit,
+                                                    ImageComparator.ComparisonResult full) {
+        BufferedImage diffImage = earlyExit.getDiffImage();
+        BufferedImage expected = full.getDiffImage();
+        assertThat(full.getDiffRegions()).hasSize(2);
+
+        boolean bottomMarked = false;
+        for (int y = diffImage.getHeight() - 80; y < diffImage.getHeight() && !bottomMarked; y++) {
+            for (int x = 0; x < diffImage.getWidth() && !bottomMarked; x++) {
+                Color pixel = new Color(diffImage.getRGB(x, y));
+                bottomMarked = pixel.getRed() > 200 && pixel.getGreen() < 60 && pixel.getBlue() < 60;
+            }
+        }
+        assertThat(bottomMarked).as("difference in the last band is marked").isTrue();
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertThat(diffImage.getRGB(x, y)).as("pixel (%d, %d)", x, y).isEqualTo(expected.getRGB(x, y));
+            }
+        }
+    }
+
+    // ===========================================
+    // Benchmarks (opt-in)
+    // ===========================================
+
+    /**
+     * OpenCV compare latency at 1080p and 4K, next to the PNG round trip the Mat bridge
+     * made per comparison before rasters were copied directly (two images in, one mask out).
+     * Opt-in with -Dbnc.visual.benchmark=true; needs OpenCV.
+     */
+    @Test(groups = "benchmark")
+    public void benchmarkCompare_OpenCvRasterBridge_1080pAnd4k() throws IOException {
+        skipUnlessBenchmarkEnabled();
+        skipIfOpenCvUnavailable();
+        ImageComparator openCv = new ImageComparator(0.01, ImageComparator.Engine.OPENCV);
+        int rounds = 5;
+        for (int[] size : new int[][]{{1920, 1080}, {3840, 2160}}) {
+            BufferedImage baseline = createPageImage(size[0], size[1]);
+            BufferedImage actual = createPageImage(size[0], size[1]);
+            fillRect(actual, size[0] / 3, size[1] / 3, size[0] / 10, size[1] / 20, Color.RED);
+            Mat mask = Mat.zeros(size[1], size[0], CvType.CV_8UC1);
+
+            long roundTripNanos = 0;
+            long compareNanos = 0;
+            for (int round = 0; round <= rounds; round++) {
+                long startTime = System.nanoTime();
+                pngToMat(baseline).release();
+                pngToMat(actual).release();
+                MatOfByte encodedMask = new MatOfByte();
+                Imgcodecs.imencode(".png", mask, encodedMask);
+                assertThat(ImageIO.read(new ByteArrayInputStream(encodedMask.toArray()))).isNotNull();
+                long roundTripEnd = System.nanoTime();
+                assertThat(openCv.compare(baseline, actual).getDiffPixelCount()).isPositive();
+                // The first round warms up
+                if (round > 0) {
+                    roundTripNanos += roundTripEnd - startTime;
+                    compareNanos += System.nanoTime() - roundTripEnd;
+                }
+            }
+            log.info("OpenCV compare {}x{}: {} ms with the direct raster bridge; "
+                            + "the former PNG round trip alone took {} ms",
+                    size[0], size[1], String.format("%.1f", compareNanos / 1e6 / rounds),
+                    String.format("%.1f", roundTripNanos / 1e6 / rounds));
+        }
+    }
+
+    private static Mat pngToMat(BufferedImage image) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return Imgcodecs.imdecode(new MatOfByte(png.toByteArray()), Imgcodecs.IMREAD_COLOR);
+    }
+
+    private void skipUnlessBenchmarkEnabled() {
+        if (!Boolean.getBoolean(BENCHMARK_PROPERTY)) {
+            throw new SkipException("Benchmark disabled - run with -D" + BENCHMARK_PROPERTY + "=true");
+        }
+    }
+
+    /**
+     * Helper method to create a screenshot-like page: header bar, lines of text and colored blocks.
+     */
+    private BufferedImage createPageImage(int width, int height) {
+        Random random = new Random(42);
+        BufferedImage image = createSolidImage(width, height, Color.WHITE);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(0, 70, 140));
+        g.fillRect(0, 0, width, height / 14);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, Math.max(12, height / 60)));
+        g.setColor(Color.DARK_GRAY);
+        for (int y = height / 10; y < height; y += height / 40) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < width / 10; i++) {
+                line.append(random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+            }
+            g.drawString(line.toString(), width / 20, y);
+        }
+        for (int i = 0; i < 6; i++) {
+            g.setColor(new Color(random.nextInt(0x1000000)));
+            g.fillRect(random.nextInt(width * 3 / 4), random.nextInt(height * 3 / 4), width / 5, height / 6);
+        }
+        g.dispose();
+        return image;
+    }
+
+    private void fillRect(BufferedImage image, int x, int y, int width, int height, Color color) {
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(x, y, width, height);
+        g.dispose();
+    }
+
+    private void skipIfOpenCvUnavailable() {
+        if (!ImageComparator.isOpenCvAvailable()) {
+            throw new SkipException("OpenCV not available - parity check requires both engines");
+        }
+    }
+
+    /**
+     * Helper method to create a deterministic random-noise image.
+     */
+    private BufferedImage createNoiseImage(int width, int height, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Helper method to copy an image and shift channel values around the diff threshold.
+     */
+    private BufferedImage perturb(BufferedImage source, long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < source.getHeight(); y++) {
+            for (int x = 0; x < source.getWidth(); x++) {
+                int rgb = source.getRGB(x, y);
+                int r = clamp(((rgb >> 16) & 0xff) + random.nextInt(161) - 80);
+                int g = clamp(((rgb >> 8) & 0xff) + random.nextInt(161) - 80);
+                int b = clamp((rgb & 0xff) + random.nextInt(161) - 80);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    private int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
     /**
      * Helper method to create a solid color image.
      */
@@ -0,0 +1,85 @@
+package ca.bnc.ciam.autotests.unit.visual;
+
+import ca.bnc.ciam.autotests.visual.PerceptualHash;
+import org.testng.annotations.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for PerceptualHash.
+ */
+@Test(groups = "unit")
+public class PerceptualHashTest {
+
+    @Test
+    public void testIdenticalImages_ZeroDistances() {
+        PerceptualHash a = PerceptualHash.of(createPage(0, Color.RED));
+        PerceptualHash b = PerceptualHash.of(createPage(0, Color.RED));
+
+        assertThat(a.pHashDistance(b)).isZero();
+        assertThat(a.dHashDistance(b)).isZero();
+        assertThat(a.colorDistance(b)).isZero();
+    }
+
+    @Test
+    public void testDownscaledCopy_SmallDistances() {
+        BufferedImage page = createPage(0, Color.RED);
+        BufferedImage half = new BufferedImage(640, 400, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = half.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(page, 0, 0, 640, 400, null);
+        g.dispose();
+
+        PerceptualHash a = PerceptualHash.of(page);
+        PerceptualHash b = PerceptualHash.of(half);
+
+        assertThat(a.pHashDistance(b)).isLessThanOrEqualTo(2);
+        assertThat(a.colorDistance(b)).isLessThanOrEqualTo(8);
+    }
+
+    @Test
+    public void testRemovedBlock_LargePHashDistance() {
+        PerceptualHash a = PerceptualHash.of(createPage(0, Color.RED));
+        PerceptualHash b = PerceptualHash.of(createPage(0, Color.WHITE));
+
+        assertThat(a.pHashDistance(b)).isGreaterThanOrEqualTo(20);
+    }
+
+    @Test
+    public void testRecoloredBlockWithSameLuminance_LargeColorDistance() {
+        // Roughly equal luminance: the grayscale hashes barely move, the color grid does
+        PerceptualHash a = PerceptualHash.of(createPage(0, new Color(200, 50, 50)));
+        PerceptualHash b = PerceptualHash.of(createPage(0, new Color(60, 110, 50)));
+
+        assertThat(a.pHashDistance(b)).isLessThanOrEqualTo(4);
+        assertThat(a.colorDistance(b)).isGreaterThanOrEqualTo(64);
+    }
+
+    @Test
+    public void testShiftedBlock_NonZeroPHashDistance() {
+        PerceptualHash a = PerceptualHash.of(createPage(0, Color.RED));
+        PerceptualHash b = PerceptualHash.of(createPage(60, Color.RED));
+
+        assertThat(a.pHashDistance(b)).isGreaterThan(0);
+    }
+
+    private BufferedImage createPage(int blockShift, Color blockColor) {
+        BufferedImage image = new BufferedImage(1280, 800, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 1280, 800);
+        g.setColor(new Color(30, 60, 120));
+        g.fillRect(0, 0, 1280, 80);
+        g.setColor(blockColor);
+        g.fillRect(100 + blockShift, 150, 400, 200);
+        g.setColor(Color.DARK_GRAY);
+        for (int i = 0; i < 15; i++) {
+            g.fillRect(600, 150 + i * 30, 300 + (i % 4) * 60, 12);
+        }
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,95 @@
+package ca.bnc.ciam.autotests.unit.visual;
+
+import ca.bnc.ciam.autotests.visual.PngEncoder;
+import ca.bnc.ciam.autotests.visual.model.EncodingProfile;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for PngEncoder and its encoding profiles.
+ */
+@Test(groups = "unit")
+public class PngEncoderTest {
+
+    @Test
+    public void testEncode_BaselineAndArtifact_AreLossless() throws IOException {
+        BufferedImage image = createNoisyImage(320, 200);
+
+        for (EncodingProfile profile : new EncodingProfile[]{EncodingProfile.BASELINE, EncodingProfile.ARTIFACT}) {
+            BufferedImage decoded = decode(PngEncoder.encode(image, profile));
+
+            assertThat(decoded.getWidth()).isEqualTo(320);
+            for (int y = 0; y < 200; y += 3) {
+                for (int x = 0; x < 320; x += 5) {
+                    assertThat(decoded.getRGB(x, y)).as("%s at %d,%d", profile, x, y).isEqualTo(image.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEncode_Baseline_IsNotLargerThanArtifact() throws IOException {
+        BufferedImage image = createNoisyImage(640, 400);
+
+        assertThat(PngEncoder.encode(image, EncodingProfile.BASELINE).length)
+                .isLessThanOrEqualTo(PngEncoder.encode(image, EncodingProfile.ARTIFACT).length);
+    }
+
+    @Test
+    public void testEncode_Thumbnail_DownscalesKeepingAspectRatio() throws IOException {
+        BufferedImage image = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 1920, 1080);
+        g.setColor(Color.RED);
+        g.fillRect(0, 540, 1920, 2);
+        g.dispose();
+
+        byte[] thumbnail = PngEncoder.encode(image, EncodingProfile.THUMBNAIL);
+        BufferedImage decoded = decode(thumbnail);
+
+        assertThat(decoded.getWidth()).isEqualTo(EncodingProfile.THUMBNAIL.getMaxWidth());
+        assertThat(decoded.getHeight()).isEqualTo(270);
+        assertThat(thumbnail.length).isLessThan(PngEncoder.encode(image, EncodingProfile.ARTIFACT).length);
+        // A 2-pixel diff line is still visible after the 4x downscale
+        Color marked = new Color(decoded.getRGB(240, 135));
+        assertThat(marked.getGreen()).isLessThan(230);
+    }
+
+    @Test
+    public void testEncode_Thumbnail_KeepsSmallImages() throws IOException {
+        BufferedImage decoded = decode(PngEncoder.encode(createNoisyImage(200, 100), EncodingProfile.THUMBNAIL));
+
+        assertThat(decoded.getWidth()).isEqualTo(200);
+        assertThat(decoded.getHeight()).isEqualTo(100);
+    }
+
+    private BufferedImage decode(byte[] png) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(png));
+    }
+
+    private BufferedImage createNoisyImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        for (int i = 0; i < 30; i++) {
+            g.setColor(new Color(random.nextInt(0x1000000)));
+            g.fillRect(random.nextInt(width), random.nextInt(height), random.nextInt(80), random.nextInt(40));
+        }
+        g.dispose();
+        for (int i = 0; i < width * height / 20; i++) {
+            image.setRGB(random.nextInt(width), random.nextInt(height), random.nextInt(0x1000000));
+        }
+        return image;
+    }
+}
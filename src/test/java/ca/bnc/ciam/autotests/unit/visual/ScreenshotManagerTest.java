@@ -1,12 +1,19 @@
 package ca.bnc.ciam.autotests.unit.visual;
 
 import ca.bnc.ciam.autotests.visual.ScreenshotManager;
+import ca.bnc.ciam.autotests.visual.model.CaptureMode;
+import ca.bnc.ciam.autotests.visual.model.PageGeometry;
 import ca.bnc.ciam.autotests.visual.model.ScreenshotType;
 import org.openqa.selenium.Dimension;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Rectangle;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chromium.HasCdp;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import ru.yandex.qatools.ashot.Screenshot;
@@ -17,7 +24,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -51,6 +63,11 @@ public class ScreenshotManagerTest {
         when(mockOptions.window()).thenReturn(mockWindow);
     }
 
+    @AfterMethod
+    public void tearDown() {
+        System.clearProperty(ScreenshotManager.CAPTURE_MODE_PROPERTY);
+    }
+
     // ===========================================
     // Default Resolution Tests
     // ===========================================
@@ -98,10 +115,7 @@ public class ScreenshotManagerTest {
     @Test
     public void testCalculateScreenshotCount_SingleViewport() {
         // Page fits in one viewport
-        when(mockJs.executeScript("return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight);"))
-                .thenReturn(800L);
-        when(mockJs.executeScript("return window.innerHeight;"))
-                .thenReturn(1080L);
+        mockPage(800L, 1080L);
 
         int count = screenshotManager.calculateScreenshotCount(mockDriver);
 
@@ -111,10 +125,7 @@ public class ScreenshotManagerTest {
     @Test
     public void testCalculateScreenshotCount_TwoViewports() {
         // Page needs 2 viewports
-        when(mockJs.executeScript("return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight);"))
-                .thenReturn(1500L);
-        when(mockJs.executeScript("return window.innerHeight;"))
-                .thenReturn(1080L);
+        mockPage(1500L, 1080L);
 
         int count = screenshotManager.calculateScreenshotCount(mockDriver);
 
@@ -124,10 +135,7 @@ public class ScreenshotManagerTest {
     @Test
     public void testCalculateScreenshotCount_ThreeViewports() {
         // Page needs 3 viewports
-        when(mockJs.executeScript("return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight);"))
-                .thenReturn(3000L);
-        when(mockJs.executeScript("return window.innerHeight;"))
-                .thenReturn(1080L);
+        mockPage(3000L, 1080L);
 
         int count = screenshotManager.calculateScreenshotCount(mockDriver);
 
@@ -137,10 +145,7 @@ public class ScreenshotManagerTest {
     @Test
     public void testCalculateScreenshotCount_ExactlyTwoViewports() {
         // Page is exactly 2 viewports tall
-        when(mockJs.executeScript("return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight);"))
-                .thenReturn(2160L);
-        when(mockJs.executeScript("return window.innerHeight;"))
-                .thenReturn(1080L);
+        mockPage(2160L, 1080L);
 
         int count = screenshotManager.calculateScreenshotCount(mockDriver);
 
@@ -149,10 +154,7 @@ public class ScreenshotManagerTest {
 
     @Test
     public void testCalculateScreenshotCount_InvalidViewportHeight_ReturnsOne() {
-        when(mockJs.executeScript("return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight);"))
-                .thenReturn(1000L);
-        when(mockJs.executeScript("return window.innerHeight;"))
-                .thenReturn(0L);
+        mockPage(1000L, 0L);
 
         int count = screenshotManager.calculateScreenshotCount(mockDriver);
 
@@ -165,10 +167,7 @@ public class ScreenshotManagerTest {
 
     @Test
     public void testHasVerticalScroll_WhenPageFits_ReturnsFalse() {
-        when(mockJs.executeScript("return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight);"))
-                .thenReturn(800L);
-        when(mockJs.executeScript("return window.innerHeight;"))
-                .thenReturn(1080L);
+        mockPage(800L, 1080L);
 
         boolean hasScroll = screenshotManager.hasVerticalScroll(mockDriver);
 
@@ -177,10 +176,7 @@ public class ScreenshotManagerTest {
 
     @Test
     public void testHasVerticalScroll_WhenPageTaller_ReturnsTrue() {
-        when(mockJs.executeScript("return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight);"))
-                .thenReturn(2000L);
-        when(mockJs.executeScript("return window.innerHeight;"))
-                .thenReturn(1080L);
+        mockPage(2000L, 1080L);
 
         boolean hasScroll = screenshotManager.hasVerticalScroll(mockDriver);
 
@@ -189,10 +185,7 @@ public class ScreenshotManagerTest {
 
     @Test
     public void testHasVerticalScroll_WhenExactlyEqual_ReturnsFalse() {
-        when(mockJs.executeScript("return Math.max(document.body.scrollHeight, document.documentElement.scrollHeight);"))
-                .thenReturn(1080L);
-        when(mockJs.executeScript("return window.innerHeight;"))
-                .thenReturn(1080L);
+        mockPage(1080L, 1080L);
 
         boolean hasScroll = screenshotManager.hasVerticalScroll(mockDriver);
 
@@ -219,6 +212,274 @@ public class ScreenshotManagerTest {
         assertThat(result.getHeight()).isEqualTo(1080);
     }
 
+    // ===========================================
+    // Pipelined captureViewports Tests
+    // ===========================================
+
+    @Test
+    public void testCaptureViewports_Pipelined_ProcessesEachViewportInOrder() throws Exception {
+        mockPage(3000L, 1080L);
+        TakesScreenshot mockTs = (TakesScreenshot) mockDriver;
+        when(mockTs.getScreenshotAs(OutputType.BYTES)).thenReturn(
+                imageToBytes(new BufferedImage(100, 10, BufferedImage.TYPE_INT_RGB)),
+                imageToBytes(new BufferedImage(100, 20, BufferedImage.TYPE_INT_RGB)),
+                imageToBytes(new BufferedImage(100, 30, BufferedImage.TYPE_INT_RGB)));
+
+        List<CompletableFuture<String>> viewports = screenshotManager.captureViewports(mockDriver, 3,
+                (index, image) -> index + ":" + image.getHeight() + ":" + Thread.currentThread().getName());
+
+        assertThat(viewports).hasSize(3);
+        for (int i = 0; i < 3; i++) {
+            String[] processed = viewports.get(i).get(10, TimeUnit.SECONDS).split(":");
+            assertThat(processed[0]).isEqualTo(String.valueOf(i));
+            assertThat(processed[1]).isEqualTo(String.valueOf((i + 1) * 10));
+            assertThat(processed[2]).startsWith("visual-viewport-");
+        }
+        verify(mockJs).executeScript("window.scrollTo(0, 1080);");
+        verify(mockJs).executeScript("window.scrollTo(0, 1920);");
+    }
+
+    @Test
+    public void testCaptureViewports_ReturnsDecodedImages() throws IOException {
+        mockPage(2000L, 1080L);
+        TakesScreenshot mockTs = (TakesScreenshot) mockDriver;
+        when(mockTs.getScreenshotAs(OutputType.BYTES))
+                .thenReturn(imageToBytes(new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_RGB)));
+
+        List<BufferedImage> screenshots = screenshotManager.captureViewports(mockDriver, 2);
+
+        assertThat(screenshots).hasSize(2);
+        assertThat(screenshots).allSatisfy(image -> assertThat(image.getWidth()).isEqualTo(1920));
+    }
+
+    @Test
+    public void testCaptureViewports_UndecodableBytes_Throws() {
+        mockPage(1080L, 1080L);
+        TakesScreenshot mockTs = (TakesScreenshot) mockDriver;
+        when(mockTs.getScreenshotAs(OutputType.BYTES)).thenReturn(new byte[]{1, 2, 3});
+
+        assertThatThrownBy(() -> screenshotManager.captureViewports(mockDriver, 1))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Failed to capture viewport screenshot");
+    }
+
+    @Test
+    public void testCaptureViewports_PageAtTop_SkipsRedundantScrolls() throws IOException {
+        mockPage(1080L, 1080L);
+        TakesScreenshot mockTs = (TakesScreenshot) mockDriver;
+        when(mockTs.getScreenshotAs(OutputType.BYTES))
+                .thenReturn(imageToBytes(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB)));
+
+        screenshotManager.captureViewports(mockDriver, 1);
+
+        verify(mockJs, never()).executeScript("window.scrollTo(0, 0);");
+    }
+
+    @Test
+    public void testCaptureViewports_PageScrolled_ScrollsToTopAndBack() throws IOException {
+        mockPage(1080L, 1080L, 500L);
+        TakesScreenshot mockTs = (TakesScreenshot) mockDriver;
+        when(mockTs.getScreenshotAs(OutputType.BYTES))
+                .thenReturn(imageToBytes(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB)));
+
+        screenshotManager.captureViewports(mockDriver, 1);
+
+        verify(mockJs, times(2)).executeScript("window.scrollTo(0, 0);");
+    }
+
+    // ===========================================
+    // DevTools Capture Mode Tests
+    // ===========================================
+
+    @Test
+    public void testCaptureViewports_CdpMode_CutsFullPageIntoViewports() throws Exception {
+        WebDriver cdpDriver = mock(WebDriver.class, withSettings().extraInterfaces(
+                JavascriptExecutor.class, TakesScreenshot.class, HasCdp.class));
+        mockJs = (JavascriptExecutor) cdpDriver;
+        mockPage(2500L, 1000L);
+        BufferedImage fullPage = new BufferedImage(20, 2500, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 2500; y++) {
+            for (int x = 0; x < 20; x++) {
+                fullPage.setRGB(x, y, y);
+            }
+        }
+        when(((HasCdp) cdpDriver).executeCdpCommand(eq("Page.captureScreenshot"), anyMap())).thenReturn(
+                Map.of("data", Base64.getEncoder().encodeToString(imageToBytes(fullPage))));
+        System.setProperty(ScreenshotManager.CAPTURE_MODE_PROPERTY, "cdp");
+
+        List<BufferedImage> viewports = screenshotManager.captureViewports(cdpDriver, 3);
+
+        assertThat(viewports).hasSize(3);
+        assertThat(viewports).allSatisfy(image -> assertThat(image.getHeight()).isEqualTo(1000));
+        assertThat(viewports.get(0).getRGB(0, 0) & 0xFFFFFF).isEqualTo(0);
+        assertThat(viewports.get(1).getRGB(0, 0) & 0xFFFFFF).isEqualTo(1000);
+        // Last viewport aligned with the bottom, like a scrolling capture
+        assertThat(viewports.get(2).getRGB(0, 0) & 0xFFFFFF).isEqualTo(1500);
+        verify((TakesScreenshot) cdpDriver, never()).getScreenshotAs(any());
+    }
+
+    @Test
+    public void testCaptureViewports_CdpModeWithoutDevTools_FallsBackToScrolling() throws IOException {
+        mockPage(1080L, 1080L);
+        TakesScreenshot mockTs = (TakesScreenshot) mockDriver;
+        when(mockTs.getScreenshotAs(OutputType.BYTES))
+                .thenReturn(imageToBytes(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB)));
+        System.setProperty(ScreenshotManager.CAPTURE_MODE_PROPERTY, "cdp");
+
+        List<BufferedImage> viewports = screenshotManager.captureViewports(mockDriver, 1);
+
+        assertThat(viewports).hasSize(1);
+        verify(mockTs).getScreenshotAs(OutputType.BYTES);
+    }
+
+    @Test
+    public void testCaptureViewports_CdpCommandFails_FallsBackToScrolling() throws IOException {
+        WebDriver cdpDriver = mock(WebDriver.class, withSettings().extraInterfaces(
+                JavascriptExecutor.class, TakesScreenshot.class, HasCdp.class));
+        mockJs = (JavascriptExecutor) cdpDriver;
+        mockPage(1080L, 1080L);
+        when(((HasCdp) cdpDriver).executeCdpCommand(anyString(), anyMap()))
+                .thenThrow(new WebDriverException("DevTools unavailable"));
+        when(((TakesScreenshot) cdpDriver).getScreenshotAs(OutputType.BYTES))
+                .thenReturn(imageToBytes(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB)));
+        System.setProperty(ScreenshotManager.CAPTURE_MODE_PROPERTY, "cdp");
+
+        List<BufferedImage> viewports = screenshotManager.captureViewports(cdpDriver, 1);
+
+        assertThat(viewports).hasSize(1);
+        verify((TakesScreenshot) cdpDriver).getScreenshotAs(OutputType.BYTES);
+    }
+
+    @Test
+    public void testGetCaptureMode_DefaultsToScroll() {
+        assertThat(screenshotManager.getCaptureMode()).isEqualTo(CaptureMode.SCROLL);
+
+        System.setProperty(ScreenshotManager.CAPTURE_MODE_PROPERTY, "unknown");
+        assertThat(screenshotManager.getCaptureMode()).isEqualTo(CaptureMode.SCROLL);
+    }
+
+    @Test
+    public void testGetCaptureModeForPage_CdpOnlyWhenDevToolsCanTakeThePage() {
+        WebDriver cdpDriver = mock(WebDriver.class, withSettings().extraInterfaces(
+                JavascriptExecutor.class, TakesScreenshot.class, HasCdp.class));
+        PageGeometry page = PageGeometry.builder()
+                .scrollHeight(3000L).viewportHeight(1080L).devicePixelRatio(1.0).build();
+        PageGeometry tallPage = PageGeometry.builder()
+                .scrollHeight(20_000L).viewportHeight(1080L).devicePixelRatio(1.0).build();
+
+        assertThat(screenshotManager.getCaptureMode(cdpDriver, page)).isEqualTo(CaptureMode.SCROLL);
+
+        System.setProperty(ScreenshotManager.CAPTURE_MODE_PROPERTY, "cdp");
+        assertThat(screenshotManager.getCaptureMode(cdpDriver, page)).isEqualTo(CaptureMode.CDP);
+        assertThat(screenshotManager.getCaptureMode(cdpDriver, tallPage)).isEqualTo(CaptureMode.SCROLL);
+        assertThat(screenshotManager.getCaptureMode(mockDriver, page)).isEqualTo(CaptureMode.SCROLL);
+    }
+
+    // ===========================================
+    // Element Capture Tests
+    // ===========================================
+
+    @Test
+    public void testGetElementRects_SingleScriptCall() {
+        WebElement first = mock(WebElement.class);
+        WebElement second = mock(WebElement.class);
+        when(mockJs.executeScript(eq(ScreenshotManager.ELEMENT_RECTS_SCRIPT), any(Object[].class)))
+                .thenReturn(Arrays.asList(List.of(10L, 20L, 300L, 40L), null));
+
+        List<Rectangle> rects = screenshotManager.getElementRects(mockDriver, List.of(first, second));
+
+        assertThat(rects).hasSize(2);
+        assertThat(rects.get(0)).isEqualTo(new Rectangle(10, 20, 40, 300));
+        assertThat(rects.get(1)).isNull();
+        verify(first, never()).getRect();
+        verify(second, never()).getRect();
+    }
+
+    @Test
+    public void testGetElementRects_ScriptFails_FallsBackToGetRect() {
+        WebElement element = mock(WebElement.class);
+        when(element.getRect()).thenReturn(new Rectangle(1, 2, 3, 4));
+        when(mockJs.executeScript(eq(ScreenshotManager.ELEMENT_RECTS_SCRIPT), any(Object[].class)))
+                .thenThrow(new WebDriverException("script failed"));
+
+        List<Rectangle> rects = screenshotManager.getElementRects(mockDriver, List.of(element));
+
+        assertThat(rects).containsExactly(new Rectangle(1, 2, 3, 4));
+    }
+
+    @Test
+    public void testTakeElementScreenshot_CapturesOnlyElementClip() throws IOException {
+        WebElement element = mock(WebElement.class);
+        when(element.getScreenshotAs(OutputType.BYTES))
+                .thenReturn(imageToBytes(new BufferedImage(120, 30, BufferedImage.TYPE_INT_RGB)));
+
+        Screenshot screenshot = screenshotManager.takeElementScreenshot(mockDriver, element);
+
+        assertThat(screenshot.getImage().getWidth()).isEqualTo(120);
+        assertThat(screenshot.getImage().getHeight()).isEqualTo(30);
+        verify((TakesScreenshot) mockDriver, never()).getScreenshotAs(any());
+    }
+
+    @Test
+    public void testCaptureElements_CdpMode_RendersClipThroughDevTools() throws IOException {
+        WebDriver cdpDriver = mock(WebDriver.class, withSettings().extraInterfaces(
+                JavascriptExecutor.class, TakesScreenshot.class, HasCdp.class));
+        WebElement element = mock(WebElement.class);
+        when(((JavascriptExecutor) cdpDriver).executeScript(eq(ScreenshotManager.ELEMENT_RECTS_SCRIPT), any(Object[].class)))
+                .thenReturn(List.of(List.of(10L, 2000L, 50L, 20L)));
+        when(((HasCdp) cdpDriver).executeCdpCommand(eq("Page.captureScreenshot"), anyMap())).thenReturn(
+                Map.of("data", Base64.getEncoder().encodeToString(
+                        imageToBytes(new BufferedImage(50, 20, BufferedImage.TYPE_INT_RGB)))));
+        System.setProperty(ScreenshotManager.CAPTURE_MODE_PROPERTY, "cdp");
+
+        List<BufferedImage> images = screenshotManager.captureElements(cdpDriver, List.of(element));
+
+        assertThat(images).hasSize(1);
+        assertThat(images.get(0).getWidth()).isEqualTo(50);
+        verify(element, never()).getScreenshotAs(any());
+    }
+
+    // ===========================================
+    // Page Geometry Tests
+    // ===========================================
+
+    @Test
+    public void testProbeGeometry_SingleScriptCall() {
+        when(mockJs.executeScript(ScreenshotManager.GEOMETRY_SCRIPT)).thenReturn(Map.of(
+                "scrollWidth", 1920L, "scrollHeight", 4000L,
+                "viewportWidth", 1904L, "viewportHeight", 960L,
+                "outerWidth", 1920L, "outerHeight", 1080L,
+                "screenWidth", 1920L, "screenHeight", 1040L,
+                "devicePixelRatio", 1.25, "scrollY", 120L));
+
+        PageGeometry geometry = screenshotManager.probeGeometry(mockDriver);
+
+        assertThat(geometry.getScrollHeight()).isEqualTo(4000L);
+        assertThat(geometry.getViewportWidth()).isEqualTo(1904L);
+        assertThat(geometry.getDevicePixelRatio()).isEqualTo(1.25);
+        assertThat(geometry.getScrollY()).isEqualTo(120L);
+        assertThat(geometry.getScreenshotCount()).isEqualTo(5);
+        assertThat(geometry.hasVerticalScroll()).isTrue();
+        assertThat(geometry.isMaximized()).isTrue();
+        assertThat(geometry.isAtOrigin()).isFalse();
+        verify(mockJs, times(1)).executeScript(anyString());
+    }
+
+    @Test
+    public void testPageGeometry_LastViewportAlignedWithBottom() {
+        PageGeometry geometry = PageGeometry.builder().scrollHeight(3000L).viewportHeight(1080L).build();
+
+        assertThat(geometry.getScrollPosition(0, 3)).isEqualTo(0L);
+        assertThat(geometry.getScrollPosition(1, 3)).isEqualTo(1080L);
+        assertThat(geometry.getScrollPosition(2, 3)).isEqualTo(1920L);
+    }
+
+    @Test
+    public void testPageGeometry_ScriptFailure_Throws() {
+        assertThatThrownBy(() -> PageGeometry.fromScriptResult(null))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
     // ===========================================
     // takeScreenshot Tests
     // ===========================================
@@ -318,6 +579,17 @@ public class ScreenshotManagerTest {
     // Helper Methods
     // ===========================================
 
+    private void mockPage(long scrollHeight, long viewportHeight) {
+        mockPage(scrollHeight, viewportHeight, 0L);
+    }
+
+    private void mockPage(long scrollHeight, long viewportHeight, long scrollY) {
+        when(mockJs.executeScript(ScreenshotManager.GEOMETRY_SCRIPT)).thenReturn(Map.of(
+                "scrollWidth", 1920L, "scrollHeight", scrollHeight,
+                "viewportWidth", 1920L, "viewportHeight", viewportHeight,
+                "devicePixelRatio", 1L, "scrollX", 0L, "scrollY", scrollY));
+    }
+
     private byte[] imageToBytes(BufferedImage image) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         ImageIO.write(image, "PNG", baos);
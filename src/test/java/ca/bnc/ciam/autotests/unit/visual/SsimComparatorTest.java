@@ -0,0 +1,172 @@
+package ca.bnc.ciam.autotests.unit.visual;
+
+import ca.bnc.ciam.autotests.annotation.VisualCheckpoint;
+import ca.bnc.ciam.autotests.visual.IImageComparator;
+import ca.bnc.ciam.autotests.visual.ImageComparator;
+import ca.bnc.ciam.autotests.visual.SsimComparator;
+import ca.bnc.ciam.autotests.visual.model.ComparisonMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for SsimComparator.
+ */
+@Test(groups = "unit")
+public class SsimComparatorTest {
+
+    private SsimComparator comparator;
+
+    @BeforeMethod
+    public void setUp() {
+        comparator = new SsimComparator(0.01); // 1% tolerance
+    }
+
+    @Test
+    public void testIdenticalImages_ShouldMatch() {
+        ImageComparator.ComparisonResult result = comparator.compare(
+                createPage(Color.RED, null), createPage(Color.RED, null));
+
+        assertThat(result.isMatch()).isTrue();
+        assertThat(result.isIdentical()).isTrue();
+        assertThat(result.getDiffPixelCount()).isZero();
+        assertThat(result.getMeanSsim()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testRenderingNoise_ShouldMatch() {
+        BufferedImage baseline = createPage(Color.RED, null);
+        BufferedImage noisy = createPage(Color.RED, null);
+        Random random = new Random(42);
+        for (int y = 0; y < noisy.getHeight(); y++) {
+            for (int x = 0; x < noisy.getWidth(); x++) {
+                int rgb = noisy.getRGB(x, y);
+                int delta = random.nextInt(9) - 4;
+                noisy.setRGB(x, y, (clamp(((rgb >> 16) & 0xff) + delta) << 16)
+                        | (clamp(((rgb >> 8) & 0xff) + delta) << 8)
+                        | clamp((rgb & 0xff) + delta));
+            }
+        }
+
+        ImageComparator.ComparisonResult result = comparator.compare(baseline, noisy);
+
+        assertThat(result.isMatch()).isTrue();
+        assertThat(result.isIdentical()).isFalse();
+        assertThat(result.getMeanSsim()).isBetween(0.9, 1.0);
+    }
+
+    @Test
+    public void testRemovedBlock_ShouldNotMatch() {
+        ImageComparator.ComparisonResult result = comparator.compare(
+                createPage(Color.RED, null), createPage(Color.WHITE, null));
+
+        assertThat(result.isMatch()).isFalse();
+        assertThat(result.getDiffRegions()).isNotEmpty();
+        assertThat(result.getDiffImage()).isNotNull();
+        assertThat(result.getSummary()).contains("SSIM:");
+    }
+
+    @Test
+    public void testLowContrastChange_MissedByPixelDiff_CaughtBySsim() {
+        BufferedImage baseline = createPage(Color.RED, null);
+        BufferedImage actual = createPage(Color.RED, new Color(225, 225, 225));
+
+        ImageComparator.ComparisonResult pixel = new ImageComparator(0.01).compare(baseline, actual);
+        ImageComparator.ComparisonResult ssim = comparator.compare(baseline, actual);
+
+        assertThat(pixel.isMatch()).isTrue();
+        assertThat(ssim.isMatch()).isFalse();
+    }
+
+    @Test
+    public void testChangeInsideIgnoreRegion_ShouldMatch() {
+        List<int[]> ignoreRegions = Collections.singletonList(new int[]{30, 70, 140, 100});
+
+        ImageComparator.ComparisonResult result = comparator.compare(
+                createPage(Color.RED, null), createPage(Color.WHITE, null), 0.01, ignoreRegions);
+
+        assertThat(result.isMatch()).isTrue();
+        assertThat(result.getDiffPixelCount()).isZero();
+    }
+
+    @Test
+    public void testDifferentSizes_ScalesActual() {
+        BufferedImage baseline = createPage(Color.RED, null);
+        BufferedImage actual = new BufferedImage(200, 150, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = actual.createGraphics();
+        g.drawImage(baseline, 0, 0, 200, 150, null);
+        g.dispose();
+
+        ImageComparator.ComparisonResult result = comparator.compare(baseline, actual);
+
+        assertThat(result.isWasScaled()).isTrue();
+        assertThat(result.getActualWidth()).isEqualTo(200);
+        assertThat(result.getBaselineWidth()).isEqualTo(400);
+    }
+
+    @Test
+    public void testCommonInterface_BothEnginesInterchangeable() {
+        BufferedImage baseline = createPage(Color.RED, null);
+        BufferedImage actual = createPage(Color.WHITE, null);
+
+        for (IImageComparator engine : List.of(new ImageComparator(0.01), comparator)) {
+            assertThat(engine.compare(baseline, actual, engine.getDefaultTolerance(), null).isMatch()).isFalse();
+        }
+    }
+
+    @Test
+    public void testPixelComparison_MeanSsimNotComputed() {
+        ImageComparator.ComparisonResult result = new ImageComparator(0.01).compare(
+                createPage(Color.RED, null), createPage(Color.WHITE, null));
+
+        assertThat(result.getMeanSsim()).isEqualTo(-1.0);
+    }
+
+    @Test
+    @VisualCheckpoint
+    public void testVisualCheckpoint_DefaultMethodIsPixel() throws NoSuchMethodException {
+        VisualCheckpoint checkpoint = getClass()
+                .getMethod("testVisualCheckpoint_DefaultMethodIsPixel")
+                .getAnnotation(VisualCheckpoint.class);
+
+        assertThat(checkpoint.method()).isEqualTo(ComparisonMethod.PIXEL);
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    /**
+     * Page-like image: header bar, colored block, text lines, and optional faint rules below.
+     */
+    private BufferedImage createPage(Color blockColor, Color ruleColor) {
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 400, 300);
+        g.setColor(new Color(30, 60, 120));
+        g.fillRect(0, 0, 400, 40);
+        g.setColor(blockColor);
+        g.fillRect(40, 80, 120, 80);
+        g.setColor(Color.DARK_GRAY);
+        for (int i = 0; i < 6; i++) {
+            g.fillRect(200, 80 + i * 25, 120 + (i % 3) * 20, 10);
+        }
+        if (ruleColor != null) {
+            g.setColor(ruleColor);
+            for (int i = 0; i < 4; i++) {
+                g.fillRect(40, 200 + i * 15, 300, 4);
+            }
+        }
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,118 @@
+package ca.bnc.ciam.autotests.unit.web;
+
+import ca.bnc.ciam.autotests.web.util.PageSettleDetector;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Unit tests for PageSettleDetector with a mocked WebDriver.
+ */
+@Test(groups = "unit")
+public class PageSettleDetectorTest {
+
+    private WebDriver mockDriver;
+    private JavascriptExecutor mockJs;
+
+    @BeforeMethod
+    public void setUp() {
+        mockDriver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        mockJs = (JavascriptExecutor) mockDriver;
+        PageSettleDetector.resetSettleTime();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        System.clearProperty(PageSettleDetector.ADAPTIVE_PROPERTY);
+        PageSettleDetector.resetSettleTime();
+    }
+
+    @Test
+    public void testAwaitSettled_SettledPage_ReturnsBeforeUpperBound() {
+        when(mockJs.executeAsyncScript(anyString(), any(), any())).thenReturn(Map.of("settled", true, "ms", 34L));
+
+        long waited = PageSettleDetector.awaitSettled(mockDriver, 2000);
+
+        assertThat(waited).isLessThan(1000);
+        assertThat(PageSettleDetector.getSettleTime()).isEqualTo(waited);
+    }
+
+    @Test
+    public void testAwaitSettled_ScriptFails_SleepsUpperBound() {
+        when(mockJs.executeAsyncScript(anyString(), any(), any())).thenThrow(new ScriptTimeoutException("timeout"));
+
+        long waited = PageSettleDetector.awaitSettled(mockDriver, 150);
+
+        assertThat(waited).isGreaterThanOrEqualTo(150);
+    }
+
+    @Test
+    public void testAwaitSettled_AdaptiveDisabled_SleepsUpperBound() {
+        System.setProperty(PageSettleDetector.ADAPTIVE_PROPERTY, "false");
+
+        long waited = PageSettleDetector.awaitSettled(mockDriver, 120);
+
+        assertThat(waited).isGreaterThanOrEqualTo(120);
+    }
+
+    @Test
+    public void testSettleTime_AccumulatesUntilReset() {
+        when(mockJs.executeAsyncScript(anyString(), any(), any())).thenReturn(Map.of("settled", true));
+
+        long first = PageSettleDetector.awaitSettled(mockDriver, 200);
+        long second = PageSettleDetector.awaitSettled(mockDriver, 200);
+
+        assertThat(PageSettleDetector.getSettleTime()).isEqualTo(first + second);
+        PageSettleDetector.resetSettleTime();
+        assertThat(PageSettleDetector.getSettleTime()).isZero();
+    }
+
+    @Test
+    public void testAwaitImageLoaded_ReportsLoadState() {
+        WebElement image = mock(WebElement.class);
+
+        when(mockJs.executeAsyncScript(anyString(), any(), any())).thenReturn("loaded");
+        assertThat(PageSettleDetector.awaitImageLoaded(mockDriver, image, 1000)).isTrue();
+
+        when(mockJs.executeAsyncScript(anyString(), any(), any())).thenReturn("pending");
+        assertThat(PageSettleDetector.awaitImageLoaded(mockDriver, image, 0)).isFalse();
+    }
+
+    @Test
+    public void testAwaitImageLoaded_ImageWithoutPixels_KeepsWaitingUntilDeadline() {
+        WebElement image = mock(WebElement.class);
+        when(mockJs.executeAsyncScript(anyString(), any(), any())).thenReturn("broken");
+
+        long start = System.currentTimeMillis();
+        assertThat(PageSettleDetector.awaitImageLoaded(mockDriver, image, 300)).isFalse();
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(300);
+    }
+
+    @Test
+    public void testAwaitImageLoaded_LazySrcAssignedLater_ReportsLoaded() {
+        WebElement image = mock(WebElement.class);
+        when(mockJs.executeAsyncScript(anyString(), any(), any())).thenReturn("broken", "broken", "loaded");
+
+        assertThat(PageSettleDetector.awaitImageLoaded(mockDriver, image, 5000)).isTrue();
+    }
+
+    @Test
+    public void testAwaitImageLoaded_ScriptFails_ReturnsNull() {
+        when(mockJs.executeAsyncScript(anyString(), any(), any())).thenThrow(new ScriptTimeoutException("timeout"));
+
+        assertThat(PageSettleDetector.awaitImageLoaded(mockDriver, mock(WebElement.class), 1000)).isNull();
+    }
+}